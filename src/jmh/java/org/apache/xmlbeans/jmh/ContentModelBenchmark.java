@@ -0,0 +1,104 @@
+/*   Copyright 2004 The Apache Software Foundation
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.xmlbeans.jmh;
+
+import org.apache.xmlbeans.*;
+import org.apache.xmlbeans.impl.schema.ContentModelAutomaton;
+import org.apache.xmlbeans.impl.schema.SchemaTypeImpl;
+import org.apache.xmlbeans.impl.schema.SchemaTypeVisitorImpl;
+import org.openjdk.jmh.annotations.*;
+
+import javax.xml.namespace.QName;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checking the children of an element against a nested choice/sequence content model,
+ * with the particle tree visitor and with the compiled automaton the validator uses.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ContentModelBenchmark {
+    private static final String NS = "urn:jmh:cm";
+
+    private static final String SCHEMA =
+        "<xs:schema xmlns:xs='http://www.w3.org/2001/XMLSchema' targetNamespace='urn:jmh:cm' elementFormDefault='qualified'>" +
+        "  <xs:complexType name='model'><xs:sequence maxOccurs='unbounded'>" +
+        "    <xs:choice>" +
+        "      <xs:sequence><xs:element name='a' type='xs:string'/><xs:element name='b' type='xs:string' minOccurs='0'/></xs:sequence>" +
+        "      <xs:sequence><xs:element name='c' type='xs:string'/>" +
+        "        <xs:choice maxOccurs='3'><xs:element name='d' type='xs:string'/><xs:element name='e' type='xs:string'/></xs:choice>" +
+        "      </xs:sequence>" +
+        "      <xs:element name='f' type='xs:string' maxOccurs='10'/>" +
+        "    </xs:choice>" +
+        "    <xs:element name='g' type='xs:string'/>" +
+        "  </xs:sequence></xs:complexType>" +
+        "</xs:schema>";
+
+    private static final String[] PATTERN = {"a", "b", "g", "c", "d", "e", "g", "f", "f", "f", "g"};
+
+    @Param({"10", "100"})
+    public int repeat;
+
+    private SchemaParticle _model;
+    private ContentModelAutomaton _automaton;
+    private QName[] _children;
+
+    @Setup
+    public void setup() throws Exception {
+        SchemaTypeSystem sts = XmlBeans.compileXsd(new XmlObject[]{XmlObject.Factory.parse(SCHEMA)},
+            XmlBeans.getBuiltinTypeSystem(), null);
+        SchemaTypeImpl type = (SchemaTypeImpl) sts.findType(new QName(NS, "model"));
+
+        _model = type.getContentModel();
+        _automaton = type.getContentModelAutomaton();
+
+        _children = new QName[repeat * PATTERN.length];
+        for (int i = 0; i < _children.length; i++) {
+            _children[i] = new QName(NS, PATTERN[i % PATTERN.length]);
+        }
+
+        if (!visitor() || !automaton()) {
+            throw new IllegalStateException("children not valid");
+        }
+    }
+
+    @Benchmark
+    public boolean visitor() {
+        SchemaTypeVisitorImpl visitor = new SchemaTypeVisitorImpl(_model);
+        for (QName name : _children) {
+            if (!visitor.visit(name)) {
+                return false;
+            }
+        }
+        return visitor.visit(null);
+    }
+
+    @Benchmark
+    public boolean automaton() {
+        int state = ContentModelAutomaton.START;
+        for (QName name : _children) {
+            state = _automaton.next(state, name);
+            if (state < 0) {
+                return false;
+            }
+        }
+        return _automaton.isAccepting(state);
+    }
+}
@@ -0,0 +1,68 @@
+/*   Copyright 2004 The Apache Software Foundation
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.xmlbeans.jmh;
+
+import org.apache.xmlbeans.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing and reading the smallest purchase order, with a new locale for every
+ * document and with a document context, which is reset after each document.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ContextBenchmark {
+    private byte[] _doc;
+    private SchemaTypeLoader _loader;
+    private String _customerPath;
+    private XmlOptions _options;
+    private XmlDocumentContext _context;
+    private XmlOptions _contextOptions;
+
+    @Setup
+    public void setup() throws Exception {
+        _doc = Corpus.purchaseOrder("1");
+        _loader = Corpus.purchaseOrderLoader();
+        _customerPath = "declare namespace po='" + Corpus.PO_NS + "' $this/po:purchase-order/po:customer/po:name";
+        _options = new XmlOptions();
+        _context = XmlBeans.newDocumentContext();
+        _contextOptions = new XmlOptions().setDocumentContext(_context);
+    }
+
+    @Benchmark
+    public XmlObject perDocument() throws Exception {
+        return parseAndRead(_options);
+    }
+
+    @Benchmark
+    public XmlObject context() throws Exception {
+        XmlObject name = parseAndRead(_contextOptions);
+        _context.reset();
+        return name;
+    }
+
+    private XmlObject parseAndRead(XmlOptions options) throws Exception {
+        XmlObject doc = _loader.parse(new ByteArrayInputStream(_doc), null, options);
+        return doc.selectPath(_customerPath)[0];
+    }
+}
@@ -0,0 +1,67 @@
+/*   Copyright 2004 The Apache Software Foundation
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.xmlbeans.jmh;
+
+import org.apache.xmlbeans.XmlCursor;
+import org.apache.xmlbeans.XmlObject;
+import org.apache.xmlbeans.XmlOptions;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Copying a template document, with and without changing a field of the copy.
+ * The copies of a frozen template share its nodes until they are accessed.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CopyBenchmark {
+    @Param({"1", "3", "7"})
+    public String size;
+
+    @Param({"false", "true"})
+    public boolean frozen;
+
+    private XmlObject _template;
+    private String _customerPath;
+
+    @Setup
+    public void setup() throws Exception {
+        _template = Corpus.purchaseOrderLoader().parse(
+            new ByteArrayInputStream(Corpus.purchaseOrder(size)), null, new XmlOptions().setLoadFrozen(frozen));
+        _customerPath = "declare namespace po='" + Corpus.PO_NS + "' $this/po:purchase-order/po:customer/po:name";
+    }
+
+    @Benchmark
+    public XmlObject copy() {
+        return _template.copy();
+    }
+
+    @Benchmark
+    public XmlObject copyAndModify() {
+        XmlObject copy = _template.copy();
+        XmlObject name = copy.selectPath(_customerPath)[0];
+        XmlCursor c = name.newCursor();
+        c.setTextValue("changed");
+        c.dispose();
+        return copy;
+    }
+}
@@ -0,0 +1,58 @@
+/*   Copyright 2004 The Apache Software Foundation
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.xmlbeans.jmh;
+
+import org.apache.xmlbeans.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+/**
+ * Fixed benchmark corpora shared by the JMH benchmarks.
+ * <p>
+ * The documents are the purchase order instances of the perf suite
+ * (test/perf/cases/xsd/purchase-order-N.xml), ranging from 1.5kb (1) to 135kb (7).
+ * The schema is compiled at runtime, so the benchmarks don't depend on generated beans.
+ * The location of the cases can be overridden with the system property {@code xmlbeans.jmh.cases}.
+ */
+final class Corpus {
+    static final String PO_NS = "http://openuri.org/easypo";
+
+    private static final File CASES_DIR =
+        new File(System.getProperty("xmlbeans.jmh.cases", "test/perf/cases/xsd"));
+
+    private static SchemaTypeSystem _poTypeSystem;
+
+    private Corpus() {
+    }
+
+    static byte[] purchaseOrder(String size) throws IOException {
+        return Files.readAllBytes(new File(CASES_DIR, "purchase-order-" + size + ".xml").toPath());
+    }
+
+    static File purchaseOrderSchema() {
+        return new File(CASES_DIR, "purchase-order.xsd");
+    }
+
+    static synchronized SchemaTypeLoader purchaseOrderLoader() throws IOException, XmlException {
+        if (_poTypeSystem == null) {
+            XmlObject xsd = XmlObject.Factory.parse(purchaseOrderSchema());
+            _poTypeSystem = XmlBeans.compileXsd(new XmlObject[]{xsd}, XmlBeans.getBuiltinTypeSystem(), null);
+        }
+        return XmlBeans.typeLoaderUnion(_poTypeSystem, XmlBeans.getBuiltinTypeSystem());
+    }
+}
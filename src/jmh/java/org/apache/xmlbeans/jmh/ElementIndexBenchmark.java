@@ -0,0 +1,59 @@
+/*   Copyright 2004 The Apache Software Foundation
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.xmlbeans.jmh;
+
+import org.apache.xmlbeans.XmlObject;
+import org.apache.xmlbeans.XmlOptions;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The line item selection of the purchase order perf tests - a descendant path run
+ * on the document element - with the builtin xpath engine walking the subtree or
+ * looking the elements up in the element index.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ElementIndexBenchmark {
+    private static final String PATH = "declare namespace s='" + Corpus.PO_NS + "'; .//s:line-item";
+
+    @Param({"3", "7"})
+    public String size;
+
+    @Param({"false", "true"})
+    public boolean index;
+
+    private XmlObject _purchaseOrder;
+    private XmlOptions _options;
+
+    @Setup
+    public void setup() throws Exception {
+        XmlObject doc = XmlObject.Factory.parse(new ByteArrayInputStream(Corpus.purchaseOrder(size)));
+        _purchaseOrder = doc.selectPath("*")[0];
+        _options = new XmlOptions().setXPathUseElementIndex(index);
+    }
+
+    @Benchmark
+    public XmlObject[] selectLineItems() {
+        return _purchaseOrder.selectPath(PATH, _options);
+    }
+}
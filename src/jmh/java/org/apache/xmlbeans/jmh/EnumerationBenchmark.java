@@ -0,0 +1,97 @@
+/*   Copyright 2004 The Apache Software Foundation
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.xmlbeans.jmh;
+
+import org.apache.xmlbeans.*;
+import org.openjdk.jmh.annotations.*;
+
+import javax.xml.namespace.QName;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Validating a document of code list values against a string enumeration, and
+ * comparing the values with each enumeration value as the facet check used to.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EnumerationBenchmark {
+    private static final String NS = "urn:jmh:enum";
+    private static final int VALUES = 100;
+
+    @Param({"10", "5000"})
+    public int codes;
+
+    private SchemaType _codeType;
+    private XmlObject _doc;
+    private String[] _values;
+
+    @Setup
+    public void setup() throws Exception {
+        StringBuilder enums = new StringBuilder();
+        for (int i = 0; i < codes; i++) {
+            enums.append("<xs:enumeration value='CODE-").append(i).append("'/>");
+        }
+
+        String schema =
+            "<xs:schema xmlns:xs='http://www.w3.org/2001/XMLSchema' xmlns:t='urn:jmh:enum' targetNamespace='urn:jmh:enum' elementFormDefault='qualified'>" +
+            "  <xs:simpleType name='code'><xs:restriction base='xs:string'>" + enums + "</xs:restriction></xs:simpleType>" +
+            "  <xs:element name='codes'><xs:complexType><xs:sequence>" +
+            "    <xs:element name='code' type='t:code' maxOccurs='unbounded'/>" +
+            "  </xs:sequence></xs:complexType></xs:element>" +
+            "</xs:schema>";
+
+        SchemaTypeSystem sts = XmlBeans.compileXsd(new XmlObject[]{XmlObject.Factory.parse(schema)},
+            XmlBeans.getBuiltinTypeSystem(), null);
+        _codeType = sts.findType(new QName(NS, "code"));
+
+        _values = new String[VALUES];
+        StringBuilder doc = new StringBuilder("<codes xmlns='urn:jmh:enum'>");
+        for (int i = 0; i < VALUES; i++) {
+            // spread the values over the whole code list
+            _values[i] = "CODE-" + (int) ((long) i * codes / VALUES);
+            doc.append("<code>").append(_values[i]).append("</code>");
+        }
+        doc.append("</codes>");
+        _doc = sts.parse(doc.toString(), null, null);
+
+        if (!validate() || scan() != VALUES) {
+            throw new IllegalStateException("values not valid");
+        }
+    }
+
+    @Benchmark
+    public boolean validate() {
+        return _doc.validate();
+    }
+
+    @Benchmark
+    public int scan() {
+        int found = 0;
+        for (String v : _values) {
+            for (XmlAnySimpleType e : _codeType.getEnumerationValues()) {
+                if (v.equals(e.getStringValue())) {
+                    found++;
+                    break;
+                }
+            }
+        }
+        return found;
+    }
+}
@@ -0,0 +1,74 @@
+/*   Copyright 2004 The Apache Software Foundation
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.xmlbeans.jmh;
+
+import org.apache.xmlbeans.SchemaTypeLoader;
+import org.apache.xmlbeans.XmlBeans;
+import org.apache.xmlbeans.XmlObject;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLInputFactory;
+import java.io.ByteArrayInputStream;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Binding of the repeated line items of a purchase order - one fragment at a time
+ * ({@link XmlBeans#parseFragments}) against loading the whole document.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FragmentBenchmark {
+    private static final QName PURCHASE_ORDER = new QName(Corpus.PO_NS, "purchase-order");
+    private static final QName LINE_ITEM = new QName(Corpus.PO_NS, "line-item");
+
+    @Param({"1", "3", "7"})
+    public String size;
+
+    private byte[] _bytes;
+    private SchemaTypeLoader _loader;
+    private XMLInputFactory _factory;
+
+    @Setup
+    public void setup() throws Exception {
+        _bytes = Corpus.purchaseOrder(size);
+        _loader = Corpus.purchaseOrderLoader();
+        _factory = XMLInputFactory.newFactory();
+    }
+
+    @Benchmark
+    public void fragments(Blackhole bh) throws Exception {
+        Iterator<XmlObject> it = XmlBeans.parseFragments(
+            _factory.createXMLStreamReader(new ByteArrayInputStream(_bytes)), LINE_ITEM, _loader, null);
+        while (it.hasNext()) {
+            bh.consume(it.next());
+        }
+    }
+
+    @Benchmark
+    public void document(Blackhole bh) throws Exception {
+        XmlObject doc = _loader.parse(new ByteArrayInputStream(_bytes), null, null);
+        for (XmlObject item : doc.selectChildren(PURCHASE_ORDER)[0].selectChildren(LINE_ITEM)) {
+            bh.consume(item);
+        }
+    }
+}
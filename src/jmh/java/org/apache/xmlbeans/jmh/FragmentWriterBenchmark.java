@@ -0,0 +1,96 @@
+/*   Copyright 2004 The Apache Software Foundation
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.xmlbeans.jmh;
+
+import org.apache.xmlbeans.XmlBeans;
+import org.apache.xmlbeans.XmlCursor;
+import org.apache.xmlbeans.XmlFragmentWriter;
+import org.apache.xmlbeans.XmlObject;
+import org.openjdk.jmh.annotations.*;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.ByteArrayInputStream;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writing a purchase order with many line items, built as a whole and then saved,
+ * or written item by item with an XmlFragmentWriter.  The items are copies of a line
+ * item of the corpus, the output is discarded.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FragmentWriterBenchmark {
+    private static final QName PURCHASE_ORDER = new QName(Corpus.PO_NS, "purchase-order", "po");
+
+    @Param({"100", "1000"})
+    public int items;
+
+    private XmlObject _item;
+    private XMLOutputFactory _factory;
+    private final OutputStream _out = new OutputStream() {
+        public void write(int b) {
+        }
+
+        public void write(byte[] b, int off, int len) {
+        }
+    };
+
+    @Setup
+    public void setup() throws Exception {
+        XmlObject doc = Corpus.purchaseOrderLoader().parse(
+            new ByteArrayInputStream(Corpus.purchaseOrder("1")), null, null);
+        _item = doc.selectPath("declare namespace po='" + Corpus.PO_NS + "' $this//po:line-item")[0];
+        _factory = XMLOutputFactory.newFactory();
+    }
+
+    @Benchmark
+    public void wholeDocument() throws Exception {
+        XmlObject doc = XmlObject.Factory.newInstance();
+        XmlCursor c = doc.newCursor();
+        c.toNextToken();
+        c.beginElement(PURCHASE_ORDER);
+
+        XmlCursor item = _item.newCursor();
+        for (int i = 0; i < items; i++) {
+            item.copyXml(c);
+        }
+        item.dispose();
+        c.dispose();
+
+        doc.save(_out);
+    }
+
+    @Benchmark
+    public void fragmentWriter() throws Exception {
+        XMLStreamWriter xsw = _factory.createXMLStreamWriter(_out, "UTF-8");
+        XmlFragmentWriter w = XmlBeans.newFragmentWriter(xsw, null);
+        w.writeStartElement(PURCHASE_ORDER);
+
+        for (int i = 0; i < items; i++) {
+            w.write(_item.copy());
+        }
+
+        w.close();
+        xsw.close();
+    }
+}
@@ -0,0 +1,76 @@
+/*   Copyright 2004 The Apache Software Foundation
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.xmlbeans.jmh;
+
+import org.apache.xmlbeans.XmlCursor;
+import org.apache.xmlbeans.XmlObject;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cursor navigation over a loaded document - token walk and element walk,
+ * which exercise Cursor/Cur movement and the Locale enter/exit path per call.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class NavigateBenchmark {
+    @Param({"1", "3", "7"})
+    public String size;
+
+    private XmlObject _doc;
+
+    @Setup
+    public void setup() throws Exception {
+        _doc = XmlObject.Factory.parse(new ByteArrayInputStream(Corpus.purchaseOrder(size)));
+    }
+
+    @Benchmark
+    public int tokenWalk() {
+        int n = 0;
+        XmlCursor c = _doc.newCursor();
+        while (!c.toNextToken().isNone()) {
+            n++;
+        }
+        c.dispose();
+        return n;
+    }
+
+    @Benchmark
+    public int elementWalk() {
+        int n = 0;
+        XmlCursor c = _doc.newCursor();
+        c.toFirstChild();
+        if (c.toFirstChild()) {
+            do {
+                n++;
+                if (c.toFirstChild()) {
+                    do {
+                        n += c.getTextValue().length();
+                    } while (c.toNextSibling());
+                    c.toParent();
+                }
+            } while (c.toNextSibling());
+        }
+        c.dispose();
+        return n;
+    }
+}
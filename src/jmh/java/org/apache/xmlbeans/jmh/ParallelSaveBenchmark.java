@@ -0,0 +1,68 @@
+/*   Copyright 2004 The Apache Software Foundation
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.xmlbeans.jmh;
+
+import org.apache.xmlbeans.XmlObject;
+import org.apache.xmlbeans.XmlOptions;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.CharArrayWriter;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Saving a frozen document optimized for speed, with the top-level children of the
+ * document element saved by one thread or in parallel by several.  The document of
+ * size 3 has too few children to be partitioned, so it measures the cost of the check.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParallelSaveBenchmark {
+    @Param({"3", "7"})
+    public String size;
+
+    @Param({"1", "4"})
+    public int parallelism;
+
+    private XmlObject _doc;
+    private XmlOptions _options;
+
+    @Setup
+    public void setup() throws Exception {
+        _doc = XmlObject.Factory.parse(
+            new ByteArrayInputStream(Corpus.purchaseOrder(size)), new XmlOptions().setLoadFrozen(true));
+        _options = new XmlOptions().setSaveOptimizeForSpeed(true).setSaveDirectUtf8(true).setSaveParallelism(parallelism);
+    }
+
+    @Benchmark
+    public int writer() throws Exception {
+        CharArrayWriter w = new CharArrayWriter();
+        _doc.save(w, _options);
+        return w.size();
+    }
+
+    @Benchmark
+    public int outputStream() throws Exception {
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        _doc.save(os, _options);
+        return os.size();
+    }
+}
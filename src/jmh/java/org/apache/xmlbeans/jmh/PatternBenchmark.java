@@ -0,0 +1,106 @@
+/*   Copyright 2004 The Apache Software Foundation
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.xmlbeans.jmh;
+
+import org.apache.xmlbeans.*;
+import org.apache.xmlbeans.impl.regex.RegularExpression;
+import org.openjdk.jmh.annotations.*;
+
+import javax.xml.namespace.QName;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Matching pattern facets from several threads at once: validating documents whose
+ * values are checked against patterns, and matching the same values with the
+ * compiled automaton and with the backtracking matcher.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class PatternBenchmark {
+    private static final String NS = "urn:jmh:pattern";
+    private static final int VALUES = 100;
+
+    private static final String SCHEMA =
+        "<xs:schema xmlns:xs='http://www.w3.org/2001/XMLSchema' xmlns:t='urn:jmh:pattern' targetNamespace='urn:jmh:pattern' elementFormDefault='qualified'>" +
+        "  <xs:simpleType name='code'><xs:restriction base='xs:string'>" +
+        "    <xs:pattern value='[A-Z]{2}-\\d{4}(/[a-z]{1,8})?'/></xs:restriction></xs:simpleType>" +
+        "  <xs:simpleType name='mail'><xs:restriction base='xs:string'>" +
+        "    <xs:pattern value='[\\w.\\-]+@[\\w\\-]+(\\.[\\w\\-]+)*\\.[a-z]{2,6}'/></xs:restriction></xs:simpleType>" +
+        "  <xs:element name='items'><xs:complexType><xs:sequence maxOccurs='unbounded'>" +
+        "    <xs:element name='code' type='t:code'/><xs:element name='mail' type='t:mail'/>" +
+        "  </xs:sequence></xs:complexType></xs:element>" +
+        "</xs:schema>";
+
+    private XmlObject _doc;
+    private RegularExpression _pattern;
+    private String[] _values;
+
+    @Setup
+    public void setup() throws Exception {
+        SchemaTypeSystem sts = XmlBeans.compileXsd(new XmlObject[]{XmlObject.Factory.parse(SCHEMA)},
+            XmlBeans.getBuiltinTypeSystem(), null);
+
+        _values = new String[VALUES];
+        StringBuilder doc = new StringBuilder("<items xmlns='urn:jmh:pattern'>");
+        for (int i = 0; i < VALUES; i++) {
+            _values[i] = "AB-" + (1000 + i) + (i % 2 == 0 ? "/item" : "");
+            doc.append("<code>").append(_values[i]).append("</code>");
+            doc.append("<mail>user.").append(i).append("@mail.example.org</mail>");
+        }
+        doc.append("</items>");
+        _doc = sts.parse(doc.toString(), null, null);
+
+        SchemaType code = sts.findType(new QName(NS, "code"));
+        _pattern = new RegularExpression(code.getPatterns()[0], "X");
+
+        if (!validate() || automaton() != VALUES || backtracking() != VALUES) {
+            throw new IllegalStateException("values not valid");
+        }
+    }
+
+    @Benchmark
+    public boolean validate() {
+        return _doc.validate();
+    }
+
+    @Benchmark
+    public int automaton() {
+        int matched = 0;
+        for (String v : _values) {
+            if (_pattern.matches(v)) {
+                matched++;
+            }
+        }
+        return matched;
+    }
+
+    @Benchmark
+    public int backtracking() {
+        int matched = 0;
+        for (String v : _values) {
+            // matching a range of the string goes through the backtracking matcher
+            if (_pattern.matches(v, 0, v.length())) {
+                matched++;
+            }
+        }
+        return matched;
+    }
+}
@@ -0,0 +1,116 @@
+/*   Copyright 2004 The Apache Software Foundation
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.xmlbeans.jmh;
+
+import org.apache.xmlbeans.XmlObject;
+import org.apache.xmlbeans.XmlOptions;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.CharArrayWriter;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialization of a loaded document through the different savers:
+ * Saver.TextSaver (xmlText / Writer), Saver.OptimizedForSpeedSaver,
+ * Saver.InputStreamSaver (OutputStream) and Saver.Utf8Saver (OutputStream optimized for speed).
+ * The direct buffer benchmarks fill a pooled direct buffer, through a stream and a channel.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SaveBenchmark {
+    @Param({"1", "3", "7"})
+    public String size;
+
+    private XmlObject _doc;
+    private XmlOptions _speedOptions;
+    private XmlOptions _utf8Options;
+    private final ByteBuffer _direct = ByteBuffer.allocateDirect(8192);
+    private final byte[] _bytes = new byte[8192];
+
+    @Setup
+    public void setup() throws Exception {
+        _doc = XmlObject.Factory.parse(new ByteArrayInputStream(Corpus.purchaseOrder(size)));
+        _speedOptions = new XmlOptions().setSaveOptimizeForSpeed(true);
+        _utf8Options = new XmlOptions().setSaveDirectUtf8(true);
+    }
+
+    @Benchmark
+    public String textSaverString() {
+        return _doc.xmlText();
+    }
+
+    @Benchmark
+    public int textSaverWriter() throws Exception {
+        CharArrayWriter w = new CharArrayWriter();
+        _doc.save(w);
+        return w.size();
+    }
+
+    @Benchmark
+    public int optimizedForSpeedWriter() throws Exception {
+        CharArrayWriter w = new CharArrayWriter();
+        _doc.save(w, _speedOptions);
+        return w.size();
+    }
+
+    @Benchmark
+    public int inputStreamSaver() throws Exception {
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        _doc.save(os);
+        return os.size();
+    }
+
+    @Benchmark
+    public int optimizedForSpeedOutputStream() throws Exception {
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        _doc.save(os, _utf8Options);
+        return os.size();
+    }
+
+    @Benchmark
+    public int inputStreamToDirectBuffer() throws Exception {
+        int size = 0;
+        try (InputStream is = _doc.newInputStream()) {
+            for (int n; (n = is.read(_bytes)) >= 0; ) {
+                _direct.clear();
+                _direct.put(_bytes, 0, n);
+                size += n;
+            }
+        }
+        return size;
+    }
+
+    @Benchmark
+    public int channelToDirectBuffer() throws Exception {
+        int size = 0;
+        try (ReadableByteChannel channel = _doc.newReadableByteChannel(null)) {
+            for (int n; (n = channel.read(_direct)) >= 0; ) {
+                _direct.clear();
+                size += n;
+            }
+        }
+        return size;
+    }
+}
@@ -0,0 +1,98 @@
+/*   Copyright 2004 The Apache Software Foundation
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.xmlbeans.jmh;
+
+import org.apache.xmlbeans.SchemaTypeLoader;
+import org.apache.xmlbeans.XmlObject;
+import org.apache.xmlbeans.impl.common.SystemCache;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing the smallest purchase order, untyped and typed, with the per thread
+ * SAX loader of the system cache reused across parses and with a system cache
+ * which doesn't keep it, so every parse creates and configures a new reader.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SaxLoaderBenchmark {
+    @Param({"false", "true"})
+    public boolean reuse;
+
+    private byte[] _doc;
+    private SchemaTypeLoader _loader;
+    private SystemCache _systemCache;
+
+    @Setup
+    public void setup() throws Exception {
+        _doc = Corpus.purchaseOrder("1");
+        _loader = Corpus.purchaseOrderLoader();
+
+        // loading the type system may install another system cache
+        _systemCache = SystemCache.get();
+        if (!reuse) {
+            SystemCache.set(new NoSaxLoaderCache(_systemCache));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        SystemCache.set(_systemCache);
+    }
+
+    @Benchmark
+    public XmlObject untyped() throws Exception {
+        return XmlObject.Factory.parse(new ByteArrayInputStream(_doc));
+    }
+
+    @Benchmark
+    public XmlObject typed() throws Exception {
+        return _loader.parse(new ByteArrayInputStream(_doc), null, null);
+    }
+
+    private static class NoSaxLoaderCache extends SystemCache {
+        private final SystemCache _cache;
+
+        NoSaxLoaderCache(SystemCache cache) {
+            _cache = cache;
+        }
+
+        @Override
+        public SchemaTypeLoader getFromTypeLoaderCache(ClassLoader cl) {
+            return _cache.getFromTypeLoaderCache(cl);
+        }
+
+        @Override
+        public void addToTypeLoaderCache(SchemaTypeLoader stl, ClassLoader cl) {
+            _cache.addToTypeLoaderCache(stl, cl);
+        }
+
+        @Override
+        public Object getSaxLoader() {
+            return null;
+        }
+
+        @Override
+        public void setSaxLoader(Object saxLoader) {
+        }
+    }
+}
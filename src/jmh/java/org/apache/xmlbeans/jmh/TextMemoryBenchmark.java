@@ -0,0 +1,94 @@
+/*   Copyright 2004 The Apache Software Foundation
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.xmlbeans.jmh;
+
+import org.apache.xmlbeans.XmlObject;
+import org.apache.xmlbeans.XmlOptions;
+import org.apache.xmlbeans.impl.store.CharUtil;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Retained heap of loaded documents per MB of input, with the text stored as chars
+ * and as compact Latin-1 bytes ({@link XmlOptions#setLoadCompactText()}).
+ * The heap is reported by the {@code heapPerInputMB} counter, the time of
+ * loading the copies is secondary.  Event counters are summed over the iterations,
+ * so there is a single measurement.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx1g")
+@State(Scope.Benchmark)
+public class TextMemoryBenchmark {
+    // the copies of the document add up to about this much input
+    private static final int INPUT_SIZE = 8 * 1024 * 1024;
+
+    @Param({"1", "3", "7"})
+    public String size;
+
+    @Param({"chars", "compact"})
+    public String text;
+
+    private byte[] _bytes;
+    private XmlOptions _options;
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Heap {
+        public double heapPerInputMB;
+    }
+
+    @Setup
+    public void setup() throws Exception {
+        _bytes = Corpus.purchaseOrder(size);
+        _options = new XmlOptions();
+        if ("compact".equals(text)) {
+            _options.setLoadCompactText();
+        }
+    }
+
+    @Benchmark
+    public XmlObject[] load(Heap heap) throws Exception {
+        XmlObject[] docs = new XmlObject[Math.max(1, INPUT_SIZE / _bytes.length)];
+
+        // the shared load buffers would otherwise be counted by the first document
+        CharUtil.clearThreadLocals();
+        long before = usedHeap();
+
+        for (int i = 0; i < docs.length; i++) {
+            docs[i] = XmlObject.Factory.parse(new ByteArrayInputStream(_bytes), _options);
+        }
+
+        CharUtil.clearThreadLocals();
+        long after = usedHeap();
+
+        double inputMB = (double) docs.length * _bytes.length / (1024 * 1024);
+        heap.heapPerInputMB = (after - before) / (1024 * 1024) / inputMB;
+        return docs;
+    }
+
+    private static long usedHeap() {
+        Runtime rt = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return rt.totalMemory() - rt.freeMemory();
+    }
+}
@@ -0,0 +1,63 @@
+/*   Copyright 2004 The Apache Software Foundation
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.xmlbeans.jmh;
+
+import org.apache.xmlbeans.SchemaTypeLoader;
+import org.apache.xmlbeans.XmlObject;
+import org.apache.xmlbeans.XmlOptions;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing of the purchase order corpus with the builtin UTF-8 tokenizer compared
+ * to the XMLReader, untyped and typed.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TokenizerBenchmark {
+    @Param({"1", "3", "7"})
+    public String size;
+
+    @Param({"false", "true"})
+    public boolean builtin;
+
+    private byte[] _bytes;
+    private SchemaTypeLoader _loader;
+    private XmlOptions _options;
+
+    @Setup
+    public void setup() throws Exception {
+        _bytes = Corpus.purchaseOrder(size);
+        _loader = Corpus.purchaseOrderLoader();
+        _options = new XmlOptions().setLoadUseBuiltinTokenizer(builtin);
+    }
+
+    @Benchmark
+    public XmlObject parseUntyped() throws Exception {
+        return XmlObject.Factory.parse(new ByteArrayInputStream(_bytes), _options);
+    }
+
+    @Benchmark
+    public XmlObject parseTyped() throws Exception {
+        return _loader.parse(new ByteArrayInputStream(_bytes), null, _options);
+    }
+}
@@ -0,0 +1,94 @@
+/*   Copyright 2004 The Apache Software Foundation
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.xmlbeans.jmh;
+
+import org.apache.xmlbeans.*;
+import org.apache.xmlbeans.impl.schema.FileResourceLoader;
+import org.apache.xmlbeans.impl.schema.SchemaTypeSystemImpl;
+import org.apache.xmlbeans.impl.util.FilerImpl;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Cold loading of a compiled type system from a jar - the per-component .xsb layout
+ * against the single file bundle ({@link XmlOptions#setCompileTypeSystemBundle()}).
+ * All global components are resolved, so every .xsb file is read.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TypeSystemLoadBenchmark {
+    @Param({"files", "bundle"})
+    public String layout;
+
+    private String _name;
+    private File _jar;
+    private ResourceLoader _resourceLoader;
+
+    @Setup
+    public void setup() throws Exception {
+        XmlOptions opts = new XmlOptions();
+        if ("bundle".equals(layout)) {
+            opts.setCompileTypeSystemBundle();
+        }
+        XmlObject xsd = XmlObject.Factory.parse(Corpus.purchaseOrderSchema());
+        SchemaTypeSystem sts = XmlBeans.compileXsd(new XmlObject[]{xsd}, XmlBeans.getBuiltinTypeSystem(), opts);
+        _name = sts.getName();
+
+        Path dir = Files.createTempDirectory("xbean-jmh");
+        sts.save(new FilerImpl(dir.toFile(), dir.toFile(), null, false, false));
+
+        _jar = File.createTempFile("xbean-jmh", ".jar");
+        try (ZipOutputStream zos = new ZipOutputStream(new FileOutputStream(_jar));
+             Stream<Path> walk = Files.walk(dir)) {
+            List<Path> files = walk.filter(Files::isRegularFile).collect(Collectors.toList());
+            for (Path p : files) {
+                zos.putNextEntry(new ZipEntry(dir.relativize(p).toString().replace(File.separatorChar, '/')));
+                Files.copy(p, zos);
+                zos.closeEntry();
+            }
+        }
+
+        _resourceLoader = new FileResourceLoader(_jar);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        _resourceLoader.close();
+        Files.deleteIfExists(_jar.toPath());
+    }
+
+    @Benchmark
+    public int loadAndResolve() {
+        SchemaTypeSystemImpl sts = new SchemaTypeSystemImpl(_resourceLoader, _name, XmlBeans.getBuiltinTypeSystem());
+        return sts.globalTypes().length + sts.documentTypes().length
+               + sts.globalElements().length + sts.attributeTypes().length;
+    }
+}
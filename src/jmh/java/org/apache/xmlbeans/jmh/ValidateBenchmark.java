@@ -0,0 +1,52 @@
+/*   Copyright 2004 The Apache Software Foundation
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.xmlbeans.jmh;
+
+import org.apache.xmlbeans.XmlObject;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Instance validation of an already loaded, typed document (impl.validator.Validator).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ValidateBenchmark {
+    @Param({"1", "3", "7"})
+    public String size;
+
+    private XmlObject _doc;
+
+    @Setup
+    public void setup() throws Exception {
+        _doc = Corpus.purchaseOrderLoader().parse(
+            new ByteArrayInputStream(Corpus.purchaseOrder(size)), null, null);
+        if (!_doc.validate()) {
+            throw new IllegalStateException("corpus document " + size + " is not valid");
+        }
+    }
+
+    @Benchmark
+    public boolean validate() {
+        return _doc.validate();
+    }
+}
@@ -0,0 +1,71 @@
+/*   Copyright 2004 The Apache Software Foundation
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.xmlbeans.jmh;
+
+import org.apache.xmlbeans.XmlObject;
+import org.apache.xmlbeans.XmlOptions;
+import org.apache.xmlbeans.impl.values.XmlObjectBase;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reading the price (xs:double) and quantity (xs:int) of every line item after
+ * its text has been invalidated, i.e. parsing the primitive from the store text.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ValueBenchmark {
+    @Param({"1", "3", "7"})
+    public String size;
+
+    private XmlObjectBase[] _prices;
+    private XmlObjectBase[] _quantities;
+
+    @Setup
+    public void setup() throws Exception {
+        XmlObject doc = Corpus.purchaseOrderLoader().parse(
+            new ByteArrayInputStream(Corpus.purchaseOrder(size)), null, new XmlOptions());
+
+        String ns = "declare namespace po='" + Corpus.PO_NS + "' ";
+        XmlObject[] prices = doc.selectPath(ns + "$this//po:line-item/po:price");
+        XmlObject[] quantities = doc.selectPath(ns + "$this//po:line-item/po:quantity");
+
+        _prices = new XmlObjectBase[prices.length];
+        System.arraycopy(prices, 0, _prices, 0, prices.length);
+        _quantities = new XmlObjectBase[quantities.length];
+        System.arraycopy(quantities, 0, _quantities, 0, quantities.length);
+    }
+
+    @Benchmark
+    public double readDated() {
+        double sum = 0;
+        for (XmlObjectBase x : _prices) {
+            x.invalidate_value();
+            sum += x.getDoubleValue();
+        }
+        for (XmlObjectBase x : _quantities) {
+            x.invalidate_value();
+            sum += x.getIntValue();
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,57 @@
+/*   Copyright 2004 The Apache Software Foundation
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.xmlbeans.jmh;
+
+import org.apache.xmlbeans.XmlObject;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Looking up compiled paths from several threads, cycling through a few hundred
+ * distinct expressions, each thread selecting on its own document.  Measures the
+ * cache of XPathFactory rather than the execution of the paths.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+@State(Scope.Thread)
+public class XPathCacheBenchmark {
+    private static final int EXPRESSIONS = 300;
+
+    private final String[] _paths = new String[EXPRESSIONS];
+    private XmlObject _doc;
+    private int _next;
+
+    @Setup
+    public void setup() throws Exception {
+        _doc = XmlObject.Factory.parse(new ByteArrayInputStream(Corpus.purchaseOrder("1")));
+        for (int i = 0; i < EXPRESSIONS; i++) {
+            _paths[i] = "declare namespace po='" + Corpus.PO_NS + "'; $this/po:purchase-order/po:customer[not(@a" + i + ")]";
+        }
+    }
+
+    @Benchmark
+    public XmlObject[] selectPath() {
+        String path = _paths[_next];
+        _next = (_next + 1) % EXPRESSIONS;
+        return _doc.selectPath(path);
+    }
+}
@@ -25,6 +25,8 @@ import javax.xml.stream.XMLStreamReader;
 import java.io.*;
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.List;
@@ -167,6 +169,10 @@ public abstract class FilterXmlObject implements XmlObject, SimpleValue, Delegat
         underlyingXmlObject().save(w);
     }
 
+    public void save(WritableByteChannel channel) throws IOException {
+        underlyingXmlObject().save(channel);
+    }
+
     public XMLStreamReader newXMLStreamReader(XmlOptions options) {
         return underlyingXmlObject().newXMLStreamReader(options);
     }
@@ -179,6 +185,10 @@ public abstract class FilterXmlObject implements XmlObject, SimpleValue, Delegat
         return underlyingXmlObject().newInputStream(options);
     }
 
+    public ReadableByteChannel newReadableByteChannel(XmlOptions options) {
+        return underlyingXmlObject().newReadableByteChannel(options);
+    }
+
     public Reader newReader(XmlOptions options) {
         return underlyingXmlObject().newReader(options);
     }
@@ -203,6 +213,10 @@ public abstract class FilterXmlObject implements XmlObject, SimpleValue, Delegat
         underlyingXmlObject().save(w, options);
     }
 
+    public void save(WritableByteChannel channel, XmlOptions options) throws IOException {
+        underlyingXmlObject().save(channel, options);
+    }
+
     public SchemaType instanceType() {
         return ((SimpleValue) underlyingXmlObject()).instanceType();
     }
@@ -19,14 +19,21 @@ import org.apache.xmlbeans.impl.schema.BuiltinSchemaTypeSystem;
 import org.apache.xmlbeans.impl.schema.PathResourceLoader;
 import org.apache.xmlbeans.impl.schema.SchemaTypeLoaderImpl;
 import org.apache.xmlbeans.impl.schema.SchemaTypeSystemCompiler;
+import org.apache.xmlbeans.impl.store.DocumentContext;
+import org.apache.xmlbeans.impl.store.FragmentIterator;
+import org.apache.xmlbeans.impl.store.FragmentWriter;
 import org.apache.xmlbeans.impl.store.Locale;
+import org.apache.xmlbeans.impl.validator.StreamValidator;
 import org.w3c.dom.Node;
 
 import javax.xml.namespace.QName;
 import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
 import java.io.File;
+import java.io.InputStream;
 import java.lang.ref.SoftReference;
 import java.lang.reflect.Field;
+import java.util.Iterator;
 
 /**
  * Provides an assortment of utilities
@@ -203,6 +210,104 @@ public final class XmlBeans {
         return Locale.nodeToCursor(n);
     }
 
+    /**
+     * Freezes the document of the given XmlObject, i.e. the document becomes read-only
+     * and can be shared by multiple threads, without the readers blocking each other.
+     * Modifications result in an IllegalStateException.
+     *
+     * @see XmlOptions#setLoadFrozen()
+     */
+    public static void freeze(XmlObject o) {
+        Locale.freeze(o);
+    }
+
+    /**
+     * Validates a document while it is read from the stream, without loading it.
+     * The memory usage doesn't depend on the size of the document, so this method
+     * is suitable for documents which are too big to be parsed into an XmlObject.
+     * <p>
+     * Errors are passed to the {@link XmlOptions#setErrorListener error listener} as soon
+     * as they are found and carry the line and column of their location in the stream.
+     * The errors are not collected otherwise, i.e. a listener which only handles each
+     * added error, e.g. a subclass of {@link java.util.AbstractCollection} overriding
+     * {@code add}, acts as a callback.
+     *
+     * @param is      the document
+     * @param type    the document type or null, if the type should be determined by the
+     *                name of the document element
+     * @param stl     the type loader, used to find the types
+     * @param options validation options, the document source name is used as the source of the errors
+     * @return true if the document is well-formed and valid
+     */
+    public static boolean validate(InputStream is, SchemaType type, SchemaTypeLoader stl, XmlOptions options)
+        throws XmlException {
+        return StreamValidator.validate(is, type, stl, options);
+    }
+
+    /**
+     * Validates a document while it is read from the stream reader, without loading it.
+     * The validation starts at the current or next element of the reader.
+     *
+     * @see #validate(InputStream, SchemaType, SchemaTypeLoader, XmlOptions)
+     */
+    public static boolean validate(XMLStreamReader xsr, SchemaType type, SchemaTypeLoader stl, XmlOptions options)
+        throws XmlException {
+        return StreamValidator.validate(xsr, type, stl, options);
+    }
+
+    /**
+     * Returns the elements of the stream with the given name, each loaded as a separate
+     * fragment when the iterator is advanced.  Only the current fragment is held in memory,
+     * so arbitrarily large documents with many repeated elements can be processed.
+     * <p>
+     * The elements are typed by their position in the schema of the document and carry
+     * the namespace declarations of their ancestors.  Elements nested in a returned element
+     * are part of its fragment and not returned separately.  Errors of the stream are
+     * thrown as {@link XmlRuntimeException} by the iterator.
+     *
+     * @param xsr     the stream, which isn't closed by the iterator
+     * @param name    the name of the elements to load, matched at any depth
+     * @param stl     the type loader, used to type the elements
+     * @param options load options, which are applied to each fragment
+     */
+    public static Iterator<XmlObject> parseFragments(XMLStreamReader xsr, QName name,
+                                                     SchemaTypeLoader stl, XmlOptions options) {
+        return new FragmentIterator(xsr, name, null, stl, options);
+    }
+
+    /**
+     * Returns the elements of the stream at the given path, each loaded as a separate
+     * fragment when the iterator is advanced.
+     *
+     * @param path the names of the elements from the document element down to the elements to load
+     * @see #parseFragments(XMLStreamReader, QName, SchemaTypeLoader, XmlOptions)
+     */
+    public static Iterator<XmlObject> parseFragments(XMLStreamReader xsr, QName[] path,
+                                                     SchemaTypeLoader stl, XmlOptions options) {
+        return new FragmentIterator(xsr, null, path, stl, options);
+    }
+
+    /**
+     * Returns a writer which writes a document to the stream writer one fragment at a time,
+     * so documents of any size can be written from XmlObjects in constant memory.
+     *
+     * @param xsw     the stream writer, written at its current position and not closed by the writer
+     * @param options save options, which are applied to each fragment
+     * @see XmlFragmentWriter
+     */
+    public static XmlFragmentWriter newFragmentWriter(XMLStreamWriter xsw, XmlOptions options) {
+        return new FragmentWriter(xsw, options);
+    }
+
+    /**
+     * Returns a new context for parsing documents, which is passed to the parse methods
+     * with {@link XmlOptions#setDocumentContext}.  Parsing many small documents with the
+     * same context avoids setting up the internal state of the store for each of them.
+     */
+    public static XmlDocumentContext newDocumentContext() {
+        return new DocumentContext();
+    }
+
     /**
      * Creates an XmlObject for a DOM node which is implemented by XmlBwans
      */
@@ -0,0 +1,42 @@
+/*   Copyright 2004 The Apache Software Foundation
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.xmlbeans;
+
+/**
+ * Holds the internal state of the store, i.e. the synchronization domain, the cursor pool
+ * and the caches, which is otherwise created for every parsed document.  Parsing many
+ * small documents with the same context saves setting up that state for each of them.
+ * <p>
+ * A context is passed to the parse methods with {@link XmlOptions#setDocumentContext}.
+ * The documents parsed with a context share its synchronization domain, just as with
+ * {@link XmlOptions#setUseSameLocale}, so a context is meant to be used by one thread,
+ * e.g. kept in a thread local.  Documents which are frozen after parsing get a new
+ * domain, as do parses with a different type loader or options affecting the domain.
+ *
+ * @see XmlBeans#newDocumentContext()
+ */
+public interface XmlDocumentContext {
+    /**
+     * Drops the references the context holds to the documents parsed so far, so
+     * they can be garbage collected once the application releases them.  The
+     * documents remain usable, but the context keeps its cursor pool and caches
+     * for the next parse.
+     *
+     * @throws IllegalStateException if called while a document of the context is
+     *                               being accessed on the current thread
+     */
+    void reset();
+}
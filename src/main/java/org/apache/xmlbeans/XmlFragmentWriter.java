@@ -0,0 +1,70 @@
+/*   Copyright 2004 The Apache Software Foundation
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.xmlbeans;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamException;
+
+/**
+ * Writes a document to a stream writer piece by piece, so documents of any size can be
+ * produced from XmlObjects without building them in memory.  The enclosing elements are
+ * started and ended by name, and the repeated content in between is written one fragment
+ * at a time - typically a generated bean which is filled, written and then dropped.
+ * <pre>
+ * XmlFragmentWriter w = XmlBeans.newFragmentWriter(xsw, null);
+ * w.writeStartElement(new QName(ns, "purchase-order"));
+ * for (...) {
+ *     LineItem item = LineItem.Factory.newInstance();
+ *     item.setDescription(...);
+ *     w.write(new QName(ns, "line-item"), item);
+ * }
+ * w.close();
+ * </pre>
+ * The namespaces declared by the enclosing elements are in scope for the fragments,
+ * which only declare the namespaces they add.
+ *
+ * @see XmlBeans#newFragmentWriter(javax.xml.stream.XMLStreamWriter, XmlOptions)
+ */
+public interface XmlFragmentWriter {
+    /**
+     * Starts an enclosing element.  The prefix of the name is declared on the element,
+     * unless it is already bound to the namespace of the name.
+     */
+    void writeStartElement(QName name) throws XMLStreamException;
+
+    /**
+     * Ends the last started enclosing element.
+     *
+     * @throws IllegalStateException if there is no open element
+     */
+    void writeEndElement() throws XMLStreamException;
+
+    /**
+     * Writes an element or the document element of a document.
+     */
+    void write(XmlObject fragment) throws XMLStreamException;
+
+    /**
+     * Writes the attributes and the content of an XmlObject as an element with the
+     * given name, e.g. a bean of a generated type created with newInstance.
+     */
+    void write(QName name, XmlObject value) throws XMLStreamException;
+
+    /**
+     * Ends the open elements and flushes the stream writer, which is not closed.
+     */
+    void close() throws XMLStreamException;
+}
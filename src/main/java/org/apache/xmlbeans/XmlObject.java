@@ -443,9 +443,14 @@ public interface XmlObject extends XmlTokenSource {
      * and additional synchronization is required for concurent access.
      * To use a different synchronization domain use setCopyUseNewSynchronizationDomain
      * option with copy(XmlOptions) method.
+     * <p>
+     * Copies of a frozen document are created in a new synchronization domain and
+     * share the nodes of the frozen document until they are accessed, so copying a
+     * frozen template is cheap and the copy only grows with the parts which are used.
      *
      * @see #copy(XmlOptions)
      * @see org.apache.xmlbeans.XmlOptions#setCopyUseNewSynchronizationDomain(boolean)
+     * @see org.apache.xmlbeans.XmlOptions#setLoadFrozen()
      */
     XmlObject copy();
 
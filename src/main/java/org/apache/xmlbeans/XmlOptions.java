@@ -103,6 +103,8 @@ public class XmlOptions implements java.io.Serializable {
         SAVE_NO_XML_DECL,
         SAVE_SUBSTITUTE_CHARACTERS,
         SAVE_OPTIMIZE_FOR_SPEED,
+        SAVE_DIRECT_UTF8,
+        SAVE_PARALLELISM,
         SAVE_CDATA_LENGTH_THRESHOLD,
         SAVE_CDATA_ENTITY_COUNT_THRESHOLD,
         SAVE_SAX_NO_NSDECLS_IN_ATTRIBUTES,
@@ -115,10 +117,13 @@ public class XmlOptions implements java.io.Serializable {
         LOAD_SAVE_CDATA_BOOKMARKS,
         LOAD_SUBSTITUTE_NAMESPACES,
         LOAD_TRIM_TEXT_BUFFER,
+        LOAD_COMPACT_TEXT,
+        LOAD_FROZEN,
         LOAD_ADDITIONAL_NAMESPACES,
         LOAD_MESSAGE_DIGEST,
         LOAD_USE_DEFAULT_RESOLVER,
         LOAD_USE_XMLREADER,
+        LOAD_USE_BUILTIN_TOKENIZER,
         XQUERY_CURRENT_NODE_VAR,
         XQUERY_VARIABLE_MAP,
         CHARACTER_ENCODING,
@@ -133,6 +138,8 @@ public class XmlOptions implements java.io.Serializable {
         COMPILE_DOWNLOAD_URLS,
         COMPILE_MDEF_NAMESPACES,
         COMPILE_PARTIAL_TYPESYSTEM,
+        COMPILE_TYPE_SYSTEM_BUNDLE,
+        COMPILE_PARALLELISM,
         VALIDATE_ON_SET,
         VALIDATE_TREAT_LAX_AS_SKIP,
         VALIDATE_STRICT,
@@ -143,6 +150,7 @@ public class XmlOptions implements java.io.Serializable {
         SCHEMA_CODE_PRINTER,
         GENERATE_JAVA_VERSION,
         USE_SAME_LOCALE,
+        DOCUMENT_CONTEXT,
         COPY_USE_NEW_SYNC_DOMAIN,
         LOAD_ENTITY_BYTES_LIMIT,
         ENTITY_EXPANSION_LIMIT,
@@ -152,6 +160,7 @@ public class XmlOptions implements java.io.Serializable {
         LOAD_USE_LOCALE_CHAR_UTIL,
         XPATH_USE_SAXON,
         XPATH_USE_XMLBEANS,
+        XPATH_USE_ELEMENT_INDEX,
         ATTTRIBUTE_VALIDATION_COMPAT_MODE
     }
 
@@ -832,6 +841,48 @@ public class XmlOptions implements java.io.Serializable {
         return hasOption(XmlOptionsKeys.LOAD_TRIM_TEXT_BUFFER);
     }
 
+    /**
+     * If this option is set, text consisting only of Latin-1 characters is stored
+     * with one byte per character.  Text with other characters is stored as usual,
+     * so the option reduces the memory footprint of documents with mostly
+     * western text at the cost of widening the text when it is accessed.
+     *
+     * @see XmlObject.Factory#parse(java.io.File, XmlOptions)
+     */
+    public XmlOptions setLoadCompactText() {
+        return setLoadCompactText(true);
+    }
+
+    public XmlOptions setLoadCompactText(boolean b) {
+        return set(XmlOptionsKeys.LOAD_COMPACT_TEXT, b);
+    }
+
+    public boolean isLoadCompactText() {
+        return hasOption(XmlOptionsKeys.LOAD_COMPACT_TEXT);
+    }
+
+    /**
+     * If this option is set, the document is frozen immediately after parsing,
+     * i.e. it becomes read-only and can be read by multiple threads without
+     * them contending on the document lock.  Any attempt to modify the document
+     * results in an {@link IllegalStateException}, use {@link XmlObject#copy()}
+     * to get a modifiable document.
+     *
+     * @see XmlObject.Factory#parse(java.io.File, XmlOptions)
+     * @see XmlBeans#freeze(XmlObject)
+     */
+    public XmlOptions setLoadFrozen() {
+        return setLoadFrozen(true);
+    }
+
+    public XmlOptions setLoadFrozen(boolean b) {
+        return set(XmlOptionsKeys.LOAD_FROZEN, b);
+    }
+
+    public boolean isLoadFrozen() {
+        return hasOption(XmlOptionsKeys.LOAD_FROZEN);
+    }
+
     /**
      * Set additional namespace mappings to be added when parsing
      * a document.
@@ -907,6 +958,32 @@ public class XmlOptions implements java.io.Serializable {
         return (XMLReader) get(XmlOptionsKeys.LOAD_USE_XMLREADER);
     }
 
+    /**
+     * If this option is set, documents parsed from a stream in UTF-8 or US-ASCII
+     * are tokenized by XmlBeans itself, which pushes the names and text straight
+     * into the store instead of going through an XMLReader.  Documents with a
+     * DOCTYPE declaration, in another encoding or with well-formedness errors,
+     * as well as loads with line numbers, CDATA bookmarks or an XMLReader set,
+     * are still parsed with an XMLReader.
+     * <p>
+     * The tokenizer reads the whole document into memory before loading it.
+     * Documents larger than 16MB are therefore streamed to an XMLReader as well,
+     * after the first 16MB have been buffered.
+     *
+     * @see XmlObject.Factory#parse(java.io.InputStream, XmlOptions)
+     */
+    public XmlOptions setLoadUseBuiltinTokenizer() {
+        return setLoadUseBuiltinTokenizer(true);
+    }
+
+    public XmlOptions setLoadUseBuiltinTokenizer(boolean b) {
+        return set(XmlOptionsKeys.LOAD_USE_BUILTIN_TOKENIZER, b);
+    }
+
+    public boolean isLoadUseBuiltinTokenizer() {
+        return hasOption(XmlOptionsKeys.LOAD_USE_BUILTIN_TOKENIZER);
+    }
+
     /**
      * Sets the name of the variable that represents
      * the current node in a query expression.
@@ -1098,6 +1175,46 @@ public class XmlOptions implements java.io.Serializable {
         return flag != null && flag;
     }
 
+    /**
+     * If this option is set when compiling a schema, then the .xsb files of the
+     * type system are saved as one compressed bundle instead of one file per component.
+     * This avoids opening hundreds of jar entries when the type system is loaded.
+     * The pointer files used to locate the type system are still saved individually.
+     *
+     * @see XmlBeans#compileXmlBeans(String, SchemaTypeSystem, XmlObject[], BindingConfig, SchemaTypeLoader, Filer, XmlOptions)
+     */
+    public XmlOptions setCompileTypeSystemBundle() {
+        return setCompileTypeSystemBundle(true);
+    }
+
+    public XmlOptions setCompileTypeSystemBundle(boolean b) {
+        return set(XmlOptionsKeys.COMPILE_TYPE_SYSTEM_BUNDLE, b);
+    }
+
+    public boolean isCompileTypeSystemBundle() {
+        return hasOption(XmlOptionsKeys.COMPILE_TYPE_SYSTEM_BUNDLE);
+    }
+
+    /**
+     * Sets the number of threads used to generate the java sources of a compiled
+     * type system. The sources are still written in a deterministic order.
+     * The generation is single threaded if a custom {@link SchemaCodePrinter} is set,
+     * as the printer instance is shared by all types.
+     * The default value is 1.
+     *
+     * @param parallelism the number of threads used for source generation
+     * @return this
+     * @see XmlBeans#compileXmlBeans(String, SchemaTypeSystem, XmlObject[], BindingConfig, SchemaTypeLoader, Filer, XmlOptions)
+     */
+    public XmlOptions setCompileParallelism(int parallelism) {
+        return set(XmlOptionsKeys.COMPILE_PARALLELISM, parallelism);
+    }
+
+    public int getCompileParallelism() {
+        Integer parallelism = (Integer) get(XmlOptionsKeys.COMPILE_PARALLELISM);
+        return parallelism == null ? 1 : parallelism;
+    }
+
     /**
      * If this option is set when an instance is created, then value
      * facets will be checked on each call to a setter or getter
@@ -1263,6 +1380,21 @@ public class XmlOptions implements java.io.Serializable {
         return get(XmlOptionsKeys.USE_SAME_LOCALE);
     }
 
+    /**
+     * Parses the document with the given context, which keeps the internal state of
+     * the store across parses instead of setting it up for every document.  The option
+     * is ignored if {@link #setUseSameLocale} is set as well.
+     *
+     * @see XmlBeans#newDocumentContext()
+     */
+    public XmlOptions setDocumentContext(XmlDocumentContext context) {
+        return set(XmlOptionsKeys.DOCUMENT_CONTEXT, context);
+    }
+
+    public XmlDocumentContext getDocumentContext() {
+        return (XmlDocumentContext) get(XmlOptionsKeys.DOCUMENT_CONTEXT);
+    }
+
 
     /**
      * Sets the maximum number of bytes allowed when an Entity is expanded during parsing.
@@ -1328,6 +1460,10 @@ public class XmlOptions implements java.io.Serializable {
         return flag != null && flag;
     }
 
+    /**
+     * If this option is set, a document saved to a Writer is saved by a minimal saver
+     * which ignores the other save options.
+     */
     public XmlOptions setSaveOptimizeForSpeed(boolean saveOptimizeForSpeed) {
         return set(XmlOptionsKeys.SAVE_OPTIMIZE_FOR_SPEED, saveOptimizeForSpeed);
     }
@@ -1337,6 +1473,44 @@ public class XmlOptions implements java.io.Serializable {
         return flag != null && flag;
     }
 
+    /**
+     * If this option is set, a document saved to an OutputStream or a channel with the
+     * UTF-8 encoding is saved by the minimal saver of {@link #setSaveOptimizeForSpeed(boolean)},
+     * which encodes the characters directly into the stream.  Like that saver, it ignores the
+     * other save options, only the xml declaration is written unless {@link #setSaveNoXmlDecl()}
+     * is set.  Documents saved with other encodings are saved as usual.
+     *
+     * @param saveDirectUtf8 {@code true}, if UTF-8 is encoded directly into the stream
+     * @return this
+     */
+    public XmlOptions setSaveDirectUtf8(boolean saveDirectUtf8) {
+        return set(XmlOptionsKeys.SAVE_DIRECT_UTF8, saveDirectUtf8);
+    }
+
+    public boolean isSaveDirectUtf8() {
+        Boolean flag = (Boolean) get(XmlOptionsKeys.SAVE_DIRECT_UTF8);
+        return flag != null && flag;
+    }
+
+    /**
+     * Sets the number of threads saving a frozen document concurrently with
+     * {@link #setSaveOptimizeForSpeed(boolean)} or {@link #setSaveDirectUtf8(boolean)}.  The top-level children of the document
+     * element are saved in parallel and written out in order.  Documents with only a few hundred
+     * such children are saved on the calling thread, and the number of threads is limited to the
+     * number of available processors.  The default value is 1.
+     *
+     * @param saveParallelism the number of threads saving the document
+     * @return this
+     */
+    public XmlOptions setSaveParallelism(int saveParallelism) {
+        return set(XmlOptionsKeys.SAVE_PARALLELISM, saveParallelism);
+    }
+
+    public int getSaveParallelism() {
+        Integer parallelism = (Integer) get(XmlOptionsKeys.SAVE_PARALLELISM);
+        return parallelism == null ? 1 : parallelism;
+    }
+
     // Use in XmlOptions to enable SAAJ support in store
     public XmlOptions setSaaj(Saaj saaj) {
         return set(XmlOptionsKeys.SAAJ_IMPL, saaj);
@@ -1381,6 +1555,27 @@ public class XmlOptions implements java.io.Serializable {
         return flag != null && flag;
     }
 
+    /**
+     * If this option is set, descendant paths of the form <code>.//name</code> run by the
+     * builtin xpath engine look up the matching elements in an index of the document's
+     * elements by name instead of walking the subtree. The index is built on first use
+     * and rebuilt after the document has been structurally modified.
+     *
+     * @return this
+     */
+    public XmlOptions setXPathUseElementIndex() {
+        return setXPathUseElementIndex(true);
+    }
+
+    public XmlOptions setXPathUseElementIndex(boolean xpathUseElementIndex) {
+        return set(XmlOptionsKeys.XPATH_USE_ELEMENT_INDEX, xpathUseElementIndex);
+    }
+
+    public boolean isXPathUseElementIndex() {
+        Boolean flag = (Boolean) get(XmlOptionsKeys.XPATH_USE_ELEMENT_INDEX);
+        return flag != null && flag;
+    }
+
     public XmlOptions setAttributeValidationCompatMode(boolean attributeValidationCompatMode) {
         return set(XmlOptionsKeys.ATTTRIBUTE_VALIDATION_COMPAT_MODE, attributeValidationCompatMode);
     }
@@ -22,6 +22,9 @@ import org.xml.sax.ext.LexicalHandler;
 
 import javax.xml.stream.XMLStreamReader;
 import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
 
 /**
  * Represents a holder of XML that can return an {@link XmlCursor}
@@ -178,6 +181,15 @@ public interface XmlTokenSource {
      */
     void save(Writer w) throws IOException;
 
+    /**
+     * Writes the XML represented by this source to the given channel.
+     * This method will save the XML declaration, including encoding information,
+     * with the XML.  The channel is not closed.
+     */
+    default void save(WritableByteChannel channel) throws IOException {
+        save(Channels.newOutputStream(channel));
+    }
+
     /**
      * Returns a new XMLStreamReader.
      * <p>
@@ -303,6 +315,19 @@ public interface XmlTokenSource {
      */
     Reader newReader(XmlOptions options);
 
+    /**
+     * Returns a new channel containing standard XML text, encoded according
+     * to the options, just like the stream of newInputStream(XmlOptions).
+     * Each read fills the given buffer with the next bytes of the text, so
+     * the text can be written incrementally into pooled or direct buffers.
+     * Options map may be null.
+     *
+     * @see XmlOptions
+     */
+    default ReadableByteChannel newReadableByteChannel(XmlOptions options) {
+        return Channels.newChannel(newInputStream(options));
+    }
+
     /**
      * Just like newDomNode() but with options.
      * Options map may be null.
@@ -343,6 +368,15 @@ public interface XmlTokenSource {
      */
     void save(Writer w, XmlOptions options) throws IOException;
 
+    /**
+     * Writes the XML represented by this source to the given channel.
+     * This method will save the XML declaration, including encoding information,
+     * with the XML.  The channel is not closed.
+     */
+    default void save(WritableByteChannel channel, XmlOptions options) throws IOException {
+        save(Channels.newOutputStream(channel), options);
+    }
+
     /**
      * Prints to stdout the state of the document in which this token source is positioned.
      * This is very implementation specific and may change at any time.  Dump can be useful
@@ -15,10 +15,17 @@
 
 package org.apache.xmlbeans.impl.common;
 
+import org.apache.xmlbeans.XmlRuntimeException;
+
+import java.util.function.Supplier;
+
 /**
  * Whenever multiple locks must be acquired within the implementation of
- * XML Beans, this GlobalLock is acquired first, and then released when all
- * the acutally-needed locks have been acquired.  This prevents deadlocks.
+ * XML Beans, they are acquired in a global order - see {@link #synchronizedOn}.
+ * This prevents deadlocks, without serializing unrelated lock pairs.
+ * <p>
+ * Only if the order of two locks can't be decided, this GlobalLock is acquired first,
+ * and then released when all the acutally-needed locks have been acquired.
  */ 
 public class GlobalLock
 {
@@ -27,4 +34,74 @@ public class GlobalLock
     public static void acquire() throws InterruptedException { GLOBAL_MUTEX.acquire(); }
     public static void tryToAcquire() { GLOBAL_MUTEX.tryToAcquire(); }
     public static void release() { GLOBAL_MUTEX.release(); }
+
+    /**
+     * Runs the operation while holding the monitors of both objects.
+     * The monitors are locked in the order of their identity hash codes, so two threads
+     * locking the same pair of monitors acquire them in the same order.
+     */
+    public static <T> T synchronizedOn(Object first, Object second, Supplier<T> op)
+    {
+        if (first == second)
+        {
+            synchronized (first)
+            {
+                return op.get();
+            }
+        }
+
+        int firstHash = System.identityHashCode(first);
+        int secondHash = System.identityHashCode(second);
+
+        if (firstHash > secondHash)
+        {
+            Object tmp = first;
+            first = second;
+            second = tmp;
+        }
+        else if (firstHash == secondHash)
+        {
+            return synchronizedOnTie(first, second, op);
+        }
+
+        synchronized (first)
+        {
+            synchronized (second)
+            {
+                return op.get();
+            }
+        }
+    }
+
+    private static <T> T synchronizedOnTie(Object first, Object second, Supplier<T> op)
+    {
+        // the identity hash codes collide - about to grab two locks without an order
+        boolean acquired = false;
+
+        try
+        {
+            GLOBAL_MUTEX.acquire();
+            acquired = true;
+
+            synchronized (first)
+            {
+                synchronized (second)
+                {
+                    GLOBAL_MUTEX.release();
+                    acquired = false;
+
+                    return op.get();
+                }
+            }
+        }
+        catch (InterruptedException e)
+        {
+            throw new XmlRuntimeException(e);
+        }
+        finally
+        {
+            if (acquired)
+                GLOBAL_MUTEX.release();
+        }
+    }
 }
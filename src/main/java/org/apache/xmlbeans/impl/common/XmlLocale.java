@@ -24,4 +24,15 @@ public interface XmlLocale
     
     void enter ( );
     void exit  ( );
+
+    /**
+     * @return true, if the documents of this locale have been frozen, i.e. are read-only
+     */
+    boolean isFrozen ( );
+
+    /**
+     * @return the object to synchronize on, when accessing the documents of this locale.
+     *  This is the locale itself, unless it's frozen
+     */
+    Object monitor ( );
 }
\ No newline at end of file
@@ -0,0 +1,442 @@
+/*   Copyright 2004 The Apache Software Foundation
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.xmlbeans.impl.regex;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * An XML schema regular expression compiled into a deterministic automaton, which
+ * matches a whole string in one pass without backtracking.  The automaton is
+ * immutable, so any number of threads can match with it at the same time.
+ * <p>
+ * The characters are partitioned into classes which no part of the expression
+ * tells apart, and the automaton steps over classes.  Only the characters of the
+ * basic multilingual plane are classified: a string with surrogates is left
+ * {@link #UNDECIDED} for the backtracking matcher.  Expressions which aren't
+ * plain XML schema expressions, and expressions which compile into too many
+ * states, aren't compiled.
+ */
+final class RegexAutomaton {
+    static final int NO_MATCH = 0;
+    static final int MATCH = 1;
+    static final int UNDECIDED = -1;
+
+    // the limits on the unrolled expression, the states and the transition table
+    private static final int MAX_POSITIONS = 512;
+    private static final int MAX_STATES = 512;
+    private static final int MAX_TABLE = 1 << 16;
+
+    private static final int ASCII = 128;
+    private static final int BMP = 0x10000;
+
+    // the first character of each interval and the class of the interval
+    private final int[] _intervals;
+    private final int[] _intervalClasses;
+    private final int[] _asciiClasses;
+
+    private final int _classCount;
+
+    // the state for each state and class, or -1
+    private final int[] _next;
+    private final boolean[] _accepting;
+
+    private RegexAutomaton(int[] intervals, int[] intervalClasses, int classCount, int[] next, boolean[] accepting) {
+        _intervals = intervals;
+        _intervalClasses = intervalClasses;
+        _classCount = classCount;
+        _next = next;
+        _accepting = accepting;
+
+        _asciiClasses = new int[ASCII];
+        for (int ch = 0; ch < ASCII; ch++) {
+            _asciiClasses[ch] = classOf(ch);
+        }
+    }
+
+    /**
+     * @return {@link #MATCH} if the whole string matches, {@link #NO_MATCH} if it
+     * doesn't, {@link #UNDECIDED} if the string can't be matched with the automaton
+     */
+    int match(String s) {
+        int state = 0;
+
+        for (int i = 0, n = s.length(); i < n; i++) {
+            char ch = s.charAt(i);
+            int c;
+
+            if (ch < ASCII) {
+                c = _asciiClasses[ch];
+            } else if (Character.isSurrogate(ch)) {
+                return UNDECIDED;
+            } else {
+                c = classOf(ch);
+            }
+
+            state = _next[state * _classCount + c];
+
+            if (state < 0) {
+                return NO_MATCH;
+            }
+        }
+
+        return _accepting[state] ? MATCH : NO_MATCH;
+    }
+
+    private int classOf(int ch) {
+        int i = Arrays.binarySearch(_intervals, ch);
+        return _intervalClasses[i >= 0 ? i : -i - 2];
+    }
+
+    /**
+     * Compiles the parse tree of an XML schema regular expression.
+     *
+     * @return the automaton, or null if the expression can't be compiled
+     */
+    static RegexAutomaton compile(Token tokentree) {
+        Builder builder = new Builder();
+        Fragment expr = builder.instantiate(tokentree);
+
+        if (expr == null) {
+            return null;
+        }
+
+        List<Token> positions = builder._positions;
+        int positionCount = positions.size();
+
+        // the characters where any position may start or stop to match
+        TreeSet<Integer> bounds = new TreeSet<>();
+        bounds.add(0);
+        for (Token pos : positions) {
+            addBounds(bounds, pos);
+        }
+
+        int[] intervals = new int[bounds.size()];
+        int i = 0;
+        for (int bound : bounds) {
+            intervals[i++] = bound;
+        }
+
+        // the intervals matched by the same positions make up a class
+        Map<BitSet, Integer> classIds = new HashMap<>();
+        List<BitSet> classes = new ArrayList<>();
+        int[] intervalClasses = new int[intervals.length];
+
+        for (i = 0; i < intervals.length; i++) {
+            BitSet matching = new BitSet(positionCount);
+            for (int p = 0; p < positionCount; p++) {
+                if (matches(positions.get(p), intervals[i])) {
+                    matching.set(p);
+                }
+            }
+
+            Integer id = classIds.get(matching);
+            if (id == null) {
+                id = classes.size();
+                classIds.put(matching, id);
+                classes.add(matching);
+            }
+            intervalClasses[i] = id;
+        }
+
+        int classCount = classes.size();
+
+        // the subset construction; a state is the set of positions which may match
+        // the next character, with an extra bit for accepting
+        List<BitSet> states = new ArrayList<>();
+        Map<BitSet, Integer> stateIds = new HashMap<>();
+
+        BitSet start = (BitSet) expr._first.clone();
+        if (expr._nullable) {
+            start.set(positionCount);
+        }
+        states.add(start);
+        stateIds.put(start, 0);
+
+        List<int[]> rows = new ArrayList<>();
+
+        for (int s = 0; s < states.size(); s++) {
+            BitSet candidates = states.get(s).get(0, positionCount);
+            int[] row = new int[classCount];
+
+            for (int c = 0; c < classCount; c++) {
+                BitSet matched = (BitSet) candidates.clone();
+                matched.and(classes.get(c));
+
+                if (matched.isEmpty()) {
+                    row[c] = -1;
+                    continue;
+                }
+
+                BitSet target = new BitSet();
+                for (int p = matched.nextSetBit(0); p >= 0; p = matched.nextSetBit(p + 1)) {
+                    target.or(builder._follow.get(p));
+                }
+                if (matched.intersects(expr._last)) {
+                    target.set(positionCount);
+                }
+
+                Integer id = stateIds.get(target);
+                if (id == null) {
+                    if (states.size() == MAX_STATES || (long) (states.size() + 1) * classCount > MAX_TABLE) {
+                        return null;
+                    }
+                    id = states.size();
+                    states.add(target);
+                    stateIds.put(target, id);
+                }
+                row[c] = id;
+            }
+
+            rows.add(row);
+        }
+
+        int[] next = new int[states.size() * classCount];
+        boolean[] accepting = new boolean[states.size()];
+        for (int s = 0; s < states.size(); s++) {
+            System.arraycopy(rows.get(s), 0, next, s * classCount, classCount);
+            accepting[s] = states.get(s).get(positionCount);
+        }
+
+        return new RegexAutomaton(intervals, intervalClasses, classCount, next, accepting);
+    }
+
+    private static void addBounds(TreeSet<Integer> bounds, Token pos) {
+        switch (pos.type) {
+            case Token.CHAR:
+                addInterval(bounds, pos.getChar(), pos.getChar());
+                break;
+
+            case Token.DOT:
+                addInterval(bounds, '\n', '\n');
+                addInterval(bounds, '\r', '\r');
+                addInterval(bounds, 0x2028, 0x2029);
+                break;
+
+            default: {
+                int[] ranges = ((RangeToken) pos).ranges;
+                if (ranges != null) {
+                    for (int i = 0; i + 1 < ranges.length; i += 2) {
+                        addInterval(bounds, ranges[i], ranges[i + 1]);
+                    }
+                }
+            }
+        }
+    }
+
+    private static void addInterval(TreeSet<Integer> bounds, int first, int last) {
+        if (first < BMP) {
+            bounds.add(first);
+        }
+        if (last + 1 < BMP) {
+            bounds.add(last + 1);
+        }
+    }
+
+    /**
+     * @return true if the position matches the character, as the backtracking
+     * matcher does it
+     */
+    private static boolean matches(Token pos, int ch) {
+        switch (pos.type) {
+            case Token.CHAR:
+                return pos.getChar() == ch;
+
+            case Token.DOT:
+                return ch != '\n' && ch != '\r' && ch != 0x2028 && ch != 0x2029;
+
+            default:
+                return ((RangeToken) pos).match(ch);
+        }
+    }
+
+    /**
+     * The first and last positions of a part of the expression and whether it
+     * matches the empty string.
+     */
+    private static final class Fragment {
+        final BitSet _first = new BitSet();
+        final BitSet _last = new BitSet();
+        boolean _nullable;
+
+        Fragment(boolean nullable) {
+            _nullable = nullable;
+        }
+    }
+
+    /**
+     * Builds the position automaton of the expression by the construction of Glushkov.
+     */
+    private static final class Builder {
+        private final List<Token> _positions = new ArrayList<>();
+        private final List<BitSet> _follow = new ArrayList<>();
+
+        /**
+         * @return the fragment of the token, or null if it can't be compiled
+         */
+        Fragment instantiate(Token tok) {
+            switch (tok.type) {
+                case Token.CHAR:
+                case Token.DOT:
+                case Token.RANGE:
+                case Token.NRANGE:
+                    return position(tok);
+
+                case Token.STRING: {
+                    String s = tok.getString();
+                    Fragment result = new Fragment(true);
+                    for (int i = 0; i < s.length(); i++) {
+                        Fragment f = position(Token.createChar(s.charAt(i)));
+                        if (f == null) {
+                            return null;
+                        }
+                        concat(result, f);
+                    }
+                    return result;
+                }
+
+                case Token.CONCAT: {
+                    Fragment result = new Fragment(true);
+                    for (int i = 0; i < tok.size(); i++) {
+                        Fragment f = instantiate(tok.getChild(i));
+                        if (f == null) {
+                            return null;
+                        }
+                        concat(result, f);
+                    }
+                    return result;
+                }
+
+                case Token.UNION: {
+                    Fragment result = new Fragment(false);
+                    for (int i = 0; i < tok.size(); i++) {
+                        Fragment f = instantiate(tok.getChild(i));
+                        if (f == null) {
+                            return null;
+                        }
+                        result._first.or(f._first);
+                        result._last.or(f._last);
+                        result._nullable |= f._nullable;
+                    }
+                    return result;
+                }
+
+                case Token.CLOSURE:
+                case Token.NONGREEDYCLOSURE:
+                    return repeat(tok.getChild(0), Math.max(tok.getMin(), 0),
+                        tok.getMax() < 0 ? Integer.MAX_VALUE : tok.getMax());
+
+                case Token.PAREN:
+                    return instantiate(tok.getChild(0));
+
+                case Token.EMPTY:
+                    return new Fragment(true);
+
+                default:
+                    // anchors, back references, look arounds and the like
+                    return null;
+            }
+        }
+
+        private Fragment position(Token tok) {
+            if (_positions.size() == MAX_POSITIONS) {
+                return null;
+            }
+
+            int pos = _positions.size();
+            _positions.add(tok);
+            _follow.add(new BitSet());
+
+            Fragment f = new Fragment(false);
+            f._first.set(pos);
+            f._last.set(pos);
+            return f;
+        }
+
+        private Fragment repeat(Token tok, int min, int max) {
+            Fragment result = new Fragment(true);
+
+            for (int i = 0; i < min; i++) {
+                Fragment f = instantiate(tok);
+                if (f == null) {
+                    return null;
+                }
+                concat(result, f);
+            }
+
+            if (max == Integer.MAX_VALUE) {
+                Fragment f = instantiate(tok);
+                if (f == null) {
+                    return null;
+                }
+                loop(f);
+                f._nullable = true;
+                concat(result, f);
+                return result;
+            }
+
+            // the optional occurrences nest: (x, (x, (x)?)?)?
+            Fragment optional = new Fragment(true);
+            for (int i = min; i < max; i++) {
+                Fragment f = instantiate(tok);
+                if (f == null) {
+                    return null;
+                }
+                concat(f, optional);
+                f._nullable = true;
+                optional = f;
+            }
+
+            concat(result, optional);
+
+            return result;
+        }
+
+        /**
+         * Appends the second fragment to the first one.
+         */
+        private void concat(Fragment f, Fragment g) {
+            for (int i = f._last.nextSetBit(0); i >= 0; i = f._last.nextSetBit(i + 1)) {
+                _follow.get(i).or(g._first);
+            }
+
+            if (f._nullable) {
+                f._first.or(g._first);
+            }
+
+            if (!g._nullable) {
+                f._last.clear();
+            }
+
+            f._last.or(g._last);
+            f._nullable &= g._nullable;
+        }
+
+        /**
+         * Lets the fragment repeat itself, i.e. makes it f+.
+         */
+        private void loop(Fragment f) {
+            for (int i = f._last.nextSetBit(0); i >= 0; i = f._last.nextSetBit(i + 1)) {
+                _follow.get(i).or(f._first);
+            }
+        }
+    }
+}
@@ -694,17 +694,9 @@ public class RegularExpression implements java.io.Serializable {
      */
     public boolean matches(char[]  target, int start, int end, Match match) {
 
-        synchronized (this) {
-            if (this.operations == null)
-                this.prepare();
-            if (this.context == null)
-                this.context = new Context();
-        }
-        Context con = null;
-        synchronized (this.context) {
-            con = this.context.inuse ? new Context() : this.context;
-            con.reset(target, start, end, this.numberOfClosures);
-        }
+        this.ensurePrepared();
+        Context con = CONTEXT.get();
+        con.reset(target, start, end, this.numberOfClosures);
         if (match != null) {
             match.setNumberOfGroups(this.nofparen);
             match.setSource(target);
@@ -1367,6 +1359,12 @@ public class RegularExpression implements java.io.Serializable {
      * @return true if the target is matched to this regular expression.
      */
     public boolean matches(String  target) {
+        this.ensurePrepared();
+        if (this.automaton != null) {
+            int result = this.automaton.match(target);
+            if (result != RegexAutomaton.UNDECIDED)
+                return result == RegexAutomaton.MATCH;
+        }
         return this.matches(target, 0,  target .length() , (Match)null);
     }
 
@@ -1403,17 +1401,9 @@ public class RegularExpression implements java.io.Serializable {
      */
     public boolean matches(String  target, int start, int end, Match match) {
 
-        synchronized (this) {
-            if (this.operations == null)
-                this.prepare();
-            if (this.context == null)
-                this.context = new Context();
-        }
-        Context con = null;
-        synchronized (this.context) {
-            con = this.context.inuse ? new Context() : this.context;
-            con.reset(target, start, end, this.numberOfClosures);
-        }
+        this.ensurePrepared();
+        Context con = CONTEXT.get();
+        con.reset(target, start, end, this.numberOfClosures);
         if (match != null) {
             match.setNumberOfGroups(this.nofparen);
             match.setSource(target);
@@ -2056,17 +2046,9 @@ public class RegularExpression implements java.io.Serializable {
 
 
 
-        synchronized (this) {
-            if (this.operations == null)
-                this.prepare();
-            if (this.context == null)
-                this.context = new Context();
-        }
-        Context con = null;
-        synchronized (this.context) {
-            con = this.context.inuse ? new Context() : this.context;
-            con.reset(target, start, end, this.numberOfClosures);
-        }
+        this.ensurePrepared();
+        Context con = CONTEXT.get();
+        con.reset(target, start, end, this.numberOfClosures);
         if (match != null) {
             match.setNumberOfGroups(this.nofparen);
             match.setSource(target);
@@ -2756,7 +2738,14 @@ public class RegularExpression implements java.io.Serializable {
     transient int minlength;
     transient Op operations = null;
     transient int numberOfClosures;
-    transient Context context = null;
+    transient volatile boolean prepared = false;
+    transient RegexAutomaton automaton = null;
+
+    /**
+     * The matching context of the current thread.  A match doesn't start another
+     * one before it ends, so a thread can use one context for all expressions.
+     */
+    private static final ThreadLocal<Context> CONTEXT = ThreadLocal.withInitial(Context::new);
     transient RangeToken firstChar = null;
 
     transient String fixedString = null;
@@ -2807,6 +2796,18 @@ public class RegularExpression implements java.io.Serializable {
         }
     }
 
+    /**
+     * Prepares for matching once; the prepared state is only read afterwards.
+     */
+    private void ensurePrepared() {
+        if (!this.prepared) {
+            synchronized (this) {
+                if (!this.prepared)
+                    this.prepare();
+            }
+        }
+    }
+
     /**
      * Prepares for matching.  This method is called just before starting matching.
      */
@@ -2876,6 +2877,10 @@ public class RegularExpression implements java.io.Serializable {
                 }
             }
         }
+
+        // schema patterns are regular and match the whole text: try them as a DFA
+        this.automaton = this.options == XMLSCHEMA_MODE ? RegexAutomaton.compile(this.tokentree) : null;
+        this.prepared = true;
     }
 
     /**
@@ -3000,7 +3005,8 @@ public class RegularExpression implements java.io.Serializable {
         this.hasBackReferences = rp.hasBackReferences;
 
         this.operations = null;
-        this.context = null;
+        this.automaton = null;
+        this.prepared = false;
     }
     /**
      *
@@ -0,0 +1,410 @@
+/*   Copyright 2004 The Apache Software Foundation
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.xmlbeans.impl.schema;
+
+import org.apache.xmlbeans.QNameSet;
+import org.apache.xmlbeans.SchemaParticle;
+
+import javax.xml.namespace.QName;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A content model compiled into a deterministic automaton, so that validating a
+ * child element is a table lookup instead of a walk of the particle tree.
+ * <p>
+ * The automaton is the position automaton of the content model: there is a start
+ * state and a state for each element and wildcard particle occurrence, with
+ * occurrence ranges unrolled.  The state reached by a child element tells the
+ * particle it matched.  Models with an all group, models which aren't deterministic
+ * (as allowed when compiling without the unique particle attribution rule) and
+ * models which unroll into too many states aren't compiled and are left to the
+ * {@link SchemaTypeVisitorImpl}.
+ */
+public final class ContentModelAutomaton {
+    public static final int START = 0;
+
+    // the limits on the unrolled model and on the transition table
+    private static final int MAX_STATES = 512;
+    private static final int MAX_TABLE = 1 << 16;
+
+    // the symbol of each name of the element particles
+    private final Map<QName, Integer> _symbols;
+
+    // the state for each state and symbol, or -1
+    private final int[][] _next;
+
+    // the wildcards and wildcard like particles, whose names can't be enumerated
+    private final QNameSet[][] _wildcardSets;
+    private final int[][] _wildcardNext;
+
+    private final SchemaParticle[] _particles;
+    private final boolean[] _accepting;
+
+    private ContentModelAutomaton(Map<QName, Integer> symbols, int[][] next,
+                                  QNameSet[][] wildcardSets, int[][] wildcardNext,
+                                  SchemaParticle[] particles, boolean[] accepting) {
+        _symbols = symbols;
+        _next = next;
+        _wildcardSets = wildcardSets;
+        _wildcardNext = wildcardNext;
+        _particles = particles;
+        _accepting = accepting;
+    }
+
+    /**
+     * @return the state after the element in the given state, or -1 if the element
+     * isn't allowed there
+     */
+    public int next(int state, QName name) {
+        if (name == null) {
+            return -1;
+        }
+
+        Integer symbol = _symbols.get(name);
+
+        if (symbol != null) {
+            int next = _next[state][symbol];
+
+            if (next >= 0) {
+                return next;
+            }
+        }
+
+        QNameSet[] sets = _wildcardSets[state];
+
+        if (sets != null) {
+            for (int i = 0; i < sets.length; i++) {
+                if (sets[i].contains(name)) {
+                    return _wildcardNext[state][i];
+                }
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * @return the element or wildcard particle matched by the element which led to the
+     * state, null for the start state
+     */
+    public SchemaParticle getParticle(int state) {
+        return _particles[state];
+    }
+
+    /**
+     * @return true if the content may end in the state
+     */
+    public boolean isAccepting(int state) {
+        return _accepting[state];
+    }
+
+    public int getStateCount() {
+        return _particles.length;
+    }
+
+    /**
+     * Compiles a content model.
+     *
+     * @return the automaton, or null if the model can't be compiled
+     */
+    public static ContentModelAutomaton compile(SchemaParticle contentModel) {
+        Builder builder = new Builder();
+        Fragment model = builder.repeat(contentModel);
+
+        if (model == null) {
+            return null;
+        }
+
+        int stateCount = builder._positions.size() + 1;
+
+        // the states which follow each state
+        BitSet[] follow = new BitSet[stateCount];
+        follow[START] = shift(model._first);
+        for (int i = 1; i < stateCount; i++) {
+            follow[i] = shift(builder._follow.get(i - 1));
+        }
+
+        SchemaParticle[] particles = new SchemaParticle[stateCount];
+        boolean[] accepting = new boolean[stateCount];
+        accepting[START] = model._nullable;
+        for (int i = 1; i < stateCount; i++) {
+            particles[i] = builder._positions.get(i - 1);
+            accepting[i] = model._last.get(i - 1);
+        }
+
+        Map<QName, Integer> symbols = new HashMap<>();
+        for (int i = 1; i < stateCount; i++) {
+            Set<QName> names = finiteNames(particles[i]);
+            if (names != null) {
+                for (QName name : names) {
+                    symbols.putIfAbsent(name, symbols.size());
+                }
+            }
+        }
+
+        if ((long) stateCount * symbols.size() > MAX_TABLE) {
+            return null;
+        }
+
+        int[][] next = new int[stateCount][symbols.size()];
+        QNameSet[][] wildcardSets = new QNameSet[stateCount][];
+        int[][] wildcardNext = new int[stateCount][];
+
+        for (int state = 0; state < stateCount; state++) {
+            int[] row = next[state];
+            Arrays.fill(row, -1);
+
+            List<QNameSet> sets = new ArrayList<>();
+            List<Integer> targets = new ArrayList<>();
+
+            for (int target = follow[state].nextSetBit(0); target >= 0; target = follow[state].nextSetBit(target + 1)) {
+                Set<QName> names = finiteNames(particles[target]);
+
+                if (names == null) {
+                    QNameSet set = particles[target].acceptedStartNames();
+
+                    for (QNameSet other : sets) {
+                        if (!set.isDisjoint(other)) {
+                            return null;
+                        }
+                    }
+
+                    sets.add(set);
+                    targets.add(target);
+                } else {
+                    for (QName name : names) {
+                        int symbol = symbols.get(name);
+
+                        if (row[symbol] >= 0) {
+                            return null;
+                        }
+
+                        row[symbol] = target;
+                    }
+                }
+            }
+
+            if (!sets.isEmpty()) {
+                // an element name may not be matched by a wildcard of the same state either
+                for (Map.Entry<QName, Integer> e : symbols.entrySet()) {
+                    if (row[e.getValue()] >= 0) {
+                        for (QNameSet set : sets) {
+                            if (set.contains(e.getKey())) {
+                                return null;
+                            }
+                        }
+                    }
+                }
+
+                wildcardSets[state] = sets.toArray(new QNameSet[0]);
+                wildcardNext[state] = targets.stream().mapToInt(Integer::intValue).toArray();
+            }
+        }
+
+        return new ContentModelAutomaton(symbols, next, wildcardSets, wildcardNext, particles, accepting);
+    }
+
+    /**
+     * @return the names the particle starts with, or null if they can't be enumerated
+     */
+    private static Set<QName> finiteNames(SchemaParticle particle) {
+        QNameSet set = particle.acceptedStartNames();
+        Set<String> uris = set.includedURIs();
+
+        return uris != null && uris.isEmpty() ? set.includedQNamesInExcludedURIs() : null;
+    }
+
+    private static BitSet shift(BitSet positions) {
+        BitSet states = new BitSet();
+        for (int i = positions.nextSetBit(0); i >= 0; i = positions.nextSetBit(i + 1)) {
+            states.set(i + 1);
+        }
+        return states;
+    }
+
+    /**
+     * The first and last positions of a part of the model and whether it matches
+     * the empty sequence.
+     */
+    private static final class Fragment {
+        final BitSet _first = new BitSet();
+        final BitSet _last = new BitSet();
+        boolean _nullable;
+
+        Fragment(boolean nullable) {
+            _nullable = nullable;
+        }
+    }
+
+    /**
+     * Builds the position automaton by the construction of Glushkov.
+     */
+    private static final class Builder {
+        private final List<SchemaParticle> _positions = new ArrayList<>();
+        private final List<BitSet> _follow = new ArrayList<>();
+
+        /**
+         * @return the fragment of the particle with its occurrence range, or null
+         */
+        Fragment repeat(SchemaParticle p) {
+            int min = p.getIntMinOccurs();
+            int max = p.getIntMaxOccurs();
+
+            Fragment result = new Fragment(true);
+
+            if (max == 0) {
+                return result;
+            }
+
+            for (int i = 0; i < min - 1; i++) {
+                Fragment f = instantiate(p);
+                if (f == null) {
+                    return null;
+                }
+                concat(result, f);
+            }
+
+            if (max == Integer.MAX_VALUE) {
+                Fragment f = instantiate(p);
+                if (f == null) {
+                    return null;
+                }
+                loop(f);
+                if (min == 0) {
+                    f._nullable = true;
+                }
+                concat(result, f);
+                return result;
+            }
+
+            if (min > 0) {
+                Fragment f = instantiate(p);
+                if (f == null) {
+                    return null;
+                }
+                concat(result, f);
+            }
+
+            // the optional occurrences nest: (p, (p, (p)?)?)?
+            Fragment optional = new Fragment(true);
+            for (int i = min; i < max; i++) {
+                Fragment f = instantiate(p);
+                if (f == null) {
+                    return null;
+                }
+                concat(f, optional);
+                f._nullable = true;
+                optional = f;
+            }
+
+            concat(result, optional);
+
+            return result;
+        }
+
+        /**
+         * @return the fragment of one occurrence of the particle, or null
+         */
+        private Fragment instantiate(SchemaParticle p) {
+            switch (p.getParticleType()) {
+                case SchemaParticle.ELEMENT:
+                case SchemaParticle.WILDCARD: {
+                    if (p.acceptedStartNames() == null || _positions.size() == MAX_STATES) {
+                        return null;
+                    }
+
+                    int pos = _positions.size();
+                    _positions.add(p);
+                    _follow.add(new BitSet());
+
+                    Fragment f = new Fragment(false);
+                    f._first.set(pos);
+                    f._last.set(pos);
+                    return f;
+                }
+
+                case SchemaParticle.SEQUENCE: {
+                    Fragment result = new Fragment(true);
+                    for (SchemaParticle child : p.getParticleChildren()) {
+                        Fragment f = repeat(child);
+                        if (f == null) {
+                            return null;
+                        }
+                        concat(result, f);
+                    }
+                    return result;
+                }
+
+                case SchemaParticle.CHOICE: {
+                    if (p.countOfParticleChild() == 0) {
+                        return null;
+                    }
+
+                    Fragment result = new Fragment(false);
+                    for (SchemaParticle child : p.getParticleChildren()) {
+                        Fragment f = repeat(child);
+                        if (f == null) {
+                            return null;
+                        }
+                        result._first.or(f._first);
+                        result._last.or(f._last);
+                        result._nullable |= f._nullable;
+                    }
+                    return result;
+                }
+
+                default:
+                    // all groups
+                    return null;
+            }
+        }
+
+        /**
+         * Appends the second fragment to the first one.
+         */
+        private void concat(Fragment f, Fragment g) {
+            for (int i = f._last.nextSetBit(0); i >= 0; i = f._last.nextSetBit(i + 1)) {
+                _follow.get(i).or(g._first);
+            }
+
+            if (f._nullable) {
+                f._first.or(g._first);
+            }
+
+            if (!g._nullable) {
+                f._last.clear();
+            }
+
+            f._last.or(g._last);
+            f._nullable &= g._nullable;
+        }
+
+        /**
+         * Lets the fragment repeat itself, i.e. makes it f+.
+         */
+        private void loop(Fragment f) {
+            for (int i = f._last.nextSetBit(0); i >= 0; i = f._last.nextSetBit(i + 1)) {
+                _follow.get(i).or(f._first);
+            }
+        }
+    }
+}
@@ -17,13 +17,22 @@ package org.apache.xmlbeans.impl.schema;
 
 import org.apache.xmlbeans.ResourceLoader;
 
+import java.io.ByteArrayInputStream;
 import java.io.InputStream;
-import java.io.FileInputStream;
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.util.zip.ZipFile;
 import java.util.zip.ZipEntry;
 
+/**
+ * Loads the resources of a directory or a jar file.
+ * <p>
+ * Files of a directory are read at once into memory, so the returned streams
+ * don't need additional buffering and the files aren't held open - they are
+ * not memory mapped either, as a mapping would lock the file on Windows until
+ * it is garbage collected, e.g. while an incremental build rewrites it.
+ */
 public class FileResourceLoader implements ResourceLoader
 {
     private File _directory;
@@ -52,7 +61,7 @@ public class FileResourceLoader implements ResourceLoader
             }
             else
             {
-                return new FileInputStream(new File(_directory, resourceName));
+                return new ByteArrayInputStream(Files.readAllBytes(new File(_directory, resourceName).toPath()));
             }
         }
         catch (IOException e)
@@ -0,0 +1,287 @@
+/*   Copyright 2004 The Apache Software Foundation
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.xmlbeans.impl.schema;
+
+import org.apache.xmlbeans.ResourceLoader;
+import org.apache.xmlbeans.SchemaTypeLoader;
+import org.apache.xmlbeans.SchemaTypeSystem;
+import org.apache.xmlbeans.impl.util.HexBin;
+
+import java.io.*;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/**
+ * The build cache records a compiled type system, so that the schema compiler can
+ * rebuild only the namespaces affected by changed schema files.
+ * <p>
+ * Besides the name of the type system and a digest of the compiler settings, the cache
+ * contains the digests of all local schema files contributing to the type system and
+ * the {@link SchemaDependencies} between the namespaces, which are not part of the .xsb files.
+ */
+public class SchemaBuildCache {
+    private static final int MAGIC = 0x58534243; // "XSBC"
+    private static final int VERSION = 1;
+
+    private final String _typeSystemName;
+    private final String _settings;
+    private final Set<String> _inputs;
+    private final Map<String, String> _digests;
+    private final SchemaDependencies _deps;
+
+    private SchemaBuildCache(String typeSystemName, String settings, Set<String> inputs,
+                             Map<String, String> digests, SchemaDependencies deps) {
+        _typeSystemName = typeSystemName;
+        _settings = settings;
+        _inputs = inputs;
+        _digests = digests;
+        _deps = deps;
+    }
+
+    /**
+     * Reads a build cache.
+     *
+     * @param cacheFile the cache file
+     * @return the cache or null, if the file doesn't exist or can't be read
+     */
+    public static SchemaBuildCache read(File cacheFile) {
+        if (!cacheFile.isFile()) {
+            return null;
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(cacheFile)))) {
+            if (in.readInt() != MAGIC || in.readShort() != VERSION) {
+                return null;
+            }
+
+            String name = in.readUTF();
+            String settings = in.readUTF();
+
+            Set<String> inputs = new HashSet<>();
+            for (int i = in.readInt(); i > 0; i--) {
+                inputs.add(in.readUTF());
+            }
+
+            Map<String, String> digests = new HashMap<>();
+            for (int i = in.readInt(); i > 0; i--) {
+                digests.put(in.readUTF(), in.readUTF());
+            }
+
+            SchemaDependencies deps = new SchemaDependencies();
+            for (int i = in.readInt(); i > 0; i--) {
+                String ns = in.readUTF();
+                for (int j = in.readInt(); j > 0; j--) {
+                    deps.registerContribution(ns, in.readUTF());
+                }
+            }
+            for (int i = in.readInt(); i > 0; i--) {
+                String target = in.readUTF();
+                for (int j = in.readInt(); j > 0; j--) {
+                    deps.registerDependency(in.readUTF(), target);
+                }
+            }
+
+            return new SchemaBuildCache(name, settings, inputs, digests, deps);
+        } catch (IOException e) {
+            // a broken cache results in a full build
+            return null;
+        }
+    }
+
+    /**
+     * Writes the build cache of a compiled and saved type system.
+     *
+     * @param cacheFile the cache file
+     * @param system    the compiled type system
+     * @param settings  the digest of the compiler settings
+     * @param inputs    the URIs of the schema files passed to the compiler
+     */
+    public static void write(File cacheFile, SchemaTypeSystem system, String settings, Collection<String> inputs)
+        throws IOException {
+        SchemaDependencies deps = ((SchemaTypeSystemImpl) system).getDependencies();
+
+        Map<String, String> digests = new TreeMap<>();
+        for (List<String> files : deps.getContributions().values()) {
+            for (String uri : files) {
+                File file = toFile(uri);
+                if (file != null && file.isFile()) {
+                    digests.put(uri, digest(file));
+                }
+            }
+        }
+
+        File parent = cacheFile.getAbsoluteFile().getParentFile();
+        if (parent != null) {
+            parent.mkdirs();
+        }
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(cacheFile)))) {
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeUTF(system.getName());
+            out.writeUTF(settings);
+
+            out.writeInt(inputs.size());
+            for (String input : inputs) {
+                out.writeUTF(input);
+            }
+
+            out.writeInt(digests.size());
+            for (Map.Entry<String, String> me : digests.entrySet()) {
+                out.writeUTF(me.getKey());
+                out.writeUTF(me.getValue());
+            }
+
+            Map<String, List<String>> contributions = deps.getContributions();
+            out.writeInt(contributions.size());
+            for (Map.Entry<String, List<String>> me : contributions.entrySet()) {
+                out.writeUTF(me.getKey());
+                out.writeInt(me.getValue().size());
+                for (String uri : me.getValue()) {
+                    out.writeUTF(uri);
+                }
+            }
+
+            Map<String, Set<String>> dependencies = deps.getDependencies();
+            out.writeInt(dependencies.size());
+            for (Map.Entry<String, Set<String>> me : dependencies.entrySet()) {
+                out.writeUTF(me.getKey());
+                out.writeInt(me.getValue().size());
+                for (String ns : me.getValue()) {
+                    out.writeUTF(ns);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the full name of the cached type system
+     */
+    public String getTypeSystemName() {
+        return _typeSystemName;
+    }
+
+    /**
+     * @return the name of the cached type system, as it is given to the compiler
+     */
+    public String getGivenTypeSystemName() {
+        String prefix = SchemaTypeSystemImpl.METADATA_PACKAGE_GEN.replace('/', '.') + ".system.";
+        return _typeSystemName.startsWith(prefix) ? _typeSystemName.substring(prefix.length()) : _typeSystemName;
+    }
+
+    /**
+     * A type system can only be updated if it has been compiled with the same settings
+     * from the same set of schema files.
+     */
+    public boolean isCompatible(String settings, Collection<String> inputs) {
+        return _settings.equals(settings) && _inputs.equals(new HashSet<>(inputs));
+    }
+
+    /**
+     * @return the URIs of the schema files, which have been changed or removed since the cache was written
+     */
+    public Set<String> getChangedFiles() throws IOException {
+        Set<String> changed = new TreeSet<>();
+        for (Map.Entry<String, String> me : _digests.entrySet()) {
+            File file = toFile(me.getKey());
+            if (file == null || !file.isFile() || !me.getValue().equals(digest(file))) {
+                changed.add(me.getKey());
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * @param changedFiles the URIs of the changed schema files
+     * @return the namespaces which need to be recompiled - the namespaces the files contribute to
+     * and the namespaces depending on them
+     */
+    public Set<String> getAffectedNamespaces(Set<String> changedFiles) {
+        return _deps.computeTransitiveClosure(_deps.getNamespacesTouched(changedFiles));
+    }
+
+    /**
+     * @param namespaces the namespaces to recompile
+     * @return the URIs of the schema files contributing to the namespaces
+     */
+    public Set<String> getFiles(Set<String> namespaces) {
+        return new TreeSet<>(_deps.getFilesTouched(namespaces));
+    }
+
+    /**
+     * @return the URIs of the schema files passed to the compiler
+     */
+    public Set<String> getInputs() {
+        return Collections.unmodifiableSet(_inputs);
+    }
+
+    /**
+     * Loads the cached type system as base of an incremental compilation.
+     * All components are resolved upfront, as the saving of the updated type system
+     * overwrites the .xsb files.
+     *
+     * @param loader the resource loader for the compiled type system
+     * @param linkTo the type loader for referenced type systems
+     */
+    public SchemaTypeSystem loadTypeSystem(ResourceLoader loader, SchemaTypeLoader linkTo) {
+        linkTo = SchemaTypeLoaderImpl.build(new SchemaTypeLoader[]{BuiltinSchemaTypeSystem.get(), linkTo}, null, null);
+        SchemaTypeSystemImpl system = new SchemaTypeSystemImpl(loader, _typeSystemName, linkTo);
+        system.setDependencies(_deps);
+        system.resolve();
+        return system;
+    }
+
+    /**
+     * @return the hex encoded SHA-256 digest of the file
+     */
+    public static String digest(File file) throws IOException {
+        return digest(Files.readAllBytes(file.toPath()));
+    }
+
+    /**
+     * @return the hex encoded SHA-256 digest of the UTF-8 encoded string
+     */
+    public static String digest(String str) {
+        return digest(str.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String digest(byte[] bytes) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            return new String(HexBin.encode(md.digest(bytes)), StandardCharsets.ISO_8859_1);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @return the local file of the URI or null, if the URI doesn't point to a file
+     */
+    public static File toFile(String uri) {
+        if (uri == null || !uri.startsWith("file:")) {
+            return null;
+        }
+        try {
+            return new File(new URI(uri));
+        } catch (Exception e) {
+            return null;
+        }
+    }
+}
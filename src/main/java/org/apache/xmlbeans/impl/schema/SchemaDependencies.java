@@ -99,6 +99,14 @@ public class SchemaDependencies {
             collect(Collectors.toList());
     }
 
+    Map<String, List<String>> getContributions() {
+        return Collections.unmodifiableMap(_contributions);
+    }
+
+    Map<String, Set<String>> getDependencies() {
+        return Collections.unmodifiableMap(_dependencies);
+    }
+
     List<String> getNamespacesTouched(Set<String> modifiedFiles) {
         return _contributions.entrySet().stream().
             filter(e -> e.getValue().stream().anyMatch(modifiedFiles::contains)).
@@ -23,6 +23,7 @@ import javax.xml.namespace.QName;
 import java.lang.reflect.Constructor;
 import java.math.BigInteger;
 import java.util.*;
+import java.util.function.Function;
 
 public final class SchemaTypeImpl implements SchemaType, TypeStoreUserFactory {
     // global types have names
@@ -84,6 +85,8 @@ public final class SchemaTypeImpl implements SchemaType, TypeStoreUserFactory {
     private volatile SchemaLocalElement[] _localElts; // lazily computed
     private volatile Map<SchemaLocalElement, Integer> _eltToIndexMap; // lazily computed
     private volatile Map<SchemaLocalAttribute, Integer> _attrToIndexMap; // lazily computed
+    private volatile ContentModelAutomaton _contentModelAutomaton; // lazily computed
+    private volatile boolean _contentModelCompiled;
     private Map<QName, SchemaProperty> _propertyModelByElementName;
     private Map<QName, SchemaProperty> _propertyModelByAttributeName;
     private boolean _hasAllContent;
@@ -143,6 +146,7 @@ public final class SchemaTypeImpl implements SchemaType, TypeStoreUserFactory {
 
     // enumerated values
     private XmlValueRef[] _enumerationValues;
+    private volatile EnumerationValueSet _enumerationValueSet; // lazily computed
     private SchemaType.Ref _baseEnumTyperef;
     private boolean _stringEnumEnsured;
     private volatile Map<String, StringEnumAbstractBase> _lookupStringEnum;
@@ -652,6 +656,18 @@ public final class SchemaTypeImpl implements SchemaType, TypeStoreUserFactory {
         return _contentModel;
     }
 
+    /**
+     * @return the content model compiled for validation, or null if the type has no
+     * content model or the model can't be compiled
+     */
+    public ContentModelAutomaton getContentModelAutomaton() {
+        if (!_contentModelCompiled) {
+            _contentModelAutomaton = _contentModel == null ? null : ContentModelAutomaton.compile(_contentModel);
+            _contentModelCompiled = true;
+        }
+        return _contentModelAutomaton;
+    }
+
     private static void buildEltList(List<SchemaLocalElement> eltList, SchemaParticle contentModel) {
         if (contentModel == null) {
             return;
@@ -1469,6 +1485,49 @@ public final class SchemaTypeImpl implements SchemaType, TypeStoreUserFactory {
     public void setEnumerationValues(XmlValueRef[] a) {
         assertResolving();
         _enumerationValues = a == null ? null : a.clone();
+        _enumerationValueSet = null;
+    }
+
+    /**
+     * Returns the enumeration values of this type as a set of keys, so that the
+     * enumeration facet can be checked with a lookup instead of a comparison with
+     * each value.  Two values are the same enumeration value if their keys are equal.
+     * <p>
+     * The set is computed once per type and key function; callers should pass the
+     * same (static) key function each time.
+     *
+     * @param key maps an enumeration value to its key
+     * @return the unmodifiable set of keys, or null if this type has no enumeration
+     * values or isn't resolved yet
+     */
+    public Set<Object> getEnumerationValueSet(Function<? super XmlAnySimpleType, ?> key) {
+        // the values may still change while the type is being resolved
+        if (_enumerationValues == null || !isResolved()) {
+            return null;
+        }
+
+        EnumerationValueSet valueSet = _enumerationValueSet;
+        if (valueSet == null || valueSet._key != key) {
+            Set<Object> values = new HashSet<>();
+            for (XmlValueRef ref : _enumerationValues) {
+                if (ref != null) {
+                    values.add(key.apply(ref.get()));
+                }
+            }
+            valueSet = new EnumerationValueSet(key, Collections.unmodifiableSet(values));
+            _enumerationValueSet = valueSet;
+        }
+        return valueSet._values;
+    }
+
+    private static final class EnumerationValueSet {
+        final Function<? super XmlAnySimpleType, ?> _key;
+        final Set<Object> _values;
+
+        EnumerationValueSet(Function<? super XmlAnySimpleType, ?> key, Set<Object> values) {
+            _key = key;
+            _values = values;
+        }
     }
 
     public StringEnumAbstractBase enumForString(String s) {
@@ -1591,6 +1650,7 @@ public final class SchemaTypeImpl implements SchemaType, TypeStoreUserFactory {
     public void copyEnumerationValues(SchemaTypeImpl baseImpl) {
         assertResolving();
         _enumerationValues = baseImpl._enumerationValues;
+        _enumerationValueSet = null;
         _baseEnumTyperef = baseImpl._baseEnumTyperef;
     }
 
@@ -25,6 +25,9 @@ import javax.xml.namespace.QName;
 import java.io.InputStream;
 import java.lang.ref.SoftReference;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
 
 import static org.apache.xmlbeans.impl.schema.SchemaTypeSystemImpl.METADATA_PACKAGE_GEN;
 
@@ -35,19 +38,20 @@ public class SchemaTypeLoaderImpl extends SchemaTypeLoaderBase {
 
     private Map<String, SchemaTypeSystemImpl> _classpathTypeSystems;
     private Map<String, SchemaTypeSystemImpl> _classLoaderTypeSystems;
-    private Map<QName, Object> _elementCache;
-    private Map<QName, Object> _attributeCache;
-    private Map<QName, Object> _modelGroupCache;
-    private Map<QName, Object> _attributeGroupCache;
-    private Map<QName, Object> _idConstraintCache;
-    private Map<QName, Object> _typeCache;
-    private Map<QName, Object> _documentCache;
-    private Map<QName, Object> _attributeTypeCache;
-    private Map<String, Object> _classnameCache;
+    private LookupCache<QName, SchemaGlobalElement.Ref> _elementCache;
+    private LookupCache<QName, SchemaGlobalAttribute.Ref> _attributeCache;
+    private LookupCache<QName, SchemaModelGroup.Ref> _modelGroupCache;
+    private LookupCache<QName, SchemaAttributeGroup.Ref> _attributeGroupCache;
+    private LookupCache<QName, SchemaIdentityConstraint.Ref> _idConstraintCache;
+    private LookupCache<QName, SchemaType.Ref> _typeCache;
+    private LookupCache<QName, SchemaType.Ref> _documentCache;
+    private LookupCache<QName, SchemaType.Ref> _attributeTypeCache;
+    private LookupCache<String, SchemaType> _classnameCache;
+    private final LongAdder _cacheHits = new LongAdder();
+    private final LongAdder _cacheMisses = new LongAdder();
     private final String _metadataPath;
 
     public static String METADATA_PACKAGE_LOAD = METADATA_PACKAGE_GEN;
-    private static final Object CACHED_NOT_FOUND = new Object();
 
     private static final String[] basePackage = {"org.apache.xmlbeans.metadata", "schemaorg_apache_xmlbeans"};
     private static final String[] baseSchemas = {"sXMLCONFIG", "sXMLLANG", "sXMLSCHEMA", "sXMLTOOLS"};
@@ -247,17 +251,65 @@ public class SchemaTypeLoaderImpl extends SchemaTypeLoaderBase {
     private void initCaches() {
         _classpathTypeSystems = Collections.synchronizedMap(new HashMap<>());
         _classLoaderTypeSystems = Collections.synchronizedMap(new HashMap<>());
-        _elementCache = Collections.synchronizedMap(new HashMap<>());
-        _attributeCache = Collections.synchronizedMap(new HashMap<>());
-        _modelGroupCache = Collections.synchronizedMap(new HashMap<>());
-        _attributeGroupCache = Collections.synchronizedMap(new HashMap<>());
-        _idConstraintCache = Collections.synchronizedMap(new HashMap<>());
-        _typeCache = Collections.synchronizedMap(new HashMap<>());
-        _documentCache = Collections.synchronizedMap(new HashMap<>());
-        _attributeTypeCache = Collections.synchronizedMap(new HashMap<>());
-        _classnameCache = Collections.synchronizedMap(new HashMap<>());
+        _elementCache = new LookupCache<>();
+        _attributeCache = new LookupCache<>();
+        _modelGroupCache = new LookupCache<>();
+        _attributeGroupCache = new LookupCache<>();
+        _idConstraintCache = new LookupCache<>();
+        _typeCache = new LookupCache<>();
+        _documentCache = new LookupCache<>();
+        _attributeTypeCache = new LookupCache<>();
+        _classnameCache = new LookupCache<>();
     }
 
+    /**
+     * @return the number of component lookups, which have been answered by the caches of this loader
+     */
+    public long getCacheHitCount() {
+        return _cacheHits.sum();
+    }
+
+    /**
+     * @return the number of component lookups, which had to consult the search path and the type systems
+     */
+    public long getCacheMissCount() {
+        return _cacheMisses.sum();
+    }
+
+    /**
+     * A lookup cache, which remembers the misses as well.  The resolver is called without holding
+     * any lock, as it may look up further components, and the first result which is published wins,
+     * so concurrent lookups of the same key always return the same component.
+     */
+    private final class LookupCache<K, V> {
+        private final ConcurrentHashMap<K, Object> _map = new ConcurrentHashMap<>();
+
+        @SuppressWarnings("unchecked")
+        V get(K key, Function<K, V> resolver) {
+            if (key == null) {
+                return resolver.apply(null);
+            }
+
+            Object cached = _map.get(key);
+
+            if (cached != null) {
+                _cacheHits.increment();
+            } else {
+                _cacheMisses.increment();
+                V value = resolver.apply(key);
+                cached = _map.putIfAbsent(key, value == null ? MISSING : value);
+                if (cached == null) {
+                    return value;
+                }
+            }
+
+            return cached == MISSING ? null : (V) cached;
+        }
+    }
+
+    // the cached value of the names, which couldn't be resolved
+    private static final Object MISSING = new Object();
+
     SchemaTypeSystemImpl typeSystemForComponent(String searchdir, QName name) {
         String searchfor = searchdir + QNameHelper.hexsafedir(name) + ".xsb";
         String tsname = null;
@@ -355,28 +407,22 @@ public class SchemaTypeLoaderImpl extends SchemaTypeLoaderBase {
     }
 
     public SchemaType.Ref findTypeRef(QName name) {
-        // The maps are synchronized, we use two accesses to the cache (one read and one write), but the code in-between
-        // is not synchronized. The assumption is that the underlying datastructures (the search path and the classloader)
-        // do not change, so two threads running the code in parallel will come up with the same result.
-        Object cached = _typeCache.get(name);
-        if (cached == CACHED_NOT_FOUND) {
-            return null;
-        }
-        SchemaType.Ref result = (SchemaType.Ref) cached;
-        if (result == null) {
-            for (SchemaTypeLoader schemaTypeLoader : _searchPath) {
-                if (null != (result = schemaTypeLoader.findTypeRef(name))) {
-                    break;
-                }
+        return _typeCache.get(name, this::resolveTypeRef);
+    }
+
+    private SchemaType.Ref resolveTypeRef(QName name) {
+        SchemaType.Ref result = null;
+        for (SchemaTypeLoader schemaTypeLoader : _searchPath) {
+            if (null != (result = schemaTypeLoader.findTypeRef(name))) {
+                break;
             }
-            if (result == null) {
-                SchemaTypeSystem ts = typeSystemForComponent(_metadataPath + "/type/", name);
-                if (ts != null) {
-                    result = ts.findTypeRef(name);
-                    assert (result != null) : "Type system registered type " + QNameHelper.pretty(name) + " but does not return it";
-                }
+        }
+        if (result == null) {
+            SchemaTypeSystem ts = typeSystemForComponent(_metadataPath + "/type/", name);
+            if (ts != null) {
+                result = ts.findTypeRef(name);
+                assert (result != null) : "Type system registered type " + QNameHelper.pretty(name) + " but does not return it";
             }
-            _typeCache.put(name, result == null ? CACHED_NOT_FOUND : result);
         }
         return result;
     }
@@ -384,193 +430,169 @@ public class SchemaTypeLoaderImpl extends SchemaTypeLoaderBase {
     public SchemaType typeForClassname(String classname) {
         classname = classname.replace('$', '.');
 
-        Object cached = _classnameCache.get(classname);
-        if (cached == CACHED_NOT_FOUND) {
-            return null;
+        return _classnameCache.get(classname, this::resolveTypeForClassname);
+    }
+
+    private SchemaType resolveTypeForClassname(String classname) {
+        SchemaType result = null;
+        for (SchemaTypeLoader schemaTypeLoader : _searchPath) {
+            if (null != (result = schemaTypeLoader.typeForClassname(classname))) {
+                break;
+            }
         }
-        SchemaType result = (SchemaType) cached;
         if (result == null) {
-            for (SchemaTypeLoader schemaTypeLoader : _searchPath) {
-                if (null != (result = schemaTypeLoader.typeForClassname(classname))) {
-                    break;
-                }
-            }
-            if (result == null) {
-                SchemaTypeSystem ts = typeSystemForClassname(_metadataPath + "/javaname/", classname);
-                if (ts != null) {
-                    result = ts.typeForClassname(classname);
-                    assert (result != null) : "Type system registered type " + classname + " but does not return it";
-                }
+            SchemaTypeSystem ts = typeSystemForClassname(_metadataPath + "/javaname/", classname);
+            if (ts != null) {
+                result = ts.typeForClassname(classname);
+                assert (result != null) : "Type system registered type " + classname + " but does not return it";
             }
-            _classnameCache.put(classname, result == null ? CACHED_NOT_FOUND : result);
         }
         return result;
     }
 
     public SchemaType.Ref findDocumentTypeRef(QName name) {
-        Object cached = _documentCache.get(name);
-        if (cached == CACHED_NOT_FOUND) {
-            return null;
+        return _documentCache.get(name, this::resolveDocumentTypeRef);
+    }
+
+    private SchemaType.Ref resolveDocumentTypeRef(QName name) {
+        SchemaType.Ref result = null;
+        for (SchemaTypeLoader schemaTypeLoader : _searchPath) {
+            if (null != (result = schemaTypeLoader.findDocumentTypeRef(name))) {
+                break;
+            }
         }
-        SchemaType.Ref result = (SchemaType.Ref) cached;
         if (result == null) {
-            for (SchemaTypeLoader schemaTypeLoader : _searchPath) {
-                if (null != (result = schemaTypeLoader.findDocumentTypeRef(name))) {
-                    break;
-                }
+            SchemaTypeSystem ts = typeSystemForComponent(_metadataPath + "/element/", name);
+            if (ts != null) {
+                result = ts.findDocumentTypeRef(name);
+                assert (result != null) : "Type system registered element " + QNameHelper.pretty(name) + " but does not contain document type";
             }
-            if (result == null) {
-                SchemaTypeSystem ts = typeSystemForComponent(_metadataPath + "/element/", name);
-                if (ts != null) {
-                    result = ts.findDocumentTypeRef(name);
-                    assert (result != null) : "Type system registered element " + QNameHelper.pretty(name) + " but does not contain document type";
-                }
-            }
-            _documentCache.put(name, result == null ? CACHED_NOT_FOUND : result);
         }
         return result;
     }
 
     public SchemaType.Ref findAttributeTypeRef(QName name) {
-        Object cached = _attributeTypeCache.get(name);
-        if (cached == CACHED_NOT_FOUND) {
-            return null;
+        return _attributeTypeCache.get(name, this::resolveAttributeTypeRef);
+    }
+
+    private SchemaType.Ref resolveAttributeTypeRef(QName name) {
+        SchemaType.Ref result = null;
+        for (SchemaTypeLoader schemaTypeLoader : _searchPath) {
+            if (null != (result = schemaTypeLoader.findAttributeTypeRef(name))) {
+                break;
+            }
         }
-        SchemaType.Ref result = (SchemaType.Ref) cached;
         if (result == null) {
-            for (SchemaTypeLoader schemaTypeLoader : _searchPath) {
-                if (null != (result = schemaTypeLoader.findAttributeTypeRef(name))) {
-                    break;
-                }
-            }
-            if (result == null) {
-                SchemaTypeSystem ts = typeSystemForComponent(_metadataPath + "/attribute/", name);
-                if (ts != null) {
-                    result = ts.findAttributeTypeRef(name);
-                    assert (result != null) : "Type system registered attribute " + QNameHelper.pretty(name) + " but does not contain attribute type";
-                }
+            SchemaTypeSystem ts = typeSystemForComponent(_metadataPath + "/attribute/", name);
+            if (ts != null) {
+                result = ts.findAttributeTypeRef(name);
+                assert (result != null) : "Type system registered attribute " + QNameHelper.pretty(name) + " but does not contain attribute type";
             }
-            _attributeTypeCache.put(name, result == null ? CACHED_NOT_FOUND : result);
         }
         return result;
     }
 
     public SchemaGlobalElement.Ref findElementRef(QName name) {
-        Object cached = _elementCache.get(name);
-        if (cached == CACHED_NOT_FOUND) {
-            return null;
+        return _elementCache.get(name, this::resolveElementRef);
+    }
+
+    private SchemaGlobalElement.Ref resolveElementRef(QName name) {
+        SchemaGlobalElement.Ref result = null;
+        for (SchemaTypeLoader schemaTypeLoader : _searchPath) {
+            if (null != (result = schemaTypeLoader.findElementRef(name))) {
+                break;
+            }
         }
-        SchemaGlobalElement.Ref result = (SchemaGlobalElement.Ref) cached;
         if (result == null) {
-            for (SchemaTypeLoader schemaTypeLoader : _searchPath) {
-                if (null != (result = schemaTypeLoader.findElementRef(name))) {
-                    break;
-                }
-            }
-            if (result == null) {
-                SchemaTypeSystem ts = typeSystemForComponent(_metadataPath + "/element/", name);
-                if (ts != null) {
-                    result = ts.findElementRef(name);
-                    assert (result != null) : "Type system registered element " + QNameHelper.pretty(name) + " but does not return it";
-                }
+            SchemaTypeSystem ts = typeSystemForComponent(_metadataPath + "/element/", name);
+            if (ts != null) {
+                result = ts.findElementRef(name);
+                assert (result != null) : "Type system registered element " + QNameHelper.pretty(name) + " but does not return it";
             }
-            _elementCache.put(name, result == null ? CACHED_NOT_FOUND : result);
         }
         return result;
     }
 
     public SchemaGlobalAttribute.Ref findAttributeRef(QName name) {
-        Object cached = _attributeCache.get(name);
-        if (cached == CACHED_NOT_FOUND) {
-            return null;
+        return _attributeCache.get(name, this::resolveAttributeRef);
+    }
+
+    private SchemaGlobalAttribute.Ref resolveAttributeRef(QName name) {
+        SchemaGlobalAttribute.Ref result = null;
+        for (SchemaTypeLoader schemaTypeLoader : _searchPath) {
+            if (null != (result = schemaTypeLoader.findAttributeRef(name))) {
+                break;
+            }
         }
-        SchemaGlobalAttribute.Ref result = (SchemaGlobalAttribute.Ref) cached;
         if (result == null) {
-            for (SchemaTypeLoader schemaTypeLoader : _searchPath) {
-                if (null != (result = schemaTypeLoader.findAttributeRef(name))) {
-                    break;
-                }
+            SchemaTypeSystem ts = typeSystemForComponent(_metadataPath + "/attribute/", name);
+            if (ts != null) {
+                result = ts.findAttributeRef(name);
+                assert (result != null) : "Type system registered attribute " + QNameHelper.pretty(name) + " but does not return it";
             }
-            if (result == null) {
-                SchemaTypeSystem ts = typeSystemForComponent(_metadataPath + "/attribute/", name);
-                if (ts != null) {
-                    result = ts.findAttributeRef(name);
-                    assert (result != null) : "Type system registered attribute " + QNameHelper.pretty(name) + " but does not return it";
-                }
-            }
-            _attributeCache.put(name, result == null ? CACHED_NOT_FOUND : result);
         }
         return result;
     }
 
     public SchemaModelGroup.Ref findModelGroupRef(QName name) {
-        Object cached = _modelGroupCache.get(name);
-        if (cached == CACHED_NOT_FOUND) {
-            return null;
+        return _modelGroupCache.get(name, this::resolveModelGroupRef);
+    }
+
+    private SchemaModelGroup.Ref resolveModelGroupRef(QName name) {
+        SchemaModelGroup.Ref result = null;
+        for (SchemaTypeLoader schemaTypeLoader : _searchPath) {
+            if (null != (result = schemaTypeLoader.findModelGroupRef(name))) {
+                break;
+            }
         }
-        SchemaModelGroup.Ref result = (SchemaModelGroup.Ref) cached;
         if (result == null) {
-            for (SchemaTypeLoader schemaTypeLoader : _searchPath) {
-                if (null != (result = schemaTypeLoader.findModelGroupRef(name))) {
-                    break;
-                }
-            }
-            if (result == null) {
-                SchemaTypeSystem ts = typeSystemForComponent(_metadataPath + "/modelgroup/", name);
-                if (ts != null) {
-                    result = ts.findModelGroupRef(name);
-                    assert (result != null) : "Type system registered model group " + QNameHelper.pretty(name) + " but does not return it";
-                }
+            SchemaTypeSystem ts = typeSystemForComponent(_metadataPath + "/modelgroup/", name);
+            if (ts != null) {
+                result = ts.findModelGroupRef(name);
+                assert (result != null) : "Type system registered model group " + QNameHelper.pretty(name) + " but does not return it";
             }
-            _modelGroupCache.put(name, result == null ? CACHED_NOT_FOUND : result);
         }
         return result;
     }
 
     public SchemaAttributeGroup.Ref findAttributeGroupRef(QName name) {
-        Object cached = _attributeGroupCache.get(name);
-        if (cached == CACHED_NOT_FOUND) {
-            return null;
+        return _attributeGroupCache.get(name, this::resolveAttributeGroupRef);
+    }
+
+    private SchemaAttributeGroup.Ref resolveAttributeGroupRef(QName name) {
+        SchemaAttributeGroup.Ref result = null;
+        for (SchemaTypeLoader schemaTypeLoader : _searchPath) {
+            if (null != (result = schemaTypeLoader.findAttributeGroupRef(name))) {
+                break;
+            }
         }
-        SchemaAttributeGroup.Ref result = (SchemaAttributeGroup.Ref) cached;
         if (result == null) {
-            for (SchemaTypeLoader schemaTypeLoader : _searchPath) {
-                if (null != (result = schemaTypeLoader.findAttributeGroupRef(name))) {
-                    break;
-                }
-            }
-            if (result == null) {
-                SchemaTypeSystem ts = typeSystemForComponent(_metadataPath + "/attributegroup/", name);
-                if (ts != null) {
-                    result = ts.findAttributeGroupRef(name);
-                    assert (result != null) : "Type system registered attribute group " + QNameHelper.pretty(name) + " but does not return it";
-                }
+            SchemaTypeSystem ts = typeSystemForComponent(_metadataPath + "/attributegroup/", name);
+            if (ts != null) {
+                result = ts.findAttributeGroupRef(name);
+                assert (result != null) : "Type system registered attribute group " + QNameHelper.pretty(name) + " but does not return it";
             }
-            _attributeGroupCache.put(name, result == null ? CACHED_NOT_FOUND : result);
         }
         return result;
     }
 
     public SchemaIdentityConstraint.Ref findIdentityConstraintRef(QName name) {
-        Object cached = _idConstraintCache.get(name);
-        if (cached == CACHED_NOT_FOUND) {
-            return null;
+        return _idConstraintCache.get(name, this::resolveIdentityConstraintRef);
+    }
+
+    private SchemaIdentityConstraint.Ref resolveIdentityConstraintRef(QName name) {
+        SchemaIdentityConstraint.Ref result = null;
+        for (SchemaTypeLoader schemaTypeLoader : _searchPath) {
+            if (null != (result = schemaTypeLoader.findIdentityConstraintRef(name))) {
+                break;
+            }
         }
-        SchemaIdentityConstraint.Ref result = (SchemaIdentityConstraint.Ref) cached;
         if (result == null) {
-            for (SchemaTypeLoader schemaTypeLoader : _searchPath) {
-                if (null != (result = schemaTypeLoader.findIdentityConstraintRef(name))) {
-                    break;
-                }
-            }
-            if (result == null) {
-                SchemaTypeSystem ts = typeSystemForComponent(_metadataPath + "/identityconstraint/", name);
-                if (ts != null) {
-                    result = ts.findIdentityConstraintRef(name);
-                    assert (result != null) : "Type system registered identity constraint " + QNameHelper.pretty(name) + " but does not return it";
-                }
+            SchemaTypeSystem ts = typeSystemForComponent(_metadataPath + "/identityconstraint/", name);
+            if (ts != null) {
+                result = ts.findIdentityConstraintRef(name);
+                assert (result != null) : "Type system registered identity constraint " + QNameHelper.pretty(name) + " but does not return it";
             }
-            _idConstraintCache.put(name, result == null ? CACHED_NOT_FOUND : result);
         }
         return result;
     }
@@ -20,11 +20,16 @@ import org.apache.xmlbeans.impl.common.XmlErrorWatcher;
 import org.apache.xmlbeans.impl.xb.xsdschema.SchemaDocument;
 import org.apache.xmlbeans.impl.xb.xsdschema.SchemaDocument.Schema;
 
+import javax.xml.namespace.QName;
 import java.io.File;
 import java.io.IOException;
+import java.io.StringWriter;
 import java.io.Writer;
 import java.net.URI;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Function;
 
 public class SchemaTypeSystemCompiler {
     public static class Parameters {
@@ -351,6 +356,10 @@ public class SchemaTypeSystemCompiler {
      * Generate java source files for a SchemaTypeSystem.
      * Please do not invoke this method directly as the signature could change unexpectedly.
      * Use {@link org.apache.xmlbeans.XmlBeans#compileXmlBeans}
+     * <p>
+     * If {@link XmlOptions#setCompileParallelism(int)} is set to more than one thread, the
+     * sources are printed on a fork-join pool.  The source files are still created in the
+     * order of the types, so the output doesn't depend on the scheduling of the threads.
      *
      * @param system  the SchemaTypeSystem to generated java source for
      * @param filer   to create the java source files
@@ -358,47 +367,130 @@ public class SchemaTypeSystemCompiler {
      * @return true if saving the generated source succeeded.
      */
     public static boolean generateTypes(SchemaTypeSystem system, Filer filer, XmlOptions options) {
+        return generateTypes(system, filer, options, null);
+    }
+
+    /**
+     * Generate java source files for the types of the given namespaces,
+     * e.g. after an incremental compilation of these namespaces.
+     *
+     * @param system     the SchemaTypeSystem to generated java source for
+     * @param filer      to create the java source files
+     * @param options    See {@link XmlOptions#setSchemaCodePrinter(org.apache.xmlbeans.SchemaCodePrinter)}
+     * @param namespaces the namespaces of the generated types or null for all types
+     * @return true if saving the generated source succeeded.
+     */
+    public static boolean generateTypes(SchemaTypeSystem system, Filer filer, XmlOptions options, Set<String> namespaces) {
         // partial type systems not allowed to be saved
         if (system instanceof SchemaTypeSystemImpl && ((SchemaTypeSystemImpl) system).isIncomplete()) {
             return false;
         }
 
-        boolean success = true;
-
         List<SchemaType> types = new ArrayList<>();
-        types.addAll(Arrays.asList(system.globalTypes()));
-        types.addAll(Arrays.asList(system.documentTypes()));
-        types.addAll(Arrays.asList(system.attributeTypes()));
+        addTypes(types, system.globalTypes(), SchemaType::getName, namespaces);
+        addTypes(types, system.documentTypes(), SchemaType::getDocumentElementName, namespaces);
+        addTypes(types, system.attributeTypes(), SchemaType::getAttributeTypeAttributeName, namespaces);
+        types.removeIf(type -> type.isBuiltinType() || type.getFullJavaName() == null);
+
+        int parallelism = (options == null) ? 1 : options.getCompileParallelism();
+        // a custom code printer is a single instance, which can't be shared between threads
+        if (parallelism > 1 && types.size() > 1 && options.getSchemaCodePrinter() == null) {
+            return generateTypesParallel(types, filer, options, parallelism);
+        }
+
+        boolean success = true;
 
         for (SchemaType type : types) {
-            if (type.isBuiltinType()) {
-                continue;
+            success &= printSource(filer, type.getFullJavaName(), type, false, options);
+            success &= printSource(filer, type.getFullJavaImplName(), type, true, options);
+        }
+
+        return success;
+    }
+
+    /**
+     * The sources are printed into memory on the pool, while the source files are created,
+     * written and closed on the calling thread in type order.  The filer isn't thread-safe:
+     * closing a writer may repackage its source with a shared repackager.  The number of
+     * printed sources held in memory is bounded.
+     */
+    private static boolean generateTypesParallel(List<SchemaType> types, Filer filer, XmlOptions options, int parallelism) {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        Deque<String> pendingNames = new ArrayDeque<>();
+        Deque<ForkJoinTask<String>> pending = new ArrayDeque<>();
+        boolean success = true;
+
+        try {
+            for (SchemaType type : types) {
+                for (boolean impl : new boolean[]{false, true}) {
+                    pendingNames.add(impl ? type.getFullJavaImplName() : type.getFullJavaName());
+                    pending.add(pool.submit(() -> printSource(type, impl, options)));
+                    if (pending.size() > 4 * parallelism) {
+                        success &= writeSource(filer, pendingNames.poll(), pending.poll().join());
+                    }
+                }
             }
-            if (type.getFullJavaName() == null) {
-                continue;
+            while (!pending.isEmpty()) {
+                success &= writeSource(filer, pendingNames.poll(), pending.poll().join());
             }
+        } finally {
+            pool.shutdown();
+        }
 
-            String fjn = type.getFullJavaName();
+        return success;
+    }
 
-            try (Writer writer = filer.createSourceFile(fjn)) {
-                // Generate interface class
-                SchemaTypeCodePrinter.printType(writer, type, options);
-            } catch (IOException e) {
-                System.err.println("IO Error " + e);
-                success = false;
+    /**
+     * @return the printed source, or null if printing failed
+     */
+    private static String printSource(SchemaType type, boolean impl, XmlOptions options) {
+        StringWriter writer = new StringWriter();
+        return printSource(writer, type, impl, options) ? writer.toString() : null;
+    }
+
+    private static boolean writeSource(Filer filer, String fjn, String source) {
+        if (source == null) {
+            return false;
+        }
+        try (Writer writer = filer.createSourceFile(fjn)) {
+            writer.write(source);
+            return true;
+        } catch (IOException e) {
+            System.err.println("IO Error " + e);
+            return false;
+        }
+    }
+
+    private static void addTypes(List<SchemaType> types, SchemaType[] add, Function<SchemaType, QName> name, Set<String> namespaces) {
+        for (SchemaType type : add) {
+            if (namespaces == null || namespaces.contains(name.apply(type).getNamespaceURI())) {
+                types.add(type);
             }
+        }
+    }
 
-            fjn = type.getFullJavaImplName();
+    private static boolean printSource(Filer filer, String fjn, SchemaType type, boolean impl, XmlOptions options) {
+        try {
+            return printSource(filer.createSourceFile(fjn), type, impl, options);
+        } catch (IOException e) {
+            System.err.println("IO Error " + e);
+            return false;
+        }
+    }
 
-            try (Writer writer = filer.createSourceFile(fjn)) {
+    private static boolean printSource(Writer source, SchemaType type, boolean impl, XmlOptions options) {
+        try (Writer writer = source) {
+            if (impl) {
                 // Generate Implementation class
                 SchemaTypeCodePrinter.printTypeImpl(writer, type, options);
-            } catch (IOException e) {
-                System.err.println("IO Error " + e);
-                success = false;
+            } else {
+                // Generate interface class
+                SchemaTypeCodePrinter.printType(writer, type, options);
             }
+            return true;
+        } catch (IOException e) {
+            System.err.println("IO Error " + e);
+            return false;
         }
-
-        return success;
     }
 }
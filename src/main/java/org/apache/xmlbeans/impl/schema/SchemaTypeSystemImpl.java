@@ -178,12 +178,16 @@ public class SchemaTypeSystemImpl extends SchemaTypeLoaderBase implements Schema
 
     public static boolean fileContainsTypeSystem(File file, String name) {
         String indexname = nameToPathString(name) + "index.xsb";
+        String bundlename = nameToPathString(name) + TypeSystemBundle.BUNDLE_NAME;
 
         if (file.isDirectory()) {
-            return (new File(file, indexname)).isFile();
+            return (new File(file, indexname)).isFile() || (new File(file, bundlename)).isFile();
         } else {
             try (ZipFile zipfile = new ZipFile(file)) {
                 ZipEntry entry = zipfile.getEntry(indexname);
+                if (entry == null) {
+                    entry = zipfile.getEntry(bundlename);
+                }
                 return (entry != null && !entry.isDirectory());
             } catch (IOException e) {
                 XBeanDebug.log("Problem loading SchemaTypeSystem, zipfilename " + file);
@@ -219,6 +223,12 @@ public class SchemaTypeSystemImpl extends SchemaTypeLoaderBase implements Schema
         XBeanDebug.trace(XBeanDebug.TRACE_SCHEMA_LOADING, "Reading unresolved handles for type system " + _name, 0);
         XsbReader reader = null;
         try {
+            // A bundled type system serves all .xsb files from one resource
+            InputStream bundle = _resourceLoader.getResourceAsStream(_basePackage + TypeSystemBundle.BUNDLE_NAME);
+            if (bundle != null) {
+                _resourceLoader = new TypeSystemBundle(bundle, _basePackage, _resourceLoader, _name);
+            }
+
             // Read the index file, which starts with a header.
             reader = new XsbReader("index", FILETYPE_SCHEMAINDEX);
 
@@ -339,9 +349,10 @@ public class SchemaTypeSystemImpl extends SchemaTypeLoaderBase implements Schema
         String[] replace = makeClassStrings(indexClassName);
         assert replace.length == HOLDER_TEMPLATE_NAMES.length;
 
+        Filer filer = (_filer instanceof TypeSystemBundle.BundleFiler) ? ((TypeSystemBundle.BundleFiler) _filer).getFiler() : _filer;
         Repackager repackager = null;
-        if (_filer instanceof FilerImpl) {
-            repackager = ((FilerImpl) _filer).getRepackager();
+        if (filer instanceof FilerImpl) {
+            repackager = ((FilerImpl) filer).getRepackager();
         }
 
         final String outName = indexClassName.replace('.', '/') + ".class";
@@ -588,6 +599,7 @@ public class SchemaTypeSystemImpl extends SchemaTypeLoaderBase implements Schema
         buildContainersHelper(_attributeGroups, SchemaContainer::addAttributeGroup);
         buildContainersHelper(_identityConstraints, SchemaContainer::addIdentityConstraint);
         buildContainersHelper(_globalTypes, SchemaContainer::addGlobalType);
+        buildContainersHelper(_documentTypes, SchemaContainer::addDocumentType);
         buildContainersHelper(_attributeTypes, SchemaContainer::addAttributeType);
 
         // Some earlier .xsb versions don't have records for redefinitions
@@ -767,6 +779,7 @@ public class SchemaTypeSystemImpl extends SchemaTypeLoaderBase implements Schema
         _identityConstraints = buildComponentRefMap(state.idConstraints());
         _annotations = state.annotations();
         _namespaces = new HashSet<>(Arrays.asList(state.getNamespaces()));
+        _saveAsBundle = state.typeSystemBundle();
         _containers = state.getContainerMap();
         fixupContainers();
         // Checks that data in the containers matches the lookup maps
@@ -1059,6 +1072,7 @@ public class SchemaTypeSystemImpl extends SchemaTypeLoaderBase implements Schema
 
     // the loader for loading .xsb resources
     private ResourceLoader _resourceLoader;
+    private boolean _saveAsBundle;
 
     // the following is used to link references during load
     SchemaTypeLoader _linker;
@@ -1110,7 +1124,8 @@ public class SchemaTypeSystemImpl extends SchemaTypeLoaderBase implements Schema
         if (filer == null) {
             throw new IllegalArgumentException("filer must not be null");
         }
-        _filer = filer;
+        TypeSystemBundle.BundleFiler bundleFiler = _saveAsBundle ? new TypeSystemBundle.BundleFiler(filer, _basePackage) : null;
+        _filer = (bundleFiler != null) ? bundleFiler : filer;
 
         _localHandles.startWriteMode();
         saveTypesRecursively(globalTypes());
@@ -1130,6 +1145,14 @@ public class SchemaTypeSystemImpl extends SchemaTypeLoaderBase implements Schema
         savePointers();
 
         saveLoader();
+
+        if (bundleFiler != null) {
+            try {
+                bundleFiler.finish();
+            } catch (IOException e) {
+                throw new SchemaTypeLoaderException(e.getMessage(), _name, TypeSystemBundle.BUNDLE_NAME, SchemaTypeLoaderException.IO_EXCEPTION, e);
+            }
+        }
     }
 
     void saveTypesRecursively(SchemaType[] types) {
@@ -1261,7 +1284,7 @@ public class SchemaTypeSystemImpl extends SchemaTypeLoaderBase implements Schema
     }
 
     public static String crackPointer(InputStream stream) {
-        try (DataInputStream input = new DataInputStream(stream)) {
+        try (DataInputStream input = new DataInputStream(buffered(stream))) {
 
             int magic = input.readInt();
             if (magic != DATA_BABE) {
@@ -1297,6 +1320,15 @@ public class SchemaTypeSystemImpl extends SchemaTypeLoaderBase implements Schema
         }
     }
 
+    /**
+     * The xsb files are decoded with many small reads, so jar entry and file streams need to be buffered.
+     * The streams of the FileResourceLoader are already in memory.
+     */
+    private static InputStream buffered(InputStream is) {
+        return (is instanceof ByteArrayInputStream || is instanceof BufferedInputStream)
+            ? is : new BufferedInputStream(is);
+    }
+
     private class XsbReader {
         DataInputStream _input;
         DataOutputStream _output;
@@ -1314,7 +1346,7 @@ public class SchemaTypeSystemImpl extends SchemaTypeLoaderBase implements Schema
                 throw new SchemaTypeLoaderException("XML-BEANS compiled schema: Could not locate compiled schema resource " + resourcename, _name, handle, SchemaTypeLoaderException.NO_RESOURCE);
             }
 
-            _input = new DataInputStream(rawinput);
+            _input = new DataInputStream(buffered(rawinput));
             _handle = handle;
 
             int magic = readInt();
@@ -102,6 +102,7 @@ public class StscState {
     private boolean _noUpa;
     private boolean _noPvr;
     private boolean _noAnn;
+    private boolean _typeSystemBundle;
     private boolean _mdefAll;
     private final Set<String> _mdefNamespaces = buildDefaultMdefNamespaces();
     private EntityResolver _entityResolver;
@@ -457,6 +458,7 @@ public class StscState {
                  !"true".equals(SystemProperties.getProperty("xmlbean.particlerestriction", "true"));
         _noAnn = options.isCompileNoAnnotations() ||
                  !"true".equals(SystemProperties.getProperty("xmlbean.schemaannotations", "true"));
+        _typeSystemBundle = options.isCompileTypeSystemBundle();
         _doingDownloads = options.isCompileDownloadUrls() ||
                           "true".equals(SystemProperties.getProperty("xmlbean.downloadurls", "false"));
         _entityResolver = options.getEntityResolver();
@@ -515,6 +517,13 @@ public class StscState {
         return _noAnn;
     }
 
+    /**
+     * True if the .xsb files should be saved as one bundle
+     */
+    public boolean typeSystemBundle() {
+        return _typeSystemBundle;
+    }
+
     /**
      * True if a partial SchemaTypeSystem should be produced
      */
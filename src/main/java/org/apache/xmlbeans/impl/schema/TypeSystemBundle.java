@@ -0,0 +1,151 @@
+/*   Copyright 2004 The Apache Software Foundation
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.xmlbeans.impl.schema;
+
+import org.apache.xmlbeans.Filer;
+import org.apache.xmlbeans.ResourceLoader;
+import org.apache.xmlbeans.SchemaTypeLoaderException;
+
+import java.io.*;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * A type system bundle contains all .xsb files of a type system in one resource.
+ * <p>
+ * The bundle consists of a header and a deflated body.  The body contains a table of the
+ * entry names - relative to the base package of the type system - and their lengths,
+ * followed by the concatenated entries.  As the string pools of the .xsb files repeat
+ * the same names and namespaces, they are deduplicated by compressing the body as one stream.
+ * <p>
+ * When loading, the bundle is inflated once and serves the entries as a {@link ResourceLoader}.
+ * Other resources, e.g. the schema sources, are delegated to the resource loader of the type system.
+ */
+class TypeSystemBundle implements ResourceLoader {
+    static final String BUNDLE_NAME = "typesystem.xsbundle";
+
+    private static final int MAGIC = 0x58534246; // "XSBF"
+    private static final int VERSION = 1;
+
+    private final String _basePackage;
+    private final ResourceLoader _fallback;
+    private final byte[] _data;
+    private final Map<String, int[]> _entries = new HashMap<>();
+
+    TypeSystemBundle(InputStream is, String basePackage, ResourceLoader fallback, String name) {
+        _basePackage = basePackage;
+        _fallback = fallback;
+
+        try (DataInputStream header = new DataInputStream(is)) {
+            if (header.readInt() != MAGIC) {
+                throw new SchemaTypeLoaderException("XML-BEANS compiled schema: Wrong magic cookie", name, BUNDLE_NAME, SchemaTypeLoaderException.WRONG_MAGIC_COOKIE);
+            }
+            int version = header.readShort();
+            if (version != VERSION) {
+                throw new SchemaTypeLoaderException("XML-BEANS compiled schema: Wrong bundle version - expecting " + VERSION + ", got " + version, name, BUNDLE_NAME, SchemaTypeLoaderException.WRONG_MAJOR_VERSION);
+            }
+
+            try (DataInputStream body = new DataInputStream(new BufferedInputStream(new InflaterInputStream(header)))) {
+                int count = body.readInt();
+                int offset = 0;
+                for (int i = 0; i < count; i++) {
+                    String entry = body.readUTF();
+                    int length = body.readInt();
+                    _entries.put(entry, new int[]{offset, length});
+                    offset += length;
+                }
+
+                _data = new byte[offset];
+                body.readFully(_data);
+            }
+        } catch (IOException e) {
+            throw new SchemaTypeLoaderException(e.getMessage(), name, BUNDLE_NAME, SchemaTypeLoaderException.IO_EXCEPTION, e);
+        }
+    }
+
+    public InputStream getResourceAsStream(String resourceName) {
+        if (resourceName.startsWith(_basePackage)) {
+            int[] entry = _entries.get(resourceName.substring(_basePackage.length()));
+            if (entry != null) {
+                return new ByteArrayInputStream(_data, entry[0], entry[1]);
+            }
+        }
+        return _fallback.getResourceAsStream(resourceName);
+    }
+
+    public void close() {
+        // the fallback is owned by the type system
+    }
+
+    /**
+     * Collects the .xsb files of a type system, which are written via {@link #finish()} as one bundle.
+     * All other files are passed to the underlying filer.
+     */
+    static class BundleFiler implements Filer {
+        private final Filer _filer;
+        private final String _basePackage;
+        private final Map<String, ByteArrayOutputStream> _entries = new LinkedHashMap<>();
+
+        BundleFiler(Filer filer, String basePackage) {
+            _filer = filer;
+            _basePackage = basePackage;
+        }
+
+        Filer getFiler() {
+            return _filer;
+        }
+
+        public OutputStream createBinaryFile(String typename) throws IOException {
+            if (!typename.startsWith(_basePackage) || !typename.endsWith(".xsb")) {
+                return _filer.createBinaryFile(typename);
+            }
+            ByteArrayOutputStream bos = new ByteArrayOutputStream();
+            _entries.put(typename.substring(_basePackage.length()), bos);
+            return bos;
+        }
+
+        public Writer createSourceFile(String typename) throws IOException {
+            return _filer.createSourceFile(typename);
+        }
+
+        void finish() throws IOException {
+            Deflater def = new Deflater(Deflater.BEST_COMPRESSION);
+            try (DataOutputStream header = new DataOutputStream(_filer.createBinaryFile(_basePackage + BUNDLE_NAME))) {
+                header.writeInt(MAGIC);
+                header.writeShort(VERSION);
+
+                DeflaterOutputStream deflater = new DeflaterOutputStream(header, def);
+                DataOutputStream body = new DataOutputStream(new BufferedOutputStream(deflater));
+                body.writeInt(_entries.size());
+                for (Map.Entry<String, ByteArrayOutputStream> me : _entries.entrySet()) {
+                    body.writeUTF(me.getKey());
+                    body.writeInt(me.getValue().size());
+                }
+                for (ByteArrayOutputStream bos : _entries.values()) {
+                    bos.writeTo(body);
+                }
+                body.flush();
+                deflater.finish();
+            } finally {
+                def.end();
+            }
+        }
+    }
+}
@@ -16,10 +16,24 @@ package org.apache.xmlbeans.impl.store;
 
 import java.io.PrintStream;
 import java.lang.ref.SoftReference;
+import java.nio.charset.StandardCharsets;
 
+/**
+ * Manages the text of the store.  Text is referenced by triples of a source, an offset
+ * and a count of chars, where the source is a char[], a String, a CharJoin or - for
+ * compact text - a byte[] holding Latin-1 chars.
+ */
 public final class CharUtil {
     public CharUtil(int charBufSize) {
+        this(charBufSize, false);
+    }
+
+    /**
+     * @param compact if true, Latin-1 text is saved as byte[] with one byte per char
+     */
+    public CharUtil(int charBufSize, boolean compact) {
         _charBufSize = charBufSize;
+        _compact = compact;
     }
 
     public CharIterator getCharIterator(Object src, int off, int cch) {
@@ -42,6 +56,19 @@ public final class CharUtil {
         return charUtil;
     }
 
+    /**
+     * @return the thread local CharUtil, which saves Latin-1 text as byte[]
+     */
+    public static CharUtil getThreadLocalCompactCharUtil() {
+        SoftReference<CharUtil> softRef = tl_compactCharUtil.get();
+        CharUtil charUtil = softRef.get();
+        if (charUtil == null) {
+            charUtil = new CharUtil(CHARUTIL_INITIAL_BUFSIZE, true);
+            tl_compactCharUtil.set(new SoftReference<>(charUtil));
+        }
+        return charUtil;
+    }
+
     public static void getString(StringBuffer sb, Object src, int off, int cch) {
         assert isValid(src, off, cch);
 
@@ -59,6 +86,8 @@ public final class CharUtil {
             } else {
                 sb.append(s, off, off + cch);
             }
+        } else if (src instanceof byte[]) {
+            sb.append(new String((byte[]) src, off, cch, StandardCharsets.ISO_8859_1));
         } else {
             ((CharJoin) src).getString(sb, off, cch);
         }
@@ -77,6 +106,11 @@ public final class CharUtil {
             System.arraycopy(cs, off, chars, start, cch);
         } else if (src instanceof String) {
             ((String) src).getChars(off, off + cch, chars, start);
+        } else if (src instanceof byte[]) {
+            byte[] bs = (byte[]) src;
+            for (int i = 0; i < cch; i++) {
+                chars[start + i] = (char) (bs[off + i] & 0xFF);
+            }
         } else {
             ((CharJoin) src).getChars(chars, start, off, cch);
         }
@@ -103,6 +137,10 @@ public final class CharUtil {
             return s.substring(off, off + cch);
         }
 
+        if (src instanceof byte[]) {
+            return new String((byte[]) src, off, cch, StandardCharsets.ISO_8859_1);
+        }
+
         StringBuffer sb = new StringBuffer();
 
         ((CharJoin) src).getString(sb, off, cch);
@@ -149,6 +187,16 @@ public final class CharUtil {
             return true;
         }
 
+        if (src instanceof byte[]) {
+            for (byte[] bs = (byte[]) src; cch > 0; cch--) {
+                if (!isWhiteSpace((char) (bs[off++] & 0xFF))) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
         boolean isWhite = true;
 
         for (_charIter.init(src, off, cch); _charIter.hasNext(); ) {
@@ -181,6 +229,13 @@ public final class CharUtil {
                     cch--;
                     off++;
                 }
+            } else if (src instanceof byte[]) {
+                byte[] bs = (byte[]) src;
+
+                while (cch > 0 && isWhiteSpace((char) (bs[off] & 0xFF))) {
+                    cch--;
+                    off++;
+                }
             } else {
                 int count = 0;
 
@@ -402,14 +457,16 @@ public final class CharUtil {
         // Allocate some space to save the text and copy it there.  This may not allocate all
         // the space I need.  This happens when I run out of buffer space.  Deal with this later.
 
-        char[] srcAlloc = allocate(cchSave);
+        // In compact mode, Latin-1 text is saved as bytes and all other text is widened to chars
+
+        boolean latin1 = _compact && isLatin1(srcSave, offSave, cchSave);
+
+        Object srcAlloc = store(latin1, srcSave, offSave, cchSave);
         int offAlloc = _offSrc;
         int cchAlloc = _cchSrc;
 
         assert cchAlloc <= cchSave;
 
-        getChars(srcAlloc, offAlloc, srcSave, offSave, cchAlloc);
-
         Object srcNew;
         int offNew;
 
@@ -428,14 +485,13 @@ public final class CharUtil {
             srcNew = srcAlloc;
             offNew = offAlloc;
         } else if (srcPrev == srcAlloc && offPrev + cchPrev == offAlloc) {
-            //noinspection ConstantConditions
-            assert srcPrev instanceof char[];
+            assert srcPrev instanceof char[] || srcPrev instanceof byte[];
 
             srcNew = srcPrev;
             offNew = offPrev;
         } else if (srcPrev instanceof CharJoin && (j = (CharJoin) srcPrev)._srcRight == srcAlloc &&
                    offPrev + cchPrev - j._cchLeft + j._offRight == offAlloc) {
-            assert j._srcRight instanceof char[];
+            assert j._srcRight instanceof char[] || j._srcRight instanceof byte[];
 
             srcNew = srcPrev;
             offNew = offPrev;
@@ -459,15 +515,13 @@ public final class CharUtil {
             // buffer capable of containing all of the remaining text (no matter how large) and
             // return the beginning part of it.
 
-            srcAlloc = allocate(cchMore);
+            srcAlloc = store(latin1, srcSave, offSave + (cchSave - cchMore), cchMore);
             offAlloc = _offSrc;
             cchAlloc = _cchSrc;
 
             assert cchAlloc == cchMore;
             assert offAlloc == 0;
 
-            getChars(srcAlloc, offAlloc, srcSave, offSave + (cchSave - cchMore), cchMore);
-
             j = new CharJoin(srcNew, offNew, cchNew, srcAlloc, offAlloc);
 
             offNew = 0;
@@ -483,6 +537,88 @@ public final class CharUtil {
         return srcNew;
     }
 
+    /**
+     * Allocates space for the text and copies as much of it as fits into the current buffer.
+     * The allocated space is returned in _offSrc and _cchSrc.
+     */
+    private Object store(boolean latin1, Object src, int off, int cch) {
+        if (latin1) {
+            byte[] bytes = allocateBytes(cch);
+
+            for (int i = 0; i < _cchSrc; i++) {
+                bytes[_offSrc + i] = (byte) charAt(src, off + i);
+            }
+
+            return bytes;
+        }
+
+        char[] chars = allocate(cch);
+
+        getChars(chars, _offSrc, src, off, _cchSrc);
+
+        return chars;
+    }
+
+    private byte[] allocateBytes(int cch) {
+        if (_currentBytes == null) {
+            _currentBytes = new byte[Math.max(cch, _charBufSize)];
+            _currentBytesOffset = 0;
+        }
+
+        _offSrc = _currentBytesOffset;
+        _cchSrc = Math.min(_currentBytes.length - _currentBytesOffset, cch);
+
+        byte[] retBuf = _currentBytes;
+
+        if ((_currentBytesOffset += _cchSrc) == _currentBytes.length) {
+            _currentBytes = null;
+            _currentBytesOffset = 0;
+        }
+
+        return retBuf;
+    }
+
+    static char charAt(Object src, int i) {
+        return src instanceof char[] ? ((char[]) src)[i]
+            : src instanceof byte[] ? (char) (((byte[]) src)[i] & 0xFF)
+            : ((String) src).charAt(i);
+    }
+
+    /**
+     * Text of joins is not narrowed, it is only created by modifications of the store.
+     */
+    private static boolean isLatin1(Object src, int off, int cch) {
+        if (src instanceof byte[]) {
+            return true;
+        }
+
+        if (src instanceof char[]) {
+            char[] chars = (char[]) src;
+
+            for (int i = off, end = off + cch; i < end; i++) {
+                if (chars[i] > 0xFF) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        if (src instanceof String) {
+            String s = (String) src;
+
+            for (int i = off, end = off + cch; i < end; i++) {
+                if (s.charAt(i) > 0xFF) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        return false;
+    }
+
     private static void dumpText(PrintStream o, String s) {
         o.print("\"");
 
@@ -557,6 +693,19 @@ public final class CharUtil {
 
             //p.print( ": " );
             dumpText(p, new String(chars, off, cch));
+        } else if (src instanceof byte[]) {
+            byte[] bs = (byte[]) src;
+
+            p.print("byte[]");
+
+            if (off != 0 || cch != bs.length) {
+                if (off < 0 || off > bs.length || off + cch < 0 || off + cch > bs.length) {
+                    p.print(" (Error)");
+                    return;
+                }
+            }
+
+            dumpText(p, new String(bs, off, cch, StandardCharsets.ISO_8859_1));
         } else if (src instanceof CharJoin) {
             p.print("CharJoin");
 
@@ -585,6 +734,11 @@ public final class CharUtil {
             return off <= s.length() && off + cch <= s.length();
         }
 
+        if (src instanceof byte[]) {
+            byte[] b = (byte[]) src;
+            return off <= b.length && off + cch <= b.length;
+        }
+
         if (src instanceof CharJoin) {
             return ((CharJoin) src).isValid(off, cch);
         }
@@ -745,6 +899,7 @@ public final class CharUtil {
             _srcRoot = null;
             _srcLeafString = null;
             _srcLeafChars = null;
+            _srcLeafBytes = null;
         }
 
         public boolean hasNext() {
@@ -778,30 +933,32 @@ public final class CharUtil {
 
             if (newPos < _minPos || newPos > _maxPos) {
                 // if newPos out of cached leaf, recache new leaf
+                // off is the position, start and end the root range, in the coordinates of src
+
                 Object src = _srcRoot;
                 int off = _offRoot + newPos;
-                int cch = _cchRoot;
+                int start = _offRoot;
+                int end = _offRoot + _cchRoot;
 
-                for (_offLeaf = _offRoot; src instanceof CharJoin; ) {
+                while (src instanceof CharJoin) {
                     CharJoin j = (CharJoin) src;
 
                     if (off < j._cchLeft) {
                         src = j._srcLeft;
-                        _offLeaf = j._offLeft;
                         off = off + j._offLeft;
-                        cch = j._cchLeft;
+                        start = start + j._offLeft;
+                        end = Math.min(end, j._cchLeft) + j._offLeft;
                     } else {
                         src = j._srcRight;
-                        _offLeaf = j._offRight;
-                        off = off - (j._cchLeft - j._offRight);
-                        cch = cch - j._cchLeft;
+                        off = off - j._cchLeft + j._offRight;
+                        start = Math.max(start, j._cchLeft) - j._cchLeft + j._offRight;
+                        end = end - j._cchLeft + j._offRight;
                     }
                 }
 
-//                _offLeaf = off - Math.min( off - _offLeaf, newPos );
-                _minPos = newPos - (off - _offLeaf);
-//                _maxPos = newPos + Math.min( _cchRoot - newPos, sizeof( src ) - off );
-                _maxPos = _minPos + cch;
+                _offLeaf = start;
+                _minPos = newPos - (off - start);
+                _maxPos = _minPos + (end - start);
 
                 if (newPos < _cchRoot) {
                     _maxPos--;
@@ -811,9 +968,12 @@ public final class CharUtil {
 
                 _srcLeafChars = null;
                 _srcLeafString = null;
+                _srcLeafBytes = null;
 
                 if (src instanceof char[]) {
                     _srcLeafChars = (char[]) src;
+                } else if (src instanceof byte[]) {
+                    _srcLeafBytes = (byte[]) src;
                 } else {
                     _srcLeafString = (String) src;
                 }
@@ -827,7 +987,9 @@ public final class CharUtil {
         private char currentChar() {
             int i = _offLeaf + _pos - _minPos;
 
-            return _srcLeafChars == null ? _srcLeafString.charAt(i) : _srcLeafChars[i];
+            return _srcLeafChars != null ? _srcLeafChars[i]
+                : _srcLeafBytes != null ? (char) (_srcLeafBytes[i] & 0xFF)
+                : _srcLeafString.charAt(i);
         }
 
         private Object _srcRoot; // Original triple
@@ -841,16 +1003,20 @@ public final class CharUtil {
 
         private int _offLeaf;
 
-        private String _srcLeafString;  // Cached leaf - either a char[] or a string
+        private String _srcLeafString;  // Cached leaf - either a char[], a byte[] or a string
         private char[] _srcLeafChars;
+        private byte[] _srcLeafBytes;
     }
 
     private static final int CHARUTIL_INITIAL_BUFSIZE = 1024 * 32;
     private static final ThreadLocal<SoftReference<CharUtil>> tl_charUtil =
         ThreadLocal.withInitial(() -> new SoftReference<>(new CharUtil(CHARUTIL_INITIAL_BUFSIZE)));
+    private static final ThreadLocal<SoftReference<CharUtil>> tl_compactCharUtil =
+        ThreadLocal.withInitial(() -> new SoftReference<>(new CharUtil(CHARUTIL_INITIAL_BUFSIZE, true)));
 
     public static void clearThreadLocals() {
         tl_charUtil.remove();
+        tl_compactCharUtil.remove();
     }
 
     private final CharIterator _charIter = new CharIterator();
@@ -864,6 +1030,12 @@ public final class CharUtil {
     private int _currentOffset;
     private char[] _currentBuffer;
 
+    // Current byte buffer for Latin-1 text in compact mode
+
+    private final boolean _compact;
+    private int _currentBytesOffset;
+    private byte[] _currentBytes;
+
     // These members are used to communicate offset and character count
     // information back to a caller of various methods on CharUtil.
     // Usually, the methods returns the src Object, and these two hold
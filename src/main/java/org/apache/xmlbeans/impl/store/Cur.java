@@ -1038,7 +1038,7 @@ public final class Cur {
             return false;
         }
 
-        for (Xobj x = _xobj._firstChild; ; x = x._nextSibling) {
+        for (Xobj x = _xobj.firstChild(); ; x = x._nextSibling) {
             if (!x.isAttr()) {
                 moveTo(x);
                 return true;
@@ -1053,7 +1053,7 @@ public final class Cur {
             return false;
         }
 
-        moveTo(_xobj._lastChild);
+        moveTo(_xobj.lastChild());
 
         return true;
     }
@@ -1435,10 +1435,10 @@ public final class Cur {
 
             p = pa;
         } else if (p > 0) {
-            assert x._firstChild == null || !x._firstChild.isAttr();
+            assert x.firstChild() == null || !x.firstChild().isAttr();
 
-            if (x._firstChild != null) {
-                x = x._firstChild;
+            if (x.firstChild() != null) {
+                x = x.firstChild();
                 p = 0;
             } else {
                 p = END_POS;
@@ -1451,9 +1451,9 @@ public final class Cur {
             p = 1;
 
             if (x._cchValue == 0) {
-                if (x._firstChild != null) {
-                    if (x._firstChild.isAttr()) {
-                        Xobj a = x._firstChild;
+                if (x.firstChild() != null) {
+                    if (x.firstChild().isAttr()) {
+                        Xobj a = x.firstChild();
 
                         while (a._nextSibling != null && a._nextSibling.isAttr()) {
                             a = a._nextSibling;
@@ -1467,7 +1467,7 @@ public final class Cur {
                             p = 0;
                         }
                     } else {
-                        x = x._firstChild;
+                        x = x.firstChild();
                         p = 0;
                     }
                 }
@@ -2121,7 +2121,7 @@ public final class Cur {
             sawBookmark = sawBookmark || y._bookmarks != null;
         }
 
-        Xobj lastToMove = x._lastChild;
+        Xobj lastToMove = x.lastChild();
 
         // If there were any bookmarks in the tree to remove, to preserve the content that these
         // bookmarks reference, move the contents to a new root.  Note that I already moved the
@@ -2736,6 +2736,8 @@ public final class Cur {
             _charUtil =
                 options.isLoadUseLocaleCharUtil()
                     ? _locale.getCharUtil()
+                    : options.isLoadCompactText()
+                    ? CharUtil.getThreadLocalCompactCharUtil()
                     : CharUtil.getThreadLocalCharUtil();
 
             _frontier = createDomDocumentRootXobj(_locale);
@@ -3413,7 +3415,7 @@ public final class Cur {
 
         o.println();
 
-        for (xo = xo._firstChild; xo != null; xo = xo._nextSibling) {
+        for (xo = xo.firstChild(); xo != null; xo = xo._nextSibling) {
             dumpXobj(o, xo, level + 1, ref);
         }
     }
@@ -31,8 +31,13 @@ import org.xml.sax.SAXException;
 import org.xml.sax.ext.LexicalHandler;
 
 import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
 import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
 import java.util.Collection;
 import java.util.Map;
 import java.util.function.Supplier;
@@ -515,6 +520,10 @@ public final class Cursor implements XmlCursor, ChangeListener {
         _save(w, null);
     }
 
+    public void _save(WritableByteChannel channel) throws IOException {
+        _save(channel, null);
+    }
+
     public void _save(ContentHandler ch, LexicalHandler lh) throws SAXException {
         _save(ch, lh, null);
     }
@@ -545,11 +554,22 @@ public final class Cursor implements XmlCursor, ChangeListener {
         return new Saver.TextReader(_cur, options);
     }
 
+    public ReadableByteChannel _newReadableByteChannel(XmlOptions options) {
+        return new Saver.InputStreamSaver(_cur, options);
+    }
+
     public void _save(ContentHandler ch, LexicalHandler lh, XmlOptions options)
         throws SAXException {
         new Saver.SaxSaver(_cur, options, ch, lh);
     }
 
+    /**
+     * Writes the content to the stream writer at its current position, used by {@link FragmentWriter}.
+     */
+    void _save(XMLStreamWriter xsw, XmlOptions options) throws XMLStreamException {
+        new Saver.StreamWriterSaver(_cur, options, xsw);
+    }
+
     public void _save(File file, XmlOptions options) throws IOException {
         if (file == null) {
             throw new IllegalArgumentException("Null file specified");
@@ -565,6 +585,11 @@ public final class Cursor implements XmlCursor, ChangeListener {
             throw new IllegalArgumentException("Null OutputStream specified");
         }
 
+        if (options != null && options.isSaveDirectUtf8() && Saver.Utf8Saver.isUtf8(_cur, options)) {
+            Saver.Utf8Saver.save(_cur, os, options); //ignore all other options but the xml declaration
+            return;
+        }
+
         try (InputStream is = _newInputStream(options)) {
             byte[] bytes = new byte[8192];
 
@@ -580,13 +605,22 @@ public final class Cursor implements XmlCursor, ChangeListener {
         }
     }
 
+    public void _save(WritableByteChannel channel, XmlOptions options) throws IOException {
+        if (channel == null) {
+            throw new IllegalArgumentException("Null WritableByteChannel specified");
+        }
+
+        // the stream wraps the saved bytes in place, they aren't copied again
+        _save(Channels.newOutputStream(channel), options);
+    }
+
     public void _save(Writer w, XmlOptions options) throws IOException {
         if (w == null) {
             throw new IllegalArgumentException("Null Writer specified");
         }
 
         if (options != null && options.isSaveOptimizeForSpeed()) {
-            Saver.OptimizedForSpeedSaver.save(_cur, w); //ignore all other options
+            Saver.OptimizedForSpeedSaver.save(_cur, w, options); //ignore all other options but the parallelism
             return;
         }
 
@@ -1747,27 +1781,7 @@ public final class Cursor implements XmlCursor, ChangeListener {
             }
         }
 
-        boolean acquired = false;
-
-        try {
-            GlobalLock.acquire();
-            acquired = true;
-
-            synchronized (locale) {
-                synchronized (otherLocale) {
-                    GlobalLock.release();
-                    acquired = false;
-
-                    return twoLocaleOp(other, op, arg);
-                }
-            }
-        } catch (InterruptedException e) {
-            throw new RuntimeException(e.getMessage(), e);
-        } finally {
-            if (acquired) {
-                GlobalLock.release();
-            }
-        }
+        return GlobalLock.synchronizedOn(locale, otherLocale, () -> twoLocaleOp(other, op, arg));
     }
 
     private int twoLocaleOp(Cursor other, int op, int arg) {
@@ -1972,6 +1986,10 @@ public final class Cursor implements XmlCursor, ChangeListener {
         syncWrapIOEx(() -> _save(w));
     }
 
+    public void save(WritableByteChannel channel) throws IOException {
+        syncWrapIOEx(() -> _save(channel));
+    }
+
     public String xmlText(XmlOptions options) {
         return syncWrap(() -> _xmlText(options));
     }
@@ -1984,6 +2002,10 @@ public final class Cursor implements XmlCursor, ChangeListener {
         return syncWrap(() -> _newReader(options));
     }
 
+    public ReadableByteChannel newReadableByteChannel(XmlOptions options) {
+        return syncWrap(() -> _newReadableByteChannel(options));
+    }
+
     public Node newDomNode(XmlOptions options) {
         return syncWrap(() -> _newDomNode(options));
     }
@@ -1992,6 +2014,10 @@ public final class Cursor implements XmlCursor, ChangeListener {
         syncWrapSAXEx(() -> _save(ch, lh, options));
     }
 
+    void save(XMLStreamWriter xsw, XmlOptions options) throws XMLStreamException {
+        syncWrapStreamEx(() -> _save(xsw, options));
+    }
+
     public void save(File file, XmlOptions options) throws IOException {
         syncWrapIOEx(() -> _save(file, options));
     }
@@ -2004,6 +2030,10 @@ public final class Cursor implements XmlCursor, ChangeListener {
         syncWrapIOEx(() -> _save(w, options));
     }
 
+    public void save(WritableByteChannel channel, XmlOptions options) throws IOException {
+        syncWrapIOEx(() -> _save(channel, options));
+    }
+
     public void push() {
         syncWrap(this::_push);
     }
@@ -2432,6 +2462,10 @@ public final class Cursor implements XmlCursor, ChangeListener {
         void run() throws IOException;
     }
 
+    private interface WrapStreamEx {
+        void run() throws XMLStreamException;
+    }
+
 
     @SuppressWarnings("SynchronizeOnNonFinalField")
     private void syncWrap(Runnable inner) {
@@ -2499,6 +2533,17 @@ public final class Cursor implements XmlCursor, ChangeListener {
         }
     }
 
+    @SuppressWarnings("SynchronizeOnNonFinalField")
+    private void syncWrapStreamEx(WrapStreamEx inner) throws XMLStreamException {
+        if (preCheck()) {
+            syncWrapHelper(inner);
+        } else {
+            synchronized (_cur._locale) {
+                syncWrapHelper(inner);
+            }
+        }
+    }
+
     private void syncWrapHelper(Runnable inner, final boolean enterLocale) {
         final Locale l = _cur._locale;
         if (enterLocale) {
@@ -2546,4 +2591,14 @@ public final class Cursor implements XmlCursor, ChangeListener {
             l.exit();
         }
     }
+
+    private void syncWrapHelper(WrapStreamEx inner) throws XMLStreamException {
+        final Locale l = _cur._locale;
+        l.enter();
+        try {
+            inner.run();
+        } finally {
+            l.exit();
+        }
+    }
 }
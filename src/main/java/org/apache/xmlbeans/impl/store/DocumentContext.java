@@ -0,0 +1,45 @@
+/*   Copyright 2004 The Apache Software Foundation
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.xmlbeans.impl.store;
+
+import org.apache.xmlbeans.SchemaTypeLoader;
+import org.apache.xmlbeans.XmlDocumentContext;
+import org.apache.xmlbeans.XmlOptions;
+
+/**
+ * Keeps a locale across parses.  The locale is replaced when it was frozen or when
+ * a parse needs a locale with a different type loader or setup.
+ */
+public final class DocumentContext implements XmlDocumentContext {
+    private Locale _locale;
+
+    Locale getLocale(SchemaTypeLoader stl, XmlOptions options) {
+        Locale l = _locale;
+
+        if (l == null || l.isFrozen() || !l.isCompatible(stl, options)) {
+            _locale = l = new Locale(stl, options);
+        }
+
+        return l;
+    }
+
+    @Override
+    public void reset() {
+        if (_locale != null) {
+            _locale.reset();
+        }
+    }
+}
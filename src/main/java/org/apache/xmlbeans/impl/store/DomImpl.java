@@ -1088,9 +1088,9 @@ public final class DomImpl {
     public static Node _node_getFirstChild(Dom n) {
         assert n instanceof Xobj;
         Xobj node = (Xobj) n;
-        if (!node.isVacant()) {
+        if (!node.isVacant() && !node.hasSharedChildren()) {
             if (node.isFirstChildPtrDomUsable()) {
-                return (Node) node._firstChild;
+                return (Node) node.firstChild();
             }
             Xobj lastAttr = node.lastAttr();
             if (lastAttr != null &&
@@ -1131,7 +1131,7 @@ public final class DomImpl {
                 Xobj node = (Xobj) n;
                 node.ensureOccupancy();
                 if (node.isFirstChildPtrDomUsable()) {
-                    return (NodeXobj) node._firstChild;
+                    return (NodeXobj) node.firstChild();
                 }
                 Xobj lastAttr = node.lastAttr();
                 if (lastAttr != null) {
@@ -1267,7 +1267,7 @@ public final class DomImpl {
                     ns = (NodeXobj) src._nextSibling;
                 } else     //srcValue or attribute source
                 {
-                    ns = (NodeXobj) src._firstChild;
+                    ns = (NodeXobj) src.firstChild();
                 }
                 break;
 
@@ -2319,7 +2319,7 @@ public final class DomImpl {
         assert n instanceof Xobj;
         int count;
         Xobj node = (Xobj) n;
-        if (!node.isVacant() &&
+        if (!node.isVacant() && !node.hasSharedChildren() &&
             (count = node.getDomZeroOneChildren()) < 2) {
             return count;
         }
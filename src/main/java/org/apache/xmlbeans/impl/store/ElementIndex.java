@@ -0,0 +1,117 @@
+/*   Copyright 2004 The Apache Software Foundation
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package org.apache.xmlbeans.impl.store;
+
+import javax.xml.namespace.QName;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An index of the elements of a document by name, in document order, used to
+ * answer descendant paths like <code>.//po:line-item</code> without walking the
+ * subtree of the context node.
+ * <p>
+ * A locale keeps the index of the document it was last asked for.  The index is
+ * immutable once built and is rebuilt when the document has been structurally
+ * modified since, so readers of a frozen document can share it without locking.
+ */
+public final class ElementIndex {
+    private static final Xobj[] EMPTY = new Xobj[0];
+
+    private final Xobj _root;
+    private final long _version;
+    private final Map<QName, Xobj[]> _elements;
+
+    private ElementIndex(Xobj root) {
+        Map<QName, List<Xobj>> elements = new HashMap<>();
+
+        for (Xobj x = root; ; ) {
+            if ((x = x.walk(root, true)) == null) {
+                break;
+            }
+
+            if (x.isElem()) {
+                elements.computeIfAbsent(x._name, k -> new ArrayList<>()).add(x);
+            }
+        }
+
+        _root = root;
+        _version = root._locale._versionSansText;
+        _elements = new HashMap<>(elements.size() * 4 / 3 + 1);
+
+        elements.forEach((name, list) -> _elements.put(name, list.toArray(EMPTY)));
+    }
+
+    /**
+     * Adds the descendant elements of the container at the given cursor named
+     * <code>name</code> to its selection, in document order.  Returns false without
+     * touching the selection when the cursor is neither on a root nor on a top level
+     * element, as walking a nested subtree is cheaper than filtering the index.
+     */
+    public static boolean select(Cur c, QName name) {
+        assert c.isContainer();
+
+        Xobj context = c._xobj;
+        Xobj root = context.isRoot() ? context : context._parent;
+
+        if (root == null || !root.isRoot()) {
+            return false;
+        }
+
+        Xobj[] elements = forRoot(root)._elements.getOrDefault(name, EMPTY);
+
+        if (elements.length == 0) {
+            return true;
+        }
+
+        Cur t = c.tempCur();
+
+        try {
+            for (Xobj x : elements) {
+                if (x != context && (context == root || topLevel(x, root) == context)) {
+                    t.moveTo(x);
+                    c.addToSelection(t);
+                }
+            }
+        } finally {
+            t.release();
+        }
+
+        return true;
+    }
+
+    private static ElementIndex forRoot(Xobj root) {
+        Locale l = root._locale;
+        ElementIndex index = l._elementIndex;
+
+        if (index == null || index._root != root || index._version != l._versionSansText) {
+            l._elementIndex = index = new ElementIndex(root);
+        }
+
+        return index;
+    }
+
+    private static Xobj topLevel(Xobj x, Xobj root) {
+        while (x._parent != root) {
+            x = x._parent;
+        }
+
+        return x;
+    }
+}
@@ -0,0 +1,255 @@
+/*   Copyright 2004 The Apache Software Foundation
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.xmlbeans.impl.store;
+
+import org.apache.xmlbeans.*;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.util.*;
+
+/**
+ * Pulls the elements matching a name or a path out of a stream and loads each of them
+ * as a separate fragment, so only the current fragment has to fit into memory.
+ * <p>
+ * Every fragment is loaded into its own locale, which is discarded together with the
+ * returned element.  The namespaces declared on the ancestors of a fragment are added to
+ * its element, and the element is typed by its position in the schema of the document,
+ * as if the whole document had been loaded.
+ */
+public final class FragmentIterator implements Iterator<XmlObject> {
+    private final XMLStreamReader _xsr;
+    private final QName _name;
+    private final QName[] _path;
+    private final SchemaTypeLoader _stl;
+    private final XmlOptions _options;
+
+    // the open elements above the current position
+    private final List<QName> _names = new ArrayList<>();
+    private final List<SchemaType> _types = new ArrayList<>();
+
+    // the namespaces declared on the open elements, as prefix/uri pairs
+    private final List<String> _namespaces = new ArrayList<>();
+    private final List<Integer> _namespaceMarks = new ArrayList<>();
+    private boolean _namespacesChanged = true;
+    private XmlOptions _fragmentOptions;
+
+    private XmlObject _next;
+    private boolean _done;
+
+    /**
+     * @param xsr     the stream to read - the iterator doesn't close it
+     * @param name    the name of the elements to load, at any depth
+     * @param path    the names of the elements to load, from the document element
+     *                down to the loaded elements - used if name is null
+     * @param stl     the type loader used to type the fragments
+     * @param options the load options
+     */
+    public FragmentIterator(XMLStreamReader xsr, QName name, QName[] path,
+                            SchemaTypeLoader stl, XmlOptions options) {
+        if (name == null && (path == null || path.length == 0)) {
+            throw new IllegalArgumentException("Either a name or a path is required");
+        }
+
+        _xsr = xsr;
+        _name = name;
+        _path = name == null ? path.clone() : null;
+        _stl = stl == null ? XmlBeans.getContextTypeLoader() : stl;
+        _options = options;
+    }
+
+    public boolean hasNext() {
+        if (_next == null && !_done) {
+            try {
+                _next = advance();
+            } catch (XMLStreamException e) {
+                throw new XmlRuntimeException(e.getMessage(), e);
+            } catch (XmlException e) {
+                throw new XmlRuntimeException(e);
+            }
+            _done = _next == null;
+        }
+        return _next != null;
+    }
+
+    public XmlObject next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        XmlObject x = _next;
+        _next = null;
+        return x;
+    }
+
+    private XmlObject advance() throws XMLStreamException, XmlException {
+        for (int eventType = _xsr.getEventType(); ; eventType = _xsr.next()) {
+            switch (eventType) {
+                case XMLStreamReader.START_ELEMENT: {
+                    QName name = _xsr.getName();
+
+                    if (matches(name)) {
+                        XmlObject x = load();
+                        // the reader is left on the end of the fragment
+                        if (_xsr.hasNext()) {
+                            _xsr.next();
+                        }
+                        return x;
+                    }
+
+                    _types.add(elementType(name));
+                    _names.add(name);
+                    pushNamespaces();
+                    break;
+                }
+
+                case XMLStreamReader.END_ELEMENT: {
+                    if (!_names.isEmpty()) {
+                        _names.remove(_names.size() - 1);
+                        _types.remove(_types.size() - 1);
+                        popNamespaces();
+                    }
+                    break;
+                }
+
+                case XMLStreamReader.END_DOCUMENT:
+                    return null;
+            }
+
+            if (!_xsr.hasNext()) {
+                return null;
+            }
+        }
+    }
+
+    private boolean matches(QName name) {
+        if (_name != null) {
+            return _name.equals(name);
+        }
+
+        int depth = _names.size();
+        if (depth != _path.length - 1 || !_path[depth].equals(name)) {
+            return false;
+        }
+        for (int i = 0; i < depth; i++) {
+            if (!_path[i].equals(_names.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The fragment document takes the type of the parent element, so the fragment element
+     * is typed as a child of its parent.  Fragments of the document element or of an
+     * unknown parent are typed by their name.
+     */
+    private XmlObject load() throws XmlException {
+        SchemaType parentType = _types.isEmpty() ? null : _types.get(_types.size() - 1);
+        XmlObject doc = Locale.parseToXmlObject(_stl, _xsr, parentType, fragmentOptions());
+
+        XmlCursor c = doc.newCursor();
+        try {
+            c.toFirstChild();
+            return c.getObject();
+        } finally {
+            c.dispose();
+        }
+    }
+
+    /**
+     * Types an open element like the loading of the whole document - by the property
+     * of its parent, a global element or xsi:type.
+     */
+    private SchemaType elementType(QName name) {
+        SchemaType type = null;
+
+        SchemaType parentType = _types.isEmpty() ? null : _types.get(_types.size() - 1);
+        if (parentType != null) {
+            SchemaProperty prop = parentType.getElementProperty(name);
+            if (prop != null) {
+                type = prop.getType();
+            }
+        }
+
+        if (type == null && (_names.isEmpty() || parentType != null)) {
+            // the document element, an element matching a wildcard or a substitution
+            SchemaGlobalElement ge = _stl.findElement(name);
+            if (ge != null) {
+                type = ge.getType();
+            }
+        }
+
+        String xsiType = _xsr.getAttributeValue(Locale._xsi, "type");
+        if (xsiType != null) {
+            xsiType = xsiType.trim();
+            int colon = xsiType.indexOf(':');
+            String prefix = colon < 0 ? "" : xsiType.substring(0, colon);
+            String uri = _xsr.getNamespaceURI(prefix);
+            SchemaType xsiSchemaType = _stl.findType(
+                new QName(uri == null ? "" : uri, xsiType.substring(colon + 1)));
+            if (xsiSchemaType != null && (type == null || type.isAssignableFrom(xsiSchemaType))) {
+                type = xsiSchemaType;
+            }
+        }
+
+        return type;
+    }
+
+    private void pushNamespaces() {
+        _namespaceMarks.add(_namespaces.size());
+
+        int n = _xsr.getNamespaceCount();
+        for (int i = 0; i < n; i++) {
+            String prefix = _xsr.getNamespacePrefix(i);
+            String uri = _xsr.getNamespaceURI(i);
+            _namespaces.add(prefix == null ? "" : prefix);
+            _namespaces.add(uri == null ? "" : uri);
+        }
+
+        _namespacesChanged |= n > 0;
+    }
+
+    private void popNamespaces() {
+        int mark = _namespaceMarks.remove(_namespaceMarks.size() - 1);
+        if (mark < _namespaces.size()) {
+            _namespaces.subList(mark, _namespaces.size()).clear();
+            _namespacesChanged = true;
+        }
+    }
+
+    /**
+     * The ancestors' namespaces are passed to the load as additional namespaces,
+     * which are only declared on the fragment element if it doesn't declare the prefix itself.
+     */
+    private XmlOptions fragmentOptions() {
+        if (_namespacesChanged) {
+            Map<String, String> additional = new HashMap<>();
+            Map<String, String> given = _options == null ? null : _options.getLoadAdditionalNamespaces();
+            if (given != null) {
+                additional.putAll(given);
+            }
+            for (int i = 0; i < _namespaces.size(); i += 2) {
+                additional.put(_namespaces.get(i), _namespaces.get(i + 1));
+            }
+
+            _fragmentOptions = new XmlOptions(_options);
+            _fragmentOptions.setLoadAdditionalNamespaces(additional.isEmpty() ? null : additional);
+            _namespacesChanged = false;
+        }
+        return _fragmentOptions;
+    }
+}
@@ -0,0 +1,187 @@
+/*   Copyright 2004 The Apache Software Foundation
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.xmlbeans.impl.store;
+
+import org.apache.xmlbeans.XmlCursor;
+import org.apache.xmlbeans.XmlFragmentWriter;
+import org.apache.xmlbeans.XmlObject;
+import org.apache.xmlbeans.XmlOptions;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.util.*;
+
+/**
+ * Writes fragments to a stream writer between enclosing elements, the counterpart of
+ * {@link FragmentIterator}.  Each fragment is saved straight from its locale into the
+ * stream writer, nothing of it is kept once it's written.
+ * <p>
+ * The namespaces declared on the enclosing elements are passed to the saver as implicit
+ * namespaces, so the fragments use their prefixes instead of declaring them again.
+ */
+public final class FragmentWriter implements XmlFragmentWriter {
+    private final XMLStreamWriter _xsw;
+    private final XmlOptions _options;
+
+    // the namespaces declared on the open elements, as prefix/uri pairs
+    private final List<String> _namespaces = new ArrayList<>();
+    private final List<Integer> _namespaceMarks = new ArrayList<>();
+    private boolean _namespacesChanged = true;
+    private XmlOptions _fragmentOptions;
+
+    // the fragment options with the last synthetic element name
+    private QName _synthName;
+    private XmlOptions _synthOptions;
+
+    private boolean _closed;
+
+    /**
+     * @param xsw     the stream writer, which is written at its current position
+     * @param options the save options, which are applied to each fragment
+     */
+    public FragmentWriter(XMLStreamWriter xsw, XmlOptions options) {
+        if (xsw == null) {
+            throw new IllegalArgumentException("Null XMLStreamWriter specified");
+        }
+
+        _xsw = xsw;
+        _options = options;
+    }
+
+    public void writeStartElement(QName name) throws XMLStreamException {
+        checkOpen();
+
+        String prefix = name.getPrefix();
+        String uri = name.getNamespaceURI();
+
+        if (prefix.length() > 0 && uri.length() == 0) {
+            throw new IllegalArgumentException("Prefix without namespace: " + name);
+        }
+
+        _xsw.writeStartElement(prefix, name.getLocalPart(), uri);
+        _namespaceMarks.add(_namespaces.size());
+
+        String bound = namespaceForPrefix(prefix);
+        if (!uri.equals(bound == null ? "" : bound)) {
+            if (prefix.length() == 0) {
+                _xsw.writeDefaultNamespace(uri);
+            } else {
+                _xsw.writeNamespace(prefix, uri);
+            }
+
+            _namespaces.add(prefix);
+            _namespaces.add(uri);
+            _namespacesChanged = true;
+        }
+    }
+
+    public void writeEndElement() throws XMLStreamException {
+        checkOpen();
+
+        if (_namespaceMarks.isEmpty()) {
+            throw new IllegalStateException("No element to end");
+        }
+
+        _xsw.writeEndElement();
+
+        int mark = _namespaceMarks.remove(_namespaceMarks.size() - 1);
+        if (mark < _namespaces.size()) {
+            _namespaces.subList(mark, _namespaces.size()).clear();
+            _namespacesChanged = true;
+        }
+    }
+
+    public void write(XmlObject fragment) throws XMLStreamException {
+        checkOpen();
+        save(fragment, fragmentOptions());
+    }
+
+    public void write(QName name, XmlObject value) throws XMLStreamException {
+        checkOpen();
+
+        XmlOptions options = fragmentOptions();
+        if (_synthOptions == null || !name.equals(_synthName)) {
+            _synthOptions = new XmlOptions(options).setSaveSyntheticDocumentElement(name);
+            _synthName = name;
+        }
+
+        save(value, _synthOptions);
+    }
+
+    public void close() throws XMLStreamException {
+        if (!_closed) {
+            while (!_namespaceMarks.isEmpty()) {
+                writeEndElement();
+            }
+
+            _xsw.flush();
+            _closed = true;
+        }
+    }
+
+    private void save(XmlObject x, XmlOptions options) throws XMLStreamException {
+        XmlCursor c = x.newCursor();
+
+        try {
+            if (!(c instanceof Cursor)) {
+                throw new IllegalArgumentException("Not an XmlObject of the store: " + x.getClass().getName());
+            }
+
+            ((Cursor) c).save(_xsw, options);
+        } finally {
+            c.dispose();
+        }
+    }
+
+    private String namespaceForPrefix(String prefix) {
+        for (int i = _namespaces.size() - 2; i >= 0; i -= 2) {
+            if (_namespaces.get(i).equals(prefix)) {
+                return _namespaces.get(i + 1);
+            }
+        }
+        return null;
+    }
+
+    private void checkOpen() {
+        if (_closed) {
+            throw new IllegalStateException("Writer is closed");
+        }
+    }
+
+    /**
+     * The namespaces of the open elements are added to the implicit namespaces of the
+     * save options, the inner declarations override the outer ones.
+     */
+    private XmlOptions fragmentOptions() {
+        if (_namespacesChanged) {
+            Map<String, String> implicit = new HashMap<>();
+            Map<String, String> given = _options == null ? null : _options.getSaveImplicitNamespaces();
+            if (given != null) {
+                implicit.putAll(given);
+            }
+            for (int i = 0; i < _namespaces.size(); i += 2) {
+                implicit.put(_namespaces.get(i), _namespaces.get(i + 1));
+            }
+
+            _fragmentOptions = new XmlOptions(_options);
+            _fragmentOptions.setSaveImplicitNamespaces(implicit.isEmpty() ? null : implicit);
+            _namespacesChanged = false;
+            _synthOptions = null;
+        }
+        return _fragmentOptions;
+    }
+}
@@ -21,6 +21,9 @@ import org.apache.xmlbeans.impl.common.*;
 import org.apache.xmlbeans.impl.store.Cur.Locations;
 import org.apache.xmlbeans.impl.store.DomImpl.Dom;
 import org.apache.xmlbeans.impl.store.Saaj.SaajCallback;
+import org.apache.xmlbeans.impl.values.TypeStoreUser;
+import org.apache.xmlbeans.impl.values.XmlObjectBase;
+import org.apache.xmlbeans.impl.values.XmlValueOutOfRangeException;
 import org.w3c.dom.*;
 import org.xml.sax.*;
 import org.xml.sax.ext.DeclHandler;
@@ -68,7 +71,7 @@ public final class Locale
         "frag");
     static final QName _xmlFragment = new QName("xml-fragment");
 
-    private Locale(SchemaTypeLoader stl, XmlOptions options) {
+    Locale(SchemaTypeLoader stl, XmlOptions options) {
         options = XmlOptions.maskNull(options);
 
         //
@@ -122,7 +125,11 @@ public final class Locale
         options = XmlOptions.maskNull(options);
 
         if (options.getUseSameLocale() == null) {
-            return new Locale(stl, options);
+            XmlDocumentContext context = options.getDocumentContext();
+
+            return context == null
+                ? new Locale(stl, options)
+                : ((DocumentContext) context).getLocale(stl, options);
         }
 
         Object source = options.getUseSameLocale();
@@ -131,12 +138,19 @@ public final class Locale
 
         if (source instanceof Locale) {
             l = (Locale) source;
-        } else if (source instanceof XmlTokenSource) {
+        } else if (source instanceof XmlTokenSource && ((XmlTokenSource) source).monitor() instanceof Locale) {
             l = (Locale) ((XmlTokenSource) source).monitor();
+        } else if (source instanceof TypeStoreUser) {
+            // frozen documents don't expose their locale as monitor
+            l = (Locale) ((TypeStoreUser) source).get_store().get_locale();
         } else {
             throw new IllegalArgumentException("Source locale not understood: " + source);
         }
 
+        if (l.isFrozen()) {
+            throw new IllegalArgumentException("Source locale is frozen");
+        }
+
         if (l._schemaTypeLoader != stl) {
             throw new IllegalArgumentException(
                 "Source locale does not support same schema type loader");
@@ -157,6 +171,39 @@ public final class Locale
         return l;
     }
 
+    /**
+     * @return true if a locale created for the type loader and options would be set up
+     * like this one, i.e. if this locale can be used instead
+     */
+    boolean isCompatible(SchemaTypeLoader stl, XmlOptions options) {
+        return _schemaTypeLoader == stl &&
+               _noSync == options.isUnsynchronized() &&
+               _validateOnSet == options.isValidateOnSet() &&
+               _saaj == options.getSaaj();
+    }
+
+    /**
+     * Drops the references to the documents of this locale, i.e. the cached positions
+     * and the owner document, and releases the cursors of collected objects.  The pooled
+     * cursors and the buffers are kept for the documents loaded next.
+     */
+    void reset() {
+        synchronized (this) {
+            if (entered()) {
+                throw new IllegalStateException("Locale is in use");
+            }
+
+            pollQueue();
+
+            _nthCache_A.clear();
+            _nthCache_B.clear();
+            _domNthCache_A.clear();
+            _domNthCache_B.clear();
+
+            _ownerDoc = null;
+        }
+    }
+
     //
     //
     //
@@ -543,6 +590,8 @@ public final class Locale
         throws XmlException {
         Cur c = parse(xmlText, type, options);
 
+        freezeIfRequested(c, options);
+
         XmlObject x = (XmlObject) c.getUser();
 
         c.release();
@@ -613,6 +662,8 @@ public final class Locale
 
         autoTypeDocument(c, type, options);
 
+        freezeIfRequested(c, options);
+
         XmlObject x = (XmlObject) c.getUser();
 
         c.release();
@@ -828,11 +879,26 @@ public final class Locale
     private XmlObject parseToXmlObject(InputStream is, SchemaType type,
                                        XmlOptions options)
         throws XmlException, IOException {
-        Cur c = getSaxLoader(options).load(this, new InputSource(is),
-            options);
+        Cur c = null;
+
+        if (Utf8Loader.canLoad(options)) {
+            Utf8Loader ul = Utf8Loader.getThreadLocal();
+
+            c = ul.load(this, is, options);
+
+            if (c == null) {
+                is = ul.takeInput();
+            }
+        }
+
+        if (c == null) {
+            c = getSaxLoader(options).load(this, new InputSource(is), options);
+        }
 
         autoTypeDocument(c, type, options);
 
+        freezeIfRequested(c, options);
+
         XmlObject x = (XmlObject) c.getUser();
 
         c.release();
@@ -876,6 +942,8 @@ public final class Locale
 
         autoTypeDocument(c, type, options);
 
+        freezeIfRequested(c, options);
+
         XmlObject x = (XmlObject) c.getUser();
 
         c.release();
@@ -924,6 +992,8 @@ public final class Locale
 
         autoTypeDocument(c, type, options);
 
+        freezeIfRequested(c, options);
+
         XmlObject x = (XmlObject) c.getUser();
 
         c.release();
@@ -1056,6 +1126,8 @@ public final class Locale
 
                 autoTypeDocument(c, _type, _options);
 
+                _locale.freezeIfRequested(c, _options);
+
                 XmlObject x = (XmlObject) c.getUser();
 
                 c.release();
@@ -1188,6 +1260,8 @@ public final class Locale
     }
 
     void notifyChange() {
+        checkNotFrozen();
+
         // First, notify the registered listeners ...
 
         while (_changeListeners != null) {
@@ -1376,6 +1450,41 @@ public final class Locale
             return _sb.toString();
         }
 
+        /**
+         * Returns the collapsed text of a single chunk without copying it, if collapsing
+         * only trims the ends.  The view is reused by the next call on this thread.
+         *
+         * @return null if the text contains inner whitespace or is a join
+         */
+        CharSequence getCollapsedView(Object src, int off, int cch) {
+            if (src instanceof CharUtil.CharJoin) {
+                return null;
+            }
+
+            int end = off + cch;
+
+            while (off < end && isWhite(CharUtil.charAt(src, off))) {
+                off++;
+            }
+
+            while (end > off && isWhite(CharUtil.charAt(src, end - 1))) {
+                end--;
+            }
+
+            for (int i = off; i < end; i++) {
+                if (isWhite(CharUtil.charAt(src, i))) {
+                    return null;
+                }
+            }
+
+            _view.init(src == null ? "" : src, off, end - off);
+            return _view;
+        }
+
+        private static boolean isWhite(char ch) {
+            return ch == ' ' || ch == '\n' || ch == '\r' || ch == '\t';
+        }
+
         private static final int START_STATE = 0;
         private static final int SPACE_SEEN_STATE = 1;
         private static final int NOSPACE_STATE = 2;
@@ -1386,6 +1495,41 @@ public final class Locale
 
         private char[] _srcBuf = new char[1024];
         private final StringBuffer _sb;
+        private final CharsView _view = new CharsView();
+    }
+
+    /**
+     * A CharSequence over a range of a text source of the store.
+     */
+    private static final class CharsView implements CharSequence {
+        private Object _src;
+        private int _off;
+        private int _cch;
+
+        void init(Object src, int off, int cch) {
+            _src = src;
+            _off = off;
+            _cch = cch;
+        }
+
+        public int length() {
+            return _cch;
+        }
+
+        public char charAt(int index) {
+            if (index < 0 || index >= _cch) {
+                throw new IndexOutOfBoundsException();
+            }
+            return CharUtil.charAt(_src, _off + index);
+        }
+
+        public CharSequence subSequence(int start, int end) {
+            return toString().subSequence(start, end);
+        }
+
+        public String toString() {
+            return CharUtil.getString(_src, _off, _cch);
+        }
     }
 
     private static final ThreadLocal<SoftReference<ScrubBuffer>> tl_scrubBuffer =
@@ -1393,6 +1537,8 @@ public final class Locale
 
     public static void clearThreadLocals() {
         tl_scrubBuffer.remove();
+        tl_frozenMonitor.remove();
+        Utf8Loader.clearThreadLocals();
     }
 
     static ScrubBuffer getScrubBuffer(int wsr) {
@@ -1529,8 +1675,13 @@ public final class Locale
     int count(Xobj parent, QName name, QNameSet set) {
         int n = 0;
 
-        for (Xobj x = findNthChildElem(parent, name, set, 0);
-             x != null; x = x._nextSibling) {
+        // the nth caches are locale state - frozen documents are counted without them
+
+        Xobj first = _frozen
+            ? (parent == null ? null : parent.firstChild())
+            : findNthChildElem(parent, name, set, 0);
+
+        for (Xobj x = first; x != null; x = x._nextSibling) {
             if (x.isElem()) {
                 if (set == null) {
                     if (x._name.equals(name)) {
@@ -1838,7 +1989,7 @@ public final class Locale
                 _n = -1;
 
                 loop:
-                for (Xobj x = parent._firstChild;
+                for (Xobj x = parent.firstChild();
                      x != null; x = x._nextSibling) {
                     if (x.isElem() && nameHit(name, set, x._name)) {
                         _child = x;
@@ -1888,6 +2039,14 @@ public final class Locale
             return _child;
         }
 
+        void clear() {
+            _version = -1;
+            _parent = null;
+            _name = null;
+            _set = null;
+            _child = null;
+        }
+
         private long _version;
         private Xobj _parent;
         private QName _name;
@@ -2081,6 +2240,12 @@ public final class Locale
         }
 
         public static final int BLITZ_BOUNDARY = 40; //walk small lists
+        void clear() {
+            _version = -1;
+            _parent = null;
+            _child = null;
+        }
+
         private long _version;
         private Dom _parent;
         private Dom _child;
@@ -2292,6 +2457,102 @@ public final class Locale
         return !_noSync;
     }
 
+    //
+    // Frozen documents
+    //
+
+    private static final ThreadLocal<Object> tl_frozenMonitor =
+        ThreadLocal.withInitial(Object::new);
+
+    public boolean isFrozen() {
+        return _frozen;
+    }
+
+    /**
+     * Readers of a frozen locale synchronize on a per-thread monitor, i.e. they don't block
+     * each other.  Only operations which need the locale state (cursors, temp frames, caches)
+     * still synchronize on the locale itself.
+     */
+    public Object monitor() {
+        return _frozen ? tl_frozenMonitor.get() : this;
+    }
+
+    void checkNotFrozen() {
+        if (_frozen) {
+            throw new IllegalStateException("The document is frozen and can't be modified");
+        }
+    }
+
+    /**
+     * Freezes the locale of the given object.  Afterwards all documents of the locale are
+     * read-only and the generated getters don't contend on the locale anymore.
+     * <p>
+     * Only the document of the given object is prepared for lock-free reading,
+     * documents which share the locale should be frozen as well.
+     */
+    public static void freeze(XmlObject o) {
+        if (!(o instanceof TypeStoreUser) || o.isImmutable()) {
+            throw new IllegalArgumentException("Only objects of a xml store can be frozen");
+        }
+
+        Xobj x = (Xobj) ((TypeStoreUser) o).get_store();
+        Locale l = x._locale;
+
+        if (l.noSync()) {
+            l.enter();
+            try {
+                l.freeze(x);
+            } finally {
+                l.exit();
+            }
+        } else {
+            synchronized (l) {
+                l.enter();
+                try {
+                    l.freeze(x);
+                } finally {
+                    l.exit();
+                }
+            }
+        }
+    }
+
+    void freezeIfRequested(Cur c, XmlOptions options) {
+        if (options != null && options.isLoadFrozen()) {
+            freeze(c._xobj);
+        }
+    }
+
+    private void freeze(Xobj x) {
+        while (x._parent != null) {
+            x = x._parent;
+        }
+
+        // Readers must not modify the store: write back vacant values, create all users
+        // and let them parse their values upfront.  Reset the flag while doing so, as the
+        // occupancy changes would be refused otherwise.
+
+        _frozen = false;
+
+        for (Xobj root = x; x != null; x = x.walk(root, true)) {
+            x.ensureOccupancy();
+
+            if (x.isUserNode()) {
+                TypeStoreUser user = x.getUser();
+
+                if (user instanceof XmlObjectBase) {
+                    try {
+                        ((XmlObjectBase) user).check_dated();
+                    } catch (XmlValueOutOfRangeException e) {
+                        // invalid values are reported again, when they are accessed
+                    }
+                }
+            }
+        }
+
+        _frozen = true;
+    }
+
     static final boolean isWhiteSpace(String s) {
         int l = s.length();
 
@@ -2456,29 +2717,76 @@ public final class Locale
 
         XMLReader xr = options.getLoadUseXMLReader();
 
-        if (xr == null) {
+        if (xr != null) {
+            SaxLoader sl = new XmlReaderSaxLoader(xr, null);
+
+            // I've noticed that most XMLReaders don't like a null EntityResolver...
+
+            if (er != null) {
+                sl.setEntityResolver(er);
+            }
+
+            return sl;
+        }
+
+        // Creating and configuring a reader costs about as much as loading a small
+        // document, so each thread keeps the loader of its last load for reuse.  It
+        // is taken out of the cache while in use, so a nested load gets its own.
+
+        SystemCache cache = SystemCache.get();
+        Object cached = cache.getSaxLoader();
+        XmlReaderSaxLoader sl;
+
+        if (cached instanceof XmlReaderSaxLoader && ((XmlReaderSaxLoader) cached).canLoad(options)) {
+            cache.setSaxLoader(null);
+            sl = (XmlReaderSaxLoader) cached;
+        } else {
             try {
                 xr = SAXHelper.newXMLReader(new XmlOptionsBean(options));
             } catch (Exception e) {
                 throw new XmlException("Problem creating XMLReader", e);
             }
-        }
-
-        SaxLoader sl = new XmlReaderSaxLoader(xr);
-
-        // I've noticed that most XMLReaders don't like a null EntityResolver...
 
-        if (er != null) {
-            xr.setEntityResolver(er);
+            sl = new XmlReaderSaxLoader(xr, options);
         }
 
+        sl.setEntityResolver(er != null ? er : SAXHelper.IGNORING_ENTITY_RESOLVER);
+
         return sl;
     }
 
     private static class XmlReaderSaxLoader
         extends SaxLoader {
-        XmlReaderSaxLoader(XMLReader xr) {
+        // the reader configuration of a loader which is reused, null for a reader of the options
+        private final XmlOptions _readerOptions;
+
+        XmlReaderSaxLoader(XMLReader xr, XmlOptions readerOptions) {
             super(xr, null);
+
+            if (readerOptions != null) {
+                _readerOptions = new XmlOptions();
+                _readerOptions.setLoadDTDGrammar(readerOptions.isLoadDTDGrammar());
+                _readerOptions.setLoadExternalDTD(readerOptions.isLoadExternalDTD());
+                _readerOptions.setEntityExpansionLimit(readerOptions.getEntityExpansionLimit());
+            } else {
+                _readerOptions = null;
+            }
+        }
+
+        boolean canLoad(XmlOptions options) {
+            return _readerOptions != null &&
+                   _readerOptions.isLoadDTDGrammar() == options.isLoadDTDGrammar() &&
+                   _readerOptions.isLoadExternalDTD() == options.isLoadExternalDTD() &&
+                   _readerOptions.getEntityExpansionLimit() == options.getEntityExpansionLimit();
+        }
+
+        void postLoad(Cur c) {
+            super.postLoad(c);
+
+            if (_readerOptions != null) {
+                setEntityResolver(SAXHelper.IGNORING_ENTITY_RESOLVER);
+                SystemCache.get().setSaxLoader(this);
+            }
         }
     }
 
@@ -2517,9 +2825,12 @@ public final class Locale
             _wantCdataBookmarks = safeOptions.isUseCDataBookmarks();
 
             Integer limit = safeOptions.getLoadEntityBytesLimit();
-            if (limit != null) {
-                _entityBytesLimit = limit;
-            }
+            _entityBytesLimit = limit != null ? limit : 10240;
+
+            // reset what the previous load of a reused loader left behind
+            _insideCDATA = false;
+            _insideEntity = 0;
+            _entityBytes = 0;
         }
 
         public void startDocument() throws SAXException {
@@ -3037,6 +3348,8 @@ public final class Locale
 
     boolean _noSync;
 
+    private volatile boolean _frozen;
+
     SchemaTypeLoader _schemaTypeLoader;
 
     private ReferenceQueue _refQueue;
@@ -3055,6 +3368,9 @@ public final class Locale
     long _versionAll;
     long _versionSansText;
 
+    // the element index of the document last searched with an index assisted xpath
+    volatile ElementIndex _elementIndex;
+
     Locations _locations;
 
     private CharUtil _charUtil;
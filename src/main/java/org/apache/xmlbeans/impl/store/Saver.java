@@ -31,8 +31,14 @@ import org.xml.sax.ext.LexicalHandler;
 import org.xml.sax.helpers.AttributesImpl;
 
 import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ReadableByteChannel;
 import java.util.*;
+import java.util.concurrent.*;
 
 abstract class Saver {
     static final int ROOT = Cur.ROOT;
@@ -87,11 +93,22 @@ abstract class Saver {
     }
 
     Saver(Cur c, XmlOptions options) {
+        this(c, createSaveCur(c, XmlOptions.maskNull(options)), options);
+    }
+
+    /**
+     * Saves the content between the two cursors, without a synthetic element around it.
+     */
+    Saver(Cur start, Cur end, XmlOptions options) {
+        this(start, new FragSaveCur(start, end, null), options);
+    }
+
+    private Saver(Cur c, SaveCur cur, XmlOptions options) {
         assert c._locale.entered();
 
         options = XmlOptions.maskNull(options);
 
-        _cur = createSaveCur(c, options);
+        _cur = cur;
 
         _locale = c._locale;
         _version = _locale.version();
@@ -642,6 +659,20 @@ abstract class Saver {
         }
     }
 
+    /**
+     * Replaces the namespace mappings by the ones in scope of the given saver, so the
+     * content saved next uses the prefixes and declarations the other saver would use.
+     */
+    void copyMappings(Saver saver) {
+        _namespaceStack.clear();
+        _namespaceStack.addAll(saver._namespaceStack);
+        _uriMap.clear();
+        _uriMap.putAll(saver._uriMap);
+        _prefixMap.clear();
+        _prefixMap.putAll(saver._prefixMap);
+        _initialDefaultUri = saver._initialDefaultUri;
+    }
+
     private void popMappings() {
         for (; ; ) {
             int i = _namespaceStack.size();
@@ -1770,13 +1801,45 @@ abstract class Saver {
          */
     }
 
-    static final class OptimizedForSpeedSaver
+    static class OptimizedForSpeedSaver
         extends Saver {
         Writer _w;
         private final char[] _buf = new char[1024];
 
+        // the range of top-level children of the document element saved together by a task
+        private static final int MIN_PARTITION = 16;
+        private static final int MAX_PARTITION = 64;
+
+        // below this many top-level children, copying and handing off the partitions costs more than it saves
+        private static final int MIN_PARALLEL = 256;
+
+        private int _parallelism;
+
+        // the document element, until its start tag is emitted
+        private Xobj _partitioned;
 
-        static private class SaverIOException
+
+        /**
+         * The threads saving partitions, shared by all saves.  They are started on the
+         * first partitioned save and stop again when they have been idle for a while.
+         */
+        private static final class SavePool {
+            static final ExecutorService EXECUTOR;
+
+            static {
+                int threads = Runtime.getRuntime().availableProcessors();
+                ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(), r -> {
+                    Thread t = new Thread(r, "xmlbeans-save");
+                    t.setDaemon(true);
+                    return t;
+                });
+                executor.allowCoreThreadTimeOut(true);
+                EXECUTOR = executor;
+            }
+        }
+
+        static class SaverIOException
             extends RuntimeException {
             SaverIOException(IOException e) {
                 super(e);
@@ -1789,10 +1852,16 @@ abstract class Saver {
             _w = writer;
         }
 
-        static void save(Cur cur, Writer writer)
+        OptimizedForSpeedSaver(Cur start, Cur end, Writer writer) {
+            super(start, end, XmlOptions.maskNull(null));
+            _w = writer;
+        }
+
+        static void save(Cur cur, Writer writer, XmlOptions options)
             throws IOException {
             try {
-                Saver saver = new OptimizedForSpeedSaver(cur, writer);
+                OptimizedForSpeedSaver saver = new OptimizedForSpeedSaver(cur, writer);
+                saver.partition(cur, options);
                 //noinspection StatementWithEmptyBody
                 while (saver.process()) {
                 }
@@ -1801,7 +1870,183 @@ abstract class Saver {
             }
         }
 
-        private void emit(String s) {
+        /**
+         * Saves the top-level children of the document element concurrently, if the
+         * options ask for it and the whole of a frozen document is saved.  The nodes of
+         * a frozen document don't change, so each task copies its children into a
+         * locale of its own, which shares their subtrees, and saves them from there.
+         * A single processor or a small document is saved on the calling thread.
+         */
+        void partition(Cur cur, XmlOptions options) {
+            int parallelism = options == null ? 0 : options.getSaveParallelism();
+            parallelism = Math.min(parallelism, Runtime.getRuntime().availableProcessors());
+
+            if (parallelism <= 1 || !cur.isRoot() || !cur._locale.isFrozen()) {
+                return;
+            }
+
+            Cur start = cur.tempCur();
+            Cur end = cur.tempCur();
+
+            try {
+                positionToInner(cur, start, end);
+
+                if (Locale.isFragment(start, end)) {
+                    return;
+                }
+            } finally {
+                start.release();
+                end.release();
+            }
+
+            for (Xobj x = cur._xobj.firstChild(); x != null; x = x._nextSibling) {
+                if (x.isElem()) {
+                    _parallelism = parallelism;
+                    _partitioned = x;
+                    return;
+                }
+            }
+        }
+
+        /**
+         * @return false if the element has too few children to be worth partitioning
+         */
+        private boolean emitPartitions(Xobj elem) {
+            List<Xobj> nodes = new ArrayList<>();
+            Xobj lastAttr = null;
+
+            for (Xobj x = elem.firstChild(); x != null; x = x._nextSibling) {
+                if (x.isAttr()) {
+                    lastAttr = x;
+                } else {
+                    nodes.add(x);
+                }
+            }
+
+            if (nodes.size() < MIN_PARALLEL) {
+                return false;
+            }
+
+            int size = Math.max(MIN_PARTITION, Math.min(MAX_PARTITION, nodes.size() / (_parallelism * 4)));
+
+            if (nodes.size() <= size) {
+                return false;
+            }
+
+            // The text before the first child follows the last attribute, if there is one
+
+            Object leadSrc = lastAttr == null ? elem._srcValue : lastAttr._srcAfter;
+            int leadOff = lastAttr == null ? elem._offValue : lastAttr._offAfter;
+            int leadCch = lastAttr == null ? elem._cchValue : lastAttr._cchAfter;
+
+            int threads = Math.min(_parallelism, (nodes.size() + size - 1) / size);
+
+            ExecutorService executor = SavePool.EXECUTOR;
+
+            // keep a few partitions ahead of the one being written, but not the whole document
+
+            Deque<Future<Object>> pending = new ArrayDeque<>();
+
+            try {
+                int next = 0;
+
+                while (next < nodes.size() || !pending.isEmpty()) {
+                    while (next < nodes.size() && pending.size() < 2 * threads) {
+                        List<Xobj> part = nodes.subList(next, Math.min(next + size, nodes.size()));
+                        boolean first = next == 0;
+
+                        pending.add(executor.submit(() -> first
+                            ? savePartition(part, leadSrc, leadOff, leadCch)
+                            : savePartition(part, null, 0, 0)));
+
+                        next += part.size();
+                    }
+
+                    emitPartition(pending.remove().get());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SaverIOException(new InterruptedIOException());
+            } catch (ExecutionException e) {
+                Throwable t = e.getCause();
+                if (t instanceof RuntimeException) {
+                    throw (RuntimeException) t;
+                }
+                if (t instanceof Error) {
+                    throw (Error) t;
+                }
+                throw new RuntimeException(t);
+            } finally {
+                for (Future<Object> f : pending) {
+                    f.cancel(false);
+                }
+            }
+
+            return true;
+        }
+
+        private Object savePartition(List<Xobj> nodes, Object leadSrc, int leadOff, int leadCch) {
+            Locale l = new Locale(nodes.get(0)._locale._schemaTypeLoader, null);
+
+            l.enter();
+
+            try {
+                Xobj root = Cur.createDomDocumentRootXobj(l, true);
+
+                root._srcValue = leadSrc;
+                root._offValue = leadOff;
+                root._cchValue = leadCch;
+
+                for (Xobj x : nodes) {
+                    Xobj copy = x.copyNode(l);
+
+                    // the text between the children belongs to the partition too
+                    copy._srcAfter = x._srcAfter;
+                    copy._offAfter = x._offAfter;
+                    copy._cchAfter = x._cchAfter;
+
+                    root.appendXobj(copy);
+                }
+
+                Cur c = root.tempCur();
+                Cur start = root.tempCur();
+                Cur end = root.tempCur();
+
+                try {
+                    positionToInner(c, start, end);
+
+                    OptimizedForSpeedSaver saver = newPartitionSaver(start, end);
+                    saver.copyMappings(this);
+
+                    //noinspection StatementWithEmptyBody
+                    while (saver.process()) {
+                    }
+
+                    return saver.partitionOutput();
+                } finally {
+                    c.release();
+                    start.release();
+                    end.release();
+                }
+            } finally {
+                l.exit();
+            }
+        }
+
+        OptimizedForSpeedSaver newPartitionSaver(Cur start, Cur end) {
+            return new OptimizedForSpeedSaver(start, end, new CharArrayWriter());
+        }
+
+        Object partitionOutput() {
+            return ((CharArrayWriter) _w).toCharArray();
+        }
+
+        void emitPartition(Object output) {
+            char[] chars = (char[]) output;
+            emit(chars, 0, chars.length);
+        }
+
+        void emit(String s) {
             try {
                 _w.write(s);
             } catch (IOException e) {
@@ -1809,7 +2054,7 @@ abstract class Saver {
             }
         }
 
-        private void emit(char c) {
+        void emit(char c) {
             try {
                 _buf[0] = c;
                 _w.write(_buf, 0, 1);
@@ -1818,7 +2063,7 @@ abstract class Saver {
             }
         }
 
-        private void emit(char c1, char c2) {
+        void emit(char c1, char c2) {
             try {
                 _buf[0] = c1;
                 _buf[1] = c2;
@@ -1828,7 +2073,7 @@ abstract class Saver {
             }
         }
 
-        private void emit(char[] buf, int start, int len) {
+        void emit(char[] buf, int start, int len) {
             try {
                 _w.write(buf, start, len);
             } catch (IOException e) {
@@ -1855,6 +2100,15 @@ abstract class Saver {
                 return true;
             } else {
                 emit('>');
+
+                Xobj partitioned = _partitioned;
+                _partitioned = null;
+
+                if (partitioned != null && emitPartitions(partitioned)) {
+                    emitFinish(c);
+                    return true;
+                }
+
                 return false;
             }
         }
@@ -2159,6 +2413,247 @@ abstract class Saver {
         }
     }
 
+    /**
+     * Writes the output of the OptimizedForSpeedSaver as UTF-8 straight to a stream.
+     * The characters are encoded into a byte buffer as they are emitted, text held as
+     * char[] or Latin-1 byte[] is encoded directly from the store.
+     */
+    static final class Utf8Saver
+        extends OptimizedForSpeedSaver {
+        private final OutputStream _os;
+        private final byte[] _bytes = new byte[8192];
+        private int _pos;
+
+        // the high surrogate of a pair split between two emits
+        private char _highSurrogate;
+
+        private Utf8Saver(Cur cur, OutputStream os) {
+            super(cur, null);
+            _os = os;
+        }
+
+        private Utf8Saver(Cur start, Cur end, OutputStream os) {
+            super(start, end, null);
+            _os = os;
+        }
+
+        /**
+         * @return true if the document of the cursor is saved to a stream as UTF-8
+         */
+        static boolean isUtf8(Cur cur, XmlOptions options) {
+            return "UTF-8".equals(saveEncoding(cur, options));
+        }
+
+        static void save(Cur cur, OutputStream os, XmlOptions options)
+            throws IOException {
+            try {
+                Utf8Saver saver = new Utf8Saver(cur, os);
+                saver.partition(cur, options);
+
+                if (!options.isSaveNoXmlDecl()) {
+                    saver.emitXmlDecl(cur);
+                }
+
+                //noinspection StatementWithEmptyBody
+                while (saver.process()) {
+                }
+
+                saver.flush();
+            } catch (SaverIOException e) {
+                throw (IOException) e.getCause();
+            }
+        }
+
+        private void emitXmlDecl(Cur cur) {
+            XmlDocumentProperties props = Locale.getDocProps(cur, false);
+
+            String version = props == null ? null : props.getVersion();
+
+            emit("<?xml version=\"");
+            emit(version == null ? "1.0" : version);
+            emit("\" encoding=\"UTF-8\"");
+            if (props != null && props.get(XmlDocumentProperties.STANDALONE) != null) {
+                emit(props.getStandalone() ? " standalone=\"yes\"" : " standalone=\"no\"");
+            }
+            emit("?>" + _newLine);
+        }
+
+        OptimizedForSpeedSaver newPartitionSaver(Cur start, Cur end) {
+            return new Utf8Saver(start, end, new ByteArrayOutputStream());
+        }
+
+        Object partitionOutput() {
+            flush();
+            return ((ByteArrayOutputStream) _os).toByteArray();
+        }
+
+        void emitPartition(Object output) {
+            flush();
+
+            try {
+                _os.write((byte[]) output);
+            } catch (IOException e) {
+                throw new SaverIOException(e);
+            }
+        }
+
+        private void flush() {
+            if (_highSurrogate != 0) {
+                _highSurrogate = 0;
+                write('?');
+            }
+
+            try {
+                _os.write(_bytes, 0, _pos);
+                _pos = 0;
+            } catch (IOException e) {
+                throw new SaverIOException(e);
+            }
+        }
+
+        private void write(char ch) {
+            if (ch < 0x80 && _highSurrogate == 0 && _pos < _bytes.length) {
+                _bytes[_pos++] = (byte) ch;
+                return;
+            }
+
+            if (_pos > _bytes.length - 4) {
+                try {
+                    _os.write(_bytes, 0, _pos);
+                    _pos = 0;
+                } catch (IOException e) {
+                    throw new SaverIOException(e);
+                }
+            }
+
+            if (_highSurrogate != 0) {
+                char high = _highSurrogate;
+                _highSurrogate = 0;
+
+                if (Character.isLowSurrogate(ch)) {
+                    int cp = Character.toCodePoint(high, ch);
+                    _bytes[_pos++] = (byte) (0xF0 | (cp >> 18));
+                    _bytes[_pos++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                    _bytes[_pos++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                    _bytes[_pos++] = (byte) (0x80 | (cp & 0x3F));
+                    return;
+                }
+
+                // unpaired surrogates are replaced, like the encoder of a Writer does
+                _bytes[_pos++] = '?';
+            }
+
+            if (ch < 0x80) {
+                _bytes[_pos++] = (byte) ch;
+            } else if (ch < 0x800) {
+                _bytes[_pos++] = (byte) (0xC0 | (ch >> 6));
+                _bytes[_pos++] = (byte) (0x80 | (ch & 0x3F));
+            } else if (Character.isHighSurrogate(ch)) {
+                _highSurrogate = ch;
+            } else if (Character.isLowSurrogate(ch)) {
+                _bytes[_pos++] = '?';
+            } else {
+                _bytes[_pos++] = (byte) (0xE0 | (ch >> 12));
+                _bytes[_pos++] = (byte) (0x80 | ((ch >> 6) & 0x3F));
+                _bytes[_pos++] = (byte) (0x80 | (ch & 0x3F));
+            }
+        }
+
+        @Override
+        void emit(String s) {
+            byte[] bytes = _bytes;
+            int pos = _pos;
+
+            for (int i = 0, len = s.length(); i < len; i++) {
+                char ch = s.charAt(i);
+
+                if (ch < 0x80 && pos < bytes.length && _highSurrogate == 0) {
+                    bytes[pos++] = (byte) ch;
+                } else {
+                    _pos = pos;
+                    write(ch);
+                    pos = _pos;
+                }
+            }
+
+            _pos = pos;
+        }
+
+        @Override
+        void emit(char c) {
+            write(c);
+        }
+
+        @Override
+        void emit(char c1, char c2) {
+            write(c1);
+            write(c2);
+        }
+
+        @Override
+        void emit(char[] buf, int start, int len) {
+            for (int i = start, end = start + len; i < end; i++) {
+                write(buf[i]);
+            }
+        }
+
+        @Override
+        protected void emitText(SaveCur c) {
+            assert c.isText();
+
+            Object src = c.getChars();
+            int off = c._offSrc;
+            int end = off + c._cchSrc;
+
+            byte[] bytes = _bytes;
+            int pos = _pos;
+
+            // the plain ascii characters are copied in place, all others are written one by one
+            if (src instanceof char[]) {
+                char[] chars = (char[]) src;
+                for (int i = off; i < end; i++) {
+                    char ch = chars[i];
+
+                    if (ch < 0x80 && ch != '<' && ch != '&' && pos < bytes.length && _highSurrogate == 0) {
+                        bytes[pos++] = (byte) ch;
+                    } else {
+                        _pos = pos;
+                        emitTextChar(ch);
+                        pos = _pos;
+                    }
+                }
+            } else if (src instanceof byte[]) {
+                byte[] latin1 = (byte[]) src;
+                for (int i = off; i < end; i++) {
+                    byte b = latin1[i];
+
+                    if (b >= 0 && b != '<' && b != '&' && pos < bytes.length && _highSurrogate == 0) {
+                        bytes[pos++] = b;
+                    } else {
+                        _pos = pos;
+                        emitTextChar((char) (b & 0xFF));
+                        pos = _pos;
+                    }
+                }
+            } else {
+                super.emitText(c);
+                return;
+            }
+
+            _pos = pos;
+        }
+
+        private void emitTextChar(char ch) {
+            if (ch == '<') {
+                emit("&lt;");
+            } else if (ch == '&') {
+                emit("&amp;");
+            } else {
+                write(ch);
+            }
+        }
+    }
+
     static final class TextReader extends Reader {
         TextReader(Cur c, XmlOptions options) {
             _textSaver = new TextSaver(c, options, null);
@@ -2251,42 +2746,52 @@ abstract class Saver {
         private boolean _closed;
     }
 
-    static final class InputStreamSaver extends InputStream {
-        InputStreamSaver(Cur c, XmlOptions options) {
-            _locale = c._locale;
+    /**
+     * @return the IANA name of the encoding a document is saved with to a stream, i.e.
+     * the encoding of the options, else the encoding the document was loaded with, else UTF-8
+     */
+    static String saveEncoding(Cur c, XmlOptions options) {
+        String encoding = null;
 
-            _closed = false;
+        XmlDocumentProperties props = Locale.getDocProps(c, false);
 
-            assert _locale.entered();
+        if (props != null && props.getEncoding() != null) {
+            encoding = EncodingMap.getIANA2JavaMapping(props.getEncoding());
+        }
 
-            options = XmlOptions.maskNull(options);
+        String enc = options.getCharacterEncoding();
+        if (enc != null) {
+            encoding = enc;
+        }
 
-            _outStreamImpl = new OutputStreamImpl();
+        if (encoding != null) {
+            String ianaEncoding = EncodingMap.getJava2IANAMapping(encoding);
 
-            String encoding = null;
+            if (ianaEncoding != null) {
+                encoding = ianaEncoding;
+            }
+        }
 
-            XmlDocumentProperties props = Locale.getDocProps(c, false);
+        if (encoding == null) {
+            encoding = EncodingMap.getJava2IANAMapping("UTF8");
+        }
 
-            if (props != null && props.getEncoding() != null) {
-                encoding = EncodingMap.getIANA2JavaMapping(props.getEncoding());
-            }
+        return encoding;
+    }
 
-            String enc = options.getCharacterEncoding();
-            if (enc != null) {
-                encoding = enc;
-            }
+    static final class InputStreamSaver extends InputStream implements ReadableByteChannel {
+        InputStreamSaver(Cur c, XmlOptions options) {
+            _locale = c._locale;
 
-            if (encoding != null) {
-                String ianaEncoding = EncodingMap.getJava2IANAMapping(encoding);
+            _closed = false;
 
-                if (ianaEncoding != null) {
-                    encoding = ianaEncoding;
-                }
-            }
+            assert _locale.entered();
 
-            if (encoding == null) {
-                encoding = EncodingMap.getJava2IANAMapping("UTF8");
-            }
+            options = XmlOptions.maskNull(options);
+
+            _outStreamImpl = new OutputStreamImpl();
+
+            String encoding = saveEncoding(c, options);
 
             String javaEncoding = (encoding == null) ? null : EncodingMap.getIANA2JavaMapping(encoding);
 
@@ -2307,6 +2812,10 @@ abstract class Saver {
             _closed = true;
         }
 
+        public boolean isOpen() {
+            return !_closed;
+        }
+
         private void checkClosed() throws IOException {
             if (_closed) {
                 throw new IOException("Stream closed");
@@ -2368,6 +2877,30 @@ abstract class Saver {
             }
         }
 
+        public int read(ByteBuffer dst) throws IOException {
+            if (_closed) {
+                throw new ClosedChannelException();
+            }
+
+            if (_locale.noSync()) {
+                _locale.enter();
+                try {
+                    return _outStreamImpl.read(dst);
+                } finally {
+                    _locale.exit();
+                }
+            } else {
+                synchronized (_locale) {
+                    _locale.enter();
+                    try {
+                        return _outStreamImpl.read(dst);
+                    } finally {
+                        _locale.exit();
+                    }
+                }
+            }
+        }
+
         private int ensure(int cbyte) {
             // Even if we're asked to ensure nothing, still try to ensure
             // atleast one byte so we can determine if we're at the
@@ -2470,6 +3003,40 @@ abstract class Saver {
                 return len;
             }
 
+            int read(ByteBuffer dst) {
+                int len = dst.remaining();
+                int n;
+
+                if ((n = ensure(len)) == 0) {
+                    return -1;
+                }
+
+                if (len == 0) {
+                    return 0;
+                }
+
+                if (n < len) {
+                    len = n;
+                }
+
+                if (_out < _in) {
+                    dst.put(_buf, _out, len);
+                } else {
+                    int chunk = _buf.length - _out;
+
+                    if (chunk >= len) {
+                        dst.put(_buf, _out, len);
+                    } else {
+                        dst.put(_buf, _out, chunk);
+                        dst.put(_buf, 0, len - chunk);
+                    }
+                }
+                _out = (_out + len) % _buf.length;
+                _free += len;
+
+                return len;
+            }
+
             int getAvailable() {
                 return _buf == null ? 0 : _buf.length - _free;
             }
@@ -3383,6 +3950,156 @@ abstract class Saver {
         private final boolean _nsAsAttrs;
     }
 
+    /**
+     * Writes the content to a stream writer at its current position, the stream writer
+     * is neither started, ended nor flushed.  Doctypes are dropped.
+     */
+    static final class StreamWriterSaver extends Saver {
+        StreamWriterSaver(Cur c, XmlOptions options, XMLStreamWriter xsw)
+            throws XMLStreamException {
+            super(c, options);
+
+            _xsw = xsw;
+
+            try {
+                //noinspection StatementWithEmptyBody
+                while (process()) {
+                }
+            } catch (SaverStreamException e) {
+                throw e._streamException;
+            }
+        }
+
+        private static class SaverStreamException extends RuntimeException {
+            SaverStreamException(XMLStreamException e) {
+                _streamException = e;
+            }
+
+            XMLStreamException _streamException;
+        }
+
+        private String getPrefix(QName name) {
+            String uri = name.getNamespaceURI();
+            return uri.length() == 0 ? "" : getUriMapping(uri);
+        }
+
+        @Override
+        protected boolean emitElement(SaveCur c, List<QName> attrNames, List<String> attrValues) {
+            QName elemName = c.getName();
+
+            try {
+                _xsw.writeStartElement(getPrefix(elemName), elemName.getLocalPart(), elemName.getNamespaceURI());
+
+                for (iterateMappings(); hasMapping(); nextMapping()) {
+                    String prefix = mappingPrefix();
+
+                    if (prefix.length() == 0) {
+                        _xsw.writeDefaultNamespace(mappingUri());
+                    } else {
+                        _xsw.writeNamespace(prefix, mappingUri());
+                    }
+                }
+
+                for (int i = 0; i < attrNames.size(); i++) {
+                    QName name = attrNames.get(i);
+
+                    if (name.getNamespaceURI().length() == 0) {
+                        _xsw.writeAttribute(name.getLocalPart(), attrValues.get(i));
+                    } else {
+                        _xsw.writeAttribute(
+                            getPrefix(name), name.getNamespaceURI(), name.getLocalPart(), attrValues.get(i));
+                    }
+                }
+            } catch (XMLStreamException e) {
+                throw new SaverStreamException(e);
+            }
+
+            return false;
+        }
+
+        protected void emitFinish(SaveCur c) {
+            try {
+                _xsw.writeEndElement();
+            } catch (XMLStreamException e) {
+                throw new SaverStreamException(e);
+            }
+        }
+
+        protected void emitText(SaveCur c) {
+            assert c.isText();
+
+            Object src = c.getChars();
+
+            try {
+                if (src instanceof char[]) {
+                    _xsw.writeCharacters((char[]) src, c._offSrc, c._cchSrc);
+                } else {
+                    if (_buf == null) {
+                        _buf = new char[1024];
+                    }
+
+                    while (c._cchSrc > 0) {
+                        int cch = java.lang.Math.min(_buf.length, c._cchSrc);
+
+                        CharUtil.getChars(_buf, 0, src, c._offSrc, cch);
+
+                        _xsw.writeCharacters(_buf, 0, cch);
+
+                        c._offSrc += cch;
+                        c._cchSrc -= cch;
+                    }
+                }
+            } catch (XMLStreamException e) {
+                throw new SaverStreamException(e);
+            }
+        }
+
+        protected void emitComment(SaveCur c) {
+            c.push();
+
+            c.next();
+
+            String value = c.isText() ? CharUtil.getString(c.getChars(), c._offSrc, c._cchSrc) : "";
+
+            c.pop();
+
+            try {
+                _xsw.writeComment(value);
+            } catch (XMLStreamException e) {
+                throw new SaverStreamException(e);
+            }
+        }
+
+        protected void emitProcinst(SaveCur c) {
+            c.push();
+
+            c.next();
+
+            String value = CharUtil.getString(c.getChars(), c._offSrc, c._cchSrc);
+
+            c.pop();
+
+            try {
+                _xsw.writeProcessingInstruction(c.getName().getLocalPart(), value);
+            } catch (XMLStreamException e) {
+                throw new SaverStreamException(e);
+            }
+        }
+
+        protected void emitDocType(String docTypeName, String publicId, String systemId) {
+        }
+
+        protected void emitStartDoc(SaveCur c) {
+        }
+
+        protected void emitEndDoc(SaveCur c) {
+        }
+
+        private final XMLStreamWriter _xsw;
+
+        private char[] _buf;
+    }
+
     //
     //
     //
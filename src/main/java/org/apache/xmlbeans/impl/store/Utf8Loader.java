@@ -0,0 +1,1104 @@
+/*   Copyright 2004 The Apache Software Foundation
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.xmlbeans.impl.store;
+
+import org.apache.xmlbeans.XmlOptions;
+import org.apache.xmlbeans.XmlRuntimeException;
+import org.apache.xmlbeans.impl.common.XMLChar;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.lang.ref.SoftReference;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Loads documents encoded in UTF-8 or US-ASCII by tokenizing the bytes itself and
+ * pushing the names and text straight into the load context, instead of going
+ * through an XMLReader and the SAX callbacks.  Names are turned into strings once
+ * per thread, the text is decoded into a reused buffer from which the load context
+ * copies it into the store.
+ * <p>
+ * The loader doesn't read DTDs and doesn't report errors.  When the document has a
+ * DOCTYPE declaration, another encoding or isn't well-formed, {@link #load} returns
+ * null and the bytes taken with {@link #takeInput()} are loaded with an XMLReader,
+ * which reports the errors just as if the loader hadn't been tried.
+ * <p>
+ * The whole document is buffered, so documents larger than {@link #MAX_BUFFERED}
+ * aren't tokenized but streamed to the XMLReader.
+ */
+final class Utf8Loader {
+    private static final ThreadLocal<SoftReference<Utf8Loader>> tl_loader =
+        ThreadLocal.withInitial(() -> new SoftReference<>(new Utf8Loader()));
+
+    // buffers which grew beyond this size for a large document are not kept for the next one
+    private static final int MAX_RETAINED = 1 << 20;
+
+    // larger documents are left to the XMLReader, which doesn't need to hold them in memory
+    private static final int MAX_BUFFERED = 1 << 24;
+
+    // the names of a thread are forgotten once there are this many of them
+    private static final int MAX_NAMES = 2048;
+
+    // the same limit of the secure processing of the JDK parser
+    private static final int MAX_ATTRS = 10000;
+
+    private static final Fallback FALLBACK = new Fallback();
+
+    private Locale _locale;
+    private Locale.LoadContext _context;
+
+    // the input
+    private byte[] _buf = new byte[4096];
+    private int _len;
+    private int _pos;
+
+    // the unread rest of a document, which is too large to be buffered
+    private InputStream _rest;
+
+    // the decoded text of the current text, attribute value, comment or pi
+    private char[] _chars = new char[1024];
+    private int _cch;
+
+    // the raw names of the open elements and the namespace stack mark of each
+    private int[] _eltStart = new int[16];
+    private int[] _eltEnd = new int[16];
+    private int[] _eltNsTop = new int[16];
+    private int _depth;
+
+    // the namespace declarations in scope, innermost last
+    private String[] _nsPrefix = new String[16];
+    private String[] _nsUri = new String[16];
+    private int _nsTop;
+
+    // the attributes of the current start tag
+    private String[] _attrPrefix = new String[8];
+    private String[] _attrLocal = new String[8];
+    private String[] _attrValue = new String[8];
+    private String[] _attrUri = new String[8];
+    private int _attrCount;
+
+    // the strings of the names seen before, keyed by their bytes
+    private byte[][] _nameKeys = new byte[MAX_NAMES * 2][];
+    private String[] _nameValues = new String[MAX_NAMES * 2];
+    private int _nameCount;
+
+    private Utf8Loader() {
+    }
+
+    static Utf8Loader getThreadLocal() {
+        SoftReference<Utf8Loader> softRef = tl_loader.get();
+        Utf8Loader loader = softRef.get();
+        if (loader == null) {
+            loader = new Utf8Loader();
+            tl_loader.set(new SoftReference<>(loader));
+        }
+        return loader;
+    }
+
+    static void clearThreadLocals() {
+        tl_loader.remove();
+    }
+
+    /**
+     * @return true if the loader is enabled and the options don't need anything
+     * only an XMLReader reports, i.e. line numbers and CDATA sections
+     */
+    static boolean canLoad(XmlOptions options) {
+        return options != null &&
+               options.isLoadUseBuiltinTokenizer() &&
+               options.getLoadUseXMLReader() == null &&
+               !options.isLoadLineNumbers() &&
+               !options.isUseCDataBookmarks();
+    }
+
+    /**
+     * Reads the whole stream and loads it into the locale.
+     *
+     * @return the loaded document, or null if the document has to be loaded by
+     * an XMLReader from {@link #takeInput()}
+     */
+    Cur load(Locale l, InputStream is, XmlOptions options) throws IOException {
+        if (!read(is) || !startsAsUtf8()) {
+            return null;
+        }
+
+        _locale = l;
+        _context = new Cur.CurLoadContext(l, options);
+
+        try {
+            document();
+
+            Cur c = _context.finish();
+
+            Locale.associateSourceName(c, options);
+
+            return c;
+        } catch (Fallback | XmlRuntimeException e) {
+            _context.abort();
+
+            return null;
+        } catch (RuntimeException e) {
+            _context.abort();
+
+            throw e;
+        } finally {
+            _locale = null;
+            _context = null;
+            _depth = 0;
+            _nsTop = 0;
+            Arrays.fill(_attrValue, 0, _attrCount, null);
+            _attrCount = 0;
+
+            if (_chars.length > MAX_RETAINED) {
+                _chars = new char[1024];
+            }
+        }
+    }
+
+    /**
+     * @return the bytes read by the last {@link #load}, which the loader no longer
+     * uses, so that a load started while they are read by an XMLReader can't
+     * overwrite them
+     */
+    InputStream takeInput() {
+        InputStream is = new ByteArrayInputStream(_buf, 0, _len);
+        if (_rest != null) {
+            is = new SequenceInputStream(is, _rest);
+        }
+        _buf = new byte[4096];
+        _len = 0;
+        _rest = null;
+        return is;
+    }
+
+    /**
+     * Reads the stream into the buffer.
+     *
+     * @return false if the stream is larger than {@link #MAX_BUFFERED}, in which
+     * case only that much is read and the rest is left for {@link #takeInput()}
+     */
+    private boolean read(InputStream is) throws IOException {
+        if (_buf.length > MAX_RETAINED) {
+            _buf = new byte[4096];
+        }
+
+        _len = 0;
+        _rest = null;
+
+        for (int n; (n = is.read(_buf, _len, _buf.length - _len)) >= 0; ) {
+            _len += n;
+
+            if (_len == _buf.length) {
+                if (_len == MAX_BUFFERED) {
+                    _rest = is;
+                    return false;
+                }
+                _buf = Arrays.copyOf(_buf, Math.min(_buf.length * 2, MAX_BUFFERED));
+            }
+        }
+
+        return true;
+    }
+
+    //
+    // Document structure
+    //
+
+    /**
+     * Skips the byte order mark and the xml declaration, if the document is in UTF-8.
+     */
+    private boolean startsAsUtf8() {
+        _pos = 0;
+
+        if (_len >= 3 && (_buf[0] & 0xFF) == 0xEF && (_buf[1] & 0xFF) == 0xBB && (_buf[2] & 0xFF) == 0xBF) {
+            _pos = 3;
+        }
+
+        // UTF-16 and UTF-32 documents start with a byte order mark or have zero bytes
+        if (_pos + 1 >= _len || _buf[_pos] <= 0 || _buf[_pos + 1] == 0) {
+            return false;
+        }
+
+        if (!startsWith("<?xml") || _pos + 5 >= _len || !isSpace(_buf[_pos + 5])) {
+            return true;
+        }
+
+        _pos += 5;
+
+        String version = pseudoAttr("version");
+
+        if (!"1.0".equals(version)) {
+            return false;
+        }
+
+        String encoding = pseudoAttr("encoding");
+
+        if (encoding != null && !encoding.equalsIgnoreCase("UTF-8") && !encoding.equalsIgnoreCase("UTF8")) {
+            // an ASCII document reads the same as UTF-8, unless it has bytes which
+            // aren't ASCII, which the XMLReader reports as errors
+            if (!encoding.equalsIgnoreCase("US-ASCII") && !encoding.equalsIgnoreCase("ASCII") || !isAscii()) {
+                return false;
+            }
+        }
+
+        String standalone = pseudoAttr("standalone");
+
+        if (standalone != null && !standalone.equals("yes") && !standalone.equals("no")) {
+            return false;
+        }
+
+        skipSpace();
+
+        if (!startsWith("?>")) {
+            return false;
+        }
+
+        _pos += 2;
+
+        return true;
+    }
+
+    private boolean isAscii() {
+        for (int i = _pos; i < _len; i++) {
+            if (_buf[i] < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the value of the pseudo attribute of the xml declaration at the current
+     * position, or null if the declaration continues with something else
+     */
+    private String pseudoAttr(String name) {
+        int save = _pos;
+
+        if (!skipSpace() || !startsWith(name)) {
+            _pos = save;
+            return null;
+        }
+
+        _pos += name.length();
+        skipSpace();
+
+        if (_pos >= _len || _buf[_pos] != '=') {
+            _pos = save;
+            return null;
+        }
+
+        _pos++;
+        skipSpace();
+
+        if (_pos >= _len || (_buf[_pos] != '"' && _buf[_pos] != '\'')) {
+            _pos = save;
+            return null;
+        }
+
+        byte quote = _buf[_pos++];
+        int start = _pos;
+
+        while (_pos < _len && _buf[_pos] != quote && _buf[_pos] > 0x20) {
+            _pos++;
+        }
+
+        if (_pos >= _len || _buf[_pos] != quote) {
+            _pos = save;
+            return null;
+        }
+
+        return new String(_buf, start, _pos++ - start, StandardCharsets.US_ASCII);
+    }
+
+    private void document() throws Fallback {
+        misc();
+
+        if (_pos == _len || startsWith("<!")) {
+            // no document element, or a DOCTYPE declaration
+            throw FALLBACK;
+        }
+
+        content();
+
+        misc();
+
+        if (_pos != _len) {
+            throw FALLBACK;
+        }
+    }
+
+    /**
+     * Loads the comments, pis and whitespace before and after the document element.
+     */
+    private void misc() throws Fallback {
+        for (; ; ) {
+            while (_pos < _len && isSpace(_buf[_pos])) {
+                _pos++;
+            }
+
+            if (startsWith("<!--")) {
+                comment();
+            } else if (startsWith("<?")) {
+                procInst();
+            } else if (_pos < _len && _buf[_pos] != '<') {
+                throw FALLBACK;
+            } else {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Loads the document element, at the current position.
+     */
+    private void content() throws Fallback {
+        if (!startTag()) {
+            return;
+        }
+
+        while (_depth > 0) {
+            text();
+
+            if (_pos + 1 >= _len) {
+                throw FALLBACK;
+            }
+
+            byte b = _buf[_pos + 1];
+
+            if (b == '!' && startsWith("<![CDATA[")) {
+                cdata();
+                continue;
+            }
+
+            if (_cch > 0) {
+                _context.text(_chars, 0, _cch);
+                _cch = 0;
+            }
+
+            if (b == '/') {
+                endTag();
+            } else if (b == '!') {
+                if (!startsWith("<!--")) {
+                    throw FALLBACK;
+                }
+                comment();
+            } else if (b == '?') {
+                procInst();
+            } else {
+                startTag();
+            }
+        }
+    }
+
+    /**
+     * Loads a start tag and returns true if the element is open, false if it is empty.
+     */
+    private boolean startTag() throws Fallback {
+        _pos++;
+
+        int nameStart = _pos;
+        int colon = name();
+        int nameEnd = _pos;
+
+        _attrCount = 0;
+
+        for (; ; ) {
+            boolean space = skipSpace();
+
+            if (_pos >= _len) {
+                throw FALLBACK;
+            }
+
+            byte b = _buf[_pos];
+
+            if (b == '>' || b == '/') {
+                break;
+            }
+
+            if (!space) {
+                throw FALLBACK;
+            }
+
+            attribute();
+        }
+
+        int nsTop = _nsTop;
+
+        for (int i = 0; i < _attrCount; i++) {
+            String prefix = _attrPrefix[i];
+            String local = _attrLocal[i];
+
+            if (prefix.length() == 0 && local.equals("xmlns")) {
+                declare("", _attrValue[i], nsTop);
+            } else if (prefix.equals("xmlns")) {
+                declare(local, _attrValue[i], nsTop);
+            }
+        }
+
+        String prefix = colon < 0 ? "" : name(nameStart, colon);
+        String local = colon < 0 ? name(nameStart, nameEnd) : name(colon + 1, nameEnd);
+
+        _context.startElement(_locale.makeQName(resolve(prefix), local, prefix));
+
+        for (int i = 0; i < _attrCount; i++) {
+            String aprefix = _attrPrefix[i];
+            String alocal = _attrLocal[i];
+
+            boolean xmlns = aprefix.length() == 0 && alocal.equals("xmlns") || aprefix.equals("xmlns");
+
+            // namespace declarations are compared in the xmlns namespace, which no
+            // other attribute can be in, so the slot never keeps a uri of an earlier element
+            String uri = xmlns ? Locale._xmlnsUri : aprefix.length() == 0 ? "" : resolve(aprefix);
+
+            for (int j = 0; j < i; j++) {
+                if (alocal.equals(_attrLocal[j]) && uri.equals(_attrUri[j])) {
+                    throw FALLBACK;
+                }
+            }
+
+            _attrUri[i] = uri;
+
+            if (!xmlns) {
+                _context.attr(alocal, uri, aprefix, _attrValue[i]);
+            } else if (aprefix.length() == 0) {
+                _context.xmlns("", _attrValue[i]);
+            } else {
+                _context.xmlns(alocal, _attrValue[i]);
+            }
+        }
+
+        if (_buf[_pos] == '/') {
+            if (++_pos >= _len || _buf[_pos] != '>') {
+                throw FALLBACK;
+            }
+
+            _pos++;
+            _nsTop = nsTop;
+            _context.endElement();
+
+            return false;
+        }
+
+        _pos++;
+
+        if (_depth == _eltStart.length) {
+            _eltStart = Arrays.copyOf(_eltStart, _depth * 2);
+            _eltEnd = Arrays.copyOf(_eltEnd, _depth * 2);
+            _eltNsTop = Arrays.copyOf(_eltNsTop, _depth * 2);
+        }
+
+        _eltStart[_depth] = nameStart;
+        _eltEnd[_depth] = nameEnd;
+        _eltNsTop[_depth] = nsTop;
+        _depth++;
+
+        return true;
+    }
+
+    private void attribute() throws Fallback {
+        if (_attrCount == _attrLocal.length) {
+            if (_attrCount == MAX_ATTRS) {
+                throw FALLBACK;
+            }
+
+            _attrPrefix = Arrays.copyOf(_attrPrefix, _attrCount * 2);
+            _attrLocal = Arrays.copyOf(_attrLocal, _attrCount * 2);
+            _attrValue = Arrays.copyOf(_attrValue, _attrCount * 2);
+            _attrUri = Arrays.copyOf(_attrUri, _attrCount * 2);
+        }
+
+        int nameStart = _pos;
+        int colon = name();
+        int nameEnd = _pos;
+
+        skipSpace();
+
+        if (_pos >= _len || _buf[_pos] != '=') {
+            throw FALLBACK;
+        }
+
+        _pos++;
+        skipSpace();
+
+        if (_pos >= _len || (_buf[_pos] != '"' && _buf[_pos] != '\'')) {
+            throw FALLBACK;
+        }
+
+        byte quote = _buf[_pos++];
+
+        _cch = 0;
+
+        for (; ; ) {
+            if (_pos >= _len) {
+                throw FALLBACK;
+            }
+
+            byte b = _buf[_pos];
+
+            if (b == quote) {
+                _pos++;
+                break;
+            }
+
+            if (b == '<') {
+                throw FALLBACK;
+            }
+
+            if (b == '&') {
+                reference();
+            } else if (b == '\t' || b == '\n' || b == '\r') {
+                // attribute value normalization
+                if (b == '\r' && _pos + 1 < _len && _buf[_pos + 1] == '\n') {
+                    _pos++;
+                }
+                _pos++;
+                append(' ');
+            } else {
+                character();
+            }
+        }
+
+        _attrPrefix[_attrCount] = colon < 0 ? "" : name(nameStart, colon);
+        _attrLocal[_attrCount] = colon < 0 ? name(nameStart, nameEnd) : name(colon + 1, nameEnd);
+        _attrValue[_attrCount] = new String(_chars, 0, _cch);
+        _attrCount++;
+        _cch = 0;
+    }
+
+    private void endTag() throws Fallback {
+        _pos += 2;
+
+        int start = _eltStart[_depth - 1];
+        int cb = _eltEnd[_depth - 1] - start;
+
+        if (_pos + cb > _len) {
+            throw FALLBACK;
+        }
+
+        for (int i = 0; i < cb; i++) {
+            if (_buf[_pos + i] != _buf[start + i]) {
+                throw FALLBACK;
+            }
+        }
+
+        _pos += cb;
+        skipSpace();
+
+        if (_pos >= _len || _buf[_pos] != '>') {
+            throw FALLBACK;
+        }
+
+        _pos++;
+        _depth--;
+        _nsTop = _eltNsTop[_depth];
+        _context.endElement();
+    }
+
+    /**
+     * Decodes the text up to the next markup into the text buffer.
+     */
+    private void text() throws Fallback {
+        byte[] buf = _buf;
+        int len = _len;
+
+        for (; ; ) {
+            // the plain ascii run, the common case
+            int pos = _pos;
+            int start = pos;
+            byte b = 0;
+
+            while (pos < len && (b = buf[pos]) >= 0x20 && b != '<' && b != '&' && b != ']') {
+                pos++;
+            }
+
+            if (pos > start) {
+                int cch = pos - start;
+                ensure(cch);
+                char[] chars = _chars;
+                int n = _cch;
+                for (int i = start; i < pos; i++) {
+                    chars[n++] = (char) buf[i];
+                }
+                _cch = n;
+                _pos = pos;
+            }
+
+            if (pos >= len) {
+                throw FALLBACK;
+            }
+
+            if (b == '<') {
+                return;
+            }
+
+            if (b == '&') {
+                reference();
+            } else if (b == ']') {
+                if (startsWith("]]>")) {
+                    throw FALLBACK;
+                }
+                _pos++;
+                append(']');
+            } else {
+                character();
+            }
+        }
+    }
+
+    private void cdata() throws Fallback {
+        _pos += 9;
+
+        while (!startsWith("]]>")) {
+            if (_pos >= _len) {
+                throw FALLBACK;
+            }
+
+            character();
+        }
+
+        _pos += 3;
+    }
+
+    private void comment() throws Fallback {
+        _pos += 4;
+        _cch = 0;
+
+        while (!startsWith("--")) {
+            if (_pos >= _len) {
+                throw FALLBACK;
+            }
+
+            character();
+        }
+
+        if (_pos + 2 >= _len || _buf[_pos + 2] != '>') {
+            throw FALLBACK;
+        }
+
+        _pos += 3;
+        _context.comment(_chars, 0, _cch);
+        _cch = 0;
+    }
+
+    private void procInst() throws Fallback {
+        _pos += 2;
+
+        int start = _pos;
+
+        if (name() >= 0) {
+            throw FALLBACK;
+        }
+
+        String target = name(start, _pos);
+
+        if (target.equalsIgnoreCase("xml")) {
+            throw FALLBACK;
+        }
+
+        _cch = 0;
+
+        if (skipSpace()) {
+            while (!startsWith("?>")) {
+                if (_pos >= _len) {
+                    throw FALLBACK;
+                }
+
+                character();
+            }
+        } else if (!startsWith("?>")) {
+            throw FALLBACK;
+        }
+
+        _pos += 2;
+        _context.procInst(target, new String(_chars, 0, _cch));
+        _cch = 0;
+    }
+
+    //
+    // Namespaces
+    //
+
+    private void declare(String prefix, String uri, int nsTop) throws Fallback {
+        // the same checks as the SAX handler of the locale and the namespace aware parser
+        if (prefix.length() > 0 && uri.length() == 0) {
+            throw FALLBACK;
+        }
+
+        if (Locale.beginsWithXml(prefix) && !("xml".equals(prefix) && Locale._xml1998Uri.equals(uri))) {
+            throw FALLBACK;
+        }
+
+        if (!"xml".equals(prefix) && (Locale._xml1998Uri.equals(uri) || Locale._xmlnsUri.equals(uri))) {
+            throw FALLBACK;
+        }
+
+        for (int i = nsTop; i < _nsTop; i++) {
+            if (_nsPrefix[i].equals(prefix)) {
+                throw FALLBACK;
+            }
+        }
+
+        if (_nsTop == _nsPrefix.length) {
+            _nsPrefix = Arrays.copyOf(_nsPrefix, _nsTop * 2);
+            _nsUri = Arrays.copyOf(_nsUri, _nsTop * 2);
+        }
+
+        _nsPrefix[_nsTop] = prefix;
+        _nsUri[_nsTop] = uri;
+        _nsTop++;
+    }
+
+    private String resolve(String prefix) throws Fallback {
+        for (int i = _nsTop - 1; i >= 0; i--) {
+            if (_nsPrefix[i].equals(prefix)) {
+                return _nsUri[i];
+            }
+        }
+
+        if (prefix.length() == 0) {
+            return "";
+        }
+
+        if (prefix.equals("xml")) {
+            return Locale._xml1998Uri;
+        }
+
+        throw FALLBACK;
+    }
+
+    //
+    // Names
+    //
+
+    /**
+     * Scans a name and returns the position of its colon, or -1 if it has no prefix.
+     */
+    private int name() throws Fallback {
+        int start = _pos;
+        int colon = -1;
+
+        while (_pos < _len) {
+            int b = _buf[_pos];
+            boolean first = _pos == start || _pos == colon + 1;
+
+            if (b >= 0) {
+                if ((b >= 'a' && b <= 'z') || (b >= 'A' && b <= 'Z') || b == '_' ||
+                    (!first && ((b >= '0' && b <= '9') || b == '-' || b == '.'))) {
+                    _pos++;
+                } else if (b == ':' && colon < 0 && !first) {
+                    colon = _pos++;
+                } else {
+                    break;
+                }
+            } else {
+                int c = decode();
+
+                if (c > 0xFFFF || !(first ? XMLChar.isNameStart(c) : XMLChar.isName(c))) {
+                    throw FALLBACK;
+                }
+
+                _pos += utf8Length(c);
+            }
+        }
+
+        // empty names and local names
+        if (_pos == start || _pos == colon + 1) {
+            throw FALLBACK;
+        }
+
+        return colon;
+    }
+
+    /**
+     * @return the string of the bytes of a name, shared by all the occurrences of the name
+     */
+    private String name(int start, int end) {
+        int h = 0;
+
+        for (int i = start; i < end; i++) {
+            h = 31 * h + _buf[i];
+        }
+
+        int mask = _nameKeys.length - 1;
+        int i = (h ^ (h >>> 16)) & mask;
+
+        for (byte[] key; (key = _nameKeys[i]) != null; i = (i + 1) & mask) {
+            if (key.length == end - start && equals(key, start)) {
+                return _nameValues[i];
+            }
+        }
+
+        String name = new String(_buf, start, end - start, StandardCharsets.UTF_8);
+
+        if (_nameCount == MAX_NAMES) {
+            Arrays.fill(_nameKeys, null);
+            Arrays.fill(_nameValues, null);
+            _nameCount = 0;
+            return name;
+        }
+
+        _nameKeys[i] = Arrays.copyOfRange(_buf, start, end);
+        _nameValues[i] = name;
+        _nameCount++;
+
+        return name;
+    }
+
+    private boolean equals(byte[] key, int start) {
+        for (int i = 0; i < key.length; i++) {
+            if (key[i] != _buf[start + i]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    //
+    // Characters
+    //
+
+    /**
+     * Decodes the character at the current position into the text buffer.
+     */
+    private void character() throws Fallback {
+        byte b = _buf[_pos];
+
+        if (b >= 0x20 || b == '\t' || b == '\n') {
+            _pos++;
+            append((char) b);
+        } else if (b == '\r') {
+            // end of line normalization
+            if (++_pos < _len && _buf[_pos] == '\n') {
+                _pos++;
+            }
+            append('\n');
+        } else if (b < 0) {
+            int c = decode();
+            _pos += utf8Length(c);
+            appendCodePoint(c);
+        } else {
+            throw FALLBACK;
+        }
+    }
+
+    /**
+     * Decodes the multi byte sequence at the current position.
+     */
+    private int decode() throws Fallback {
+        int b0 = _buf[_pos] & 0xFF;
+        int c;
+        int n;
+
+        if (b0 >= 0xC2 && b0 <= 0xDF) {
+            c = b0 & 0x1F;
+            n = 1;
+        } else if (b0 >= 0xE0 && b0 <= 0xEF) {
+            c = b0 & 0x0F;
+            n = 2;
+        } else if (b0 >= 0xF0 && b0 <= 0xF4) {
+            c = b0 & 0x07;
+            n = 3;
+        } else {
+            throw FALLBACK;
+        }
+
+        if (_pos + n >= _len) {
+            throw FALLBACK;
+        }
+
+        for (int i = 1; i <= n; i++) {
+            int b = _buf[_pos + i] & 0xFF;
+
+            if ((b & 0xC0) != 0x80) {
+                throw FALLBACK;
+            }
+
+            c = (c << 6) | (b & 0x3F);
+        }
+
+        // overlong forms, surrogates and non characters
+        if (c < (n == 2 ? 0x800 : n == 3 ? 0x10000 : 0x80) || c > 0x10FFFF ||
+            (c >= 0xD800 && c <= 0xDFFF) || c == 0xFFFE || c == 0xFFFF) {
+            throw FALLBACK;
+        }
+
+        return c;
+    }
+
+    private static int utf8Length(int c) {
+        return c < 0x800 ? 2 : c < 0x10000 ? 3 : 4;
+    }
+
+    private void reference() throws Fallback {
+        int start = ++_pos;
+        int end = indexOf(";", start);
+
+        if (end < 0 || end == start) {
+            throw FALLBACK;
+        }
+
+        _pos = end + 1;
+
+        if (_buf[start] != '#') {
+            char ch;
+
+            if (isName(start, end, "lt")) {
+                ch = '<';
+            } else if (isName(start, end, "gt")) {
+                ch = '>';
+            } else if (isName(start, end, "amp")) {
+                ch = '&';
+            } else if (isName(start, end, "quot")) {
+                ch = '"';
+            } else if (isName(start, end, "apos")) {
+                ch = '\'';
+            } else {
+                throw FALLBACK;
+            }
+
+            append(ch);
+            return;
+        }
+
+        int radix = 10;
+        int i = start + 1;
+
+        if (i < end && _buf[i] == 'x') {
+            radix = 16;
+            i++;
+        }
+
+        if (i == end || end - i > 7) {
+            throw FALLBACK;
+        }
+
+        int c = 0;
+
+        for (; i < end; i++) {
+            int d = Character.digit(_buf[i], radix);
+
+            if (d < 0) {
+                throw FALLBACK;
+            }
+
+            c = c * radix + d;
+        }
+
+        if (!XMLChar.isValid(c)) {
+            throw FALLBACK;
+        }
+
+        appendCodePoint(c);
+    }
+
+    private boolean isName(int start, int end, String name) {
+        if (end - start != name.length()) {
+            return false;
+        }
+
+        for (int i = 0; i < name.length(); i++) {
+            if (_buf[start + i] != name.charAt(i)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private void appendCodePoint(int c) {
+        if (c > 0xFFFF) {
+            append(Character.highSurrogate(c));
+            append(Character.lowSurrogate(c));
+        } else {
+            append((char) c);
+        }
+    }
+
+    private void append(char ch) {
+        if (_cch == _chars.length) {
+            ensure(1);
+        }
+
+        _chars[_cch++] = ch;
+    }
+
+    private void ensure(int cch) {
+        if (_cch + cch > _chars.length) {
+            _chars = Arrays.copyOf(_chars, Math.max(_chars.length * 2, _cch + cch));
+        }
+    }
+
+    //
+    // Scanning
+    //
+
+    private boolean skipSpace() {
+        int start = _pos;
+
+        while (_pos < _len && isSpace(_buf[_pos])) {
+            _pos++;
+        }
+
+        return _pos > start;
+    }
+
+    private static boolean isSpace(byte b) {
+        return b == ' ' || b == '\n' || b == '\t' || b == '\r';
+    }
+
+    private boolean startsWith(String s) {
+        if (_pos + s.length() > _len) {
+            return false;
+        }
+
+        for (int i = 0; i < s.length(); i++) {
+            if (_buf[_pos + i] != s.charAt(i)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private int indexOf(String s, int from) {
+        int save = _pos;
+
+        try {
+            for (_pos = from; _pos + s.length() <= _len; _pos++) {
+                if (startsWith(s)) {
+                    return _pos;
+                }
+            }
+
+            return -1;
+        } finally {
+            _pos = save;
+        }
+    }
+
+    /**
+     * Thrown for anything the loader leaves to an XMLReader.
+     */
+    private static final class Fallback extends Exception {
+        Fallback() {
+            super(null, null, false, false);
+        }
+    }
+}
@@ -31,6 +31,7 @@ import java.io.PrintStream;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 import static org.apache.xmlbeans.impl.store.Cur.*;
@@ -127,11 +128,11 @@ abstract class Xobj implements TypeStore {
     }
 
     final boolean hasAttrs() {
-        return _firstChild != null && _firstChild.isAttr();
+        return firstChild() != null && firstChild().isAttr();
     }
 
     final boolean hasChildren() {
-        return _lastChild != null && !_lastChild.isAttr();
+        return lastChild() != null && !lastChild().isAttr();
     }
 
 
@@ -143,33 +144,33 @@ abstract class Xobj implements TypeStore {
      * compute the result itself
      */
     final protected int getDomZeroOneChildren() {
-        if (_firstChild == null &&
+        if (firstChild() == null &&
             _srcValue == null &&
             _charNodesValue == null) {
             return 0;
         }
 
-        if (_lastChild != null &&
-            _lastChild.isAttr() &&
-            _lastChild._charNodesAfter == null &&
-            _lastChild._srcAfter == null &&
+        if (lastChild() != null &&
+            lastChild().isAttr() &&
+            lastChild()._charNodesAfter == null &&
+            lastChild()._srcAfter == null &&
             _srcValue == null &&
             _charNodesValue == null
         ) {
             return 0;
         }
 
-        if (_firstChild == _lastChild &&
-            _firstChild != null &&
-            !_firstChild.isAttr() &&
+        if (firstChild() == lastChild() &&
+            firstChild() != null &&
+            !firstChild().isAttr() &&
             _srcValue == null &&
             _charNodesValue == null &&
-            _firstChild._srcAfter == null
+            firstChild()._srcAfter == null
         ) {
             return 1;
         }
 
-        if (_firstChild == null &&
+        if (firstChild() == null &&
             _srcValue != null &&
             (_charNodesValue == null ||
              (_charNodesValue._next == null &&
@@ -197,17 +198,17 @@ abstract class Xobj implements TypeStore {
      * the first DOM child
      */
     final protected boolean isFirstChildPtrDomUsable() {
-        if (_firstChild == null &&
+        if (firstChild() == null &&
             _srcValue == null &&
             _charNodesValue == null) {
             return true;
         }
 
-        if (_firstChild != null &&
-            !_firstChild.isAttr() &&
+        if (firstChild() != null &&
+            !firstChild().isAttr() &&
             _srcValue == null &&
             _charNodesValue == null) {
-            assert (_firstChild instanceof NodeXobj) :
+            assert (firstChild() instanceof NodeXobj) :
                 "wrong node type";
             return true;
         }
@@ -267,11 +268,11 @@ abstract class Xobj implements TypeStore {
 
 
     final Xobj lastAttr() {
-        if (_firstChild == null || !_firstChild.isAttr()) {
+        if (firstChild() == null || !firstChild().isAttr()) {
             return null;
         }
 
-        Xobj lastAttr = _firstChild;
+        Xobj lastAttr = firstChild();
 
         while (lastAttr._nextSibling != null && lastAttr._nextSibling.isAttr()) {
             lastAttr = lastAttr._nextSibling;
@@ -436,7 +437,7 @@ abstract class Xobj implements TypeStore {
             return p == END_POS || (p > 0 && p < posAfter());
         }
 
-        if (_firstChild == null) {
+        if (firstChild() == null) {
             return false;
         }
 
@@ -598,12 +599,12 @@ abstract class Xobj implements TypeStore {
     }
 
     final Xobj firstAttr() {
-        return _firstChild == null || !_firstChild.isAttr() ? null : _firstChild;
+        return firstChild() == null || !firstChild().isAttr() ? null : firstChild();
     }
 
     final Xobj nextAttr() {
-        if (_firstChild != null && _firstChild.isAttr()) {
-            return _firstChild;
+        if (firstChild() != null && firstChild().isAttr()) {
+            return firstChild();
         }
 
         if (_nextSibling != null && _nextSibling.isAttr()) {
@@ -660,10 +661,10 @@ abstract class Xobj implements TypeStore {
                 p = x.posMax();
             }
         } else if (p == END_POS) {
-            if (x._lastChild == null) {
+            if (x.lastChild() == null) {
                 p = x.posAfter() - 1;
             } else {
-                x = x._lastChild;
+                x = x.lastChild();
                 p = x.posMax();
             }
         }
@@ -703,9 +704,15 @@ abstract class Xobj implements TypeStore {
         return p != posAfter() - 1;
     }
 
+    /**
+     * Walks the nodes in document order.  The children shared with a frozen node
+     * are copied, when they are walked.
+     */
     final Xobj walk(Xobj root, boolean walkChildren) {
-        if (_firstChild != null && walkChildren) {
-            return _firstChild;
+        Xobj firstChild = walkChildren ? firstChild() : null;
+
+        if (firstChild != null) {
+            return firstChild;
         }
 
         for (Xobj x = this; x != root; x = x._parent) {
@@ -773,6 +780,8 @@ abstract class Xobj implements TypeStore {
         assert c._nextSibling == null;
         assert _lastChild == null || _firstChild != null;
 
+        ensureChildren();
+
         c._parent = this;
         c._prevSibling = _lastChild;
 
@@ -849,6 +858,8 @@ abstract class Xobj implements TypeStore {
         assert last._nextSibling == null;
         assert !first.isRoot();
 
+        ensureChildren();
+
         first._prevSibling = _lastChild;
 
         if (_lastChild == null) {
@@ -1053,6 +1064,12 @@ abstract class Xobj implements TypeStore {
         Xobj newParent = null;
         Xobj copy = null;
 
+        // The nodes of a frozen document don't change anymore, so the copy shares their
+        // children until they are accessed.  Shared children of the nodes of an earlier
+        // copy stay shared.
+
+        boolean share = _locale.isFrozen();
+
         for (Xobj x = this; ; ) {
             x.ensureOccupancy();
 
@@ -1075,6 +1092,10 @@ abstract class Xobj implements TypeStore {
             // newX._charNodesValue = CharNode.copyNodes( x._charNodesValue, newX._srcValue );
             // newX._charNodesAfter = CharNode.copyNodes( x._charNodesAfter, newX._srcAfter );
 
+            newX._sharedChildren =
+                x._sharedChildren != null ? x._sharedChildren
+                    : share && x._firstChild != null ? x : null;
+
             if (newParent == null) {
                 copy = newX;
             } else {
@@ -1085,7 +1106,7 @@ abstract class Xobj implements TypeStore {
 
             Xobj y = x;
 
-            if ((x = x.walk(this, true)) == null) {
+            if ((x = x.walk(this, newX._sharedChildren == null)) == null) {
                 break;
             }
 
@@ -1105,6 +1126,64 @@ abstract class Xobj implements TypeStore {
         return copy;
     }
 
+    final boolean hasSharedChildren() {
+        return _sharedChildren != null;
+    }
+
+    /**
+     * The children are only accessed by this and {@link #lastChild()}, apart from
+     * linking and unlinking nodes, so that the children shared with a frozen node
+     * are always copied before they are read.
+     */
+    final Xobj firstChild() {
+        ensureChildren();
+        return _firstChild;
+    }
+
+    final Xobj lastChild() {
+        ensureChildren();
+        return _lastChild;
+    }
+
+    /**
+     * Replaces the children shared with a node of a frozen document by copies,
+     * which share the children of the next level in turn.
+     */
+    private void ensureChildren() {
+        if (_sharedChildren != null) {
+            copySharedChildren();
+        }
+    }
+
+    private void copySharedChildren() {
+        Xobj source = _sharedChildren;
+        _sharedChildren = null;
+
+        assert _firstChild == null && source._locale.isFrozen();
+
+        for (Xobj x = source._firstChild; x != null; x = x._nextSibling) {
+            Xobj newX = x.newNode(_locale);
+
+            newX._srcValue = x._srcValue;
+            newX._offValue = x._offValue;
+            newX._cchValue = x._cchValue;
+
+            newX._srcAfter = x._srcAfter;
+            newX._offAfter = x._offAfter;
+            newX._cchAfter = x._cchAfter;
+
+            newX._sharedChildren = x._firstChild == null ? null : x;
+
+            appendXobj(newX);
+
+            for (Bookmark b = x._bookmarks; b != null; b = b._next) {
+                if (x.hasBookmark(CDataBookmark.CDATA_BOOKMARK.getKey(), b._pos)) {
+                    newX.setBookmark(b._pos, CDataBookmark.CDATA_BOOKMARK.getKey(), CDataBookmark.CDATA_BOOKMARK);
+                }
+            }
+        }
+    }
+
     // Rturns all the chars, even if there is text intermixed with children
 
     String getCharsAsString(int p, int cch, int wsr) {
@@ -1348,13 +1427,14 @@ abstract class Xobj implements TypeStore {
 
     // If a node does not have a user, then I don't need to walk its descendents.  NOte that
     // the doconnect happens in document order.  This may be a problem ... not sure ... May want
-    // to disconnect in a bottom up manner.
+    // to disconnect in a bottom up manner.  The children still shared with a frozen node
+    // don't have users either.
 
     void disconnectNonRootUsers() {
         Xobj next;
 
         for (Xobj x = this; x != null; x = next) {
-            next = x.walk(this, x._user != null);
+            next = x.walk(this, x._user != null && !x.hasSharedChildren());
 
             if (!x.isRoot()) {
                 x.disconnectUser();
@@ -1365,8 +1445,8 @@ abstract class Xobj implements TypeStore {
     void disconnectChildrenUsers() {
         Xobj next;
 
-        for (Xobj x = walk(this, _user == null); x != null; x = next) {
-            next = x.walk(this, x._user != null);
+        for (Xobj x = walk(this, _user == null && !hasSharedChildren()); x != null; x = next) {
+            next = x.walk(this, x._user != null && !x.hasSharedChildren());
 
             x.disconnectUser();
         }
@@ -1412,7 +1492,7 @@ abstract class Xobj implements TypeStore {
         }
 
         for (Xobj x = this; x != null; x = x._parent) {
-            for (Xobj a = x._firstChild; a != null && a.isAttr(); a = a._nextSibling) {
+            for (Xobj a = x.firstChild(); a != null && a.isAttr(); a = a._nextSibling) {
                 if (a.isXmlns() && a.getXmlnsPrefix().equals(prefix)) {
                     return a.getXmlnsUri();
                 }
@@ -1559,7 +1639,7 @@ abstract class Xobj implements TypeStore {
     }
 
     final Xobj getAttr(QName name) {
-        for (Xobj x = _firstChild; x != null && x.isAttr(); x = x._nextSibling) {
+        for (Xobj x = firstChild(); x != null && x.isAttr(); x = x._nextSibling) {
             if (x._name.equals(name)) {
                 return x;
             }
@@ -1584,6 +1664,17 @@ abstract class Xobj implements TypeStore {
         assert isUserNode();
         assert _user != null || (!isRoot() && !isStableUser());
 
+        if (_user == null && _locale.isFrozen()) {
+            // readers of frozen documents don't hold the locale
+            synchronized (_locale) {
+                return createUser();
+            }
+        }
+
+        return createUser();
+    }
+
+    private TypeStoreUser createUser() {
         if (_user == null) {
             // BUGBUG - this is recursive
 
@@ -1668,6 +1759,21 @@ abstract class Xobj implements TypeStore {
     // TypeStore
     //
 
+    /**
+     * Readers of a frozen locale only hold a per-thread monitor, therefore
+     * the operations which use the locale state need to synchronize on the locale.
+     */
+    @SuppressWarnings("SynchronizeOnNonFinalField")
+    private <T> T frozenSync(Supplier<T> inner) {
+        if (!_locale.isFrozen()) {
+            return inner.get();
+        }
+
+        synchronized (_locale) {
+            return inner.get();
+        }
+    }
+
     public SchemaTypeLoader get_schematypeloader() {
         return _locale._schemaTypeLoader;
     }
@@ -1692,6 +1798,8 @@ abstract class Xobj implements TypeStore {
     }
 
     public void invalidate_text() {
+        _locale.checkNotFrozen();
+
         _locale.enter();
 
         try {
@@ -1720,6 +1828,10 @@ abstract class Xobj implements TypeStore {
     }
 
     public String fetch_text(int wsr) {
+        return frozenSync(() -> fetchText(wsr));
+    }
+
+    private String fetchText(int wsr) {
         _locale.enter();
 
         try {
@@ -1731,7 +1843,45 @@ abstract class Xobj implements TypeStore {
         }
     }
 
+    @SuppressWarnings("SynchronizeOnNonFinalField")
+    public CharSequence fetch_chars(int wsr) {
+        // no lambda, the caller is about to parse a primitive without allocating
+        if (!_locale.isFrozen()) {
+            return fetchChars(wsr);
+        }
+
+        synchronized (_locale) {
+            return fetchChars(wsr);
+        }
+    }
+
+    private CharSequence fetchChars(int wsr) {
+        if (wsr != WS_COLLAPSE) {
+            return null;
+        }
+
+        _locale.enter();
+
+        try {
+            assert isValid() && isOccupied();
+
+            if (hasChildren()) {
+                return null;
+            }
+
+            Object src = getFirstChars();
+
+            return Locale.getScrubBuffer(wsr).getCollapsedView(src, _locale._offSrc, _locale._cchSrc);
+        } finally {
+            _locale.exit();
+        }
+    }
+
     public XmlCursor new_cursor() {
+        return frozenSync(this::newCursor);
+    }
+
+    private XmlCursor newCursor() {
         _locale.enter();
 
         try {
@@ -1766,7 +1916,7 @@ abstract class Xobj implements TypeStore {
             return null;
         }
 
-        for (Xobj x = _parent._firstChild; ; x = x._nextSibling) {
+        for (Xobj x = _parent.firstChild(); ; x = x._nextSibling) {
             if (x.isElem()) {
                 visitor.visit(x._name);
 
@@ -1778,6 +1928,13 @@ abstract class Xobj implements TypeStore {
     }
 
     public void validate(ValidatorListener eventSink) {
+        frozenSync(() -> {
+            validateHelper(eventSink);
+            return null;
+        });
+    }
+
+    private void validateHelper(ValidatorListener eventSink) {
         _locale.enter();
 
         try {
@@ -1790,6 +1947,8 @@ abstract class Xobj implements TypeStore {
     }
 
     public TypeStoreUser change_type(SchemaType type) {
+        _locale.checkNotFrozen();
+
         _locale.enter();
 
         try {
@@ -1804,6 +1963,8 @@ abstract class Xobj implements TypeStore {
     }
 
     public TypeStoreUser substitute(QName name, SchemaType type) {
+        _locale.checkNotFrozen();
+
         _locale.enter();
 
         try {
@@ -1818,10 +1979,12 @@ abstract class Xobj implements TypeStore {
     }
 
     public QName get_xsi_type() {
-        return getXsiTypeName();
+        return frozenSync(this::getXsiTypeName);
     }
 
     public void store_text(String text) {
+        _locale.checkNotFrozen();
+
         _locale.enter();
 
         TypeStoreUser user = _user;
@@ -1869,7 +2032,7 @@ abstract class Xobj implements TypeStore {
             return 0;
         }
 
-        for (Xobj x = _parent._firstChild; ; x = x._nextSibling) {
+        for (Xobj x = _parent.firstChild(); ; x = x._nextSibling) {
             if (x.isElem()) {
                 visitor.visit(x._name);
 
@@ -1903,7 +2066,7 @@ abstract class Xobj implements TypeStore {
             return null;
         }
 
-        for (Xobj x = _parent._firstChild; ; x = x._nextSibling) {
+        for (Xobj x = _parent.firstChild(); ; x = x._nextSibling) {
             if (x.isElem()) {
                 visitor.visit(x._name);
 
@@ -1915,10 +2078,10 @@ abstract class Xobj implements TypeStore {
     }
 
     public boolean find_nil() {
-        if (isAttr()) {
-            return false;
-        }
+        return !isAttr() && frozenSync(this::findNil);
+    }
 
+    private boolean findNil() {
         _locale.enter();
 
         try {
@@ -1941,6 +2104,8 @@ abstract class Xobj implements TypeStore {
             return;
         }
 
+        _locale.checkNotFrozen();
+
         _locale.enter();
 
         try {
@@ -1963,7 +2128,7 @@ abstract class Xobj implements TypeStore {
     }
 
     public TypeStoreUser find_element_user(QName name, int i) {
-        for (Xobj x = _firstChild; x != null; x = x._nextSibling) {
+        for (Xobj x = firstChild(); x != null; x = x._nextSibling) {
             if (x.isElem() && x._name.equals(name) && --i < 0) {
                 return x.getUser();
             }
@@ -1973,7 +2138,7 @@ abstract class Xobj implements TypeStore {
     }
 
     public TypeStoreUser find_element_user(QNameSet names, int i) {
-        for (Xobj x = _firstChild; x != null; x = x._nextSibling) {
+        for (Xobj x = firstChild(); x != null; x = x._nextSibling) {
             if (x.isElem() && names.contains(x._name) && --i < 0) {
                 return x.getUser();
             }
@@ -1985,7 +2150,7 @@ abstract class Xobj implements TypeStore {
     @SuppressWarnings("unchecked")
     @Override
     public <T extends XmlObject> void find_all_element_users(QName name, List<T> fillMeUp) {
-        for (Xobj x = _firstChild; x != null; x = x._nextSibling) {
+        for (Xobj x = firstChild(); x != null; x = x._nextSibling) {
             if (x.isElem() && x._name.equals(name)) {
                 fillMeUp.add((T) x.getUser());
             }
@@ -1995,7 +2160,7 @@ abstract class Xobj implements TypeStore {
     @SuppressWarnings("unchecked")
     @Override
     public <T extends XmlObject> void find_all_element_users(QNameSet names, List<T> fillMeUp) {
-        for (Xobj x = _firstChild; x != null; x = x._nextSibling) {
+        for (Xobj x = firstChild(); x != null; x = x._nextSibling) {
             if (x.isElem() && names.contains(x._name)) {
                 fillMeUp.add((T) x.getUser());
             }
@@ -2018,6 +2183,8 @@ abstract class Xobj implements TypeStore {
     }
 
     public TypeStoreUser insert_element_user(QName name, int i) {
+        _locale.checkNotFrozen();
+
         if (i < 0) {
             throw new IndexOutOfBoundsException();
         }
@@ -2040,6 +2207,8 @@ abstract class Xobj implements TypeStore {
     }
 
     public TypeStoreUser insert_element_user(QNameSet names, QName name, int i) {
+        _locale.checkNotFrozen();
+
         if (i < 0) {
             throw new IndexOutOfBoundsException();
         }
@@ -2062,6 +2231,8 @@ abstract class Xobj implements TypeStore {
     }
 
     public TypeStoreUser add_element_user(QName name) {
+        _locale.checkNotFrozen();
+
         if (!isContainer()) {
             throw new IllegalStateException();
         }
@@ -2071,7 +2242,7 @@ abstract class Xobj implements TypeStore {
 
         Xobj candidate = null;
 
-        for (Xobj x = _lastChild; x != null; x = x._prevSibling) {
+        for (Xobj x = lastChild(); x != null; x = x._prevSibling) {
             if (x.isContainer()) {
                 if (x._name.equals(name)) {
                     break;
@@ -2111,6 +2282,8 @@ abstract class Xobj implements TypeStore {
     }
 
     public void remove_element(QName name, int i) {
+        _locale.checkNotFrozen();
+
         if (i < 0) {
             throw new IndexOutOfBoundsException();
         }
@@ -2121,7 +2294,7 @@ abstract class Xobj implements TypeStore {
 
         Xobj x;
 
-        for (x = _firstChild; x != null; x = x._nextSibling) {
+        for (x = firstChild(); x != null; x = x._nextSibling) {
             if (x.isElem() && x._name.equals(name) && --i < 0) {
                 break;
             }
@@ -2131,6 +2304,8 @@ abstract class Xobj implements TypeStore {
     }
 
     public void remove_element(QNameSet names, int i) {
+        _locale.checkNotFrozen();
+
         if (i < 0) {
             throw new IndexOutOfBoundsException();
         }
@@ -2141,7 +2316,7 @@ abstract class Xobj implements TypeStore {
 
         Xobj x;
 
-        for (x = _firstChild; x != null; x = x._nextSibling) {
+        for (x = firstChild(); x != null; x = x._nextSibling) {
             if (x.isElem() && names.contains(x._name) && --i < 0) {
                 break;
             }
@@ -2157,6 +2332,8 @@ abstract class Xobj implements TypeStore {
     }
 
     public TypeStoreUser add_attribute_user(QName name) {
+        _locale.checkNotFrozen();
+
         if (getAttr(name) != null) {
             throw new IndexOutOfBoundsException();
         }
@@ -2171,6 +2348,8 @@ abstract class Xobj implements TypeStore {
     }
 
     public void remove_attribute(QName name) {
+        _locale.checkNotFrozen();
+
         _locale.enter();
 
         try {
@@ -2189,6 +2368,18 @@ abstract class Xobj implements TypeStore {
             return getUser();
         }
 
+        _locale.checkNotFrozen();
+
+        if (xSrc._locale != _locale && xSrc._locale.isFrozen()) {
+            synchronized (xSrc._locale) {
+                return copyContentsFrom(xSrc);
+            }
+        }
+
+        return copyContentsFrom(xSrc);
+    }
+
+    private TypeStoreUser copyContentsFrom(Xobj xSrc) {
         _locale.enter();
 
         try {
@@ -2268,7 +2459,7 @@ abstract class Xobj implements TypeStore {
         }
 
         Locale locale = this.locale();
-        if (options.isCopyUseNewSynchronizationDomain()) {
+        if (options.isCopyUseNewSynchronizationDomain() || locale.isFrozen()) {
             locale = Locale.getLocale(stl, options);
         }
 
@@ -2289,6 +2480,8 @@ abstract class Xobj implements TypeStore {
     }
 
     public void array_setter(XmlObject[] sources, QName elementName) {
+        _locale.checkNotFrozen();
+
         _locale.enter();
 
         try {
@@ -2313,13 +2506,15 @@ abstract class Xobj implements TypeStore {
                     if (x._locale == _locale) {
                         copies.add(x.copyNode(_locale));
                     } else {
-                        x._locale.enter();
-
-                        try {
-                            copies.add(x.copyNode(_locale));
-                        } finally {
-                            x._locale.exit();
-                        }
+                        copies.add(x.frozenSync(() -> {
+                            x._locale.enter();
+
+                            try {
+                                return x.copyNode(_locale);
+                            } finally {
+                                x._locale.exit();
+                            }
+                        }));
                     }
 
                     types.add(source.schemaType());
@@ -2380,6 +2575,10 @@ abstract class Xobj implements TypeStore {
     }
 
     public XmlObject[] exec_query(String queryExpr, XmlOptions options) {
+        return frozenSync(() -> execQuery(queryExpr, options));
+    }
+
+    private XmlObject[] execQuery(String queryExpr, XmlOptions options) {
         _locale.enter();
 
         try {
@@ -2396,6 +2595,10 @@ abstract class Xobj implements TypeStore {
     }
 
     public String find_prefix_for_nsuri(String nsuri, String suggested_prefix) {
+        return frozenSync(() -> findPrefixForNsuri(nsuri, suggested_prefix));
+    }
+
+    private String findPrefixForNsuri(String nsuri, String suggested_prefix) {
         _locale.enter();
 
         try {
@@ -2406,7 +2609,7 @@ abstract class Xobj implements TypeStore {
     }
 
     public String getNamespaceForPrefix(String prefix) {
-        return namespaceForPrefix(prefix, true);
+        return frozenSync(() -> namespaceForPrefix(prefix, true));
     }
 
     Locale _locale;
@@ -2421,8 +2624,11 @@ abstract class Xobj implements TypeStore {
     Xobj _parent;
     Xobj _nextSibling;
     Xobj _prevSibling;
-    Xobj _firstChild;
-    Xobj _lastChild;
+    private Xobj _firstChild;
+    private Xobj _lastChild;
+
+    // the node of a frozen document whose children are shared until they are accessed
+    Xobj _sharedChildren;
 
     Object _srcValue, _srcAfter;
     int _offValue, _offAfter;
@@ -28,6 +28,7 @@ import org.apache.xmlbeans.impl.xb.xsdschema.SchemaDocument;
 import org.apache.xmlbeans.impl.xb.xsdschema.SchemaDocument.Schema;
 import org.xml.sax.EntityResolver;
 
+import javax.xml.namespace.QName;
 import java.io.File;
 import java.io.IOException;
 import java.net.URI;
@@ -51,6 +52,9 @@ public class SchemaCompiler {
         System.out.println("    -noann - ignore annotations");
         System.out.println("    -novdoc - do not validate contents of <documentation>");
         System.out.println("    -noext - ignore all extension (Pre/Post and Interface) found in .xsdconfig files");
+        System.out.println("    -bundle - save the .xsb files of the type system as one bundle");
+        System.out.println("    -parallel [n] - number of threads used to generate the .java files (default 1)");
+        System.out.println("    -cache [file] - build cache for recompiling only the namespaces of changed schema files");
         System.out.println("    -compiler - path to external java compiler");
         System.out.println("    -ms - initial memory for external java compiler (default '" + CodeGenUtil.DEFAULT_MEM_START + "')");
         System.out.println("    -mx - maximum memory for external java compiler (default '" + CodeGenUtil.DEFAULT_MEM_MAX + "')");
@@ -91,6 +95,7 @@ public class SchemaCompiler {
         flags.add("noann");
         flags.add("novdoc");
         flags.add("noext");
+        flags.add("bundle");
         flags.add("srconly");
         flags.add("debug");
 
@@ -110,6 +115,8 @@ public class SchemaCompiler {
         opts.add("extensionParms");
         opts.add("allowmdef");
         opts.add("catalog");
+        opts.add("parallel");
+        opts.add("cache");
         CommandLine cl = new CommandLine(args, flags, opts);
 
         if (cl.getOpt("h") != null || cl.getOpt("help") != null || cl.getOpt("usage") != null) {
@@ -175,6 +182,7 @@ public class SchemaCompiler {
         boolean noAnn = (cl.getOpt("noann") != null);
         boolean noVDoc = (cl.getOpt("novdoc") != null);
         boolean noExt = (cl.getOpt("noext") != null);
+        boolean bundle = (cl.getOpt("bundle") != null);
         boolean nojavac = (cl.getOpt("srconly") != null);
         boolean debug = (cl.getOpt("debug") != null);
 
@@ -279,6 +287,17 @@ public class SchemaCompiler {
 
         String memoryInitialSize = cl.getOpt("ms");
         String memoryMaximumSize = cl.getOpt("mx");
+        File buildCache = cl.getOpt("cache") == null ? null : new File(cl.getOpt("cache"));
+
+        int parallelism = 1;
+        if (cl.getOpt("parallel") != null) {
+            try {
+                parallelism = Integer.parseInt(cl.getOpt("parallel"));
+            } catch (NumberFormatException e) {
+                System.err.println("Invalid number of threads: " + cl.getOpt("parallel"));
+                System.exit(1);
+            }
+        }
 
         File[] xsdFiles = cl.filesEndingWith(".xsd");
         File[] wsdlFiles = cl.filesEndingWith(".wsdl");
@@ -321,6 +340,9 @@ public class SchemaCompiler {
         params.setNoAnn(noAnn);
         params.setNoVDoc(noVDoc);
         params.setNoExt(noExt);
+        params.setTypeSystemBundle(bundle);
+        params.setParallelism(parallelism);
+        params.setBuildCache(buildCache);
         params.setDebug(debug);
         params.setErrorListener(err);
         params.setRepackage(repackage);
@@ -367,6 +389,9 @@ public class SchemaCompiler {
         private boolean noAnn;
         private boolean noVDoc;
         private boolean noExt;
+        private boolean typeSystemBundle;
+        private int parallelism = 1;
+        private File buildCache;
         private boolean debug;
         private boolean incrementalSrcGen;
         private String repackage;
@@ -536,6 +561,37 @@ public class SchemaCompiler {
             this.noExt = newNoExt;
         }
 
+        public boolean isTypeSystemBundle() {
+            return typeSystemBundle;
+        }
+
+        public void setTypeSystemBundle(boolean typeSystemBundle) {
+            this.typeSystemBundle = typeSystemBundle;
+        }
+
+        public int getParallelism() {
+            return parallelism;
+        }
+
+        public void setParallelism(int parallelism) {
+            this.parallelism = parallelism;
+        }
+
+        public File getBuildCache() {
+            return buildCache;
+        }
+
+        /**
+         * If a build cache is set, only the namespaces affected by changed schema files
+         * are recompiled, as long as the compiler settings and the schema files are the same
+         * as in the previous build.  The cache is updated after each successful build.
+         *
+         * @param buildCache the file of the build cache
+         */
+        public void setBuildCache(File buildCache) {
+            this.buildCache = buildCache;
+        }
+
         public boolean isIncrementalSrcGen() {
             return incrementalSrcGen;
         }
@@ -635,9 +691,10 @@ public class SchemaCompiler {
 
     private static SchemaTypeSystem loadTypeSystem(String name, File[] xsdFiles, File[] wsdlFiles, URL[] urlFiles, File[] configFiles,
                                                    File[] javaFiles, ResourceLoader cpResourceLoader,
-                                                   boolean download, boolean noUpa, boolean noPvr, boolean noAnn, boolean noVDoc, boolean noExt,
+                                                   boolean download, boolean noUpa, boolean noPvr, boolean noAnn, boolean noVDoc, boolean noExt, boolean bundle,
                                                    Set<String> mdefNamespaces, File baseDir, Map<String, String> sourcesToCopyMap,
-                                                   Collection<XmlError> outerErrorListener, File schemasDir, EntityResolver entResolver, File[] classpath) {
+                                                   Collection<XmlError> outerErrorListener, File schemasDir, EntityResolver entResolver, File[] classpath,
+                                                   SchemaTypeSystem existingSystem) {
         XmlErrorWatcher errorListener = new XmlErrorWatcher(outerErrorListener);
 
         // construct the state (have to initialize early in case of errors)
@@ -800,6 +857,9 @@ public class SchemaCompiler {
             if (noAnn) {
                 opts.setCompileNoAnnotations();
             }
+            if (bundle) {
+                opts.setCompileTypeSystemBundle();
+            }
             if (mdefNamespaces != null) {
                 opts.setCompileMdefNamespaces(mdefNamespaces);
             }
@@ -808,6 +868,7 @@ public class SchemaCompiler {
 
             // now pass it to the main compile function
             SchemaTypeSystemCompiler.Parameters params = new SchemaTypeSystemCompiler.Parameters();
+            params.setExistingTypeSystem(existingSystem);
             params.setName(name);
             params.setSchemas(sdocs);
             params.setConfig(BindingConfigImpl.forConfigDocuments(cdocs, javaFiles, classpath));
@@ -891,7 +952,9 @@ public class SchemaCompiler {
         boolean noAnn = params.isNoAnn();
         boolean noVDoc = params.isNoVDoc();
         boolean noExt = params.isNoExt();
+        boolean bundle = params.isTypeSystemBundle();
         boolean incrSrcGen = params.isIncrementalSrcGen();
+        int parallelism = params.getParallelism();
         Collection<XmlError> outerErrorListener = params.getErrorListener();
 
         String repackage = params.getRepackage();
@@ -940,14 +1003,80 @@ public class SchemaCompiler {
 
         File schemasDir = IOUtil.createDir(classesDir, SchemaTypeSystemImpl.METADATA_PACKAGE_GEN + "/src");
 
+        // with a build cache, only the namespaces affected by changed schema files are recompiled
+        File buildCache = params.getBuildCache();
+        String settings = null;
+        List<String> inputs = new ArrayList<>();
+        SchemaTypeSystem existingSystem = null;
+        ResourceLoader existingLoader = null;
+        Set<String> namespaces = null;
+
+        if (buildCache != null) {
+            if (xsdFiles != null) {
+                for (File xsdFile : xsdFiles) {
+                    inputs.add(xsdFile.toURI().normalize().toString());
+                }
+            }
+
+            try {
+                settings = buildSettings(params);
+                SchemaBuildCache cache = (wsdlFiles != null && wsdlFiles.length > 0) || (urlFiles != null && urlFiles.length > 0)
+                    ? null : SchemaBuildCache.read(buildCache);
+
+                if (cache != null && cache.isCompatible(settings, inputs) &&
+                    SchemaTypeSystemImpl.fileContainsTypeSystem(classesDir, cache.getTypeSystemName())) {
+                    Set<String> changed = cache.getChangedFiles();
+                    if (changed.isEmpty() && (nojavac || outputJar == null || outputJar.exists())) {
+                        if (!quiet) {
+                            System.out.println("Schema type system is up to date: " + cache.getTypeSystemName());
+                        }
+                        if (cpResourceLoader != null) {
+                            cpResourceLoader.close();
+                        }
+                        return true;
+                    }
+
+                    // an incremental compilation needs all files of the affected namespaces,
+                    // which are not necessarily reached by imports and includes from the changed files
+                    Set<String> affected = cache.getAffectedNamespaces(changed);
+                    Set<String> files = cache.getFiles(affected);
+                    if (!changed.isEmpty() && cache.getInputs().containsAll(files) &&
+                        files.stream().map(SchemaBuildCache::toFile).allMatch(File::isFile)) {
+                        existingLoader = new FileResourceLoader(classesDir);
+                        existingSystem = cache.loadTypeSystem(existingLoader, SchemaTypeLoaderImpl.build(null, cpResourceLoader, null));
+                        namespaces = affected;
+                        xsdFiles = files.stream().map(SchemaBuildCache::toFile).toArray(File[]::new);
+                        name = cache.getGivenTypeSystemName();
+                        if (!quiet) {
+                            System.out.println("Recompiling namespaces " + namespaces + " of " + cache.getTypeSystemName());
+                        }
+                    }
+                }
+            } catch (IOException | SchemaTypeLoaderException e) {
+                if (!quiet) {
+                    System.out.println("Ignoring build cache " + buildCache + ": " + e.getMessage());
+                }
+                existingSystem = null;
+                namespaces = null;
+            }
+
+            // the cache is only valid after a successful build
+            buildCache.delete();
+        }
+
         // build the in-memory type system
         XmlErrorWatcher errorListener = new XmlErrorWatcher(outerErrorListener);
         SchemaTypeSystem system = loadTypeSystem(name, xsdFiles, wsdlFiles, urlFiles, configFiles,
-            javaFiles, cpResourceLoader, download, noUpa, noPvr, noAnn, noVDoc, noExt, mdefNamespaces,
-            baseDir, sourcesToCopyMap, errorListener, schemasDir, cmdLineEntRes, classpath);
+            javaFiles, cpResourceLoader, download, noUpa, noPvr, noAnn, noVDoc, noExt, bundle, mdefNamespaces,
+            baseDir, sourcesToCopyMap, errorListener, schemasDir, cmdLineEntRes, classpath, existingSystem);
         if (errorListener.hasError()) {
             result = false;
         }
+
+        // the files of the components, which were removed from the recompiled namespaces
+        List<File> obsoleteFiles = (existingSystem != null && system != null)
+            ? obsoleteFiles(existingSystem, system, namespaces, srcDir, classesDir) : Collections.emptyList();
+
         long finish = System.currentTimeMillis();
         if (!quiet) {
             System.out.println("Time to build schema type system: " + ((double) (finish - start) / 1000.0) + " seconds");
@@ -962,8 +1091,9 @@ public class SchemaCompiler {
             Repackager repackager = (repackage == null ? null : new Repackager(repackage));
             FilerImpl filer = new FilerImpl(classesDir, srcDir, repackager, verbose, incrSrcGen);
 
-            // currently just for schemaCodePrinter
+            // currently just for schemaCodePrinter and the source generation threads
             XmlOptions options = new XmlOptions();
+            options.setCompileParallelism(parallelism);
             if (codePrinter != null) {
                 options.setSchemaCodePrinter(codePrinter);
             }
@@ -972,14 +1102,22 @@ public class SchemaCompiler {
             system.save(filer);
 
             // gen source files
-            result = SchemaTypeSystemCompiler.generateTypes(system, filer, options);
+            result = SchemaTypeSystemCompiler.generateTypes(system, filer, options, namespaces);
 
-            if (incrSrcGen) {
+            // the sources of the namespaces, which haven't been recompiled, are kept
+            if (incrSrcGen && namespaces == null) {
                 // We have to delete extra source files that may be out of date
                 SchemaCodeGenerator.deleteObsoleteFiles(srcDir, srcDir,
                     new HashSet<>(filer.getSourceFiles()));
             }
 
+            // ... but not the ones of removed components, which would otherwise still be found
+            for (File f : obsoleteFiles) {
+                if (f.delete() && verbose) {
+                    System.err.println("deleted obsolete file " + f);
+                }
+            }
+
             if (result) {
                 finish = System.currentTimeMillis();
                 if (!quiet) {
@@ -996,7 +1134,16 @@ public class SchemaCompiler {
                 if (javaFiles != null) {
                     sourcefiles.addAll(java.util.Arrays.asList(javaFiles));
                 }
-                if (!CodeGenUtil.externalCompile(sourcefiles, classesDir, classpath, debug, compiler, memoryInitialSize, memoryMaximumSize, quiet, verbose)) {
+
+                // the generated sources reference the classes of the namespaces, which haven't been recompiled
+                File[] javacClasspath = classpath;
+                if (namespaces != null) {
+                    List<File> cp = new ArrayList<>(Arrays.asList(classpath != null ? classpath : CodeGenUtil.systemClasspath()));
+                    cp.add(classesDir);
+                    javacClasspath = cp.toArray(new File[0]);
+                }
+
+                if (!CodeGenUtil.externalCompile(sourcefiles, classesDir, javacClasspath, debug, compiler, memoryInitialSize, memoryMaximumSize, quiet, verbose)) {
                     result = false;
                 }
 
@@ -1028,12 +1175,138 @@ public class SchemaCompiler {
             runExtensions(extensions, system, classesDir);
         }
 
+        if (result && buildCache != null && settings != null) {
+            try {
+                SchemaBuildCache.write(buildCache, system, settings, inputs);
+            } catch (IOException e) {
+                System.err.println("Could not write build cache " + buildCache + ": " + e.getMessage());
+            }
+        }
+
+        if (existingLoader != null) {
+            existingLoader.close();
+        }
         if (cpResourceLoader != null) {
             cpResourceLoader.close();
         }
         return result;
     }
 
+    /**
+     * Lists the generated files of the global components of the recompiled namespaces,
+     * which the new type system doesn't contain anymore: the sources and classes of their
+     * types and their pointer resources.  This must be called before the new type system
+     * is saved, as the existing one is loaded lazily from the same directory.
+     */
+    private static List<File> obsoleteFiles(SchemaTypeSystem existing, SchemaTypeSystem system, Set<String> namespaces,
+                                            File srcDir, File classesDir) {
+        List<File> files = new ArrayList<>();
+
+        Set<String> javaNames = new HashSet<>();
+        for (SchemaType[] types : new SchemaType[][]{system.globalTypes(), system.documentTypes(), system.attributeTypes()}) {
+            for (SchemaType type : types) {
+                javaNames.add(type.getFullJavaName());
+            }
+        }
+
+        String metadataPath = (existing instanceof SchemaTypeSystemImpl)
+            ? ((SchemaTypeSystemImpl) existing).getMetadataPath() : null;
+
+        for (SchemaType[] types : new SchemaType[][]{existing.globalTypes(), existing.documentTypes(), existing.attributeTypes()}) {
+            for (SchemaType type : types) {
+                QName name = type.isDocumentType() ? type.getDocumentElementName()
+                    : type.isAttributeType() ? type.getAttributeTypeAttributeName() : type.getName();
+                String javaName = type.getFullJavaName();
+                if (name == null || !namespaces.contains(name.getNamespaceURI()) || javaName == null || javaNames.contains(javaName)) {
+                    continue;
+                }
+
+                for (String className : new String[]{javaName, type.getFullJavaImplName()}) {
+                    if (className == null) {
+                        continue;
+                    }
+                    String path = className.replace('.', File.separatorChar);
+                    files.add(new File(srcDir, path + ".java"));
+
+                    // the class with its nested classes
+                    File classFile = new File(classesDir, path + ".class");
+                    String simpleName = classFile.getName().substring(0, classFile.getName().length() - 6);
+                    File[] classFiles = classFile.getParentFile().listFiles((dir, n) ->
+                        n.equals(simpleName + ".class") || (n.startsWith(simpleName + "$") && n.endsWith(".class")));
+                    if (classFiles != null) {
+                        files.addAll(Arrays.asList(classFiles));
+                    }
+                }
+
+                if (metadataPath != null) {
+                    files.add(new File(classesDir, metadataPath + "/javaname/" + javaName.replace('.', '/') + ".xsb"));
+                }
+            }
+        }
+
+        if (metadataPath != null) {
+            SchemaTypeSystemImpl existingImpl = (SchemaTypeSystemImpl) existing;
+            SchemaTypeSystemImpl systemImpl = (system instanceof SchemaTypeSystemImpl) ? (SchemaTypeSystemImpl) system : null;
+
+            addObsoletePointers(files, existing.globalElements(), system.globalElements(), namespaces, classesDir, metadataPath + "/element/");
+            addObsoletePointers(files, existing.globalAttributes(), system.globalAttributes(), namespaces, classesDir, metadataPath + "/attribute/");
+            addObsoletePointers(files, existing.modelGroups(), system.modelGroups(), namespaces, classesDir, metadataPath + "/modelgroup/");
+            addObsoletePointers(files, existing.attributeGroups(), system.attributeGroups(), namespaces, classesDir, metadataPath + "/attributegroup/");
+            addObsoletePointers(files, existing.globalTypes(), system.globalTypes(), namespaces, classesDir, metadataPath + "/type/");
+            if (systemImpl != null) {
+                addObsoletePointers(files, existingImpl.identityConstraints(), systemImpl.identityConstraints(), namespaces, classesDir, metadataPath + "/identityconstraint/");
+            }
+        }
+
+        return files;
+    }
+
+    private static void addObsoletePointers(List<File> files, SchemaComponent[] existing, SchemaComponent[] current,
+                                            Set<String> namespaces, File classesDir, String dir) {
+        Set<QName> names = new HashSet<>();
+        for (SchemaComponent c : current) {
+            names.add(c.getName());
+        }
+        for (SchemaComponent c : existing) {
+            QName name = c.getName();
+            if (namespaces.contains(name.getNamespaceURI()) && !names.contains(name)) {
+                files.add(new File(classesDir, dir + QNameHelper.hexsafedir(name) + ".xsb"));
+            }
+        }
+    }
+
+    /**
+     * @return the digest of all settings, which apply to the whole type system
+     */
+    private static String buildSettings(Parameters params) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        sb.append(params.getName()).append('\n');
+        sb.append(params.getSrcDir().getAbsolutePath()).append('\n');
+        sb.append(params.getClassesDir().getAbsolutePath()).append('\n');
+        sb.append(params.isDownload()).append(params.isNoUpa()).append(params.isNoPvr())
+            .append(params.isNoAnn()).append(params.isNoVDoc()).append(params.isNoExt())
+            .append(params.isTypeSystemBundle()).append('\n');
+        sb.append(params.getRepackage()).append('\n');
+        sb.append(params.getMdefNamespaces() == null ? Collections.emptySet() : new TreeSet<>(params.getMdefNamespaces())).append('\n');
+        if (params.getSchemaCodePrinter() != null) {
+            sb.append(params.getSchemaCodePrinter().getClass().getName());
+        }
+        sb.append('\n');
+        if (params.getClasspath() != null) {
+            for (File f : params.getClasspath()) {
+                sb.append(f.getAbsolutePath()).append('\n');
+            }
+        }
+        for (File[] files : new File[][]{params.getConfigFiles(), params.getJavaFiles()}) {
+            if (files != null) {
+                for (File f : files) {
+                    sb.append(f.getAbsolutePath()).append('=').append(SchemaBuildCache.digest(f)).append('\n');
+                }
+            }
+        }
+        return SchemaBuildCache.digest(sb.toString());
+    }
+
     private static void runExtensions(List<Extension> extensions, SchemaTypeSystem system, File classesDir) {
         if (extensions != null && extensions.size() > 0) {
             SchemaCompilerExtension sce;
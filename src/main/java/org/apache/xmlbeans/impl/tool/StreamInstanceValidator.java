@@ -20,15 +20,9 @@ import org.apache.xmlbeans.XmlBeans;
 import org.apache.xmlbeans.XmlException;
 import org.apache.xmlbeans.XmlObject;
 import org.apache.xmlbeans.XmlOptions;
-import org.apache.xmlbeans.XmlOptionsBean;
 import org.apache.xmlbeans.XmlError;
-import org.apache.xmlbeans.impl.common.StaxHelper;
-import org.apache.xmlbeans.impl.validator.ValidatingXMLStreamReader;
+import org.apache.xmlbeans.impl.validator.StreamValidator;
 
-import javax.xml.stream.XMLInputFactory;
-import javax.xml.stream.XMLStreamReader;
-import javax.xml.stream.XMLStreamException;
-import javax.xml.stream.Location;
 import java.io.File;
 import java.io.FileInputStream;
 import java.util.ArrayList;
@@ -162,7 +156,6 @@ public class StreamInstanceValidator
                                      SchemaTypeLoader sLoader,
                                      final XmlOptions options)
     {
-        final ValidatingXMLStreamReader vsr = new ValidatingXMLStreamReader();
         final Collection errors = new ArrayList();
 
         for (int i = 0; i < instanceFiles.length; i++) {
@@ -172,36 +165,14 @@ public class StreamInstanceValidator
 
             errors.clear();
 
-            try {
-                final XMLInputFactory xmlInputFactory = StaxHelper.newXMLInputFactory(new XmlOptionsBean(options));
-
-                final FileInputStream fis = new FileInputStream(file);
-                final XMLStreamReader rdr =
-                        xmlInputFactory.createXMLStreamReader(path, fis);
-
-                //advance to first start element.
-                while(!rdr.isStartElement()) {
-                    rdr.next();
-                }
+            XmlOptions opts = new XmlOptions(options);
+            opts.setErrorListener(errors);
+            opts.setDocumentSourceName(path);
 
+            try (FileInputStream fis = new FileInputStream(file)) {
                 time = System.currentTimeMillis();
-                vsr.init(rdr, true, null, sLoader, options, errors);
-
-                while (vsr.hasNext()) {
-                    vsr.next();
-                }
-
+                StreamValidator.validate(fis, null, sLoader, opts);
                 time = (System.currentTimeMillis() - time);
-                vsr.close();
-                fis.close();
-            }
-            catch (XMLStreamException xse) {
-                final Location loc = xse.getLocation();
-                XmlError e = XmlError.forLocation(xse.getMessage(), path,
-                                                  loc.getLineNumber(),
-                                                  loc.getColumnNumber(),
-                                                  loc.getCharacterOffset());
-                errors.add(e);
             }
             catch (Exception e) {
                 System.err.println("error for file: " + file + ": " + e);
@@ -55,7 +55,8 @@ public class XMLBean extends MatchingTask {
     private File destfile,
         schema,
         srcgendir,
-        classgendir;
+        classgendir,
+        buildcache;
 
     private boolean quiet,
         verbose,
@@ -84,6 +85,8 @@ public class XMLBean extends MatchingTask {
         catalog,
         repackage;
 
+    private int parallel = 1;
+
     private final List<Extension> extensions = new ArrayList<>();
 
     private final Map<String, Set<File>> _extRouter = new HashMap<>(5);
@@ -228,6 +231,8 @@ public class XMLBean extends MatchingTask {
             params.setNoAnn(noann);
             params.setNoVDoc(novdoc);
             params.setNoExt(noext);
+            params.setParallelism(parallel);
+            params.setBuildCache(buildcache);
             params.setRepackage(repackage);
             success = SchemaCompiler.compile(params);
 
@@ -733,6 +738,32 @@ public class XMLBean extends MatchingTask {
         return noext;
     }
 
+    /**
+     * Number of threads used to generate the java sources
+     *
+     * @param parallel the number of threads, defaults to 1
+     */
+    public void setParallel(int parallel) {
+        this.parallel = parallel;
+    }
+
+    public int getParallel() {
+        return parallel;
+    }
+
+    /**
+     * Build cache for recompiling only the namespaces of changed schema files
+     *
+     * @param buildcache the cache file
+     */
+    public void setBuildCache(File buildcache) {
+        this.buildcache = buildcache;
+    }
+
+    public File getBuildCache() {
+        return buildcache;
+    }
+
     //REVIEW this allows people to deal with the case where they drag in
     //more files for compilation than they should.  not sure if this is
     //a good thing or not
@@ -246,8 +246,7 @@ public final class XsTypeConverter {
     // ======================== long ========================
     public static long lexLong(CharSequence cs)
         throws NumberFormatException {
-        final String v = cs.toString();
-        return Long.parseLong(trimInitialPlus(v));
+        return parseLong(cs);
     }
 
     public static long lexLong(CharSequence cs, Collection errors) {
@@ -588,6 +587,57 @@ public final class XsTypeConverter {
         return (byte) parseIntXsdNumber(cs, Byte.MIN_VALUE, Byte.MAX_VALUE);
     }
 
+    private static long parseLong(CharSequence ch) {
+        // long parser on a CharSequence, like parseIntXsdNumber
+        int length = ch.length();
+        if (length < 1) {
+            throw new NumberFormatException("For input string: \"" + ch.toString() + "\"");
+        }
+
+        long sign = 1;
+        long result = 0;
+        int start = 0;
+        long limit;
+        long limit2;
+
+        char c = ch.charAt(0);
+        if (c == '-') {
+            start++;
+            limit = (Long.MIN_VALUE / 10);
+            limit2 = -(Long.MIN_VALUE % 10);
+        } else if (c == '+') {
+            start++;
+            sign = -1;
+            limit = -(Long.MAX_VALUE / 10);
+            limit2 = (Long.MAX_VALUE % 10);
+        } else {
+            sign = -1;
+            limit = -(Long.MAX_VALUE / 10);
+            limit2 = (Long.MAX_VALUE % 10);
+        }
+
+        if (length == start) {
+            throw new NumberFormatException("For input string: \"" + ch.toString() + "\"");
+        }
+
+        for (int i = 0; i < length - start; i++) {
+            c = ch.charAt(i + start);
+            int v = Character.digit(c, 10);
+
+            if (v < 0) {
+                throw new NumberFormatException("For input string: \"" + ch.toString() + "\"");
+            }
+
+            if (result < limit || (result == limit && v > limit2)) {
+                throw new NumberFormatException("For input string: \"" + ch.toString() + "\"");
+            }
+
+            result = result * 10 - v;
+        }
+
+        return sign * result;
+    }
+
     private static int parseIntXsdNumber(CharSequence ch, int min_value, int max_value) {
         // int parser on a CharSequence
         int length = ch.length();
@@ -0,0 +1,149 @@
+/*   Copyright 2004 The Apache Software Foundation
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.xmlbeans.impl.validator;
+
+import org.apache.xmlbeans.*;
+import org.apache.xmlbeans.impl.common.StaxHelper;
+
+import javax.xml.stream.Location;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.InputStream;
+import java.util.AbstractCollection;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+
+/**
+ * Validates a document while it is read from a stream, i.e. without loading it
+ * into a store, so the memory usage doesn't depend on the size of the document.
+ * <p>
+ * The errors are passed to the error listener of the options as soon as they are found
+ * and are located by the line and column of the stream.  They are not collected by the
+ * validator, so a listener which only handles each added error keeps the memory constant.
+ *
+ * @see XmlBeans#validate(InputStream, SchemaType, SchemaTypeLoader, XmlOptions)
+ */
+public final class StreamValidator
+{
+    private StreamValidator()
+    {
+    }
+
+    public static boolean validate(InputStream is, SchemaType type, SchemaTypeLoader stl, XmlOptions options)
+        throws XmlException
+    {
+        XMLInputFactory factory = StaxHelper.newXMLInputFactory(new XmlOptionsBean(options));
+        String source = options == null ? null : options.getDocumentSourceName();
+
+        XMLStreamReader xsr;
+        try
+        {
+            xsr = factory.createXMLStreamReader(source, is);
+        }
+        catch (XMLStreamException e)
+        {
+            throw new XmlException(e.getMessage(), e);
+        }
+
+        try
+        {
+            return validate(xsr, type, stl, options);
+        }
+        finally
+        {
+            try
+            {
+                xsr.close();
+            }
+            catch (XMLStreamException ignored)
+            {
+            }
+        }
+    }
+
+    public static boolean validate(XMLStreamReader xsr, SchemaType type, SchemaTypeLoader stl, XmlOptions options)
+        throws XmlException
+    {
+        ErrorCounter errors = new ErrorCounter(options == null ? null : options.getErrorListener());
+        ValidatingXMLStreamReader vsr = new ValidatingXMLStreamReader();
+
+        try
+        {
+            // advance to the document element
+            while (!xsr.isStartElement())
+            {
+                if (!xsr.hasNext())
+                    throw new XmlException("The stream doesn't contain an element");
+                xsr.next();
+            }
+
+            vsr.init(xsr, true, type, stl, options, errors);
+
+            while (vsr.hasNext())
+                vsr.next();
+        }
+        catch (XMLStreamException e)
+        {
+            // not well-formed - the validation stops at the location of the error
+            Location loc = e.getLocation();
+            if (loc == null)
+                errors.add(XmlError.forMessage(e.getMessage()));
+            else
+                errors.add(XmlError.forLocation(e.getMessage(), loc.getSystemId(),
+                    loc.getLineNumber(), loc.getColumnNumber(), loc.getCharacterOffset()));
+            return false;
+        }
+
+        return errors._errorCount == 0 && vsr.isValid();
+    }
+
+    /**
+     * Passes the errors to the listener of the options, only counting them.
+     */
+    private static final class ErrorCounter extends AbstractCollection<XmlError>
+    {
+        private final Collection<XmlError> _listener;
+        private int _errorCount;
+
+        ErrorCounter(Collection<XmlError> listener)
+        {
+            _listener = listener;
+        }
+
+        public boolean add(XmlError error)
+        {
+            if (error.getSeverity() == XmlError.SEVERITY_ERROR)
+                _errorCount++;
+
+            if (_listener != null)
+                _listener.add(error);
+
+            return true;
+        }
+
+        public Iterator<XmlError> iterator()
+        {
+            return Collections.emptyIterator();
+        }
+
+        public int size()
+        {
+            return 0;
+        }
+    }
+}
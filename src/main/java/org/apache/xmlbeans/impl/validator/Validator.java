@@ -17,6 +17,7 @@ package org.apache.xmlbeans.impl.validator;
 
 import org.apache.xmlbeans.*;
 import org.apache.xmlbeans.impl.common.*;
+import org.apache.xmlbeans.impl.schema.ContentModelAutomaton;
 import org.apache.xmlbeans.impl.schema.SchemaTypeImpl;
 import org.apache.xmlbeans.impl.schema.SchemaTypeVisitorImpl;
 import org.apache.xmlbeans.impl.util.XsTypeConverter;
@@ -800,20 +801,44 @@ public final class Validator
 
     private static final class State {
         boolean visit(QName name) {
-            return _canHaveElements && _visitor.visit(name);
+            if (!_canHaveElements) {
+                return false;
+            }
+
+            if (_automaton == null) {
+                return _visitor.visit(name);
+            }
+
+            int next = _automaton.next(_automatonState, name);
+
+            if (next < 0) {
+                return false;
+            }
+
+            _automatonState = next;
+
+            return true;
         }
 
         boolean test(QName name) {
-            return _canHaveElements && _visitor.testValid(name);
+            if (!_canHaveElements) {
+                return false;
+            }
+
+            return _automaton == null ? _visitor.testValid(name) : _automaton.next(_automatonState, name) >= 0;
         }
 
         boolean end() {
-            return !_canHaveElements || _visitor.visit(null);
+            if (!_canHaveElements) {
+                return true;
+            }
+
+            return _automaton == null ? _visitor.visit(null) : _automaton.isAccepting(_automatonState);
         }
 
         SchemaParticle currentParticle() {
-            assert _visitor != null;
-            return _visitor.currentParticle();
+            assert _visitor != null || _automaton != null;
+            return _automaton == null ? _visitor.currentParticle() : _automaton.getParticle(_automatonState);
         }
 
         SchemaType _type;
@@ -830,6 +855,10 @@ public final class Validator
         SchemaTypeVisitorImpl _visitor;
         boolean _canHaveElements;
 
+        // the compiled content model, used instead of the visitor when there is one
+        ContentModelAutomaton _automaton;
+        int _automatonState;
+
         SchemaAttributeModel _attrModel;
 
         HashSet<QName> _attrs;
@@ -881,7 +910,13 @@ public final class Validator
                     state._canHaveElements = particle != null;
 
                     if (state._canHaveElements) {
-                        state._visitor = initVisitor(particle);
+                        if (type instanceof SchemaTypeImpl) {
+                            state._automaton = ((SchemaTypeImpl) type).getContentModelAutomaton();
+                        }
+
+                        if (state._automaton == null) {
+                            state._visitor = initVisitor(particle);
+                        }
                     }
 
                     break;
@@ -37,6 +37,18 @@ public abstract class JavaBooleanHolder extends XmlObjectBase
     {
         _value = validateLexical(s, _voorVc);
     }
+    protected boolean parses_chars() { return true; }
+    protected boolean set_chars(CharSequence cs)
+    {
+        if ("true".contentEquals(cs) || "1".contentEquals(cs))
+            _value = true;
+        else if ("false".contentEquals(cs) || "0".contentEquals(cs))
+            _value = false;
+        else
+            return false;
+
+        return true;
+    }
     public static boolean validateLexical(String v, ValidationContext context)
     {
         if (v.equals("true") || v.equals("1"))
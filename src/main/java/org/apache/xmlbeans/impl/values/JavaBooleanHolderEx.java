@@ -54,6 +54,11 @@ public abstract class JavaBooleanHolderEx extends JavaBooleanHolder {
         super.set_text(s);
     }
 
+    protected boolean parses_chars() {
+        // the pattern validation needs the text
+        return !_validateOnSet();
+    }
+
     protected void validate_simpleval(String lexical, ValidationContext ctx) {
         validateLexical(lexical, schemaType(), ctx);
     }
@@ -16,6 +16,7 @@
 package org.apache.xmlbeans.impl.values;
 
 import org.apache.xmlbeans.SchemaType;
+import org.apache.xmlbeans.XmlAnySimpleType;
 import org.apache.xmlbeans.XmlErrorCodes;
 import org.apache.xmlbeans.XmlObject;
 import org.apache.xmlbeans.impl.common.QNameHelper;
@@ -23,8 +24,13 @@ import org.apache.xmlbeans.impl.common.ValidationContext;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.util.Set;
+import java.util.function.Function;
 
 public abstract class JavaDecimalHolderEx extends JavaDecimalHolder {
+    private static final Function<XmlAnySimpleType, BigDecimal> ENUM_KEY =
+        o -> ((XmlObjectBase) o).getBigDecimalValue().stripTrailingZeros();
+
     private final SchemaType _schemaType;
 
     public SchemaType schemaType() {
@@ -176,6 +182,15 @@ public abstract class JavaDecimalHolderEx extends JavaDecimalHolder {
         }
 
         // enumeration
+        Set<Object> enumSet = enumerationValueSet(sType, ENUM_KEY);
+        if (enumSet != null) {
+            if (!enumSet.contains(v.stripTrailingZeros())) {
+                context.invalid(XmlErrorCodes.DATATYPE_ENUM_VALID,
+                    new Object[]{"decimal", v, QNameHelper.readable(sType)});
+            }
+            return;
+        }
+
         XmlObject[] vals = sType.getEnumerationValues();
         if (vals != null) {
             for (XmlObject val : vals) {
@@ -55,6 +55,70 @@ public abstract class JavaDoubleHolder extends XmlObjectBase {
         set_double(validateLexical(s, _voorVc));
     }
 
+    protected boolean parses_chars() {
+        return true;
+    }
+
+    protected boolean set_chars(CharSequence cs) {
+        double d = parseSimple(cs);
+        if (Double.isNaN(d)) {
+            return false;
+        }
+        set_double(d);
+        return true;
+    }
+
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+        1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    /**
+     * Parses plain decimals like "-12.50" with up to 15 digits, which are exact as a
+     * double and so is their division by a power of ten up to 10^22 - the result is
+     * the same as of Double.parseDouble.
+     *
+     * @return NaN for anything else, e.g. exponents or more digits
+     */
+    private static double parseSimple(CharSequence cs) {
+        int len = cs.length();
+        int i = 0;
+        boolean negative = false;
+
+        if (len > 0 && (cs.charAt(0) == '-' || cs.charAt(0) == '+')) {
+            negative = cs.charAt(0) == '-';
+            i++;
+        }
+
+        long mantissa = 0;
+        int digits = 0;
+        int scale = -1;
+
+        for (; i < len; i++) {
+            char ch = cs.charAt(i);
+            if (ch >= '0' && ch <= '9') {
+                if (++digits > 15) {
+                    return Double.NaN;
+                }
+                mantissa = mantissa * 10 + (ch - '0');
+                if (scale >= 0) {
+                    scale++;
+                }
+            } else if (ch == '.' && scale < 0) {
+                scale = 0;
+            } else {
+                return Double.NaN;
+            }
+        }
+
+        if (digits == 0 || scale >= POWERS_OF_TEN.length) {
+            return Double.NaN;
+        }
+
+        double d = scale > 0 ? mantissa / POWERS_OF_TEN[scale] : (double) mantissa;
+        return negative ? -d : d;
+    }
+
     public static double validateLexical(String v, ValidationContext context) {
         try {
             return XsTypeConverter.lexDouble(v);
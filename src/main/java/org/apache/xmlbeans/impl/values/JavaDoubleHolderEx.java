@@ -16,13 +16,19 @@
 package org.apache.xmlbeans.impl.values;
 
 import org.apache.xmlbeans.SchemaType;
+import org.apache.xmlbeans.XmlAnySimpleType;
 import org.apache.xmlbeans.XmlErrorCodes;
 import org.apache.xmlbeans.XmlObject;
 import org.apache.xmlbeans.impl.common.QNameHelper;
 import org.apache.xmlbeans.impl.common.ValidationContext;
 
+import java.util.Set;
+import java.util.function.Function;
+
 
 public abstract class JavaDoubleHolderEx extends JavaDoubleHolder {
+    private static final Function<XmlAnySimpleType, Double> ENUM_KEY = o -> ((XmlObjectBase) o).getDoubleValue();
+
     public JavaDoubleHolderEx(SchemaType type, boolean complex) {
         _schemaType = type;
         initComplexType(complex, false);
@@ -84,6 +90,15 @@ public abstract class JavaDoubleHolderEx extends JavaDoubleHolder {
             }
         }
 
+        Set<Object> enumSet = enumerationValueSet(sType, ENUM_KEY);
+        if (enumSet != null) {
+            if (!enumSet.contains(v)) {
+                context.invalid(XmlErrorCodes.DATATYPE_ENUM_VALID,
+                    new Object[]{"double", v, QNameHelper.readable(sType)});
+            }
+            return;
+        }
+
         XmlObject[] vals = sType.getEnumerationValues();
         if (vals != null) {
             for (XmlObject val : vals) {
@@ -16,13 +16,19 @@
 package org.apache.xmlbeans.impl.values;
 
 import org.apache.xmlbeans.SchemaType;
+import org.apache.xmlbeans.XmlAnySimpleType;
 import org.apache.xmlbeans.XmlErrorCodes;
 import org.apache.xmlbeans.XmlObject;
 import org.apache.xmlbeans.impl.common.QNameHelper;
 import org.apache.xmlbeans.impl.common.ValidationContext;
 
+import java.util.Set;
+import java.util.function.Function;
+
 
 public abstract class JavaFloatHolderEx extends JavaFloatHolder {
+    private static final Function<XmlAnySimpleType, Float> ENUM_KEY = o -> ((XmlObjectBase) o).getFloatValue();
+
     public JavaFloatHolderEx(SchemaType type, boolean complex) {
         _schemaType = type;
         initComplexType(complex, false);
@@ -84,6 +90,15 @@ public abstract class JavaFloatHolderEx extends JavaFloatHolder {
             }
         }
 
+        Set<Object> enumSet = enumerationValueSet(sType, ENUM_KEY);
+        if (enumSet != null) {
+            if (!enumSet.contains(v)) {
+                context.invalid(XmlErrorCodes.DATATYPE_ENUM_VALID,
+                    new Object[]{"float", v, QNameHelper.readable(sType)});
+            }
+            return;
+        }
+
         XmlObject[] vals = sType.getEnumerationValues();
         if (vals != null) {
             for (XmlObject val : vals) {
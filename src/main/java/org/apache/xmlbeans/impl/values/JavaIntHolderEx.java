@@ -16,13 +16,19 @@
 package org.apache.xmlbeans.impl.values;
 
 import org.apache.xmlbeans.SchemaType;
+import org.apache.xmlbeans.XmlAnySimpleType;
 import org.apache.xmlbeans.XmlErrorCodes;
 import org.apache.xmlbeans.XmlObject;
 import org.apache.xmlbeans.impl.common.QNameHelper;
 import org.apache.xmlbeans.impl.common.ValidationContext;
 import org.apache.xmlbeans.impl.util.XsTypeConverter;
 
+import java.util.Set;
+import java.util.function.Function;
+
 public abstract class JavaIntHolderEx extends JavaIntHolder {
+    private static final Function<XmlAnySimpleType, Integer> ENUM_KEY = JavaIntHolderEx::getIntValue;
+
     public JavaIntHolderEx(SchemaType type, boolean complex) {
         _schemaType = type;
         initComplexType(complex, false);
@@ -52,6 +58,11 @@ public abstract class JavaIntHolderEx extends JavaIntHolder {
         super.set_int(v);
     }
 
+    protected boolean parses_chars() {
+        // the lexical validation needs the text
+        return !_validateOnSet();
+    }
+
     protected void set_int(int v) {
         if (_validateOnSet()) {
             validateValue(v, _schemaType, _voorVc);
@@ -134,6 +145,15 @@ public abstract class JavaIntHolderEx extends JavaIntHolder {
         }
 
         // enumeration
+        Set<Object> enumSet = enumerationValueSet(sType, ENUM_KEY);
+        if (enumSet != null) {
+            if (!enumSet.contains(v)) {
+                context.invalid(XmlErrorCodes.DATATYPE_ENUM_VALID,
+                    new Object[]{"int", v, QNameHelper.readable(sType)});
+            }
+            return;
+        }
+
         XmlObject[] vals = sType.getEnumerationValues();
         if (vals != null) {
             for (XmlObject val : vals) {
@@ -16,6 +16,7 @@
 package org.apache.xmlbeans.impl.values;
 
 import org.apache.xmlbeans.SchemaType;
+import org.apache.xmlbeans.XmlAnySimpleType;
 import org.apache.xmlbeans.XmlErrorCodes;
 import org.apache.xmlbeans.XmlObject;
 import org.apache.xmlbeans.XmlPositiveInteger;
@@ -23,8 +24,12 @@ import org.apache.xmlbeans.impl.common.QNameHelper;
 import org.apache.xmlbeans.impl.common.ValidationContext;
 
 import java.math.BigInteger;
+import java.util.Set;
+import java.util.function.Function;
 
 public class JavaIntegerHolderEx extends JavaIntegerHolder {
+    private static final Function<XmlAnySimpleType, BigInteger> ENUM_KEY = JavaIntegerHolderEx::getBigIntegerValue;
+
     public JavaIntegerHolderEx(SchemaType type, boolean complex) {
         _schemaType = type;
         initComplexType(complex, false);
@@ -136,6 +141,15 @@ public class JavaIntegerHolderEx extends JavaIntegerHolder {
         }
 
         // enumeration
+        Set<Object> enumSet = enumerationValueSet(sType, ENUM_KEY);
+        if (enumSet != null) {
+            if (!enumSet.contains(v)) {
+                context.invalid(XmlErrorCodes.DATATYPE_ENUM_VALID,
+                    new Object[]{"integer", v, QNameHelper.readable(sType)});
+            }
+            return;
+        }
+
         XmlObject[] vals = sType.getEnumerationValues();
         if (vals != null) {
             for (XmlObject val : vals) {
@@ -47,6 +47,21 @@ public abstract class JavaLongHolder extends XmlObjectBase {
         }
     }
 
+    protected boolean parses_chars() {
+        return true;
+    }
+
+    protected boolean set_chars(CharSequence cs) {
+        long v;
+        try {
+            v = XsTypeConverter.lexLong(cs);
+        } catch (NumberFormatException e) {
+            return false;
+        }
+        set_long(v);
+        return true;
+    }
+
     protected void set_nil() {
         _value = 0L;
     }
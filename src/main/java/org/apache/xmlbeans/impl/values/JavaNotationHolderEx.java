@@ -24,9 +24,13 @@ import org.apache.xmlbeans.impl.common.PrefixResolver;
 import org.apache.xmlbeans.impl.common.QNameHelper;
 
 import javax.xml.namespace.QName;
+import java.util.Set;
+import java.util.function.Function;
 
 public abstract class JavaNotationHolderEx extends JavaNotationHolder
 {
+    private static final Function<XmlAnySimpleType, QName> ENUM_KEY = o -> ((XmlObjectBase)o).getQNameValue();
+
     private SchemaType _schemaType;
 
 
@@ -128,6 +132,15 @@ public abstract class JavaNotationHolderEx extends JavaNotationHolder
 
     public static void validateValue(QName v, SchemaType sType, ValidationContext context)
     {
+        Set<Object> enumSet = enumerationValueSet(sType, ENUM_KEY);
+        if (enumSet != null)
+        {
+            if (!enumSet.contains(v))
+                context.invalid(XmlErrorCodes.DATATYPE_ENUM_VALID,
+                    new Object[] { "NOTATION", v, QNameHelper.readable(sType) });
+            return;
+        }
+
         XmlObject[] vals = sType.getEnumerationValues();
         if (vals != null)
         {
@@ -22,7 +22,12 @@ import org.apache.xmlbeans.XmlObject;
 import org.apache.xmlbeans.impl.common.QNameHelper;
 import org.apache.xmlbeans.impl.common.ValidationContext;
 
+import java.util.Set;
+import java.util.function.Function;
+
 public abstract class JavaStringHolderEx extends JavaStringHolder {
+    private static final Function<XmlAnySimpleType, String> ENUM_KEY = XmlAnySimpleType::getStringValue;
+
     private final SchemaType _schemaType;
 
     public SchemaType schemaType() {
@@ -100,6 +105,15 @@ public abstract class JavaStringHolderEx extends JavaStringHolder {
         // here since we may be validating against a string enum value
         // during StscSimpleTypeResolver.resolveFacets() and the string
         // enum table hasn't been constructed yet.
+        Set<Object> enumSet = enumerationValueSet(sType, ENUM_KEY);
+        if (enumSet != null) {
+            if (!enumSet.contains(v)) {
+                context.invalid(XmlErrorCodes.DATATYPE_ENUM_VALID,
+                    new Object[]{"string", v, QNameHelper.readable(sType)});
+            }
+            return;
+        }
+
         XmlAnySimpleType[] vals = sType.getEnumerationValues();
         if (vals != null) {
             for (XmlAnySimpleType val : vals) {
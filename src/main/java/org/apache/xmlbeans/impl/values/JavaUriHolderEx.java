@@ -17,12 +17,18 @@ package org.apache.xmlbeans.impl.values;
 
 import org.apache.xmlbeans.SchemaType;
 import org.apache.xmlbeans.SimpleValue;
+import org.apache.xmlbeans.XmlAnySimpleType;
 import org.apache.xmlbeans.XmlErrorCodes;
 import org.apache.xmlbeans.XmlObject;
 import org.apache.xmlbeans.impl.common.QNameHelper;
 import org.apache.xmlbeans.impl.common.ValidationContext;
 
+import java.util.Set;
+import java.util.function.Function;
+
 public class JavaUriHolderEx extends JavaUriHolder {
+    private static final Function<XmlAnySimpleType, String> ENUM_KEY = XmlAnySimpleType::getStringValue;
+
     private final SchemaType _schemaType;
 
     public SchemaType schemaType() {
@@ -64,9 +70,15 @@ public class JavaUriHolderEx extends JavaUriHolder {
     public static void validateLexical(String v, SchemaType sType, ValidationContext context) {
         XmlAnyUriImpl.validateLexical(v, context);
 
-        XmlObject[] vals = sType.getEnumerationValues();
+        Set<Object> enumSet = enumerationValueSet(sType, ENUM_KEY);
+        XmlObject[] vals = enumSet == null ? sType.getEnumerationValues() : null;
 
-        if (vals != null) {
+        if (enumSet != null) {
+            if (!enumSet.contains(v)) {
+                context.invalid(XmlErrorCodes.DATATYPE_ENUM_VALID,
+                    new Object[]{"anyURI", v, QNameHelper.readable(sType)});
+            }
+        } else if (vals != null) {
             int i;
 
             for (i = 0; i < vals.length; i++) {
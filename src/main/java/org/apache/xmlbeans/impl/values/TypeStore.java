@@ -75,6 +75,14 @@ public interface TypeStore extends NamespaceManager
     // BUGBUG (ericvas) 12111
     String fetch_text(int whitespaceRule);
 
+    /**
+     * Like fetch_text, but returns a view of the text without copying it,
+     * which is only valid until the next call on this thread.  Returns null
+     * if the text can't be returned as a view, in which case fetch_text has
+     * to be used.
+     */
+    CharSequence fetch_chars(int whitespaceRule);
+
     int WS_UNSPECIFIED = 0;
     int WS_PRESERVE = 1;
     int WS_REPLACE = 2;
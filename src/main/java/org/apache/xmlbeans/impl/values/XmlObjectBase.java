@@ -31,6 +31,8 @@ import java.io.*;
 import java.lang.reflect.Array;
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
 import java.util.*;
 import java.util.function.Function;
 import java.util.function.IntFunction;
@@ -44,7 +46,7 @@ public abstract class XmlObjectBase implements TypeStoreUser, Serializable, XmlO
 
     public final Object monitor() {
         if (has_store()) {
-            return get_store().get_locale();
+            return get_store().get_locale().monitor();
         }
         return this;
     }
@@ -155,6 +157,15 @@ public abstract class XmlObjectBase implements TypeStoreUser, Serializable, XmlO
         }
     }
 
+    public ReadableByteChannel newReadableByteChannel(XmlOptions options) {
+        XmlCursor cur = newCursorForce();
+        try {
+            return cur.newReadableByteChannel(makeInnerOptions(options));
+        } finally {
+            cur.dispose();
+        }
+    }
+
     public Reader newReader() {
         return newReader(null);
     }
@@ -226,6 +237,15 @@ public abstract class XmlObjectBase implements TypeStoreUser, Serializable, XmlO
         }
     }
 
+    public void save(WritableByteChannel channel, XmlOptions options) throws IOException {
+        XmlCursor cur = newCursorForce();
+        try {
+            cur.save(channel, makeInnerOptions(options));
+        } finally {
+            cur.dispose();
+        }
+    }
+
     public void save(ContentHandler ch, LexicalHandler lh) throws SAXException {
         save(ch, lh, null);
     }
@@ -242,6 +262,10 @@ public abstract class XmlObjectBase implements TypeStoreUser, Serializable, XmlO
         save(w, null);
     }
 
+    public void save(WritableByteChannel channel) throws IOException {
+        save(channel, null);
+    }
+
     public void dump() {
         XmlCursor cur = newCursorForce();
         try {
@@ -1229,6 +1253,27 @@ public abstract class XmlObjectBase implements TypeStoreUser, Serializable, XmlO
         }
     }
 
+    /**
+     * Parses the value straight from the text of the store, without
+     * creating a String.  Returns false if the fast path doesn't apply,
+     * and the value has to be updated from the wscanon text.
+     */
+    private boolean update_from_chars() {
+        if ((_flags & (FLAG_STORE | FLAG_COMPLEXCONTENT)) != FLAG_STORE || !parses_chars()) {
+            return false;
+        }
+
+        CharSequence chars = get_store().fetch_chars(get_wscanon_rule());
+
+        // empty text may pick up a default
+        if (chars == null || chars.length() == 0 || !set_chars(chars)) {
+            return false;
+        }
+
+        _flags &= ~(FLAG_NIL | FLAG_ISDEFAULT);
+        return true;
+    }
+
     /**
      * Called prior to every get operation, to ensure
      * that the value being read is valid. If the value
@@ -1273,7 +1318,7 @@ public abstract class XmlObjectBase implements TypeStoreUser, Serializable, XmlO
                 _flags &= ~FLAG_NIL_DATED;
             }
 
-            if (!nilled) {
+            if (!nilled && !update_from_chars()) {
                 String text;
 
                 if ((_flags & FLAG_COMPLEXCONTENT) != 0 || (text = get_wscanon_text()) == null) {
@@ -1303,6 +1348,9 @@ public abstract class XmlObjectBase implements TypeStoreUser, Serializable, XmlO
         if ((_flags & FLAG_IMMUTABLE) != 0) {
             throw new IllegalStateException();
         }
+        if ((_flags & FLAG_STORE) != 0 && get_store().get_locale().isFrozen()) {
+            throw new IllegalStateException("The document is frozen and can't be modified");
+        }
     }
 
     /**
@@ -1346,6 +1394,24 @@ public abstract class XmlObjectBase implements TypeStoreUser, Serializable, XmlO
      */
     abstract protected void set_text(String text);
 
+    /**
+     * Types which can parse their value from a CharSequence without
+     * allocating return true, and implement set_chars.
+     */
+    protected boolean parses_chars() {
+        return false;
+    }
+
+    /**
+     * This should set the value of the type from the collapsed, non-empty
+     * text, or return false without changing the value if it can't -
+     * the value is then set from the text as a String.  The chars are
+     * only valid during the call.
+     */
+    protected boolean set_chars(CharSequence chars) {
+        return false;
+    }
+
     /**
      * This should clear the value, and set it to whatever
      * is supposed to be returned when the value is nilled.
@@ -2062,30 +2128,9 @@ public abstract class XmlObjectBase implements TypeStoreUser, Serializable, XmlO
                         synchronized (monitor()) {
                             newObj = setterHelper(obj);
                         }
-                    } else                                // both are sync can't avoid the global lock
+                    } else                                // both are sync, lock them in order
                     {
-                        boolean acquired = false;
-
-                        try {
-                            // about to grab two locks: don't deadlock ourselves
-                            GlobalLock.acquire();
-                            acquired = true;
-
-                            synchronized (monitor()) {
-                                synchronized (obj.monitor()) {
-                                    GlobalLock.release();
-                                    acquired = false;
-
-                                    newObj = setterHelper(obj);
-                                }
-                            }
-                        } catch (InterruptedException e) {
-                            throw new XmlRuntimeException(e);
-                        } finally {
-                            if (acquired) {
-                                GlobalLock.release();
-                            }
-                        }
+                        newObj = GlobalLock.synchronizedOn(monitor(), obj.monitor(), () -> setterHelper(obj));
                     }
                 }
             }
@@ -2150,29 +2195,9 @@ public abstract class XmlObjectBase implements TypeStoreUser, Serializable, XmlO
                     return (XmlObject) objSetterHelper(srcObj, propName, index, kindSetterHelper);
                 }
             } else {
-                // both are sync can't avoid the global lock
-                boolean acquired = false;
-
-                try {
-                    // about to grab two locks: don't deadlock ourselves
-                    GlobalLock.acquire();
-                    acquired = true;
-
-                    synchronized (monitor()) {
-                        synchronized (srcObj.monitor()) {
-                            GlobalLock.release();
-                            acquired = false;
-
-                            return (XmlObject) objSetterHelper(srcObj, propName, index, kindSetterHelper);
-                        }
-                    }
-                } catch (InterruptedException e) {
-                    throw new XmlRuntimeException(e);
-                } finally {
-                    if (acquired) {
-                        GlobalLock.release();
-                    }
-                }
+                // both are sync, lock them in order
+                return (XmlObject) GlobalLock.synchronizedOn(monitor(), srcObj.monitor(),
+                    () -> objSetterHelper(srcObj, propName, index, kindSetterHelper));
             }
         }
     }
@@ -2419,39 +2444,21 @@ public abstract class XmlObjectBase implements TypeStoreUser, Serializable, XmlO
     }
 
     public final boolean valueEquals(XmlObject xmlobj) {
-        boolean acquired = false;
-        try {
-            if (isImmutable()) {
-                if (xmlobj.isImmutable()) {
-                    return valueEqualsImpl(xmlobj);
-                } else {
-                    synchronized (xmlobj.monitor()) {
-                        return valueEqualsImpl(xmlobj);
-                    }
-                }
+        if (isImmutable()) {
+            if (xmlobj.isImmutable()) {
+                return valueEqualsImpl(xmlobj);
             } else {
-                if (xmlobj.isImmutable() || monitor() == xmlobj.monitor()) {
-                    synchronized (monitor()) {
-                        return valueEqualsImpl(xmlobj);
-                    }
-                } else {
-                    GlobalLock.acquire();
-                    acquired = true;
-                    synchronized (monitor()) {
-                        synchronized (xmlobj.monitor()) {
-                            GlobalLock.release();
-                            acquired = false;
-                            return valueEqualsImpl(xmlobj);
-                        }
-                    }
+                synchronized (xmlobj.monitor()) {
+                    return valueEqualsImpl(xmlobj);
                 }
             }
-
-        } catch (InterruptedException e) {
-            throw new XmlRuntimeException(e);
-        } finally {
-            if (acquired) {
-                GlobalLock.release();
+        } else {
+            if (xmlobj.isImmutable() || monitor() == xmlobj.monitor()) {
+                synchronized (monitor()) {
+                    return valueEqualsImpl(xmlobj);
+                }
+            } else {
+                return GlobalLock.synchronizedOn(monitor(), xmlobj.monitor(), () -> valueEqualsImpl(xmlobj));
             }
         }
     }
@@ -2513,39 +2520,21 @@ public abstract class XmlObjectBase implements TypeStoreUser, Serializable, XmlO
             return 2;
         }
 
-        boolean acquired = false;
-        try {
-            if (isImmutable()) {
-                if (xmlobj.isImmutable()) {
-                    return compareValueImpl(xmlobj);
-                } else {
-                    synchronized (xmlobj.monitor()) {
-                        return compareValueImpl(xmlobj);
-                    }
-                }
+        if (isImmutable()) {
+            if (xmlobj.isImmutable()) {
+                return compareValueImpl(xmlobj);
             } else {
-                if (xmlobj.isImmutable() || monitor() == xmlobj.monitor()) {
-                    synchronized (monitor()) {
-                        return compareValueImpl(xmlobj);
-                    }
-                } else {
-                    GlobalLock.acquire();
-                    acquired = true;
-                    synchronized (monitor()) {
-                        synchronized (xmlobj.monitor()) {
-                            GlobalLock.release();
-                            acquired = false;
-                            return compareValueImpl(xmlobj);
-                        }
-                    }
+                synchronized (xmlobj.monitor()) {
+                    return compareValueImpl(xmlobj);
                 }
             }
-
-        } catch (InterruptedException e) {
-            throw new XmlRuntimeException(e);
-        } finally {
-            if (acquired) {
-                GlobalLock.release();
+        } else {
+            if (xmlobj.isImmutable() || monitor() == xmlobj.monitor()) {
+                synchronized (monitor()) {
+                    return compareValueImpl(xmlobj);
+                }
+            } else {
+                return GlobalLock.synchronizedOn(monitor(), xmlobj.monitor(), () -> compareValueImpl(xmlobj));
             }
         }
     }
@@ -3043,6 +3032,14 @@ public abstract class XmlObjectBase implements TypeStoreUser, Serializable, XmlO
         }
     }
 
+    /**
+     * @return the keys of the enumeration values of the type, or null if the values
+     * have to be compared one by one
+     */
+    static Set<Object> enumerationValueSet(SchemaType sType, Function<? super XmlAnySimpleType, ?> key) {
+        return sType instanceof SchemaTypeImpl ? ((SchemaTypeImpl) sType).getEnumerationValueSet(key) : null;
+    }
+
     protected static Object java_value(XmlObject obj) {
         if (obj.isNil()) {
             return null;
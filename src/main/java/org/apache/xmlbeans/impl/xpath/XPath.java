@@ -18,6 +18,7 @@ package org.apache.xmlbeans.impl.xpath;
 import org.apache.xmlbeans.XmlError;
 import org.apache.xmlbeans.XmlException;
 
+import javax.xml.namespace.QName;
 import java.util.Map;
 
 
@@ -69,4 +70,25 @@ public class XPath {
         return _sawDeepDot;
     }
 
+    /**
+     * Returns the element name if this path selects just the descendant elements
+     * of the context node with that name, i.e. is of the form <code>.//name</code>,
+     * null otherwise.
+     */
+    public QName getDescendantName() {
+        XPathStep[] paths = _selector._paths;
+
+        if (paths.length != 1) {
+            return null;
+        }
+
+        XPathStep step = paths[0];
+
+        if (!step._deep || step._attr || step._name == null || step.isWild()) {
+            return null;
+        }
+
+        return step._next != null && step._next._name == null ? step._name : null;
+    }
+
 }
\ No newline at end of file
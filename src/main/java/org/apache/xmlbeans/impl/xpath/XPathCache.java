@@ -0,0 +1,176 @@
+/*   Copyright 2004 The Apache Software Foundation
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.xmlbeans.impl.xpath;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * A size-bounded cache of compiled paths or queries, shared by all threads.
+ * <p>
+ * The keys are spread over segments, each a LinkedHashMap in access order with a lock of
+ * its own, so lookups of different expressions rarely contend.  A full segment evicts its
+ * least recently used entry, hence the bound of the cache as a whole is approximate.
+ * The compilation happens outside of the segment locks - concurrent lookups of the same
+ * key wait for the first one to compile it, instead of compiling it themselves.
+ */
+public final class XPathCache<K, V> {
+    private static final int SEGMENTS = 16;
+
+    private final int _capacity;
+    private final Segment<K, V>[] _segments;
+
+    private final LongAdder _hits = new LongAdder();
+    private final LongAdder _misses = new LongAdder();
+    private final LongAdder _evictions = new LongAdder();
+
+    @SuppressWarnings("unchecked")
+    XPathCache(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Cache capacity must be positive: " + capacity);
+        }
+
+        _capacity = capacity;
+        _segments = new Segment[SEGMENTS];
+        for (int i = 0; i < SEGMENTS; i++) {
+            _segments[i] = new Segment<>(Math.max(1, (capacity + SEGMENTS - 1) / SEGMENTS), _evictions);
+        }
+    }
+
+    /**
+     * Returns the cached value of the key or the value compiled for it.  The value is
+     * only cached if the compiler returns normally.
+     */
+    V get(K key, Function<K, V> compiler) {
+        Segment<K, V> segment = _segments[(key.hashCode() & 0x7FFFFFFF) % SEGMENTS];
+
+        Entry<V> entry;
+        synchronized (segment) {
+            entry = segment.get(key);
+            if (entry == null) {
+                entry = new Entry<>();
+                segment.put(key, entry);
+            }
+        }
+
+        if (entry._compiled) {
+            _hits.increment();
+            return entry._value;
+        }
+
+        synchronized (entry) {
+            if (entry._compiled) {
+                _hits.increment();
+                return entry._value;
+            }
+
+            _misses.increment();
+
+            boolean compiled = false;
+            try {
+                entry._value = compiler.apply(key);
+                entry._compiled = compiled = true;
+            } finally {
+                if (!compiled) {
+                    // don't keep the failed entry, the next lookup compiles again
+                    synchronized (segment) {
+                        segment.remove(key, entry);
+                    }
+                }
+            }
+            return entry._value;
+        }
+    }
+
+    /**
+     * @return the maximum number of entries of the cache
+     */
+    public int getCapacity() {
+        return _capacity;
+    }
+
+    /**
+     * @return the current number of entries of the cache
+     */
+    public int size() {
+        int size = 0;
+        for (Segment<K, V> segment : _segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * @return the number of lookups, which have been answered by the cache
+     */
+    public long getHitCount() {
+        return _hits.sum();
+    }
+
+    /**
+     * @return the number of lookups, which had to compile the expression
+     */
+    public long getMissCount() {
+        return _misses.sum();
+    }
+
+    /**
+     * @return the number of entries, which have been dropped to make room for new ones
+     */
+    public long getEvictionCount() {
+        return _evictions.sum();
+    }
+
+    /**
+     * Drops all entries, the counters are kept.
+     */
+    public void clear() {
+        for (Segment<K, V> segment : _segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+    }
+
+    private static final class Segment<K, V> extends LinkedHashMap<K, Entry<V>> {
+        private final int _max;
+        private final LongAdder _evictions;
+
+        Segment(int max, LongAdder evictions) {
+            super(16, 0.75f, true);
+            _max = max;
+            _evictions = evictions;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+            if (size() > _max) {
+                _evictions.increment();
+                return true;
+            }
+            return false;
+        }
+    }
+
+    private static final class Entry<V> {
+        private volatile boolean _compiled;
+        private V _value;
+    }
+}
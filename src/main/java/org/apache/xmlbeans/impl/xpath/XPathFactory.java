@@ -15,6 +15,7 @@
 
 package org.apache.xmlbeans.impl.xpath;
 
+import org.apache.xmlbeans.SystemProperties;
 import org.apache.xmlbeans.XmlCursor;
 import org.apache.xmlbeans.XmlObject;
 import org.apache.xmlbeans.XmlOptions;
@@ -23,18 +24,72 @@ import org.apache.xmlbeans.impl.xpath.saxon.SaxonXPath;
 import org.apache.xmlbeans.impl.xpath.saxon.SaxonXQuery;
 import org.apache.xmlbeans.impl.xpath.xmlbeans.XmlbeansXPath;
 
-import java.lang.ref.WeakReference;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.WeakHashMap;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.Objects;
 
 public class XPathFactory {
     private static final int USE_XMLBEANS = 0x01;
     private static final int USE_SAXON = 0x04;
 
-    private static final Map<String, WeakReference<Path>> _xmlbeansPathCache = new WeakHashMap<>();
-    private static final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // the capacity of each of the caches of compiled paths and queries
+    private static final int CACHE_SIZE =
+        Integer.parseInt(SystemProperties.getProperty("xmlbean.xpath.cachesize", "500"));
+
+    private static final XPathCache<Key, Path> _pathCache = new XPathCache<>(CACHE_SIZE);
+    private static final XPathCache<Key, XQuery> _queryCache = new XPathCache<>(CACHE_SIZE);
+
+    /**
+     * The key of a compiled expression - the compilation depends on the name of the
+     * current node variable, the engines to try and the namespaces given by the options.
+     */
+    private static final class Key {
+        private final String _expr;
+        private final String _currentVar;
+        private final int _engines;
+        private final Map<String, String> _namespaces;
+        private final int _hash;
+
+        Key(String expr, String currentVar, int engines, Map<String, String> namespaces) {
+            _expr = expr;
+            _currentVar = currentVar;
+            _engines = engines;
+            _namespaces = namespaces == null || namespaces.isEmpty() ? null : new HashMap<>(namespaces);
+            _hash = Objects.hash(expr, currentVar, engines, _namespaces);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return _engines == key._engines && _expr.equals(key._expr) &&
+                   Objects.equals(_currentVar, key._currentVar) && Objects.equals(_namespaces, key._namespaces);
+        }
+
+        @Override
+        public int hashCode() {
+            return _hash;
+        }
+    }
+
+    /**
+     * @return the cache of the compiled paths, with its hit, miss and eviction counters
+     */
+    public static XPathCache<?, Path> getPathCache() {
+        return _pathCache;
+    }
+
+    /**
+     * @return the cache of the compiled queries, with its hit, miss and eviction counters
+     */
+    public static XPathCache<?, XQuery> getQueryCache() {
+        return _queryCache;
+    }
 
     static String getCurrentNodeVar(XmlOptions options) {
         String currentNodeVar = "this";
@@ -64,60 +119,41 @@ public class XPathFactory {
                 : options.isXPathUseXmlBeans() ? USE_XMLBEANS
                 : USE_XMLBEANS | USE_SAXON;
 
+        return _pathCache.get(new Key(pathExpr, currentVar, force, null), XPathFactory::newPath);
+    }
+
+    private static Path newPath(Key key) {
+        String pathExpr = key._expr;
+        String currentVar = key._currentVar;
+        int force = key._engines;
+
         Path path = null;
-        WeakReference<Path> pathWeakRef = null;
         Map<String, String> namespaces = (force & USE_SAXON) != 0 ? new HashMap<>() : null;
-        lock.readLock().lock();
-        try {
-            if ((force & USE_XMLBEANS) != 0) {
-                pathWeakRef = _xmlbeansPathCache.get(pathExpr);
-            }
-            if (pathWeakRef != null) {
-                path = pathWeakRef.get();
-            }
-            if (path != null) {
-                return path;
-            }
-        } finally {
-            lock.readLock().unlock();
+
+        if ((force & USE_XMLBEANS) != 0) {
+            path = getCompiledPathXmlBeans(pathExpr, currentVar, namespaces);
         }
-        lock.writeLock().lock();
-        try {
+        if (path == null && (force & USE_SAXON) != 0) {
+            path = getCompiledPathSaxon(pathExpr, currentVar, namespaces);
+        }
+        if (path == null) {
+            StringBuilder errMessage = new StringBuilder();
             if ((force & USE_XMLBEANS) != 0) {
-                pathWeakRef = _xmlbeansPathCache.get(pathExpr);
-                if (pathWeakRef != null) {
-                    path = pathWeakRef.get();
-                }
-                if (path == null) {
-                    path = getCompiledPathXmlBeans(pathExpr, currentVar, namespaces);
-                }
+                errMessage.append(" Trying XmlBeans path engine...");
             }
-            if (path == null && (force & USE_SAXON) != 0) {
-                path = getCompiledPathSaxon(pathExpr, currentVar, namespaces);
+            if ((force & USE_SAXON) != 0) {
+                errMessage.append(" Trying Saxon path engine...");
             }
-            if (path == null) {
-                StringBuilder errMessage = new StringBuilder();
-                if ((force & USE_XMLBEANS) != 0) {
-                    errMessage.append(" Trying XmlBeans path engine...");
-                }
-                if ((force & USE_SAXON) != 0) {
-                    errMessage.append(" Trying Saxon path engine...");
-                }
-
-                throw new RuntimeException(errMessage.toString() + " FAILED on " + pathExpr);
-            }
-        } finally {
-            lock.writeLock().unlock();
+
+            throw new RuntimeException(errMessage.toString() + " FAILED on " + pathExpr);
         }
         return path;
     }
 
     private static Path getCompiledPathXmlBeans(String pathExpr, String currentVar, Map<String, String> namespaces) {
         try {
-            Path path = new XmlbeansXPath(pathExpr, currentVar,
+            return new XmlbeansXPath(pathExpr, currentVar,
                 XPath.compileXPath(pathExpr, currentVar, namespaces));
-            _xmlbeansPathCache.put(pathExpr, new WeakReference<>(path));
-            return path;
         } catch (XPath.XPathCompileException ignored) {
             return null;
         }
@@ -159,14 +195,24 @@ public class XPathFactory {
         return getCompiledQuery(queryExpr, options).cursorExecute(c, options);
     }
 
-    public static synchronized XQuery getCompiledQuery(String queryExpr, XmlOptions options) {
+    public static XQuery getCompiledQuery(String queryExpr, XmlOptions options) {
         return getCompiledQuery(queryExpr, XPathFactory.getCurrentNodeVar(options), options);
     }
 
-    static synchronized XQuery getCompiledQuery(String queryExpr, String currentVar, XmlOptions options) {
+    static XQuery getCompiledQuery(String queryExpr, String currentVar, XmlOptions options) {
         assert queryExpr != null;
         options = XmlOptions.maskNull(options);
 
+        // only the additional namespaces of the options are used by the compilation
+        Map<String, String> namespaces = options.getLoadAdditionalNamespaces();
+
+        return _queryCache.get(new Key(queryExpr, currentVar, USE_SAXON, namespaces), XPathFactory::newQuery);
+    }
+
+    private static XQuery newQuery(Key key) {
+        String queryExpr = key._expr;
+        String currentVar = key._currentVar;
+
         //Parse the query via XmlBeans: need to figure out end of prolog
         //in order to bind $this...not good but...
         Map<String, String> boundary = new HashMap<>();
@@ -179,10 +225,11 @@ public class XPathFactory {
             boundaryVal = Integer.parseInt(boundary.getOrDefault(XPath._NS_BOUNDARY, "0"));
         }
 
-        return new SaxonXQuery(queryExpr, currentVar, boundaryVal, options);
+        return new SaxonXQuery(queryExpr, currentVar, boundaryVal,
+            new XmlOptions().setLoadAdditionalNamespaces(key._namespaces));
     }
 
-    public static synchronized String compileQuery(String queryExpr, XmlOptions options) {
+    public static String compileQuery(String queryExpr, XmlOptions options) {
         getCompiledQuery(queryExpr, options);
         return queryExpr;
     }
@@ -54,10 +54,6 @@ public class SaxonXQuery implements XQuery {
     private final String contextVar;
     private final Configuration config;
 
-    private Cur _cur;
-    private long _version;
-    private XmlOptions _options;
-
 
     /**
      * Construct given an XQuery expression string.
@@ -65,12 +61,12 @@ public class SaxonXQuery implements XQuery {
      * @param query      The XQuery expression
      * @param contextVar The name of the context variable
      * @param boundary   The offset of the end of the prolog
+     * @param xmlOptions The options, only the additional namespaces are used by the compilation.
+     *                   The compiled query holds no state of its executions, so it can be shared.
      */
     public SaxonXQuery(final String query, String contextVar, Integer boundary, XmlOptions xmlOptions) {
         assert !(contextVar.startsWith(".") || contextVar.startsWith(".."));
 
-        _options = xmlOptions;
-
 
         config = new Configuration();
         StaticQueryContext sc = config.newStaticQueryContext();
@@ -90,19 +86,6 @@ public class SaxonXQuery implements XQuery {
     }
 
 
-    public XmlObject[] objectExecute(Cur c, XmlOptions options) {
-        _version = c.getLocale().version();
-        _cur = c.weakCur(this);
-        this._options = options;
-        return objectExecute();
-    }
-
-    public XmlCursor cursorExecute(Cur c, XmlOptions options) {
-        _version = c.getLocale().version();
-        _cur = c.weakCur(this);
-        this._options = options;
-        return cursorExecute();
-    }
 
 
     public List execQuery(Object node, Map variableBindings) {
@@ -235,22 +218,15 @@ public class SaxonXQuery implements XQuery {
     }
 
 
-    public XmlObject[] objectExecute() {
-        if (_cur != null && _version != _cur.getLocale().version())
-        //throw new ConcurrentModificationException
-        // ("Document changed during select")
-        {
-            ;
-        }
-
-        Map<String, Object> bindings = XmlOptions.maskNull(_options).getXqueryVariables();
-        List resultsList = execQuery(_cur.getDom(), bindings);
+    public XmlObject[] objectExecute(Cur c, XmlOptions options) {
+        Map<String, Object> bindings = XmlOptions.maskNull(options).getXqueryVariables();
+        List resultsList = execQuery(c.getDom(), bindings);
 
         XmlObject[] result = new XmlObject[resultsList.size()];
         int i;
         for (i = 0; i < resultsList.size(); i++) {
             //copy objects into the locale
-            Locale l = Locale.getLocale(_cur.getLocale().getSchemaTypeLoader(), _options);
+            Locale l = Locale.getLocale(c.getLocale().getSchemaTypeLoader(), options);
 
             l.enter();
             Object node = resultsList.get(i);
@@ -267,7 +243,7 @@ public class SaxonXQuery implements XQuery {
                     Locale.autoTypeDocument(res, type, null);
                     result[i] = res.getObject();
                 } else {
-                    res = loadNode(l, (Node) node);
+                    res = loadNode(l, (Node) node, options);
                 }
                 result[i] = res.getObject();
             } catch (XmlException e) {
@@ -277,7 +253,6 @@ public class SaxonXQuery implements XQuery {
             }
             res.release();
         }
-        release();
         return result;
     }
 
@@ -305,56 +280,40 @@ public class SaxonXQuery implements XQuery {
         return type;
     }
 
-    public XmlCursor cursorExecute() {
-        if (_cur != null && _version != _cur.getLocale().version())
-        //throw new ConcurrentModificationException
-        // ("Document changed during select")
-        {
-            ;
-        }
-
-        Map<String, Object> bindings = XmlOptions.maskNull(_options).getXqueryVariables();
-        List resultsList = execQuery(_cur.getDom(), bindings);
+    public XmlCursor cursorExecute(Cur c, XmlOptions options) {
+        Map<String, Object> bindings = XmlOptions.maskNull(options).getXqueryVariables();
+        List resultsList = execQuery(c.getDom(), bindings);
 
         int i;
 
-        Locale locale = Locale.getLocale(_cur.getLocale().getSchemaTypeLoader(), _options);
+        Locale locale = Locale.getLocale(c.getLocale().getSchemaTypeLoader(), options);
         locale.enter();
-        Locale.LoadContext _context = new Cur.CurLoadContext(locale, _options);
+        Locale.LoadContext _context = new Cur.CurLoadContext(locale, options);
         Cursor resultCur = null;
         try {
             for (i = 0; i < resultsList.size(); i++) {
                 loadNodeHelper(locale, (Node) resultsList.get(i), _context);
             }
-            Cur c = _context.finish();
-            Locale.associateSourceName(c, _options);
-            Locale.autoTypeDocument(c, null, _options);
-            resultCur = new Cursor(c);
+            Cur res = _context.finish();
+            Locale.associateSourceName(res, options);
+            Locale.autoTypeDocument(res, null, options);
+            resultCur = new Cursor(res);
         } catch (Exception e) {
         } finally {
             locale.exit();
         }
-        release();
         return resultCur;
     }
 
 
-    public void release() {
-        if (_cur != null) {
-            _cur.release();
-            _cur = null;
-        }
-    }
-
-
-    private Cur loadNode(Locale locale, Node node) {
-        Locale.LoadContext context = new Cur.CurLoadContext(locale, _options);
+    private Cur loadNode(Locale locale, Node node, XmlOptions options) {
+        Locale.LoadContext context = new Cur.CurLoadContext(locale, options);
 
         try {
             loadNodeHelper(locale, node, context);
             Cur c = context.finish();
-            Locale.associateSourceName(c, _options);
-            Locale.autoTypeDocument(c, null, _options);
+            Locale.associateSourceName(c, options);
+            Locale.autoTypeDocument(c, null, options);
             return c;
         } catch (Exception e) {
             throw new XmlRuntimeException(e.getMessage(), e);
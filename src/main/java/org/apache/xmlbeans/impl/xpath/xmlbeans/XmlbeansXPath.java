@@ -17,11 +17,14 @@ package org.apache.xmlbeans.impl.xpath.xmlbeans;
 
 import org.apache.xmlbeans.XmlOptions;
 import org.apache.xmlbeans.impl.store.Cur;
+import org.apache.xmlbeans.impl.store.ElementIndex;
 import org.apache.xmlbeans.impl.xpath.Path;
 import org.apache.xmlbeans.impl.xpath.XPath;
 import org.apache.xmlbeans.impl.xpath.XPathEngine;
 import org.apache.xmlbeans.impl.xpath.XPathFactory;
 
+import javax.xml.namespace.QName;
+
 //
 // XmlBeans store specific implementation of compiled path
 //
@@ -31,11 +34,28 @@ public class XmlbeansXPath implements Path {
     private final String _currentVar;
     private final XPath _compiledPath;
 
+    // the saxon path used for the cases the builtin engine can't handle, compiled when first needed
+    private volatile Path _saxonPath;
+
+    // the element name of a .//name path, which can be answered by the element index
+    private final QName _descendantName;
+
+    // the engine of a path whose selections have all been added upfront
+    private static final XPathEngine NO_MORE_SELECTIONS = new XPathEngine() {
+        public void release() {
+        }
+
+        public boolean next(Cur c) {
+            return false;
+        }
+    };
+
     public XmlbeansXPath(String pathExpr, String currentVar, XPath xpath) {
         _pathKey = pathExpr;
 
         _currentVar = currentVar;
         _compiledPath = xpath;
+        _descendantName = xpath.getDescendantName();
     }
 
     public XPathEngine execute(Cur c, XmlOptions options) {
@@ -46,8 +66,14 @@ public class XmlbeansXPath implements Path {
         // simple xpath engine can't do the generate case, it only handles
         // attrs and elements.
         if (!c.isContainer() || _compiledPath.sawDeepDot()) {
-            Path xpe = XPathFactory.getCompiledPathSaxon(_pathKey, _currentVar, null);
+            Path xpe = _saxonPath;
+            if (xpe == null) {
+                _saxonPath = xpe = XPathFactory.getCompiledPathSaxon(_pathKey, _currentVar, null);
+            }
             return xpe.execute(c, options);
+        } else if (options.isXPathUseElementIndex() && _descendantName != null &&
+                   ElementIndex.select(c, _descendantName)) {
+            return NO_MORE_SELECTIONS;
         } else {
             return new XmlbeansXPathEngine(_compiledPath, c);
         }
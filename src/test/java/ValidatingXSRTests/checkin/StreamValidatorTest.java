@@ -0,0 +1,129 @@
+/*   Copyright 2004 The Apache Software Foundation
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package ValidatingXSRTests.checkin;
+
+import com.easypo.XmlPurchaseOrderDocumentBean;
+import org.apache.xmlbeans.SchemaTypeLoader;
+import org.apache.xmlbeans.XmlBeans;
+import org.apache.xmlbeans.XmlError;
+import org.apache.xmlbeans.XmlOptions;
+import org.junit.Test;
+import tools.util.JarUtil;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamReader;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class StreamValidatorTest {
+    private static final SchemaTypeLoader STL = XmlBeans.getContextTypeLoader();
+
+    @Test
+    public void testValidDocument() throws Exception {
+        List<XmlError> errors = new ArrayList<>();
+        try (InputStream is = JarUtil.getResourceFromJarasStream("xbean/xmlobject/easypo1.xml")) {
+            assertTrue(XmlBeans.validate(is, null, STL, new XmlOptions().setErrorListener(errors)));
+        }
+        assertTrue(errors.isEmpty());
+
+        try (InputStream is = JarUtil.getResourceFromJarasStream("xbean/xmlobject/easypo1.xml")) {
+            assertTrue(XmlBeans.validate(is, XmlPurchaseOrderDocumentBean.type, STL, null));
+        }
+    }
+
+    @Test
+    public void testErrorCallback() throws Exception {
+        String doc =
+            "<po:purchase-order xmlns:po='http://openuri.org/easypo'>\n" +
+            "  <po:customer><po:name>n</po:name><po:address>a</po:address></po:customer>\n" +
+            "  <po:date>yesterday</po:date>\n" +
+            "  <po:line-item>\n" +
+            "    <po:description>d</po:description>\n" +
+            "    <po:per-unit-ounces>5</po:per-unit-ounces>\n" +
+            "    <po:price>1.5</po:price>\n" +
+            "    <po:quantity>two</po:quantity>\n" +
+            "  </po:line-item>\n" +
+            "</po:purchase-order>";
+
+        List<XmlError> received = new ArrayList<>();
+        AbstractCollection<XmlError> callback = new AbstractCollection<XmlError>() {
+            public boolean add(XmlError error) {
+                return received.add(error);
+            }
+
+            public Iterator<XmlError> iterator() {
+                throw new UnsupportedOperationException();
+            }
+
+            public int size() {
+                throw new UnsupportedOperationException();
+            }
+        };
+
+        XmlOptions opts = new XmlOptions().setErrorListener(callback).setDocumentSourceName("po.xml");
+        assertFalse(XmlBeans.validate(stream(doc), null, STL, opts));
+
+        assertEquals(2, received.size());
+        assertEquals(3, received.get(0).getLine());
+        assertEquals(8, received.get(1).getLine());
+        assertTrue(received.get(1).getColumn() > 0);
+        assertTrue(received.get(1).getSourceName().endsWith("po.xml"));
+    }
+
+    @Test
+    public void testNotWellFormed() throws Exception {
+        String doc =
+            "<po:purchase-order xmlns:po='http://openuri.org/easypo'>\n" +
+            "  <po:customer><po:name>n</po:name><po:address>a</po:address></po:customer>\n" +
+            "</po:purchase>";
+
+        List<XmlError> errors = new ArrayList<>();
+        assertFalse(XmlBeans.validate(stream(doc), null, STL, new XmlOptions().setErrorListener(errors)));
+        assertEquals(1, errors.size());
+        assertEquals(3, errors.get(0).getLine());
+    }
+
+    @Test
+    public void testUnknownDocumentElement() throws Exception {
+        List<XmlError> errors = new ArrayList<>();
+        assertFalse(XmlBeans.validate(stream("<unknown/>"), null, STL, new XmlOptions().setErrorListener(errors)));
+        assertEquals(1, errors.size());
+    }
+
+    @Test
+    public void testStreamReader() throws Exception {
+        String doc =
+            "<?xml version='1.0'?><!-- comment -->" +
+            "<po:purchase-order xmlns:po='http://openuri.org/easypo'>" +
+            "<po:customer><po:name>n</po:name><po:address>a</po:address></po:customer>" +
+            "<po:date>2002-09-30T14:16:00-05:00</po:date>" +
+            "</po:purchase-order>";
+
+        XMLStreamReader xsr = XMLInputFactory.newFactory().createXMLStreamReader(new StringReader(doc));
+        assertTrue(XmlBeans.validate(xsr, null, STL, null));
+    }
+
+    private static InputStream stream(String doc) {
+        return new ByteArrayInputStream(doc.getBytes(StandardCharsets.UTF_8));
+    }
+}
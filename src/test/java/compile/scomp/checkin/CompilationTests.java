@@ -31,16 +31,22 @@ import org.junit.Test;
 import org.junit.runner.JUnitCore;
 import org.junit.runner.Result;
 
+import javax.xml.namespace.QName;
 import java.io.File;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.net.URL;
 import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static common.Common.getRootFile;
 import static org.junit.Assert.*;
@@ -79,6 +85,160 @@ public class CompilationTests {
         assertTrue("Cannot find " + outputjar, outputjar.exists());
     }
 
+    @Test
+    public void testParallelSourceGeneration() throws Throwable {
+        compareParallelSourceGeneration("compile/scomp/parallel", null);
+    }
+
+    @Test
+    public void testParallelSourceGenerationWithRepackage() throws Throwable {
+        File srcdir = compareParallelSourceGeneration("compile/scomp/parallelrepackage",
+            "org.apache.xmlbeans:org.repackaged.xmlbeans");
+        File source = new File(srcdir, "com/sun/java/xml/ns/j2Ee/impl/EjbJarDocumentImpl.java");
+        assertTrue("Cannot find " + source, source.exists());
+        String text = new String(Files.readAllBytes(source.toPath()), "UTF-8");
+        assertTrue(text.contains("org.repackaged.xmlbeans.impl.values.XmlComplexContentImpl"));
+        assertFalse(text.contains(" org.apache.xmlbeans."));
+    }
+
+    /**
+     * Generates the sources sequentially and in parallel and compares them.
+     *
+     * @return the source directory of the parallel generation
+     */
+    private static File compareParallelSourceGeneration(String outputDir, String repackage) throws Throwable {
+        deltree(xbeanOutput(outputDir));
+        File[] srcdirs = new File[2];
+        for (int i = 0; i < srcdirs.length; i++) {
+            srcdirs[i] = xbeanOutput(outputDir + "/src" + i);
+            SchemaCompiler.Parameters params = new SchemaCompiler.Parameters();
+            params.setXsdFiles(new File[]{
+                xbeanCase("j2ee/ejb-jar_2_1.xsd"),
+                xbeanCase("j2ee/j2ee_1_4.xsd"),
+                xbeanCase("j2ee/XML.xsd")
+            });
+            params.setName("parallel");
+            params.setSrcDir(srcdirs[i]);
+            params.setClassesDir(xbeanOutput(outputDir + "/classes" + i));
+            params.setNojavac(true);
+            params.setQuiet(true);
+            params.setParallelism(i == 0 ? 1 : 4);
+            params.setRepackage(repackage);
+            params.setMdefNamespaces(Collections.singleton("http://java.sun.com/xml/ns/j2ee"));
+            assertTrue("Build failed", SchemaCompiler.compile(params));
+        }
+
+        List<File> sequential = listFiles(srcdirs[0]);
+        List<File> parallel = listFiles(srcdirs[1]);
+        assertTrue(sequential.size() > 100);
+        assertEquals(sequential.size(), parallel.size());
+        for (int i = 0; i < sequential.size(); i++) {
+            File f1 = sequential.get(i), f2 = parallel.get(i);
+            assertEquals(srcdirs[0].toPath().relativize(f1.toPath()), srcdirs[1].toPath().relativize(f2.toPath()));
+            assertArrayEquals(f1.getName(), Files.readAllBytes(f1.toPath()), Files.readAllBytes(f2.toPath()));
+        }
+        return srcdirs[1];
+    }
+
+    @Test
+    public void testBuildCache() throws Throwable {
+        deltree(xbeanOutput("compile/scomp/buildcache"));
+        File xsdDir = xbeanOutput("compile/scomp/buildcache/xsd");
+        xsdDir.mkdirs();
+        File a = new File(xsdDir, "a.xsd"), b = new File(xsdDir, "b.xsd"), c = new File(xsdDir, "c.xsd");
+        writeSchema(a, "urn:a", "", "<xs:complexType name='aType'><xs:sequence><xs:element name='v' type='xs:string'/></xs:sequence></xs:complexType><xs:element name='a' type='aType'/>");
+        writeSchema(b, "urn:b", "<xs:import namespace='urn:a' schemaLocation='a.xsd'/>",
+            "<xs:complexType name='bType'><xs:sequence><xs:element name='x' type='a:aType'/></xs:sequence></xs:complexType><xs:element name='b' type='bType'/>");
+        writeSchema(c, "urn:c", "", "<xs:element name='c' type='xs:int'/>");
+
+        File srcdir = xbeanOutput("compile/scomp/buildcache/src");
+        File classesdir = xbeanOutput("compile/scomp/buildcache/classes");
+        File cache = xbeanOutput("compile/scomp/buildcache/build.cache");
+        SchemaCompiler.Parameters params = new SchemaCompiler.Parameters();
+        params.setXsdFiles(new File[]{a, b, c});
+        params.setName("buildcache");
+        params.setSrcDir(srcdir);
+        params.setClassesDir(classesdir);
+        params.setBuildCache(cache);
+        params.setQuiet(true);
+        // the xmlbean task passes no mdef namespaces
+        params.setMdefNamespaces(null);
+        List<XmlError> errors = new ArrayList<>();
+        params.setErrorListener(errors);
+        assertTrue("Build failed: " + errors, SchemaCompiler.compile(params));
+        assertTrue(cache.isFile());
+
+        // nothing changed
+        File aSource = new File(srcdir, "a/ADocument.java");
+        File bSource = new File(srcdir, "b/BDocument.java");
+        File cSource = new File(srcdir, "c/CDocument.java");
+        assertTrue(aSource.delete() && bSource.delete() && cSource.delete());
+        assertTrue("Build failed: " + errors, SchemaCompiler.compile(params));
+        assertFalse(aSource.exists() || bSource.exists() || cSource.exists());
+
+        // only urn:c is recompiled
+        writeSchema(c, "urn:c", "", "<xs:element name='c' type='xs:int'/><xs:element name='c2' type='xs:string'/>");
+        assertTrue("Build failed: " + errors, SchemaCompiler.compile(params));
+        assertFalse(aSource.exists() || bSource.exists());
+        assertTrue(cSource.exists());
+        assertTrue(new File(srcdir, "c/C2Document.java").exists());
+        assertTrue(new File(classesdir, "c/C2Document.class").exists());
+
+        // urn:b depends on urn:a
+        writeSchema(a, "urn:a", "", "<xs:complexType name='aType'><xs:sequence><xs:element name='v' type='xs:string'/><xs:element name='w' type='xs:int' minOccurs='0'/></xs:sequence></xs:complexType><xs:element name='a' type='aType'/>");
+        assertTrue(cSource.delete());
+        assertTrue("Build failed: " + errors, SchemaCompiler.compile(params));
+        assertTrue(aSource.exists() && bSource.exists());
+        assertFalse(cSource.exists());
+
+        ResourceLoader rl = XmlBeans.resourceLoaderForPath(new File[]{classesdir});
+        try {
+            SchemaTypeLoader stl = XmlBeans.typeLoaderForResource(rl);
+            assertNotNull(stl.findDocumentType(new QName("urn:c", "c")));
+            assertNotNull(stl.findDocumentType(new QName("urn:c", "c2")));
+            assertNotNull(stl.findDocumentType(new QName("urn:a", "a")));
+            XmlObject doc = stl.parse("<b xmlns='urn:b'><x><v xmlns='urn:a'>v</v><w xmlns='urn:a'>1</w></x></b>", null, null);
+            assertEquals(stl.findDocumentType(new QName("urn:b", "b")), doc.schemaType());
+            assertTrue(doc.validate());
+        } finally {
+            rl.close();
+        }
+
+        // the generated files of a removed element are deleted
+        writeSchema(c, "urn:c", "", "<xs:element name='c' type='xs:int'/>");
+        assertTrue("Build failed: " + errors, SchemaCompiler.compile(params));
+        assertTrue(cSource.exists());
+        assertFalse(new File(srcdir, "c/C2Document.java").exists());
+        assertFalse(new File(srcdir, "c/impl/C2DocumentImpl.java").exists());
+        assertFalse(new File(classesdir, "c/C2Document.class").exists());
+        assertFalse(new File(classesdir, "c/C2Document$Factory.class").exists());
+        assertFalse(new File(classesdir, "c/impl/C2DocumentImpl.class").exists());
+        assertTrue(new File(classesdir, "c/CDocument.class").exists());
+
+        rl = XmlBeans.resourceLoaderForPath(new File[]{classesdir});
+        try {
+            SchemaTypeLoader stl = XmlBeans.typeLoaderForResource(rl);
+            assertNotNull(stl.findDocumentType(new QName("urn:c", "c")));
+            assertNull(stl.findDocumentType(new QName("urn:c", "c2")));
+            assertNull(stl.findElement(new QName("urn:c", "c2")));
+            assertNotNull(stl.findDocumentType(new QName("urn:b", "b")));
+        } finally {
+            rl.close();
+        }
+    }
+
+    private static void writeSchema(File file, String ns, String imports, String content) throws IOException {
+        String schema = "<xs:schema xmlns:xs='http://www.w3.org/2001/XMLSchema' xmlns:a='urn:a' targetNamespace='" + ns + "' " +
+            "xmlns='" + ns + "' elementFormDefault='qualified'>" + imports + content + "</xs:schema>";
+        Files.write(file.toPath(), schema.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static List<File> listFiles(File dir) throws IOException {
+        try (Stream<Path> walk = Files.walk(dir.toPath())) {
+            return walk.filter(Files::isRegularFile).sorted().map(Path::toFile).collect(Collectors.toList());
+        }
+    }
+
     @Test
     public void testIncrementalCompilation() throws Throwable {
         File[] files = new File[]{
@@ -16,9 +16,13 @@
 
 package dom.checkin;
 
+import org.apache.xmlbeans.XmlException;
+import org.apache.xmlbeans.XmlObject;
+import org.apache.xmlbeans.XmlOptions;
 import org.apache.xmlbeans.XmlOptionsBean;
 import org.apache.xmlbeans.impl.common.SAXHelper;
 import org.apache.xmlbeans.impl.common.StaxHelper;
+import org.apache.xmlbeans.impl.common.SystemCache;
 import org.apache.xmlbeans.impl.common.XMLBeansConstants;
 import org.junit.Test;
 import org.xml.sax.InputSource;
@@ -103,4 +107,34 @@ public class ParserTest {
 
         reader.parse(new InputSource(new ByteArrayInputStream("<xml></xml>".getBytes("UTF-8"))));
     }
+
+    @Test
+    public void testSaxLoaderReuse() throws Exception {
+        XmlObject.Factory.parse("<a/>");
+        SystemCache cache = SystemCache.get();
+        Object loader = cache.getSaxLoader();
+        assertNotNull(loader);
+
+        XmlObject.Factory.parse("<b/>");
+        assertSame(loader, cache.getSaxLoader());
+
+        // another reader configuration gets a loader of its own
+        XmlObject.Factory.parse("<c/>", new XmlOptions().setEntityExpansionLimit(1));
+        assertNotSame(loader, cache.getSaxLoader());
+    }
+
+    @Test
+    public void testSaxLoaderResetBetweenLoads() throws Exception {
+        String xml = "<!DOCTYPE a [<!ENTITY e '012345678901234567890123456789'>]><a>&e;</a>";
+        XmlObject.Factory.parse("<a>&#32;</a>", new XmlOptions().setLoadEntityBytesLimit(20));
+        try {
+            XmlObject.Factory.parse(xml, new XmlOptions().setLoadEntityBytesLimit(20));
+            fail("entity bytes limit not enforced");
+        } catch (XmlException expected) {
+        }
+
+        // the limit of the previous load doesn't stick to the reused loader
+        XmlObject.Factory.parse("<a/>", new XmlOptions().setLoadEntityBytesLimit(20));
+        XmlObject.Factory.parse(xml);
+    }
 }
@@ -0,0 +1,179 @@
+/*   Copyright 2004 The Apache Software Foundation
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package misc.checkin;
+
+import org.apache.xmlbeans.XmlCursor;
+import org.apache.xmlbeans.XmlException;
+import org.apache.xmlbeans.XmlLineNumber;
+import org.apache.xmlbeans.XmlObject;
+import org.apache.xmlbeans.XmlOptions;
+import org.junit.Test;
+
+import javax.xml.namespace.QName;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Enumeration;
+
+import static org.junit.Assert.*;
+
+public class BuiltinTokenizerTest {
+    private static final String[] DOCS = {
+        "<a/>",
+        "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<!-- c --><?pi data?><a x='1' y=\"2\"><b>text</b><c/></a><!--after-->",
+        "<?xml version='1.0'?><a>text<b/>more</a>",
+        "<p:a xmlns:p='urn:p' xmlns='urn:d' p:x='1' y='2'><b xmlns:q='urn:q' q:z='3'/><p:c xml:lang='en'/></p:a>",
+        "<a xmlns='urn:a'><b xmlns=''><c/></b></a>",
+        "<a x='&lt;&amp;&gt;&quot;&apos;&#65;&#x42;'>&lt;&#x1D11E;&#233;</a>",
+        "<a>x<![CDATA[<b>&amp;]]>y</a>",
+        "<a>\u00E9\u4E2D\uD834\uDD1E</a>",
+        "<a\r\n x='1\r\n2\t3'>line1\r\nline2\rline3</a>",
+        "<a>]]</a>",
+        "\uFEFF<a/>",
+        "  <a/>  ",
+        "<a:b xmlns:a='urn:a'><a:b/></a:b >",
+        "<\u00E9l\u00E9ment attr\u00E9='v'/>",
+        "<?xml version='1.0' encoding='US-ASCII'?><a x='1'/>",
+        "<a p:x='1' xmlns:p='urn:p'><b xmlns:x='urn:x' p:x='2'/></a>",
+    };
+
+    private static final String[] FALLBACK_DOCS = {
+        "<!DOCTYPE a [<!ENTITY e 'ent'>]><a>&e;</a>",
+        "<?xml version=\"1.0\" encoding=\"ISO-8859-1\"?><a>\u00E9</a>",
+    };
+
+    private static final String[] MALFORMED_DOCS = {
+        "",
+        "<a>",
+        "<a></b>",
+        "<a x='1' x='2'/>",
+        "<a><b></a></b>",
+        "<p:a/>",
+        "<a>&unknown;</a>",
+        "<a>]]></a>",
+        "<a/><b/>",
+        "text<a/>",
+        "<a xmlns:p=''/>",
+        "<a>\u0001</a>",
+        "<a><?xml version='1.0'?></a>",
+        "<a><!-- a -- b --></a>",
+        "<?xml version='1.0' foo='bar'?><a/>",
+        "<?xml version='1.0' encoding='US-ASCII'?><a>\u00E9</a>",
+        "<a xmlns:p='urn:p' xmlns:p='urn:q'/>",
+    };
+
+    @Test
+    public void testSameAsSax() throws Exception {
+        for (String doc : DOCS) {
+            assertEquals(doc, parse(doc, new XmlOptions()).xmlText(), parse(doc, tokenizer()).xmlText());
+        }
+    }
+
+    @Test
+    public void testFallback() throws Exception {
+        XmlObject o = parse(FALLBACK_DOCS[0], tokenizer());
+        assertEquals("<a>ent</a>", o.xmlText());
+
+        byte[] latin1 = FALLBACK_DOCS[1].getBytes(StandardCharsets.ISO_8859_1);
+        o = XmlObject.Factory.parse(new ByteArrayInputStream(latin1), tokenizer());
+        assertEquals("<a>\u00E9</a>", o.xmlText());
+    }
+
+    @Test
+    public void testMalformed() throws Exception {
+        for (String doc : MALFORMED_DOCS) {
+            String expected = null;
+            try {
+                parse(doc, new XmlOptions());
+            } catch (XmlException e) {
+                expected = e.getMessage();
+            }
+            assertNotNull(doc, expected);
+
+            try {
+                parse(doc, tokenizer());
+                fail(doc);
+            } catch (XmlException e) {
+                assertEquals(doc, expected, e.getMessage());
+            }
+        }
+    }
+
+    @Test
+    public void testLoadOptions() throws Exception {
+        String doc = "<a>\n  <b> x </b>\n  <!-- c -->\n</a>";
+        XmlOptions options = tokenizer().setLoadStripWhitespace().setLoadStripComments();
+        assertEquals("<a><b>x</b></a>", parse(doc, options).xmlText());
+
+        XmlObject o = parse(doc, tokenizer().setLoadLineNumbers());
+        XmlCursor c = o.newCursor();
+        try {
+            c.toFirstChild();
+            assertNotNull(c.getBookmark(XmlLineNumber.class));
+        } finally {
+            c.dispose();
+        }
+    }
+
+    @Test
+    public void testLargeDocument() throws Exception {
+        // just larger than the 16MB the tokenizer buffers, so the rest is streamed to the XMLReader
+        final int items = 260;
+        final byte[] text = new byte[1 << 16];
+        Arrays.fill(text, (byte) 'x');
+
+        InputStream is = new SequenceInputStream(new Enumeration<InputStream>() {
+            private int i = 0;
+
+            public boolean hasMoreElements() {
+                return i <= 3 * items + 1;
+            }
+
+            public InputStream nextElement() {
+                int part = i++;
+                if (part % 3 == 2 && part < 3 * items) {
+                    return new ByteArrayInputStream(text);
+                }
+                String s = (part == 0) ? "<a>" : (part == 3 * items + 1) ? "</a>" :
+                    (part % 3 == 1) ? "<item n='" + part / 3 + "'>" : "</item>";
+                return new ByteArrayInputStream(s.getBytes(StandardCharsets.UTF_8));
+            }
+        });
+
+        XmlObject o = XmlObject.Factory.parse(is, tokenizer());
+        XmlCursor c = o.newCursor();
+        try {
+            assertTrue(c.toFirstChild());
+            assertTrue(c.toLastChild());
+            assertEquals(String.valueOf(items - 1), c.getAttributeText(new QName("n")));
+            assertEquals(text.length, c.getTextValue().length());
+            assertEquals(items, o.selectPath("*/item").length);
+        } finally {
+            c.dispose();
+        }
+    }
+
+    private static XmlOptions tokenizer() {
+        return new XmlOptions().setLoadUseBuiltinTokenizer();
+    }
+
+    private static XmlObject parse(String doc, XmlOptions options) throws Exception {
+        byte[] bytes = doc.getBytes(StandardCharsets.UTF_8);
+        return XmlObject.Factory.parse(new ByteArrayInputStream(bytes), options);
+    }
+}
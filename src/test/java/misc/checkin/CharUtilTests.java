@@ -15,14 +15,17 @@
 
 package misc.checkin;
 
+import org.apache.xmlbeans.XmlCursor;
+import org.apache.xmlbeans.XmlObject;
+import org.apache.xmlbeans.XmlOptions;
 import org.apache.xmlbeans.impl.store.CharUtil;
 import org.junit.Test;
+import org.w3c.dom.Node;
 
 import java.util.ArrayList;
 import java.util.Random;
 
-import static org.junit.Assert.assertEquals;
-import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.*;
 
 public class CharUtilTests
 {
@@ -234,6 +237,101 @@ public class CharUtilTests
 
     private Random _rnd = new Random( 0 );
 
+    @Test
+    public void testCompactText() {
+        CharUtil cu = new CharUtil(64, true);
+        ArrayList<Triple> triples = new ArrayList<>();
+        ArrayList<String> strings = new ArrayList<>();
+
+        for (int iter = 0; iter < 2000; iter++) {
+            if (triples.size() < 2 || rnd(3) == 0) {
+                // every fourth text needs widening
+                String s = randomString() + (rnd(4) == 0 ? "\u20ac" : "\u00e9");
+                Object src = cu.saveChars(s.toCharArray(), 0, s.length());
+                triples.add(new Triple(src, cu._offSrc, cu._cchSrc));
+                strings.add(s);
+                continue;
+            }
+
+            int i = rnd(triples.size());
+            int j = rnd(triples.size());
+            Triple ti = triples.get(i);
+            Triple tj = triples.get(j);
+
+            if (rnd(2) == 0) {
+                int off = rnd(ti._cch + 1);
+                Object src = cu.insertChars(off, ti._src, ti._off, ti._cch, tj._src, tj._off, tj._cch);
+                triples.set(i, new Triple(src, cu._offSrc, cu._cchSrc));
+                String si = strings.get(i);
+                strings.set(i, si.substring(0, off) + strings.get(j) + si.substring(off));
+            } else {
+                int off = rnd(ti._cch + 1);
+                int cch = rnd(ti._cch - off + 1);
+                Object src = cu.removeChars(off, cch, ti._src, ti._off, ti._cch);
+                triples.set(i, new Triple(src, cu._offSrc, cu._cchSrc));
+                String si = strings.get(i);
+                strings.set(i, si.substring(0, off) + si.substring(off + cch));
+            }
+
+            Triple t = triples.get(i);
+            String expected = strings.get(i);
+            assertEquals(expected, CharUtil.getString(t._src, t._off, t._cch));
+
+            char[] chars = new char[t._cch];
+            CharUtil.getChars(chars, 0, t._src, t._off, t._cch);
+            assertEquals(expected, new String(chars));
+
+            StringBuilder sb = new StringBuilder();
+            for (CharUtil.CharIterator it = cu.getCharIterator(t._src, t._off, t._cch); it.hasNext(); ) {
+                sb.append(it.next());
+            }
+            assertEquals(expected, sb.toString());
+        }
+
+        Object src = cu.saveChars("  a b  ".toCharArray(), 0, 7);
+        assertTrue(src instanceof byte[]);
+        src = cu.stripLeft(src, cu._offSrc, cu._cchSrc);
+        src = cu.stripRight(src, cu._offSrc, cu._cchSrc);
+        assertEquals("a b", CharUtil.getString(src, cu._offSrc, cu._cchSrc));
+        assertTrue(cu.isWhiteSpace(cu.saveChars(" \n\t".toCharArray(), 0, 3), cu._offSrc, cu._cchSrc));
+    }
+
+    @Test
+    public void testCompactStore() throws Exception {
+        String xml =
+            "<doc a='caf\u00e9'>" +
+            "<latin>na\u00efve text</latin>" +
+            "<wide>\u20ac 5 \u65e5\u672c</wide>" +
+            "<mixed>abc<!-- comment --><?pi data?>def</mixed>" +
+            "</doc>";
+
+        XmlObject normal = XmlObject.Factory.parse(xml);
+        XmlObject compact = XmlObject.Factory.parse(xml, new XmlOptions().setLoadCompactText());
+        assertEquals(normal.xmlText(), compact.xmlText());
+
+        XmlCursor c = compact.newCursor();
+        try {
+            c.toFirstChild();
+            assertEquals("caf\u00e9", c.getAttributeText(new javax.xml.namespace.QName("a")));
+            c.toFirstChild();
+            assertEquals("na\u00efve text", c.getTextValue());
+
+            Node text = c.getDomNode().getFirstChild();
+            assertEquals("na\u00efve text", text.getNodeValue());
+
+            c.toFirstContentToken();
+            c.toNextChar(3);
+            c.insertChars("\u2013");
+            c.toParent();
+            assertEquals("na\u00ef\u2013ve text", c.getTextValue());
+
+            c.toNextSibling();
+            assertEquals("\u20ac 5 \u65e5\u672c", c.getTextValue());
+        } finally {
+            c.dispose();
+        }
+    }
+
     @Test
     public void testThreadLocal() {
         assertNotNull("Should always get a CharUtil from ThreadLocals", CharUtil.getThreadLocalCharUtil());
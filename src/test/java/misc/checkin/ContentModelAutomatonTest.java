@@ -0,0 +1,152 @@
+/*   Copyright 2004 The Apache Software Foundation
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package misc.checkin;
+
+import org.apache.xmlbeans.*;
+import org.apache.xmlbeans.impl.schema.ContentModelAutomaton;
+import org.apache.xmlbeans.impl.schema.SchemaTypeImpl;
+import org.apache.xmlbeans.impl.schema.SchemaTypeVisitorImpl;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import javax.xml.namespace.QName;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ContentModelAutomatonTest {
+    private static final String NS = "urn:cma";
+
+    private static final String SCHEMA =
+        "<xs:schema xmlns:xs='http://www.w3.org/2001/XMLSchema' xmlns:t='urn:cma' targetNamespace='urn:cma' elementFormDefault='qualified'>" +
+        "  <xs:element name='head' type='xs:string'/>" +
+        "  <xs:element name='member' type='xs:string' substitutionGroup='t:head'/>" +
+        "  <xs:complexType name='seq'><xs:sequence>" +
+        "    <xs:element name='a' type='xs:string'/>" +
+        "    <xs:element name='b' type='xs:string' minOccurs='0' maxOccurs='3'/>" +
+        "    <xs:element name='c' type='xs:string' minOccurs='2' maxOccurs='unbounded'/>" +
+        "  </xs:sequence></xs:complexType>" +
+        "  <xs:complexType name='nested'><xs:sequence minOccurs='0' maxOccurs='unbounded'>" +
+        "    <xs:choice maxOccurs='2'>" +
+        "      <xs:element name='a' type='xs:string'/>" +
+        "      <xs:sequence><xs:element name='b' type='xs:string'/><xs:element name='c' type='xs:string' minOccurs='0'/></xs:sequence>" +
+        "    </xs:choice>" +
+        "    <xs:element name='d' type='xs:string'/>" +
+        "  </xs:sequence></xs:complexType>" +
+        "  <xs:complexType name='wild'><xs:sequence>" +
+        "    <xs:element ref='t:head' maxOccurs='2'/>" +
+        "    <xs:any namespace='##other' processContents='skip' minOccurs='0' maxOccurs='unbounded'/>" +
+        "    <xs:element name='a' type='xs:string' minOccurs='0'/>" +
+        "  </xs:sequence></xs:complexType>" +
+        "  <xs:complexType name='all'><xs:all>" +
+        "    <xs:element name='a' type='xs:string'/>" +
+        "    <xs:element name='b' type='xs:string' minOccurs='0'/>" +
+        "  </xs:all></xs:complexType>" +
+        "  <xs:element name='root'><xs:complexType><xs:sequence>" +
+        "    <xs:element name='seq' type='t:seq'/>" +
+        "  </xs:sequence></xs:complexType></xs:element>" +
+        "</xs:schema>";
+
+    private static final QName[] NAMES = {
+        new QName(NS, "a"), new QName(NS, "b"), new QName(NS, "c"), new QName(NS, "d"),
+        new QName(NS, "head"), new QName(NS, "member"), new QName("urn:other", "x")
+    };
+
+    private static SchemaTypeSystem sts;
+
+    @BeforeClass
+    public static void compile() throws Exception {
+        sts = XmlBeans.compileXsd(new XmlObject[]{XmlObject.Factory.parse(SCHEMA)},
+            XmlBeans.getBuiltinTypeSystem(), null);
+    }
+
+    @Test
+    public void testSameAsVisitor() {
+        for (String type : new String[]{"seq", "nested", "wild"}) {
+            SchemaTypeImpl t = (SchemaTypeImpl) sts.findType(new QName(NS, type));
+            ContentModelAutomaton automaton = t.getContentModelAutomaton();
+            assertNotNull(type, automaton);
+
+            for (List<QName> names : sequences(5)) {
+                checkSequence(type, t.getContentModel(), automaton, names);
+            }
+        }
+    }
+
+    @Test
+    public void testNotCompiled() {
+        SchemaTypeImpl all = (SchemaTypeImpl) sts.findType(new QName(NS, "all"));
+        assertNull(all.getContentModelAutomaton());
+    }
+
+    @Test
+    public void testValidation() throws Exception {
+        String valid = "<t:root xmlns:t='urn:cma'><t:seq><t:a/><t:b/><t:c/><t:c/><t:c/></t:seq></t:root>";
+        assertTrue(parse(valid).validate());
+
+        List<XmlError> errors = new ArrayList<>();
+        String invalid = "<t:root xmlns:t='urn:cma'><t:seq><t:a/><t:c/><t:b/></t:seq></t:root>";
+        assertFalse(parse(invalid).validate(new XmlOptions().setErrorListener(errors)));
+        assertEquals(2, errors.size());
+        assertEquals("cvc-complex-type.2.4a", errors.get(0).getErrorCode());
+        assertEquals("cvc-complex-type.2.4c", errors.get(1).getErrorCode());
+    }
+
+    private static XmlObject parse(String xml) throws XmlException {
+        return sts.parse(xml, null, null);
+    }
+
+    private static void checkSequence(String type, SchemaParticle model, ContentModelAutomaton automaton, List<QName> names) {
+        SchemaTypeVisitorImpl visitor = new SchemaTypeVisitorImpl(model);
+        int state = ContentModelAutomaton.START;
+
+        for (QName name : names) {
+            boolean visited = visitor.visit(name);
+            int next = automaton.next(state, name);
+            assertEquals(type + " " + names, visited, next >= 0);
+            if (!visited) {
+                return;
+            }
+            assertSame(type + " " + names, visitor.currentParticle(), automaton.getParticle(next));
+            state = next;
+        }
+
+        assertEquals(type + " " + names, visitor.visit(null), automaton.isAccepting(state));
+    }
+
+    private static List<List<QName>> sequences(int maxLength) {
+        List<List<QName>> result = new ArrayList<>();
+        List<List<QName>> last = new ArrayList<>();
+        last.add(new ArrayList<>());
+        result.addAll(last);
+
+        for (int i = 0; i < maxLength; i++) {
+            List<List<QName>> longer = new ArrayList<>();
+            for (List<QName> prefix : last) {
+                for (QName name : NAMES) {
+                    List<QName> seq = new ArrayList<>(prefix);
+                    seq.add(name);
+                    longer.add(seq);
+                }
+            }
+            result.addAll(longer);
+            last = longer;
+        }
+
+        return result;
+    }
+}
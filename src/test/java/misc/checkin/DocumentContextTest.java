@@ -0,0 +1,66 @@
+/*   Copyright 2004 The Apache Software Foundation
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package misc.checkin;
+
+import org.apache.xmlbeans.*;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class DocumentContextTest {
+    private static final String DOC = "<order id='1'><item>a</item><qty>2</qty></order>";
+
+    @Test
+    public void testContextIsReused() throws Exception {
+        XmlDocumentContext context = XmlBeans.newDocumentContext();
+        XmlOptions options = new XmlOptions().setDocumentContext(context);
+
+        XmlObject first = XmlObject.Factory.parse(DOC, options);
+        XmlObject second = XmlObject.Factory.parse(DOC, options);
+        assertSame(first.monitor(), second.monitor());
+        assertNotSame(first.monitor(), XmlObject.Factory.parse(DOC).monitor());
+
+        context.reset();
+        XmlObject third = XmlObject.Factory.parse(DOC, options);
+        assertSame(first.monitor(), third.monitor());
+
+        // the documents parsed before the reset are still usable
+        XmlCursor c = first.newCursor();
+        try {
+            c.toFirstChild();
+            c.toFirstChild();
+            c.setTextValue("b");
+        } finally {
+            c.dispose();
+        }
+        assertEquals("<order id=\"1\"><item>b</item><qty>2</qty></order>", first.xmlText());
+        assertEquals("<order id=\"1\"><item>a</item><qty>2</qty></order>", third.xmlText());
+    }
+
+    @Test
+    public void testIncompatibleOptions() throws Exception {
+        XmlDocumentContext context = XmlBeans.newDocumentContext();
+
+        XmlObject frozen = XmlObject.Factory.parse(DOC, new XmlOptions().setDocumentContext(context).setLoadFrozen());
+        XmlObject doc = XmlObject.Factory.parse(DOC, new XmlOptions().setDocumentContext(context));
+        assertNotSame(frozen.monitor(), doc.monitor());
+        assertFalse(doc.isImmutable());
+
+        XmlObject validating = XmlObject.Factory.parse(DOC,
+            new XmlOptions().setDocumentContext(context).setValidateOnSet());
+        assertNotSame(doc.monitor(), validating.monitor());
+    }
+}
@@ -0,0 +1,154 @@
+/*   Copyright 2004 The Apache Software Foundation
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package misc.checkin;
+
+import org.apache.xmlbeans.*;
+import org.apache.xmlbeans.impl.schema.SchemaTypeImpl;
+import org.apache.xmlbeans.impl.values.XmlValueOutOfRangeException;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import javax.xml.namespace.QName;
+import java.util.Set;
+import java.util.function.Function;
+
+import static org.junit.Assert.*;
+
+public class EnumerationValueSetTest {
+    private static final String NS = "urn:enum";
+    private static final int CODES = 5000;
+    private static final Function<XmlAnySimpleType, String> KEY = XmlAnySimpleType::getStringValue;
+
+    private static SchemaTypeSystem sts;
+
+    @BeforeClass
+    public static void compile() throws Exception {
+        StringBuilder codes = new StringBuilder();
+        for (int i = 0; i < CODES; i++) {
+            codes.append("<xs:enumeration value='C").append(i).append("'/>");
+        }
+
+        String schema =
+            "<xs:schema xmlns:xs='http://www.w3.org/2001/XMLSchema' xmlns:t='urn:enum' targetNamespace='urn:enum'>" +
+            "  <xs:simpleType name='code'><xs:restriction base='xs:string'>" + codes + "</xs:restriction></xs:simpleType>" +
+            "  <xs:simpleType name='subcode'><xs:restriction base='t:code'><xs:maxLength value='3'/></xs:restriction></xs:simpleType>" +
+            "  <xs:simpleType name='int'><xs:restriction base='xs:int'>" +
+            "    <xs:enumeration value='1'/><xs:enumeration value='-7'/></xs:restriction></xs:simpleType>" +
+            "  <xs:simpleType name='long'><xs:restriction base='xs:long'>" +
+            "    <xs:enumeration value='10000000000'/></xs:restriction></xs:simpleType>" +
+            "  <xs:simpleType name='integer'><xs:restriction base='xs:integer'>" +
+            "    <xs:enumeration value='100000000000000000000'/></xs:restriction></xs:simpleType>" +
+            "  <xs:simpleType name='decimal'><xs:restriction base='xs:decimal'>" +
+            "    <xs:enumeration value='1.50'/><xs:enumeration value='0.0'/><xs:enumeration value='200'/></xs:restriction></xs:simpleType>" +
+            "  <xs:simpleType name='double'><xs:restriction base='xs:double'>" +
+            "    <xs:enumeration value='2.5'/><xs:enumeration value='NaN'/></xs:restriction></xs:simpleType>" +
+            "  <xs:simpleType name='float'><xs:restriction base='xs:float'>" +
+            "    <xs:enumeration value='0.5'/></xs:restriction></xs:simpleType>" +
+            "  <xs:simpleType name='qname'><xs:restriction base='xs:QName'>" +
+            "    <xs:enumeration value='t:a'/></xs:restriction></xs:simpleType>" +
+            "  <xs:simpleType name='uri'><xs:restriction base='xs:anyURI'>" +
+            "    <xs:enumeration value='http://a/b'/></xs:restriction></xs:simpleType>" +
+            "</xs:schema>";
+
+        sts = XmlBeans.compileXsd(new XmlObject[]{XmlObject.Factory.parse(schema)},
+            XmlBeans.getBuiltinTypeSystem(), null);
+    }
+
+    @Test
+    public void testValueSet() {
+        SchemaTypeImpl code = (SchemaTypeImpl) type("code");
+        Set<Object> values = code.getEnumerationValueSet(KEY);
+        assertNotNull(values);
+        assertEquals(CODES, values.size());
+        assertTrue(values.contains("C4999"));
+        assertSame(values, code.getEnumerationValueSet(KEY));
+
+        SchemaTypeImpl noEnum = (SchemaTypeImpl) XmlString.type;
+        assertNull(noEnum.getEnumerationValueSet(KEY));
+    }
+
+    @Test
+    public void testValidation() throws Exception {
+        valid("code", "C0", "C4999");
+        invalid("code", "C5000", "c1", "");
+        valid("subcode", "C99");
+        invalid("subcode", "C999", "X");
+        valid("int", "1", "-7", "+1");
+        invalid("int", "2", "0");
+        valid("long", "10000000000");
+        invalid("long", "10000000001");
+        valid("integer", "100000000000000000000");
+        invalid("integer", "100000000000000000001");
+        valid("decimal", "1.5", "1.500", "0", "-0.00", "200", "200.0");
+        invalid("decimal", "1.55", "2", "20");
+        valid("double", "2.5", "25E-1", "NaN");
+        invalid("double", "2.6", "INF");
+        valid("float", "0.5", "5E-1");
+        invalid("float", "0.25");
+        valid("uri", "http://a/b");
+        invalid("uri", "http://a/c");
+    }
+
+    @Test
+    public void testQName() throws Exception {
+        assertTrue(parse("qname", "<xml-fragment xmlns:p='urn:enum'>p:a</xml-fragment>").validate());
+        assertFalse(parse("qname", "<xml-fragment xmlns:p='urn:enum'>p:b</xml-fragment>").validate());
+        assertFalse(parse("qname", "<xml-fragment xmlns:p='urn:other'>p:a</xml-fragment>").validate());
+    }
+
+    @Test
+    public void testValidateOnSet() {
+        XmlOptions options = new XmlOptions().setValidateOnSet();
+        SimpleValue code = (SimpleValue) sts.newInstance(type("code"), options);
+        code.setStringValue("C42");
+        assertEquals("C42", code.getStringValue());
+        try {
+            code.setStringValue("C5001");
+            fail();
+        } catch (XmlValueOutOfRangeException e) {
+            // expected
+        }
+
+        SimpleValue dec = (SimpleValue) sts.newInstance(type("decimal"), options);
+        dec.setStringValue("1.500");
+        try {
+            dec.setStringValue("1.51");
+            fail();
+        } catch (XmlValueOutOfRangeException e) {
+            // expected
+        }
+    }
+
+    private static SchemaType type(String name) {
+        return sts.findType(new QName(NS, name));
+    }
+
+    private static XmlObject parse(String type, String xml) throws XmlException {
+        return sts.parse(xml, type(type), null);
+    }
+
+    private static void valid(String type, String... values) throws XmlException {
+        for (String v : values) {
+            assertTrue(type + " " + v, parse(type, "<xml-fragment>" + v + "</xml-fragment>").validate());
+        }
+    }
+
+    private static void invalid(String type, String... values) throws XmlException {
+        for (String v : values) {
+            assertFalse(type + " " + v, parse(type, "<xml-fragment>" + v + "</xml-fragment>").validate());
+        }
+    }
+}
@@ -0,0 +1,114 @@
+/*   Copyright 2004 The Apache Software Foundation
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package misc.checkin;
+
+import org.apache.xmlbeans.ResourceLoader;
+import org.apache.xmlbeans.SchemaType;
+import org.apache.xmlbeans.SchemaTypeLoader;
+import org.apache.xmlbeans.SchemaTypeSystem;
+import org.apache.xmlbeans.XmlBeans;
+import org.apache.xmlbeans.XmlObject;
+import org.apache.xmlbeans.XmlOptions;
+import org.apache.xmlbeans.impl.schema.FileResourceLoader;
+import org.apache.xmlbeans.impl.util.FilerImpl;
+import org.junit.Test;
+
+import javax.xml.namespace.QName;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.nio.file.Files;
+
+import static org.junit.Assert.*;
+
+public class FileResourceLoaderTest {
+    private static final String SCHEMA =
+        "<xs:schema xmlns:xs='http://www.w3.org/2001/XMLSchema' targetNamespace='urn:frl' xmlns='urn:frl' elementFormDefault='qualified'>" +
+        "  <xs:element name='root' type='rootType'/>" +
+        "  <xs:complexType name='rootType'>" +
+        "    <xs:sequence><xs:element name='item' type='xs:int' maxOccurs='unbounded'/></xs:sequence>" +
+        "  </xs:complexType>" +
+        "</xs:schema>";
+
+    @Test
+    public void testLoadFromDirectory() throws Exception {
+        File dir = Files.createTempDirectory("xbean-frl").toFile();
+        String basePath = compileTo(dir, new XmlOptions());
+        assertTrue(new File(dir, basePath + "index.xsb").isFile());
+        checkLoad(dir);
+    }
+
+    @Test
+    public void testLoadBundleFromDirectory() throws Exception {
+        File dir = Files.createTempDirectory("xbean-frl").toFile();
+        String basePath = compileTo(dir, new XmlOptions().setCompileTypeSystemBundle());
+        assertFalse(new File(dir, basePath + "index.xsb").exists());
+        assertTrue(new File(dir, basePath + "typesystem.xsbundle").isFile());
+        checkLoad(dir);
+    }
+
+    @Test
+    public void testRewriteWhileOpen() throws Exception {
+        File dir = Files.createTempDirectory("xbean-frl").toFile();
+        File file = new File(dir, "large.xsb");
+        byte[] content = new byte[256 * 1024];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) i;
+        }
+        Files.write(file.toPath(), content);
+
+        FileResourceLoader rl = new FileResourceLoader(dir);
+        try (InputStream is = rl.getResourceAsStream("large.xsb")) {
+            // the file can be rewritten, while a stream of it is in use
+            Files.write(file.toPath(), new byte[]{1, 2, 3});
+            assertTrue(file.delete());
+
+            ByteArrayOutputStream bos = new ByteArrayOutputStream();
+            byte[] buf = new byte[4096];
+            for (int n; (n = is.read(buf)) > 0; ) {
+                bos.write(buf, 0, n);
+            }
+            assertArrayEquals(content, bos.toByteArray());
+        } finally {
+            rl.close();
+        }
+        assertNull(rl.getResourceAsStream("large.xsb"));
+    }
+
+    private static String compileTo(File dir, XmlOptions opts) throws Exception {
+        opts.setCompileNoPvrRule();
+        SchemaTypeSystem sts = XmlBeans.compileXsd(new XmlObject[]{XmlObject.Factory.parse(SCHEMA)},
+            XmlBeans.getBuiltinTypeSystem(), opts);
+        sts.save(new FilerImpl(dir, dir, null, false, false));
+        return sts.getName().replace('.', '/') + "/";
+    }
+
+    private static void checkLoad(File dir) throws Exception {
+        ResourceLoader rl = XmlBeans.resourceLoaderForPath(new File[]{dir});
+        try {
+            SchemaTypeLoader stl = XmlBeans.typeLoaderForResource(rl);
+            SchemaType root = stl.findType(new QName("urn:frl", "rootType"));
+            assertNotNull(root);
+            assertEquals(1, root.getProperties().length);
+
+            XmlObject doc = stl.parse("<root xmlns='urn:frl'><item>1</item><item>2</item></root>", null, null);
+            assertEquals(stl.findDocumentType(new QName("urn:frl", "root")), doc.schemaType());
+            assertTrue(doc.validate());
+        } finally {
+            rl.close();
+        }
+    }
+}
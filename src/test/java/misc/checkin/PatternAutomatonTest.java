@@ -0,0 +1,116 @@
+/*   Copyright 2004 The Apache Software Foundation
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package misc.checkin;
+
+import org.apache.xmlbeans.*;
+import org.apache.xmlbeans.impl.regex.RegularExpression;
+import org.junit.Test;
+
+import javax.xml.namespace.QName;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+public class PatternAutomatonTest {
+    private static final String[] PATTERNS = {
+        "", "a", "abc", "a{0}", "x|", "a?b+c{2,3}", "(a|b)*abb", "(ab|a)(bc|c)", "((ab)*b)?",
+        "(a{2,}b?){1,3}", "[A-Z]{2}[0-9]{4}", "\\d{3}-\\d{2}-\\d{4}", "(\\d+\\.)?\\d+",
+        "[\\-+]?\\d{1,3}(,\\d{3})*", "\\w+@\\w+\\.[a-z]{2,4}", "[^abc]+", "[a-z-[aeiou]]+",
+        ".*x.*", ".", "\\s*\\S+", "\\p{Lu}\\p{Ll}*", "\\P{L}+", "[\\i-[:]][\\c-[:]]*",
+        "\\i\\c*", "[\u00C0-\u00FF]+", "\\c{1,20}", "(a|ab|abc){2,5}c?", "[ab]{1,100}",
+    };
+
+    private static final String ALPHABET = "aAbcxz09-.,:@ _\u00E9\u00C0\n\u2028\uD834\uDD1E";
+
+    @Test
+    public void testSameAsBacktracking() {
+        Random random = new Random(42);
+
+        for (String pattern : PATTERNS) {
+            RegularExpression re = new RegularExpression(pattern, "X");
+
+            for (int i = 0; i < 3000; i++) {
+                String s = randomString(random, random.nextInt(9));
+                // matching a range doesn't use the automaton
+                assertEquals(pattern + " '" + s + "'", re.matches(s, 0, s.length()), re.matches(s));
+            }
+        }
+    }
+
+    @Test
+    public void testMatches() {
+        RegularExpression re = new RegularExpression("[A-Z]{2}-\\d{4}", "X");
+        assertTrue(re.matches("AB-1234"));
+        assertFalse(re.matches("AB-123"));
+        assertFalse(re.matches("ab-1234"));
+        assertFalse(re.matches("AB-12345"));
+
+        re = new RegularExpression(".+", "X");
+        assertTrue(re.matches("\uD834\uDD1E"));
+        assertFalse(re.matches("a\nb"));
+    }
+
+    @Test
+    public void testConcurrentValidation() throws Exception {
+        String schema =
+            "<xs:schema xmlns:xs='http://www.w3.org/2001/XMLSchema' targetNamespace='urn:pat'>" +
+            "  <xs:simpleType name='code'><xs:restriction base='xs:string'>" +
+            "    <xs:pattern value='[A-Z]{2}-\\d{4}'/></xs:restriction></xs:simpleType>" +
+            "</xs:schema>";
+        SchemaTypeSystem sts = XmlBeans.compileXsd(new XmlObject[]{XmlObject.Factory.parse(schema)},
+            XmlBeans.getBuiltinTypeSystem(), null);
+        SchemaType code = sts.findType(new QName("urn:pat", "code"));
+
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                results.add(pool.submit(() -> {
+                    int valid = 0;
+                    for (int i = 0; i < 2000; i++) {
+                        if (code.matchPatternFacet(i % 2 == 0 ? "AB-" + (1000 + i % 9000) : "A-" + i)) {
+                            valid++;
+                        }
+                    }
+                    return valid;
+                }));
+            }
+            for (Future<Integer> result : results) {
+                assertEquals(1000, result.get().intValue());
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static String randomString(Random random, int length) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            int j = random.nextInt(ALPHABET.length());
+            char ch = ALPHABET.charAt(j);
+            sb.append(ch);
+            if (Character.isHighSurrogate(ch) && random.nextBoolean()) {
+                sb.append(ALPHABET.charAt(j + 1));
+            }
+        }
+        return sb.toString();
+    }
+}
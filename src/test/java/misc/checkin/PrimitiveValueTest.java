@@ -0,0 +1,141 @@
+/*   Copyright 2004 The Apache Software Foundation
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package misc.checkin;
+
+import org.apache.xmlbeans.*;
+import org.apache.xmlbeans.impl.util.XsTypeConverter;
+import org.apache.xmlbeans.impl.values.XmlValueOutOfRangeException;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * The primitive values are parsed straight from the text of the store,
+ * these tests compare them with the values parsed from the text as a String.
+ */
+public class PrimitiveValueTest {
+    private static final String[] INTS = {
+        "0", "7", "-7", "+7", " 42 ", "\n\t-2147483648\r\n", "2147483647", "007"
+    };
+
+    private static final String[] BAD_INTS = {
+        "2147483648", "-2147483649", "1 2", "+-5", "1.0", "abc"
+    };
+
+    private static final String[] LONGS = {
+        "0", "-1", "+1", " 9223372036854775807", "-9223372036854775808 ", "0000000000000000000001"
+    };
+
+    private static final String[] BAD_LONGS = {
+        "9223372036854775808", "-9223372036854775809", "+-5", "+", "5L"
+    };
+
+    private static final String[] DOUBLES = {
+        "0", "-0", "1.5", "-12.50", ".5", "5.", "+3.25", "0.1", "123456789012345", "1234567890123456",
+        "0.3333333333333333", "1e10", "1.5E-7", "INF", "-INF", "NaN", " 2.75 ", "1.0000000000000000000001"
+    };
+
+    @Test
+    public void testInt() throws Exception {
+        for (String s : INTS) {
+            XmlInt x = XmlInt.Factory.parse(fragment(s));
+            assertEquals(s, XsTypeConverter.lexInt(s.trim()), x.getIntValue());
+        }
+
+        for (String s : BAD_INTS) {
+            XmlInt x = XmlInt.Factory.parse(fragment(s));
+            try {
+                x.getIntValue();
+                fail(s);
+            } catch (XmlValueOutOfRangeException e) {
+            }
+        }
+    }
+
+    @Test
+    public void testLong() throws Exception {
+        for (String s : LONGS) {
+            XmlLong x = XmlLong.Factory.parse(fragment(s));
+            assertEquals(s, Long.parseLong(s.trim()), x.getLongValue());
+        }
+
+        for (String s : BAD_LONGS) {
+            XmlLong x = XmlLong.Factory.parse(fragment(s));
+            try {
+                x.getLongValue();
+                fail(s);
+            } catch (XmlValueOutOfRangeException e) {
+            }
+        }
+    }
+
+    @Test
+    public void testDouble() throws Exception {
+        for (String s : DOUBLES) {
+            XmlDouble x = XmlDouble.Factory.parse(fragment(s));
+            // compare the bits, so -0.0 and NaN are checked too
+            assertEquals(s, Double.doubleToLongBits(XsTypeConverter.lexDouble(s.trim())),
+                Double.doubleToLongBits(x.getDoubleValue()));
+        }
+    }
+
+    @Test
+    public void testBoolean() throws Exception {
+        assertTrue(XmlBoolean.Factory.parse(fragment(" true ")).getBooleanValue());
+        assertTrue(XmlBoolean.Factory.parse(fragment("1")).getBooleanValue());
+        assertFalse(XmlBoolean.Factory.parse(fragment("false")).getBooleanValue());
+        assertFalse(XmlBoolean.Factory.parse(fragment("0")).getBooleanValue());
+
+        XmlBoolean x = XmlBoolean.Factory.parse(fragment("yes"));
+        try {
+            x.getBooleanValue();
+            fail();
+        } catch (XmlValueOutOfRangeException e) {
+        }
+    }
+
+    @Test
+    public void testChangedText() throws Exception {
+        for (boolean compact : new boolean[]{false, true}) {
+            XmlOptions options = new XmlOptions().setLoadCompactText(compact);
+            XmlInt x = XmlInt.Factory.parse(fragment("12"), options);
+            assertEquals(12, x.getIntValue());
+
+            // the text is split into several chunks
+            XmlCursor c = x.newCursor();
+            try {
+                c.toEndToken();
+                c.insertChars("34");
+                assertEquals(1234, x.getIntValue());
+
+                c.toStartDoc();
+                c.toFirstContentToken();
+                c.insertChars(" -");
+                assertEquals(-1234, x.getIntValue());
+            } finally {
+                c.dispose();
+            }
+
+            x.setIntValue(5);
+            assertEquals(5, x.getIntValue());
+            assertEquals("5", x.getStringValue());
+        }
+    }
+
+    private static String fragment(String s) {
+        return "<xml-fragment>" + s + "</xml-fragment>";
+    }
+}
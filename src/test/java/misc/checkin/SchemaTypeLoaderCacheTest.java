@@ -0,0 +1,74 @@
+/*   Copyright 2004 The Apache Software Foundation
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package misc.checkin;
+
+import org.apache.xmlbeans.SchemaType;
+import org.apache.xmlbeans.impl.schema.SchemaTypeLoaderImpl;
+import org.junit.Test;
+
+import javax.xml.namespace.QName;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+public class SchemaTypeLoaderCacheTest {
+    private static final QName CUSTOMER = new QName("http://openuri.org/easypo", "customer");
+    private static final QName UNKNOWN = new QName("http://openuri.org/easypo", "unknown-type");
+
+    @Test
+    public void testHitsAndMisses() {
+        SchemaTypeLoaderImpl stl = SchemaTypeLoaderImpl.getContextTypeLoader();
+
+        // the first lookup may have been done by another test already
+        SchemaType customer = stl.findType(CUSTOMER);
+        assertNotNull(customer);
+        assertNull(stl.findType(UNKNOWN));
+
+        long hits = stl.getCacheHitCount();
+        long misses = stl.getCacheMissCount();
+
+        assertSame(customer, stl.findType(CUSTOMER));
+        assertNull(stl.findType(UNKNOWN));
+
+        assertEquals(hits + 2, stl.getCacheHitCount());
+        assertEquals(misses, stl.getCacheMissCount());
+    }
+
+    @Test
+    public void testConcurrentLookups() throws Exception {
+        SchemaTypeLoaderImpl stl = SchemaTypeLoaderImpl.getContextTypeLoader();
+        QName lineItem = new QName("http://openuri.org/easypo", "line-item");
+
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<SchemaType>> results = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                results.add(pool.submit(() -> stl.findType(lineItem)));
+            }
+            SchemaType expected = stl.findType(lineItem);
+            assertNotNull(expected);
+            for (Future<SchemaType> f : results) {
+                assertSame(expected, f.get());
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -17,6 +17,7 @@ package misc.checkin;
 
 import org.apache.xmlbeans.SchemaTypeLoader;
 import org.apache.xmlbeans.XmlBeans;
+import org.apache.xmlbeans.XmlCursor;
 import org.apache.xmlbeans.XmlObject;
 import org.junit.Assert;
 import org.junit.Test;
@@ -90,5 +91,50 @@ public class ThreadingTest {
                     threads[i].getResult());
         }
     }
+
+    @Test(timeout = 60000)
+    public void testCrossDocumentCopies() throws Throwable {
+        XmlObject[] docs = new XmlObject[THREAD_COUNT];
+        for (int i = 0; i < docs.length; i++) {
+            docs[i] = XmlObject.Factory.parse("<a><b>" + i + "</b></a>");
+        }
+
+        // each thread copies between neighbouring documents, in both directions
+        Thread[] threads = new Thread[THREAD_COUNT];
+        Throwable[] exceptions = new Throwable[THREAD_COUNT];
+        for (int i = 0; i < threads.length; i++) {
+            final int n = i;
+            threads[i] = new Thread(() -> {
+                try {
+                    for (int j = 0; j < 1000; j++) {
+                        XmlObject from = docs[(n + j % 2) % docs.length];
+                        XmlObject to = docs[(n + 1 - j % 2) % docs.length];
+                        XmlCursor src = from.newCursor();
+                        XmlCursor dst = to.newCursor();
+                        src.toFirstChild();
+                        dst.toFirstChild();
+                        src.copyXmlContents(dst);
+                        src.dispose();
+                        dst.dispose();
+                        to.valueEquals(from);
+                    }
+                } catch (Throwable t) {
+                    exceptions[n] = t;
+                }
+            });
+        }
+
+        for (Thread t : threads) {
+            t.start();
+        }
+
+        for (Thread t : threads) {
+            t.join();
+        }
+
+        for (Throwable t : exceptions) {
+            assertNull(t);
+        }
+    }
 }
 
@@ -0,0 +1,76 @@
+/*   Copyright 2004 The Apache Software Foundation
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.xmlbeans.impl.store;
+
+import org.apache.xmlbeans.XmlOptions;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks which documents the builtin tokenizer loads itself, rather than
+ * handing them to an XMLReader.
+ */
+public class Utf8LoaderTest {
+    @Test
+    public void testNamespaceDeclarationsAfterAttributes() throws Exception {
+        // the first attribute slot of b is a declaration, which must not be
+        // compared with the uri of the first attribute of a
+        assertTrue(loads("<a p:x='1' xmlns:p='urn:p'><b xmlns:x='urn:x' p:x='2'/></a>"));
+        assertTrue(loads("<a p:x='1' xmlns:p='urn:p'><b xmlns='urn:x' p:x='2'/></a>"));
+    }
+
+    @Test
+    public void testDuplicateAttributes() throws Exception {
+        assertFalse(loads("<a x='1' x='2'/>"));
+        assertFalse(loads("<a xmlns:p='urn:p' xmlns:q='urn:p' p:x='1' q:x='2'/>"));
+        assertFalse(loads("<a xmlns:p='urn:p' xmlns:p='urn:q'/>"));
+    }
+
+    @Test
+    public void testAsciiDeclaration() throws Exception {
+        assertTrue(loads("<?xml version='1.0' encoding='US-ASCII'?><a>x</a>"));
+        assertFalse(loads("<?xml version='1.0' encoding='US-ASCII'?><a>\u00E9</a>"));
+        assertFalse(loads("<?xml version='1.0' encoding='ASCII'?><a x='\u00E9'/>"));
+        assertTrue(loads("<?xml version='1.0' encoding='UTF-8'?><a>\u00E9</a>"));
+    }
+
+    private static boolean loads(String doc) throws IOException {
+        XmlOptions options = new XmlOptions().setLoadUseBuiltinTokenizer();
+        Locale l = Locale.getLocale(null, options);
+
+        l.enter();
+
+        try {
+            Utf8Loader loader = Utf8Loader.getThreadLocal();
+            Cur c = loader.load(l, new ByteArrayInputStream(doc.getBytes(StandardCharsets.UTF_8)), options);
+
+            if (c == null) {
+                loader.takeInput();
+                return false;
+            }
+
+            c.release();
+            return true;
+        } finally {
+            l.exit();
+        }
+    }
+}
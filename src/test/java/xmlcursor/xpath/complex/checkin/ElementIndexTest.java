@@ -0,0 +1,108 @@
+/*   Copyright 2004 The Apache Software Foundation
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package xmlcursor.xpath.complex.checkin;
+
+import org.apache.xmlbeans.XmlCursor;
+import org.apache.xmlbeans.XmlObject;
+import org.apache.xmlbeans.XmlOptions;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ElementIndexTest {
+    private static final XmlOptions INDEX = new XmlOptions().setXPathUseElementIndex();
+
+    private static final String DOC =
+        "<r xmlns:p='urn:p'><a n='1'><b n='2'><a n='3'/></b></a><p:a n='4'/><c><a n='5'/></c></r>";
+
+    @Test
+    public void testMatchesWalk() throws Exception {
+        XmlObject doc = XmlObject.Factory.parse(DOC);
+        XmlObject r = doc.selectPath("r")[0];
+        XmlObject b = doc.selectPath(".//b")[0];
+
+        assertSelects(doc, new String[]{"1", "3", "5"}, ".//a");
+        assertSelects(r, new String[]{"1", "3", "5"}, ".//a");
+        assertSelects(r, new String[]{"4"}, "declare namespace q='urn:p'; $this//q:a");
+        assertSelects(r, new String[0], ".//x");
+        // nested contexts are walked
+        assertSelects(b, new String[]{"3"}, ".//a");
+    }
+
+    @Test
+    public void testContextExcluded() throws Exception {
+        XmlObject doc = XmlObject.Factory.parse("<a n='1'><a n='2'/></a>");
+        assertSelects(doc.selectPath("a")[0], new String[]{"2"}, ".//a");
+    }
+
+    @Test
+    public void testFragment() throws Exception {
+        XmlObject frag = XmlObject.Factory.parse("<r><a n='1'><a n='2'/></a><a n='3'><a n='4'/></a></r>",
+            new XmlOptions().setLoadReplaceDocumentElement(null));
+        assertSelects(frag, new String[]{"1", "2", "3", "4"}, ".//a");
+
+        XmlObject second = frag.selectPath("a")[1];
+        assertSelects(second, new String[]{"4"}, ".//a");
+    }
+
+    @Test
+    public void testRebuiltAfterChange() throws Exception {
+        XmlObject doc = XmlObject.Factory.parse(DOC);
+        assertEquals(3, doc.selectPath(".//a", INDEX).length);
+
+        XmlCursor c = doc.newCursor();
+        c.toFirstChild();
+        c.toFirstChild();
+        c.insertElementWithText("a", "text");
+        assertSelects(doc, new String[]{"", "1", "3", "5"}, ".//a");
+
+        // text changes leave the element structure alone
+        c.toParent();
+        c.toFirstChild();
+        c.setTextValue("changed");
+        c.dispose();
+        assertEquals("changed", text(doc.selectPath(".//a", INDEX)[0]));
+    }
+
+    @Test
+    public void testFrozen() throws Exception {
+        XmlObject doc = XmlObject.Factory.parse(DOC, new XmlOptions().setLoadFrozen(true));
+        assertSelects(doc, new String[]{"1", "3", "5"}, ".//a");
+    }
+
+    private static void assertSelects(XmlObject context, String[] expected, String path) {
+        XmlObject[] walked = context.selectPath(path);
+        XmlObject[] indexed = context.selectPath(path, INDEX);
+
+        assertEquals(expected.length, walked.length);
+        assertEquals(expected.length, indexed.length);
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i], attr(walked[i]));
+            assertEquals(expected[i], attr(indexed[i]));
+        }
+    }
+
+    private static String attr(XmlObject o) {
+        XmlObject n = o.selectAttribute("", "n");
+        return n == null ? "" : text(n);
+    }
+
+    private static String text(XmlObject o) {
+        XmlCursor c = o.newCursor();
+        String text = c.getTextValue();
+        c.dispose();
+        return text;
+    }
+}
@@ -0,0 +1,101 @@
+/*   Copyright 2004 The Apache Software Foundation
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package xmlcursor.xpath.complex.checkin;
+
+import org.apache.xmlbeans.XmlAnySimpleType;
+import org.apache.xmlbeans.XmlObject;
+import org.apache.xmlbeans.XmlOptions;
+import org.apache.xmlbeans.impl.xpath.XPathCache;
+import org.apache.xmlbeans.impl.xpath.XPathFactory;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.Assert.*;
+
+public class XPathCacheTest {
+    @Test
+    public void testPathCache() throws Exception {
+        XPathCache<?, ?> cache = XPathFactory.getPathCache();
+        XmlObject doc = XmlObject.Factory.parse("<a><b n='1'/><b n='2'/></a>");
+        String path = "$this//b[@n='2'][not(@testPathCache)]";
+
+        long misses = cache.getMissCount();
+        long hits = cache.getHitCount();
+        assertEquals(1, doc.selectPath(path).length);
+        assertEquals(misses + 1, cache.getMissCount());
+        assertEquals(1, doc.selectPath(path).length);
+        assertEquals(hits + 1, cache.getHitCount());
+
+        // the current node variable is part of the key
+        XmlOptions options = new XmlOptions().setXqueryCurrentNodeVar("cur");
+        assertEquals(1, doc.selectPath("$cur//b[@n='2'][not(@testPathCache)]", options).length);
+        assertEquals(misses + 2, cache.getMissCount());
+    }
+
+    @Test
+    public void testEviction() throws Exception {
+        XPathCache<?, ?> cache = XPathFactory.getPathCache();
+        XmlObject doc = XmlObject.Factory.parse("<a><b/></a>");
+
+        long evictions = cache.getEvictionCount();
+        for (int i = 0; i < cache.getCapacity() + 100; i++) {
+            doc.selectPath("$this/a/b[not(@testEviction" + i + ")]");
+        }
+        assertTrue(cache.getEvictionCount() > evictions);
+        // the bound is kept per segment
+        assertTrue(cache.size() <= cache.getCapacity() + 16);
+    }
+
+    @Test
+    public void testQueryNamespaces() throws Exception {
+        XmlObject doc = XmlObject.Factory.parse("<r xmlns:a='urn:a' xmlns:b='urn:b'><a:x>1</a:x><b:x>2</b:x></r>");
+        String query = "for $x in //p:x return data($x)";
+
+        XmlOptions options = new XmlOptions().setLoadAdditionalNamespaces(Collections.singletonMap("p", "urn:a"));
+        assertEquals("1", ((XmlAnySimpleType) doc.execQuery(query, options)[0]).getStringValue());
+
+        options.setLoadAdditionalNamespaces(Collections.singletonMap("p", "urn:b"));
+        assertEquals("2", ((XmlAnySimpleType) doc.execQuery(query, options)[0]).getStringValue());
+    }
+
+    @Test
+    public void testConcurrentUse() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                int n = t;
+                futures.add(executor.submit(() -> {
+                    XmlObject doc = XmlObject.Factory.parse("<a><b>" + n + "</b><c/></a>");
+                    for (int i = 0; i < 50; i++) {
+                        assertEquals(1, doc.selectPath("$this/a/b[not(@testConcurrentUse)]").length);
+                        XmlObject[] res = doc.execQuery("$this/a/b[not(@testConcurrentUse)]");
+                        assertEquals("<b>" + n + "</b>", res[0].xmlText());
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> f : futures) {
+                f.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
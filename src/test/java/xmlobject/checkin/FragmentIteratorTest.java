@@ -0,0 +1,117 @@
+/*   Copyright 2004 The Apache Software Foundation
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package xmlobject.checkin;
+
+import com.easypo.XmlCustomerBean;
+import com.easypo.XmlLineItemBean;
+import com.easypo.XmlPurchaseOrderDocumentBean;
+import org.apache.xmlbeans.XmlBeans;
+import org.apache.xmlbeans.XmlObject;
+import org.apache.xmlbeans.XmlOptions;
+import org.apache.xmlbeans.XmlRuntimeException;
+import org.junit.Test;
+import tools.util.JarUtil;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamReader;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import static org.junit.Assert.*;
+
+public class FragmentIteratorTest {
+    private static final String PO_NS = "http://openuri.org/easypo";
+
+    @Test
+    public void testByName() throws Exception {
+        try (InputStream is = JarUtil.getResourceFromJarasStream("xbean/xmlobject/easypo1.xml")) {
+            XMLStreamReader xsr = XMLInputFactory.newFactory().createXMLStreamReader(is);
+            Iterator<XmlObject> it = XmlBeans.parseFragments(xsr, new QName(PO_NS, "line-item"), null, null);
+
+            String[] vols = {"1", "2", "3"};
+            for (String vol : vols) {
+                assertTrue(it.hasNext());
+                XmlLineItemBean item = (XmlLineItemBean) it.next();
+                assertEquals("Burnham's Celestial Handbook, Vol " + vol, item.getDescription());
+                assertEquals(new BigDecimal("5"), item.getPerUnitOunces());
+                assertTrue(item.validate());
+            }
+            assertFalse(it.hasNext());
+
+            try {
+                it.next();
+                fail();
+            } catch (NoSuchElementException e) {
+            }
+        }
+    }
+
+    @Test
+    public void testByPath() throws Exception {
+        try (InputStream is = JarUtil.getResourceFromJarasStream("xbean/xmlobject/easypo1.xml")) {
+            XMLStreamReader xsr = XMLInputFactory.newFactory().createXMLStreamReader(is);
+            QName[] path = {new QName(PO_NS, "purchase-order"), new QName(PO_NS, "customer")};
+            Iterator<XmlObject> it = XmlBeans.parseFragments(xsr, path, null, null);
+
+            XmlCustomerBean customer = (XmlCustomerBean) it.next();
+            assertEquals("David Bau", customer.getName());
+            assertEquals("Gladwyne, PA", customer.getAddress());
+            assertFalse(it.hasNext());
+        }
+    }
+
+    @Test
+    public void testInheritedNamespaces() throws Exception {
+        String doc =
+            "<feed xmlns:po='" + PO_NS + "' xmlns:xsi='http://www.w3.org/2001/XMLSchema-instance'>" +
+            "<batch><po:purchase-order>" +
+            "<po:customer><po:name>a</po:name><po:address>b</po:address></po:customer>" +
+            "<po:date>2002-09-30T14:16:00-05:00</po:date>" +
+            "</po:purchase-order></batch>" +
+            "<batch><po:purchase-order>" +
+            "<po:customer><po:name>c</po:name><po:address>d</po:address></po:customer>" +
+            "<po:date>2003-09-30T14:16:00-05:00</po:date>" +
+            "</po:purchase-order></batch>" +
+            "</feed>";
+
+        XMLStreamReader xsr = XMLInputFactory.newFactory().createXMLStreamReader(new StringReader(doc));
+        Iterator<XmlObject> it = XmlBeans.parseFragments(xsr, new QName(PO_NS, "purchase-order"), null, null);
+
+        XmlPurchaseOrderDocumentBean.PurchaseOrder po = (XmlPurchaseOrderDocumentBean.PurchaseOrder) it.next();
+        assertEquals("a", po.getCustomer().getName());
+        assertTrue(po.validate());
+
+        // the fragment can be reparsed on its own
+        XmlPurchaseOrderDocumentBean reparsed =
+            XmlPurchaseOrderDocumentBean.Factory.parse(po.xmlText(new XmlOptions().setSaveOuter()));
+        assertEquals("a", reparsed.getPurchaseOrder().getCustomer().getName());
+
+        po = (XmlPurchaseOrderDocumentBean.PurchaseOrder) it.next();
+        assertEquals("c", po.getCustomer().getName());
+        assertFalse(it.hasNext());
+    }
+
+    @Test(expected = XmlRuntimeException.class)
+    public void testNotWellFormed() throws Exception {
+        String doc = "<po:purchase-order xmlns:po='" + PO_NS + "'><po:customer></po:purchase-order>";
+        XMLStreamReader xsr = XMLInputFactory.newFactory().createXMLStreamReader(new StringReader(doc));
+        Iterator<XmlObject> it = XmlBeans.parseFragments(xsr, new QName(PO_NS, "customer"), null, null);
+        it.next();
+    }
+}
@@ -0,0 +1,142 @@
+/*   Copyright 2004 The Apache Software Foundation
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package xmlobject.checkin;
+
+import com.easypo.XmlCustomerBean;
+import com.easypo.XmlLineItemBean;
+import com.easypo.XmlPurchaseOrderDocumentBean;
+import com.easypo.XmlPurchaseOrderDocumentBean.PurchaseOrder;
+import org.apache.xmlbeans.XmlBeans;
+import org.apache.xmlbeans.XmlFragmentWriter;
+import org.apache.xmlbeans.XmlObject;
+import org.junit.Test;
+import tools.util.JarUtil;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Calendar;
+import java.util.Iterator;
+
+import static org.junit.Assert.*;
+
+public class FragmentWriterTest {
+    private static final String PO_NS = "http://openuri.org/easypo";
+
+    @Test
+    public void testGeneratedBeans() throws Exception {
+        StringWriter sw = new StringWriter();
+        XMLStreamWriter xsw = XMLOutputFactory.newFactory().createXMLStreamWriter(sw);
+        xsw.writeStartDocument();
+
+        XmlFragmentWriter w = XmlBeans.newFragmentWriter(xsw, null);
+        w.writeStartElement(new QName(PO_NS, "purchase-order", "po"));
+
+        XmlCustomerBean customer = XmlCustomerBean.Factory.newInstance();
+        customer.setName("David Bau");
+        customer.setAddress("Gladwyne, PA");
+        customer.setAge(32);
+        w.write(new QName(PO_NS, "customer"), customer);
+
+        XmlObject date = XmlObject.Factory.parse(
+            "<po:date xmlns:po='" + PO_NS + "'>2003-01-07T14:16:00-05:00</po:date>");
+        w.write(date);
+
+        for (int i = 0; i < 100; i++) {
+            XmlLineItemBean item = XmlLineItemBean.Factory.newInstance();
+            item.setDescription("item " + i);
+            item.setPerUnitOunces(new BigDecimal("5"));
+            item.setPrice(new BigDecimal(i));
+            item.setQuantity(BigInteger.ONE);
+            w.write(new QName(PO_NS, "line-item"), item);
+        }
+        w.close();
+        xsw.writeEndDocument();
+        xsw.close();
+
+        String xml = sw.toString();
+        // the fragments use the namespace of the enclosing element
+        assertEquals(xml, xml.indexOf("xmlns"), xml.lastIndexOf("xmlns"));
+
+        PurchaseOrder po = XmlPurchaseOrderDocumentBean.Factory.parse(xml).getPurchaseOrder();
+        assertTrue(po.validate());
+        assertEquals("David Bau", po.getCustomer().getName());
+        assertEquals(32, po.getCustomer().getAge());
+        assertEquals(2003, po.getDate().get(Calendar.YEAR));
+        assertEquals(100, po.sizeOfLineItemArray());
+        assertEquals("item 99", po.getLineItemArray(99).getDescription());
+    }
+
+    @Test
+    public void testCopyFragments() throws Exception {
+        StringWriter sw = new StringWriter();
+        XMLStreamWriter xsw = XMLOutputFactory.newFactory().createXMLStreamWriter(sw);
+        XmlFragmentWriter w = XmlBeans.newFragmentWriter(xsw, null);
+        // the default namespace of the enclosing element doesn't apply to unqualified elements
+        w.writeStartElement(new QName("urn:feed", "feed"));
+        w.write(XmlObject.Factory.parse("<entry a='1'><title>t</title></entry>"));
+
+        try (InputStream is = JarUtil.getResourceFromJarasStream("xbean/xmlobject/easypo1.xml")) {
+            XMLStreamReader xsr = XMLInputFactory.newFactory().createXMLStreamReader(is);
+            Iterator<XmlObject> it = XmlBeans.parseFragments(xsr, new QName(PO_NS, "line-item"), null, null);
+            while (it.hasNext()) {
+                w.write(it.next());
+            }
+        }
+        w.close();
+
+        XmlObject feed = XmlObject.Factory.parse(sw.toString());
+        String ns = "declare namespace f='urn:feed' declare namespace po='" + PO_NS + "' ";
+        assertEquals(1, feed.selectPath(ns + "$this/f:feed/entry[@a='1']/title").length);
+        XmlObject[] items = feed.selectPath(ns + "$this/f:feed/po:line-item");
+        assertEquals(3, items.length);
+        assertEquals("Burnham's Celestial Handbook, Vol 3",
+            ((XmlLineItemBean) XmlLineItemBean.Factory.parse(items[2].xmlText()).changeType(XmlLineItemBean.type))
+                .getDescription());
+    }
+
+    @Test
+    public void testNesting() throws Exception {
+        StringWriter sw = new StringWriter();
+        XmlFragmentWriter w = XmlBeans.newFragmentWriter(XMLOutputFactory.newFactory().createXMLStreamWriter(sw), null);
+
+        try {
+            w.writeEndElement();
+            fail();
+        } catch (IllegalStateException e) {
+        }
+
+        w.writeStartElement(new QName("a"));
+        w.writeStartElement(new QName("urn:b", "b", "b"));
+        w.write(new QName("urn:b", "c"), XmlObject.Factory.parse("<xml-fragment>x</xml-fragment>"));
+        w.writeEndElement();
+        w.writeStartElement(new QName("urn:b", "b", "b"));
+        w.close();
+
+        assertEquals("<a><b:b xmlns:b=\"urn:b\"><b:c>x</b:c></b:b><b:b xmlns:b=\"urn:b\"></b:b></a>", sw.toString());
+
+        try {
+            w.write(XmlObject.Factory.newInstance());
+            fail();
+        } catch (IllegalStateException e) {
+        }
+    }
+}
@@ -0,0 +1,250 @@
+/*   Copyright 2004 The Apache Software Foundation
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package xmlobject.checkin;
+
+import com.easypo.XmlPurchaseOrderDocumentBean;
+import com.easypo.XmlPurchaseOrderDocumentBean.PurchaseOrder;
+import org.apache.xmlbeans.XmlBeans;
+import org.apache.xmlbeans.XmlCursor;
+import org.apache.xmlbeans.XmlObject;
+import org.apache.xmlbeans.XmlOptions;
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Node;
+import tools.util.JarUtil;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+public class FrozenDocumentTest {
+    private static XmlPurchaseOrderDocumentBean parseFrozen() throws Exception {
+        return XmlPurchaseOrderDocumentBean.Factory.parse(
+            JarUtil.getResourceFromJarasFile("xbean/xmlobject/easypo1.xml"),
+            new XmlOptions().setLoadFrozen());
+    }
+
+    @Test
+    public void testConcurrentReads() throws Exception {
+        XmlPurchaseOrderDocumentBean doc = parseFrozen();
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            // readers don't share a monitor
+            assertNotSame(doc.monitor(), pool.submit(doc::monitor).get());
+
+            List<Future<BigDecimal>> results = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                results.add(pool.submit(() -> {
+                    BigDecimal sum = BigDecimal.ZERO;
+                    for (int j = 0; j < 100; j++) {
+                        PurchaseOrder order = doc.getPurchaseOrder();
+                        assertEquals("David Bau", order.getCustomer().getName());
+                        assertEquals(3, order.sizeOfLineItemArray());
+                        assertEquals(1, order.selectPath("declare namespace po='http://openuri.org/easypo' po:shipper").length);
+                        sum = order.getLineItemArray(2).getPrice();
+                    }
+                    return sum;
+                }));
+            }
+            for (Future<BigDecimal> f : results) {
+                assertEquals(new BigDecimal("19.89"), f.get());
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        assertTrue(doc.validate());
+    }
+
+    @Test
+    public void testModificationsFail() throws Exception {
+        XmlPurchaseOrderDocumentBean doc = parseFrozen();
+        PurchaseOrder order = doc.getPurchaseOrder();
+
+        try {
+            order.getCustomer().setName("Someone else");
+            fail();
+        } catch (IllegalStateException e) {
+        }
+
+        try {
+            order.addNewLineItem();
+            fail();
+        } catch (IllegalStateException e) {
+        }
+
+        try {
+            order.removeLineItem(0);
+            fail();
+        } catch (IllegalStateException e) {
+        }
+
+        XmlCursor c = order.newCursor();
+        try {
+            c.toFirstChild();
+            c.insertElement("foo");
+            fail();
+        } catch (IllegalStateException e) {
+        } finally {
+            c.dispose();
+        }
+
+        try {
+            order.getDomNode().appendChild(((Document) doc.getDomNode()).createElement("foo"));
+            fail();
+        } catch (IllegalStateException e) {
+        }
+
+        assertEquals("David Bau", order.getCustomer().getName());
+        assertEquals(3, order.sizeOfLineItemArray());
+    }
+
+    @Test
+    public void testCopyIsModifiable() throws Exception {
+        XmlPurchaseOrderDocumentBean doc = parseFrozen();
+
+        XmlPurchaseOrderDocumentBean copy = (XmlPurchaseOrderDocumentBean) doc.copy();
+        copy.getPurchaseOrder().getCustomer().setName("Someone else");
+
+        assertEquals("Someone else", copy.getPurchaseOrder().getCustomer().getName());
+        assertEquals("David Bau", doc.getPurchaseOrder().getCustomer().getName());
+
+        // setting a frozen value into a modifiable document
+        copy.getPurchaseOrder().setCustomer(doc.getPurchaseOrder().getCustomer());
+        assertEquals("David Bau", copy.getPurchaseOrder().getCustomer().getName());
+    }
+
+    @Test
+    public void testCopiesShareTheFrozenDocument() throws Exception {
+        XmlPurchaseOrderDocumentBean doc = parseFrozen();
+        String text = doc.xmlText();
+
+        XmlPurchaseOrderDocumentBean copy1 = (XmlPurchaseOrderDocumentBean) doc.copy();
+        XmlPurchaseOrderDocumentBean copy2 = (XmlPurchaseOrderDocumentBean) doc.copy();
+
+        // the copies only copy the accessed nodes
+        copy1.getPurchaseOrder().getLineItemArray(1).setDescription("changed");
+        copy2.getPurchaseOrder().removeLineItem(0);
+        assertEquals("changed", copy1.getPurchaseOrder().getLineItemArray(1).getDescription());
+        assertEquals(2, copy2.getPurchaseOrder().sizeOfLineItemArray());
+
+        assertEquals(text, doc.xmlText());
+        assertEquals(text.replace("Burnham's Celestial Handbook, Vol 2", "XX"),
+            copy1.xmlText().replace("changed", "XX"));
+        assertTrue(copy1.validate());
+        assertTrue(copy2.validate());
+
+        // copies of copies, DOM and cursors on untouched nodes
+        XmlPurchaseOrderDocumentBean copy3 = (XmlPurchaseOrderDocumentBean) copy1.copy();
+        assertEquals(copy1.xmlText(), copy3.xmlText());
+        Document dom = (Document) doc.copy().getDomNode();
+        assertEquals("David Bau", dom.getDocumentElement()
+            .getElementsByTagNameNS("http://openuri.org/easypo", "name").item(0).getFirstChild().getNodeValue());
+
+        XmlCursor c = doc.copy().newCursor();
+        try {
+            c.toFirstChild();
+            c.toLastChild();
+            assertEquals("shipper", c.getName().getLocalPart());
+            c.toFirstChild();
+            c.setTextValue("FedEx");
+            assertEquals("FedEx", c.getTextValue());
+        } finally {
+            c.dispose();
+        }
+        assertEquals(text, doc.xmlText());
+    }
+
+    @Test
+    public void testNavigateUnexpandedCopies() throws Exception {
+        XmlPurchaseOrderDocumentBean doc = parseFrozen();
+        String text = doc.xmlText();
+
+        // each check starts on a fresh copy, whose children are all still shared
+        assertEquals(tokens(doc), tokens(doc.copy()));
+        assertEquals(text, doc.copy().xmlText(new XmlOptions().setSaveParallelism(2)));
+        assertEquals(dom(doc.getDomNode()), dom(doc.copy().getDomNode()));
+        assertEquals(1, doc.copy().selectPath("declare namespace po='http://openuri.org/easypo' .//po:shipper").length);
+
+        XmlCursor c = doc.copy().newCursor();
+        XmlObject target = XmlObject.Factory.parse("<target/>");
+        XmlCursor t = target.newCursor();
+        try {
+            c.toFirstChild();
+            t.toFirstChild();
+            t.toEndToken();
+            assertTrue(c.moveXmlContents(t));
+            assertFalse(c.toFirstChild());
+            assertTrue(target.xmlText().contains("David Bau"));
+            assertTrue(target.xmlText().contains("Burnham's Celestial Handbook, Vol 2"));
+        } finally {
+            c.dispose();
+            t.dispose();
+        }
+
+        assertEquals(text, doc.xmlText());
+    }
+
+    private static String dom(Node n) {
+        StringBuilder sb = new StringBuilder(n.getNodeName()).append('=').append(n.getNodeValue()).append('(');
+        for (Node child = n.getFirstChild(); child != null; child = child.getNextSibling()) {
+            sb.append(dom(child));
+        }
+        return sb.append(')').toString();
+    }
+
+    private static int tokens(XmlObject o) {
+        XmlCursor c = o.newCursor();
+        try {
+            int n = 0;
+            while (c.toNextToken() != XmlCursor.TokenType.NONE) {
+                n++;
+            }
+            return n;
+        } finally {
+            c.dispose();
+        }
+    }
+
+    @Test
+    public void testFreezeAfterLoad() throws Exception {
+        XmlObject doc = XmlObject.Factory.parse("<a><b>text</b></a>");
+        XmlBeans.freeze(doc);
+
+        XmlCursor c = doc.newCursor();
+        try {
+            c.toFirstChild();
+            c.toFirstChild();
+            assertEquals("text", c.getTextValue());
+            c.setTextValue("other");
+            fail();
+        } catch (IllegalStateException e) {
+        } finally {
+            c.dispose();
+        }
+
+        try {
+            XmlObject.Factory.newInstance(new XmlOptions().setUseSameLocale(doc));
+            fail();
+        } catch (IllegalArgumentException e) {
+        }
+    }
+}
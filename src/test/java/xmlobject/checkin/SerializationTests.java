@@ -29,11 +29,19 @@ import tools.util.JarUtil;
 import java.io.*;
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 public class SerializationTests {
     @Test
@@ -149,4 +157,125 @@ public class SerializationTests {
 
         XmlObject.Factory.parse(reader);
     }
+
+    @Test
+    public void testUtf8SaverMatchesWriter() throws Exception {
+        String doc =
+            "<a xmlns='urn:a' x='&lt;&amp;&quot;\u00e9'>" +
+            "<b>1 &lt; 2 &amp;&amp; caf\u00e9 \u20ac \ud834\udd1e</b>" +
+            "<!-- a comment \u00e9 --><?pi data\u00e9?>" +
+            "<b xmlns='urn:b'>" + repeat("\u00e9x", 5000) + "</b>" +
+            "</a>";
+
+        for (boolean compact : new boolean[]{false, true}) {
+            XmlObject xo = XmlObject.Factory.parse(doc, new XmlOptions().setLoadCompactText(compact));
+            XmlOptions options = new XmlOptions().setSaveDirectUtf8(true);
+
+            StringWriter w = new StringWriter();
+            xo.save(w, new XmlOptions().setSaveOptimizeForSpeed(true));
+            byte[] expected = ("<?xml version=\"1.0\" encoding=\"UTF-8\"?>" +
+                System.getProperty("line.separator") + w).getBytes(StandardCharsets.UTF_8);
+
+            ByteArrayOutputStream os = new ByteArrayOutputStream();
+            xo.save(os, options);
+            assertArrayEquals(expected, os.toByteArray());
+
+            os = new ByteArrayOutputStream();
+            xo.save(os, new XmlOptions(options).setSaveNoXmlDecl());
+            assertArrayEquals(w.toString().getBytes(StandardCharsets.UTF_8), os.toByteArray());
+        }
+    }
+
+    @Test
+    public void testOptimizeForSpeedKeepsStreamOptions() throws Exception {
+        XmlObject xo = XmlObject.Factory.parse("<a xmlns='urn:a'><b>text</b></a>");
+        XmlOptions pretty = new XmlOptions().setSavePrettyPrint().setSaveAggressiveNamespaces();
+
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        xo.save(expected, pretty);
+
+        // the speed option only applies to writers
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        xo.save(os, new XmlOptions(pretty).setSaveOptimizeForSpeed(true));
+        assertArrayEquals(expected.toByteArray(), os.toByteArray());
+    }
+
+    @Test
+    public void testChannels() throws Exception {
+        XmlObject xo = XmlObject.Factory.parse(JarUtil.getResourceFromJarasFile("xbean/xmlobject/easypo1.xml"));
+        XmlOptions options = new XmlOptions().setSavePrettyPrint().setCharacterEncoding("ISO-8859-1");
+
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        xo.save(os, options);
+        byte[] expected = os.toByteArray();
+
+        os = new ByteArrayOutputStream();
+        xo.save(Channels.newChannel(os), options);
+        assertArrayEquals(expected, os.toByteArray());
+
+        // pulled through a small direct buffer
+        os = new ByteArrayOutputStream();
+        ByteBuffer buf = ByteBuffer.allocateDirect(7);
+        ReadableByteChannel channel = xo.newReadableByteChannel(options);
+        while (channel.read(buf) >= 0) {
+            buf.flip();
+            while (buf.hasRemaining()) {
+                os.write(buf.get());
+            }
+            buf.clear();
+        }
+        assertArrayEquals(expected, os.toByteArray());
+
+        channel.close();
+        assertFalse(channel.isOpen());
+        try {
+            channel.read(buf);
+            fail();
+        } catch (ClosedChannelException e) {
+        }
+    }
+
+    @Test
+    public void testParallelSaveMatchesSequential() throws Exception {
+        StringBuilder children = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            children.append("<p:item n='").append(i).append("'>caf\u00e9 ").append(i)
+                .append("<c xmlns='urn:c'><d/></c></p:item>\n");
+            if (i % 7 == 0) {
+                children.append("<!-- comment ").append(i).append(" --><?pi ").append(i).append("?>");
+            }
+        }
+
+        String[] docs = {
+            "<r xmlns='urn:r' xmlns:p='urn:p' a='1' b='2'>leading " + children + "trailing</r>",
+            "<r xmlns:p='urn:p'>\n" + children + "</r>",
+            "<r xmlns:p='urn:p'><p:item/></r>"
+        };
+
+        for (String doc : docs) {
+            XmlObject xo = XmlObject.Factory.parse(doc, new XmlOptions().setLoadFrozen(true));
+            XmlOptions options = new XmlOptions().setSaveOptimizeForSpeed(true).setSaveDirectUtf8(true);
+            XmlOptions parallel = new XmlOptions(options).setSaveParallelism(4);
+
+            StringWriter expected = new StringWriter();
+            xo.save(expected, options);
+            StringWriter w = new StringWriter();
+            xo.save(w, parallel);
+            assertEquals(expected.toString(), w.toString());
+
+            ByteArrayOutputStream expectedBytes = new ByteArrayOutputStream();
+            xo.save(expectedBytes, options);
+            ByteArrayOutputStream os = new ByteArrayOutputStream();
+            xo.save(os, parallel);
+            assertArrayEquals(expectedBytes.toByteArray(), os.toByteArray());
+        }
+    }
+
+    private static String repeat(String s, int n) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < n; i++) {
+            sb.append(s);
+        }
+        return sb.toString();
+    }
 }